@@ -0,0 +1,118 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Arrays;
+import java.util.Date;
+import javax.annotation.Nullable;
+
+/**
+ * Base class of the {@link RowCursor} implementations: the subclasses decode each row through
+ * {@link #startRow(int)} and {@link #set(int, Object)}, this class provides the typed accessors.
+ *
+ * @author Foroni Marco
+ * @see RowCursor
+ */
+abstract class AbstractRowCursor implements RowCursor {
+  private static final int INITIAL_CAPACITY = 16;
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private int size;
+  private int rowIndex = -1;
+
+  /**
+   * Empties the current row and moves it to the specified index.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   */
+  final void startRow(final int rowIndex) {
+    Arrays.fill(values, 0, size, null);
+    this.size = 0;
+    this.rowIndex = rowIndex;
+  }
+
+  /**
+   * Sets a cell of the current row: <tt>null</tt> values are ignored.
+   *
+   * @param columnIndex index of the column (starting from 0)
+   * @param value the value of the cell
+   */
+  final void set(final int columnIndex, @Nullable final Object value) {
+    if (value == null) {
+      return;
+    }
+    if (columnIndex >= values.length) {
+      values = Arrays.copyOf(values, Math.max(columnIndex + 1, values.length * 2));
+    }
+    values[columnIndex] = value;
+    if (columnIndex >= size) {
+      size = columnIndex + 1;
+    }
+  }
+
+  @Override
+  public int getRowIndex() {
+    return rowIndex;
+  }
+
+  @Override
+  public int getLastColumn() {
+    return size;
+  }
+
+  @Override
+  public Object getObject(final int columnIndex) {
+    return columnIndex < size ? values[columnIndex] : null;
+  }
+
+  @Override
+  public String getString(final int columnIndex) {
+    final Object value = getObject(columnIndex);
+    if (value == null || value instanceof String) {
+      return (String) value;
+    }
+    throw AbstractSheet.typeMismatch("string", rowIndex, columnIndex, value);
+  }
+
+  /**
+   * Returns the value of the specified cell as double: numeric values not having type
+   * {@link Double}, e.g. the {@code BigDecimal} values of the <i>ods</i> files, are converted.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public Double getDouble(final int columnIndex) {
+    final Object value = getObject(columnIndex);
+    if (value == null || value instanceof Double) {
+      return (Double) value;
+    } else if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    throw AbstractSheet.typeMismatch("double", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Date getDate(final int columnIndex) {
+    final Object value = getObject(columnIndex);
+    if (value == null || value instanceof Date) {
+      return (Date) value;
+    }
+    throw AbstractSheet.typeMismatch("date", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Boolean getBoolean(final int columnIndex) {
+    final Object value = getObject(columnIndex);
+    if (value == null || value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw AbstractSheet.typeMismatch("boolean", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Object[] getRow() {
+    return Arrays.copyOf(values, size);
+  }
+
+  @Override
+  public void close() {
+    // nothing to release
+  }
+}
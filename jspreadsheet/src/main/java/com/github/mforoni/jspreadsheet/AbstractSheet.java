@@ -1,5 +1,6 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.util.BitSet;
 import java.util.Date;
 import javax.annotation.Nullable;
 import org.joda.time.DateTime;
@@ -20,6 +21,69 @@ abstract class AbstractSheet implements Sheet {
     return 0;
   }
 
+  /**
+   * Returns a cursor reading the rows through {@link #getLastColumn(int)} and
+   * {@link #getObject(int, int)}: the subclasses should override this method with a cursor on the
+   * native row structures of their API.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    return new AbstractRowCursor() {
+      private final int rows = getRows();
+      private int next;
+
+      @Override
+      public boolean next() {
+        while (next < rows) {
+          final int rowIndex = next++;
+          startRow(rowIndex);
+          final int lastColumn = AbstractSheet.this.getLastColumn(rowIndex);
+          for (int c = 0; c < lastColumn; c++) {
+            set(c, AbstractSheet.this.getObject(rowIndex, c));
+          }
+          if (getLastColumn() > 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+    };
+  }
+
+  @Override
+  public int readDoubleColumn(final int columnIndex, final int fromRow, final int toRow,
+      final double[] values, final BitSet nulls) {
+    final NumericColumn column = NumericColumn.ofDouble(columnIndex, fromRow, toRow, values, nulls);
+    readColumn(column);
+    return column.getCount();
+  }
+
+  @Override
+  public int readLongColumn(final int columnIndex, final int fromRow, final int toRow,
+      final long[] values, final BitSet nulls) {
+    final NumericColumn column = NumericColumn.ofLong(columnIndex, fromRow, toRow, values, nulls);
+    readColumn(column);
+    return column.getCount();
+  }
+
+  /**
+   * Fills the specified column through {@link #getObject(int, int)}: the subclasses should
+   * override this method reading the numeric cells of their API without boxing them.
+   */
+  void readColumn(final NumericColumn column) {
+    final int toRow = Math.min(column.toRow, getRows());
+    for (int r = column.fromRow; r < toRow; r++) {
+      column.putObject(r, getObject(r, column.columnIndex));
+    }
+  }
+
+  static IllegalStateException typeMismatch(final String type, final int rowIndex,
+      final int columnIndex, final Object value) {
+    return new IllegalStateException(
+        String.format("Cannot retrieve a %s value from cell [%d, %d] having type %s", type,
+            rowIndex, columnIndex, value.getClass().getSimpleName()));
+  }
+
   @Override
   public Object[] getRow(final int rowIndex, final int fromColumn, final int toColumn) {
     final int size = toColumn - fromColumn + 1;
@@ -0,0 +1,96 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import com.google.common.io.CountingOutputStream;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Writes an editable spreadsheet on an executor. The mutations of the spreadsheet and of its
+ * sheets are refused through its {@link EditState} from the submission of the write to its
+ * completion, so that the serialization runs on a stable workbook. The reads are not checked, the
+ * callers must not access the spreadsheet until the write is completed.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#writeAsync(Spreadsheet, OutputStream, Executor)
+ */
+final class AsyncWriter {
+
+  private AsyncWriter() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Submits the write of the spreadsheet to the specified stream, or to the file of the spreadsheet
+   * if {@code out} is <tt>null</tt>, on the given executor.
+   *
+   * @throws IllegalArgumentException if the spreadsheet does not support the asynchronous write
+   * @throws IllegalStateException if the spreadsheet is read-only, is already being written or has
+   *         no file to be written to
+   */
+  static ListenableFuture<WriteReport> submit(final Spreadsheet spreadsheet,
+      @Nullable final OutputStream out, final Executor executor) {
+    if (!(spreadsheet instanceof EditableSpreadsheet)) {
+      throw new IllegalArgumentException(
+          String.format("Spreadsheet %s does not support the asynchronous write",
+              spreadsheet.getClass().getSimpleName()));
+    }
+    final File file = spreadsheet.getFile();
+    if (out == null && file == null) {
+      throw new IllegalStateException(Spreadsheets.NO_FILE_MESSAGE);
+    }
+    final EditState state = ((EditableSpreadsheet) spreadsheet).getEditState();
+    state.beginWrite();
+    final ListenableFutureTask<WriteReport> task =
+        ListenableFutureTask.create(new Callable<WriteReport>() {
+          @Override
+          public WriteReport call() throws IOException {
+            state.startWrite();
+            try {
+              final long start = System.nanoTime();
+              final long bytes;
+              if (out != null) {
+                bytes = write(spreadsheet, out);
+              } else {
+                try (final OutputStream fos = new FileOutputStream(file)) {
+                  bytes = write(spreadsheet, fos);
+                }
+              }
+              return new WriteReport(bytes, System.nanoTime() - start);
+            } finally {
+              state.endWrite();
+            }
+          }
+        });
+    task.addListener(new Runnable() {
+      @Override
+      public void run() {
+        if (task.isCancelled()) {
+          // a write cancelled before being started never runs its own cleanup
+          state.cancelWrite();
+        }
+      }
+    }, MoreExecutors.directExecutor());
+    try {
+      executor.execute(task);
+    } catch (final RuntimeException ex) {
+      state.endWrite();
+      throw ex;
+    }
+    return task;
+  }
+
+  private static long write(final Spreadsheet spreadsheet, final OutputStream out)
+      throws IOException {
+    final CountingOutputStream counting = new CountingOutputStream(out);
+    spreadsheet.write(counting);
+    return counting.getCount();
+  }
+}
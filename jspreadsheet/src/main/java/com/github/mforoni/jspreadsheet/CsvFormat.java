@@ -0,0 +1,122 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.util.Objects;
+import javax.annotation.concurrent.Immutable;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+
+/**
+ * The settings of the delimited text files handled by {@link Spreadsheets.API#CSV}: the field
+ * delimiter, the quote character and whether the sheets keep an index of the row offsets. The files
+ * are always encoded in UTF-8, so the delimiter and the quote must be ASCII characters.
+ * <p>
+ * When the row index is enabled, the first access needing the dimension of the sheet or a row
+ * placed before the current one records the offset of each line, so that any row can then be read
+ * without scanning the lines before it. The index takes 8 bytes per row.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#openCsv(File, CsvFormat)
+ * @see Spreadsheets#createCsv(File, CsvFormat)
+ */
+@Beta
+@Immutable
+public final class CsvFormat {
+  /**
+   * Comma separated values, quoted by double quotes.
+   */
+  public static final CsvFormat CSV = new Builder(',').build();
+  /**
+   * Tab separated values, quoted by double quotes.
+   */
+  public static final CsvFormat TSV = new Builder('\t').build();
+  private final char delimiter;
+  private final char quote;
+  private final boolean indexed;
+
+  private CsvFormat(final Builder builder) {
+    this.delimiter = builder.delimiter;
+    this.quote = builder.quote;
+    this.indexed = builder.indexed;
+  }
+
+  public static class Builder {
+    private final char delimiter;
+    private char quote = '"';
+    private boolean indexed;
+
+    public Builder(final char delimiter) {
+      checkCharacter(delimiter);
+      Preconditions.checkArgument(delimiter != quote,
+          "The delimiter must differ from the default quote character %s", quote);
+      this.delimiter = delimiter;
+    }
+
+    public Builder quote(final char quote) {
+      checkCharacter(quote);
+      Preconditions.checkArgument(quote != delimiter,
+          "The quote character must differ from the delimiter");
+      this.quote = quote;
+      return this;
+    }
+
+    /**
+     * Enables the index of the row offsets.
+     */
+    public Builder indexed() {
+      this.indexed = true;
+      return this;
+    }
+
+    public CsvFormat build() {
+      return new CsvFormat(this);
+    }
+
+    private static void checkCharacter(final char ch) {
+      Preconditions.checkArgument(ch < 0x80 && ch != '\n' && ch != '\r',
+          "Invalid character %s: please specify an ASCII character other than a line break",
+          (int) ch);
+    }
+  }
+
+  /**
+   * Returns {@link #TSV} for the files having extension <tt>tsv</tt>, {@link #CSV} otherwise.
+   */
+  static CsvFormat forFile(final File file) {
+    return "tsv".equalsIgnoreCase(Spreadsheets.getExtension(file)) ? TSV : CSV;
+  }
+
+  public char getDelimiter() {
+    return delimiter;
+  }
+
+  public char getQuote() {
+    return quote;
+  }
+
+  public boolean isIndexed() {
+    return indexed;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(delimiter, quote, indexed);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CsvFormat)) {
+      return false;
+    }
+    final CsvFormat other = (CsvFormat) obj;
+    return delimiter == other.delimiter && quote == other.quote && indexed == other.indexed;
+  }
+
+  @Override
+  public String toString() {
+    return "CsvFormat [delimiter=" + delimiter + ", quote=" + quote + ", indexed=" + indexed + "]";
+  }
+}
@@ -0,0 +1,407 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * Read-only sheet of a delimited text file. The file is read in chunks through positional reads of
+ * the {@link FileChannel} shared by the {@link CsvSpreadsheet}: the lines are found scanning the
+ * bytes for the line breaks not enclosed in quotes, and a line is split into its fields only when
+ * its row is decoded. Computing the dimension of the sheet scans the lines without decoding them.
+ * <p>
+ * The cells hold the text of the fields, an empty field being a blank cell: {@link #getObject(int,
+ * int)} always returns {@link String} values, while {@link #getDouble(int, int)},
+ * {@link #getDate(int, int)} and {@link #getBoolean(int, int)} parse the text, accepting the
+ * formats written by {@link CsvWriter}. The numbers must be plain decimals, optionally with an
+ * exponent: Java literals like <tt>12f</tt>, <tt>0x1p3</tt> or <tt>NaN</tt> are not numbers.
+ * <p>
+ * When the {@link CsvFormat} enables the row index, the offset of each line is recorded by the
+ * first scan of the file and the random access methods jump straight to the requested row.
+ *
+ * @author Foroni Marco
+ * @see CsvSpreadsheet
+ * @see CsvFormat
+ */
+final class CsvSheet extends StreamingSheet {
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+  private static final Pattern NUMBER =
+      Pattern.compile("[+-]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?");
+  private final FileChannel channel;
+  private final byte delimiter;
+  private final byte quote;
+  private final boolean indexed;
+  private final long dataOffset;
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat(CsvWriter.DATE_PATTERN);
+  private final SimpleDateFormat dateTimeFormat =
+      new SimpleDateFormat(CsvWriter.DATE_TIME_PATTERN);
+  private SheetDimension dimension;
+  private long[] rowOffsets;
+
+  CsvSheet(final String name, final FileChannel channel, final CsvFormat format)
+      throws IOException {
+    super(name);
+    this.channel = channel;
+    this.delimiter = (byte) format.getDelimiter();
+    this.quote = (byte) format.getQuote();
+    this.indexed = format.isIndexed();
+    final ByteBuffer head = ByteBuffer.allocate(BOM.length);
+    while (head.hasRemaining() && channel.read(head, head.position()) > 0) {
+      // reads the byte order mark, if any
+    }
+    this.dataOffset = Arrays.equals(BOM, head.array()) ? BOM.length : 0;
+    dateFormat.setLenient(false);
+    dateTimeFormat.setLenient(false);
+  }
+
+  @Override
+  RowReader openRowReader() throws IOException {
+    return new CsvRowReader(dataOffset, 0);
+  }
+
+  /**
+   * Uses the row index, if enabled, to position the reader right before the requested row.
+   */
+  @Override
+  RowReader openRowReader(final int rowIndex) throws IOException {
+    if (!indexed || rowIndex == 0) {
+      return openRowReader();
+    }
+    final int rows = scan().getRows();
+    return rowIndex < rows ? new CsvRowReader(rowOffsets[rowIndex], rowIndex)
+        : new CsvRowReader(channel.size(), rows);
+  }
+
+  @Override
+  boolean isSeekable() {
+    return indexed;
+  }
+
+  @Override
+  SheetDimension readDimension() throws IOException {
+    return scan();
+  }
+
+  /**
+   * Scans all the lines of the file, without decoding them, to compute the dimension of the sheet
+   * and, if enabled, the row index.
+   */
+  private SheetDimension scan() throws IOException {
+    if (dimension == null) {
+      final LineReader lines = new LineReader(dataOffset);
+      long[] offsets = indexed ? new long[1024] : null;
+      int rows = 0;
+      int columns = 0;
+      int lastRow = 0;
+      while (lines.readLine()) {
+        if (offsets != null) {
+          if (rows == offsets.length) {
+            offsets = Arrays.copyOf(offsets, rows * 2);
+          }
+          offsets[rows] = lines.lineOffset;
+        }
+        final int lastColumn = getLastColumn(lines.line, lines.length);
+        if (lastColumn > 0) {
+          lastRow = rows + 1;
+          columns = Math.max(columns, lastColumn);
+        }
+        rows++;
+      }
+      rowOffsets = offsets;
+      dimension = new SheetDimension(rows, columns, lastRow);
+    }
+    return dimension;
+  }
+
+  /**
+   * Returns the index of the last non empty field of the specified line plus one.
+   */
+  private int getLastColumn(final byte[] line, final int length) {
+    int lastColumn = 0;
+    int column = 0;
+    int i = 0;
+    while (i <= length) {
+      final int start = i;
+      // as in CsvRowReader.split, only a quote starting the field encloses it
+      if (i < length && line[i] == quote) {
+        i++;
+        while (i < length) {
+          if (line[i] == quote) {
+            if (i + 1 < length && line[i + 1] == quote) {
+              i++;
+            } else {
+              i++;
+              break;
+            }
+          }
+          i++;
+        }
+      }
+      while (i < length && line[i] != delimiter) {
+        i++;
+      }
+      column++;
+      if (i > start) {
+        lastColumn = column;
+      }
+      i++;
+    }
+    return lastColumn;
+  }
+
+  @Override
+  String formatRawValue(final RowBuffer row, final int columnIndex) {
+    final Object value = row.getValue(columnIndex);
+    return value != null ? (String) value : "";
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    final String value = getString(rowIndex, columnIndex);
+    if (value == null) {
+      return null;
+    }
+    final Double number = parseDouble(value);
+    if (number == null) {
+      throw typeMismatch("double", rowIndex, columnIndex, value);
+    }
+    return number;
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    final String value = getString(rowIndex, columnIndex);
+    if (value == null) {
+      return null;
+    }
+    final String text = value.trim();
+    Date date = parseDate(dateTimeFormat, text);
+    if (date == null) {
+      date = parseDate(dateFormat, text);
+    }
+    if (date == null) {
+      throw typeMismatch("date", rowIndex, columnIndex, value);
+    }
+    return date;
+  }
+
+  @Nullable
+  private static Date parseDate(final SimpleDateFormat format, final String text) {
+    final ParsePosition position = new ParsePosition(0);
+    final Date date = format.parse(text, position);
+    return date != null && position.getIndex() == text.length() ? date : null;
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    final String value = getString(rowIndex, columnIndex);
+    if (value == null) {
+      return null;
+    }
+    final String text = value.trim();
+    if ("true".equalsIgnoreCase(text)) {
+      return Boolean.TRUE;
+    } else if ("false".equalsIgnoreCase(text)) {
+      return Boolean.FALSE;
+    }
+    throw typeMismatch("boolean", rowIndex, columnIndex, value);
+  }
+
+  /**
+   * Parses the fields of the column reading the rows of the range with a dedicated reader.
+   */
+  @Override
+  void readColumn(final NumericColumn column) {
+    try (final RowReader reader = openRowReader(column.fromRow)) {
+      final RowBuffer row = new RowBuffer();
+      while (reader.next(row) && row.getRowIndex() < column.toRow) {
+        final String value = (String) row.getValue(column.columnIndex);
+        if (row.getRowIndex() >= column.fromRow && value != null) {
+          final Double number = parseDouble(value);
+          column.putObject(row.getRowIndex(), number != null ? number : value);
+        }
+      }
+    } catch (final IOException ex) {
+      throw new IllegalStateException("Error while reading sheet " + getName(), ex);
+    }
+  }
+
+  @Nullable
+  private static Double parseDouble(final String value) {
+    final String text = value.trim();
+    return NUMBER.matcher(text).matches() ? Double.valueOf(text) : null;
+  }
+
+  /**
+   * Reads the lines of the file starting from the specified offset, in chunks of
+   * {@value #CHUNK_SIZE} bytes.
+   */
+  private final class LineReader {
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private final ByteBuffer chunkBuffer = ByteBuffer.wrap(chunk);
+    private long chunkOffset;
+    private int position;
+    private int limit;
+    private boolean eof;
+    private byte[] line = new byte[256];
+    private int length;
+    private long lineOffset;
+
+    LineReader(final long offset) {
+      this.chunkOffset = offset;
+    }
+
+    /**
+     * Reads the next line into {@link #line}, without the line break.
+     *
+     * @return <tt>false</tt> at the end of the file
+     */
+    boolean readLine() throws IOException {
+      length = 0;
+      lineOffset = chunkOffset + position;
+      // only a quote starting a field opens the quoting, a quote following the closing one is an
+      // escaped quote
+      boolean fieldStart = true;
+      boolean quoted = false;
+      boolean closed = false;
+      boolean read = false;
+      while (true) {
+        if (position == limit && !fill()) {
+          stripCarriageReturn();
+          return read;
+        }
+        final byte b = chunk[position++];
+        read = true;
+        if (b == '\n' && !quoted) {
+          stripCarriageReturn();
+          return true;
+        }
+        if (quoted) {
+          if (b == quote) {
+            quoted = false;
+            closed = true;
+          }
+        } else if (b == quote && (fieldStart || closed)) {
+          quoted = true;
+          closed = false;
+        } else {
+          closed = false;
+        }
+        fieldStart = !quoted && b == delimiter;
+        if (length == line.length) {
+          line = Arrays.copyOf(line, length * 2);
+        }
+        line[length++] = b;
+      }
+    }
+
+    private void stripCarriageReturn() {
+      if (length > 0 && line[length - 1] == '\r') {
+        length--;
+      }
+    }
+
+    private boolean fill() throws IOException {
+      if (eof) {
+        return false;
+      }
+      chunkOffset += limit;
+      chunkBuffer.clear();
+      int read;
+      while ((read = channel.read(chunkBuffer, chunkOffset + chunkBuffer.position())) > 0
+          && chunkBuffer.hasRemaining()) {
+        // fills the chunk
+      }
+      position = 0;
+      limit = chunkBuffer.position();
+      eof = read < 0 || limit == 0;
+      return limit > 0;
+    }
+  }
+
+  /**
+   * Decodes the lines into rows, splitting the fields at the delimiters not enclosed in quotes.
+   */
+  private final class CsvRowReader implements RowReader {
+    private final LineReader lines;
+    private int rowIndex;
+    private byte[] field = new byte[64];
+
+    CsvRowReader(final long offset, final int rowIndex) {
+      this.lines = new LineReader(offset);
+      this.rowIndex = rowIndex;
+    }
+
+    @Override
+    public boolean next(final RowBuffer buffer) throws IOException {
+      if (!lines.readLine()) {
+        return false;
+      }
+      buffer.reset(rowIndex++);
+      split(lines.line, lines.length, buffer);
+      return true;
+    }
+
+    private void split(final byte[] line, final int length, final RowBuffer buffer) {
+      int column = 0;
+      int i = 0;
+      while (i <= length) {
+        String value = null;
+        if (i < length && line[i] == quote) {
+          int size = 0;
+          i++;
+          while (i < length) {
+            if (line[i] == quote) {
+              if (i + 1 < length && line[i + 1] == quote) {
+                i++;
+              } else {
+                i++;
+                break;
+              }
+            }
+            size = append(size, line[i++]);
+          }
+          // the characters following the closing quote are kept
+          while (i < length && line[i] != delimiter) {
+            size = append(size, line[i++]);
+          }
+          value = new String(field, 0, size, StandardCharsets.UTF_8);
+        } else {
+          final int start = i;
+          while (i < length && line[i] != delimiter) {
+            i++;
+          }
+          if (i > start) {
+            value = new String(line, start, i - start, StandardCharsets.UTF_8);
+          }
+        }
+        if (value != null) {
+          buffer.set(column, value, null, 0, 0);
+        }
+        column++;
+        i++;
+      }
+    }
+
+    private int append(final int size, final byte b) {
+      if (size == field.length) {
+        field = Arrays.copyOf(field, size * 2);
+      }
+      field[size] = b;
+      return size + 1;
+    }
+
+    @Override
+    public void close() {
+      // the channel is shared by the sheet
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.google.common.io.Files;
+
+/**
+ * Spreadsheet holding a single sheet stored as a delimited text file, as specified by a
+ * {@link CsvFormat}. The sheet is named after the file without extension. To instantiate this class
+ * use the methods provided in the {@link Spreadsheets} class with {@link Spreadsheets.API#CSV}.
+ * <p>
+ * A file opened in read-only mode is read through a single {@link FileChannel} shared by the
+ * readers of the sheet, see {@link CsvSheet}. A file created from scratch is write-only and its
+ * rows are encoded as soon as they are complete through a {@link CsvWriter}, see
+ * {@link CsvWriterSheet}.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets
+ * @see CsvFormat
+ */
+final class CsvSpreadsheet implements Spreadsheet {
+  private final File file;
+  private final String sheetName;
+  @Nullable
+  private final FileChannel channel;
+  @Nullable
+  private final CsvSheet sheet;
+  @Nullable
+  private final CsvWriter writer;
+  @Nullable
+  private CsvWriterSheet writerSheet;
+  private boolean written;
+
+  private CsvSpreadsheet(final File file, final CsvFormat format, final boolean create)
+      throws IOException {
+    this.file = file;
+    this.sheetName = Files.getNameWithoutExtension(file.getName());
+    if (create) {
+      if (file.exists()) {
+        throw new IllegalStateException(
+            String.format("Cannot create file %s: the file already exist", file));
+      }
+      Files.createParentDirs(file);
+      channel = null;
+      sheet = null;
+      writer = new CsvWriter(
+          FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+          format.getDelimiter(), format.getQuote(), CsvWriter.DEFAULT_BUFFER_SIZE);
+    } else {
+      channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      try {
+        sheet = new CsvSheet(sheetName, channel, format);
+      } catch (final IOException | RuntimeException ex) {
+        channel.close();
+        throw ex;
+      }
+      writer = null;
+    }
+  }
+
+  /**
+   * Opens the specified delimited text {@code file} in read-only mode.
+   *
+   * @param file
+   * @param format
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static CsvSpreadsheet open(final File file, final CsvFormat format) throws IOException {
+    return new CsvSpreadsheet(file, format, false);
+  }
+
+  /**
+   * Creates a new delimited text file placed in the specified {@code file}.
+   *
+   * @param file
+   * @param format
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static CsvSpreadsheet create(final File file, final CsvFormat format) throws IOException {
+    return new CsvSpreadsheet(file, format, true);
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return sheet != null || writerSheet != null ? Collections.singletonList(sheetName)
+        : Collections.<String>emptyList();
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    final Sheet current = sheet != null ? sheet : writerSheet;
+    return current != null ? Collections.singletonList(current) : Collections.<Sheet>emptyList();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    if (!getSheetNames().contains(name)) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return getSheets().get(0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    final List<Sheet> sheets = getSheets();
+    if (index < 0 || index >= sheets.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheets.size() - 1));
+    }
+    return sheets.get(index);
+  }
+
+  /**
+   * Adds the only sheet of the file: the name of the sheet is always the name of the file without
+   * extension, the specified {@code name} is ignored.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public Sheet addSheet(final String name) {
+    if (writer == null) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    checkNotWritten();
+    if (writerSheet != null) {
+      throw new IllegalStateException(
+          String.format("Cannot add sheet %s: file %s holds a single sheet", name, file));
+    }
+    writerSheet = new CsvWriterSheet(sheetName, writer);
+    return writerSheet;
+  }
+
+  /**
+   * Writes the last row and closes the file: no further modification is allowed.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void write() throws IOException {
+    if (writer == null) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    checkNotWritten();
+    if (writerSheet != null) {
+      writerSheet.finish();
+    }
+    written = true;
+    writer.close();
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    if (writer == null) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    throw Spreadsheets.writtenToFile(file);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    write(Channels.newOutputStream(channel));
+  }
+
+  private void checkNotWritten() {
+    if (written) {
+      throw new IllegalStateException(
+          String.format("Cannot modify file %s: the file has already been written", file));
+    }
+  }
+
+  /**
+   * Releases the file: if the file was created and {@link #write()} has not been invoked, the
+   * incomplete file is deleted.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (sheet != null) {
+      try {
+        sheet.closeReader();
+      } finally {
+        channel.close();
+      }
+    } else if (!written) {
+      written = true;
+      try {
+        writer.close();
+      } finally {
+        java.nio.file.Files.deleteIfExists(file.toPath());
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import javax.annotation.Nullable;
+
+/**
+ * Writes rows of values as delimited text into a {@link WritableByteChannel}, encoding them in
+ * UTF-8 through a single large direct buffer that is handed to the channel only when full. A field
+ * is quoted when it contains the delimiter, the quote character or a line break; the quote
+ * characters inside a quoted field are doubled.
+ * <p>
+ * The values are rendered as follows: the numbers in plain notation without trailing zeros, the
+ * dates as {@value #DATE_PATTERN} or {@value #DATE_TIME_PATTERN} when the time is not midnight, the
+ * booleans as {@code TRUE} or {@code FALSE} and the other values by their {@code toString()}.
+ *
+ * @author Foroni Marco
+ */
+final class CsvWriter implements Closeable {
+  static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+  static final String LINE_SEPARATOR = "\r\n";
+  static final String DATE_PATTERN = "yyyy-MM-dd";
+  static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+  private final WritableByteChannel channel;
+  private final char delimiter;
+  private final char quote;
+  private final ByteBuffer buffer;
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+  private final StringBuilder line = new StringBuilder();
+  private final SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+  private final SimpleDateFormat dateTimeFormat = new SimpleDateFormat(DATE_TIME_PATTERN);
+  private final Calendar calendar = Calendar.getInstance();
+  private boolean closed;
+
+  CsvWriter(final WritableByteChannel channel, final char delimiter, final char quote,
+      final int bufferSize) {
+    this.channel = channel;
+    this.delimiter = delimiter;
+    this.quote = quote;
+    this.buffer = ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /**
+   * Writes a line holding the specified values: the <tt>null</tt> values are written as empty
+   * fields.
+   *
+   * @param values the values of the row
+   * @throws IOException
+   */
+  void writeRow(final Object[] values) throws IOException {
+    writeRow(values, values.length);
+  }
+
+  /**
+   * Writes a line holding the first {@code length} values of the specified array.
+   *
+   * @param values the values of the row
+   * @param length the number of fields of the line
+   * @throws IOException
+   */
+  void writeRow(final Object[] values, final int length) throws IOException {
+    line.setLength(0);
+    for (int c = 0; c < length; c++) {
+      if (c > 0) {
+        line.append(delimiter);
+      }
+      appendField(format(values[c]));
+    }
+    line.append(LINE_SEPARATOR);
+    encode(line);
+  }
+
+  /**
+   * Writes the specified number of empty lines.
+   *
+   * @param count the number of lines
+   * @throws IOException
+   */
+  void writeEmptyRows(final int count) throws IOException {
+    for (int i = 0; i < count; i++) {
+      encode(LINE_SEPARATOR);
+    }
+  }
+
+  String format(@Nullable final Object value) {
+    if (value == null) {
+      return "";
+    } else if (value instanceof String) {
+      return (String) value;
+    } else if (value instanceof Double || value instanceof Float) {
+      final double d = ((Number) value).doubleValue();
+      return Double.isNaN(d) || Double.isInfinite(d) ? Double.toString(d)
+          : toPlainString(BigDecimal.valueOf(d));
+    } else if (value instanceof BigDecimal) {
+      return toPlainString((BigDecimal) value);
+    } else if (value instanceof Date) {
+      calendar.setTime((Date) value);
+      final boolean midnight = calendar.get(Calendar.HOUR_OF_DAY) == 0
+          && calendar.get(Calendar.MINUTE) == 0 && calendar.get(Calendar.SECOND) == 0;
+      return midnight ? dateFormat.format((Date) value) : dateTimeFormat.format((Date) value);
+    } else if (value instanceof Boolean) {
+      return (Boolean) value ? "TRUE" : "FALSE";
+    }
+    return value.toString();
+  }
+
+  private static String toPlainString(final BigDecimal value) {
+    return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+  }
+
+  private void appendField(final String field) {
+    boolean quoted = false;
+    for (int i = 0; i < field.length() && !quoted; i++) {
+      final char ch = field.charAt(i);
+      quoted = ch == delimiter || ch == quote || ch == '\n' || ch == '\r';
+    }
+    if (!quoted) {
+      line.append(field);
+      return;
+    }
+    line.append(quote);
+    for (int i = 0; i < field.length(); i++) {
+      final char ch = field.charAt(i);
+      if (ch == quote) {
+        line.append(quote);
+      }
+      line.append(ch);
+    }
+    line.append(quote);
+  }
+
+  private void encode(final CharSequence chars) throws IOException {
+    final CharBuffer in = CharBuffer.wrap(chars);
+    while (true) {
+      final CoderResult result = encoder.encode(in, buffer, true);
+      if (result.isOverflow()) {
+        flushBuffer();
+      } else if (result.isUnderflow()) {
+        break;
+      } else {
+        result.throwException();
+      }
+    }
+    encoder.reset();
+  }
+
+  private void flushBuffer() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Writes the buffered bytes into the channel.
+   *
+   * @throws IOException
+   */
+  void flush() throws IOException {
+    flushBuffer();
+  }
+
+  /**
+   * Flushes the buffered bytes and closes the channel.
+   */
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      try {
+        flushBuffer();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Write-only sheet of a delimited text file: the cells of the current row are buffered and the row
+ * is handed to the {@link CsvWriter} as soon as a cell of a following row is set, so the rows must
+ * be written in ascending order. The cell formats are ignored.
+ *
+ * @author Foroni Marco
+ * @see CsvSpreadsheet
+ * @see CsvWriter
+ */
+final class CsvWriterSheet extends AbstractSheet {
+  private static final int INITIAL_CAPACITY = 16;
+  private final String name;
+  private final CsvWriter writer;
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private int size;
+  private int currentRow = -1;
+  private int nextRow;
+  private int columns;
+  private boolean finished;
+
+  CsvWriterSheet(final String name, final CsvWriter writer) {
+    this.name = name;
+    this.writer = writer;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of rows written so far.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRows() {
+    return Math.max(nextRow, currentRow + 1);
+  }
+
+  /**
+   * Returns the number of columns of the widest row written so far.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public int getColumns() {
+    return Math.max(columns, size);
+  }
+
+  @Override
+  public int getLastColumn(final int rowIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public String getRawValue(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public String getString(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public RowCursor rowCursor() {
+    throw new IllegalStateException(StreamingOdsWriterSheet.WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setAutoSize(final int fromColumn, final int toColumn) {
+    throw new IllegalStateException("Feature not avaiable");
+  }
+
+  @Override
+  public void setString(final int rowIndex, final int columnIndex, @Nullable final String value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public void setDouble(final int rowIndex, final int columnIndex, @Nullable final Double value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public void setDate(final int rowIndex, final int columnIndex, @Nullable final Date value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public void setBoolean(final int rowIndex, final int columnIndex, @Nullable final Boolean value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value);
+  }
+
+  private void put(final int rowIndex, final int columnIndex, @Nullable final Object value) {
+    if (finished) {
+      throw new IllegalStateException(
+          String.format("Cannot write sheet %s: the file has already been written", name));
+    }
+    if (value == null) {
+      return;
+    }
+    final int firstWritableRow = Math.max(nextRow, currentRow);
+    if (rowIndex < firstWritableRow) {
+      throw new IllegalStateException(String.format(
+          "Cannot write row %d of sheet %s: the rows up to %d have already been written", rowIndex,
+          name, firstWritableRow - 1));
+    }
+    if (rowIndex > currentRow) {
+      flushRow();
+      currentRow = rowIndex;
+    }
+    if (columnIndex >= values.length) {
+      values = Arrays.copyOf(values, Math.max(columnIndex + 1, values.length * 2));
+    }
+    values[columnIndex] = value;
+    size = Math.max(size, columnIndex + 1);
+  }
+
+  /**
+   * Writes the buffered row, if any, preceded by the empty lines separating it from the previous
+   * one.
+   */
+  private void flushRow() {
+    if (currentRow < 0) {
+      return;
+    }
+    try {
+      writer.writeEmptyRows(currentRow - nextRow);
+      writer.writeRow(values, size);
+    } catch (final IOException ex) {
+      throw new IllegalStateException(
+          String.format("Error while writing row %d of sheet %s", currentRow, name), ex);
+    }
+    columns = Math.max(columns, size);
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+    nextRow = currentRow + 1;
+    currentRow = -1;
+  }
+
+  /**
+   * Writes the buffered row: the sheet cannot be modified anymore.
+   */
+  void finish() {
+    if (!finished) {
+      flushRow();
+      finished = true;
+    }
+  }
+}
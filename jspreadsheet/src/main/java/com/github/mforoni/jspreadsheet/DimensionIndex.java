@@ -0,0 +1,77 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Arrays;
+
+/**
+ * Index of the populated extent of a sheet: the last column of each row, the widest row and the
+ * last non empty row. It is built once by scanning the sheet and then kept up to date by the
+ * setters through {@link #include(int, int)}, so that {@link Sheet#getColumns()},
+ * {@link Sheet#getLastRow()} and {@link Sheet#getLastColumn(int)} do not scan the sheet anymore.
+ * <p>
+ * Since the setters never empty a cell, the extent can only grow.
+ *
+ * @author Foroni Marco
+ * @see SheetDimension
+ */
+final class DimensionIndex {
+  private static final int INITIAL_CAPACITY = 16;
+  private int[] lastColumns;
+  private int columns;
+  private int lastRow;
+
+  DimensionIndex(final int expectedRows) {
+    lastColumns = new int[Math.max(expectedRows, INITIAL_CAPACITY)];
+  }
+
+  /**
+   * Records that the specified row is populated up to {@code lastColumn} (excluded): the extent of
+   * the row is enlarged if needed, it is never reduced.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   * @param lastColumn index of the last populated column of the row plus one
+   */
+  void include(final int rowIndex, final int lastColumn) {
+    if (lastColumn <= 0) {
+      return;
+    }
+    if (rowIndex >= lastColumns.length) {
+      lastColumns = Arrays.copyOf(lastColumns, Math.max(rowIndex + 1, lastColumns.length * 2));
+    }
+    if (lastColumn > lastColumns[rowIndex]) {
+      lastColumns[rowIndex] = lastColumn;
+    }
+    if (lastColumn > columns) {
+      columns = lastColumn;
+    }
+    if (rowIndex >= lastRow) {
+      lastRow = rowIndex + 1;
+    }
+  }
+
+  /**
+   * @param rowIndex index of the row (starting from 0)
+   * @return the index of the last populated column of the specified row plus one
+   */
+  int getLastColumn(final int rowIndex) {
+    return rowIndex >= 0 && rowIndex < lastColumns.length ? lastColumns[rowIndex] : 0;
+  }
+
+  /**
+   * @return the number of columns of the widest row
+   */
+  int getColumns() {
+    return columns;
+  }
+
+  /**
+   * @return the index of the last populated row plus one
+   */
+  int getLastRow() {
+    return lastRow;
+  }
+
+  @Override
+  public String toString() {
+    return "DimensionIndex [columns=" + columns + ", lastRow=" + lastRow + "]";
+  }
+}
@@ -0,0 +1,139 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import com.google.common.collect.Sets;
+
+/**
+ * The edit state shared by an editable spreadsheet and its sheets, checked before any mutation:
+ * the mutations are refused if the spreadsheet is read-only or while it is being written
+ * asynchronously by {@link AsyncWriter}. During an asynchronous write only the thread running the
+ * serialization is allowed to go through the checks of the write methods.
+ * <p>
+ * The state also tracks the sheets modified since the spreadsheet was opened or last saved to its
+ * file, and whether sheets have been added, so that an edited file can be saved incrementally.
+ *
+ * @author Foroni Marco
+ */
+final class EditState {
+  static final String WRITING_MESSAGE =
+      "Write operation not allowed while the spreadsheet is being written.";
+  private static final Object PENDING = new Object();
+  private final boolean editable;
+  /**
+   * <tt>null</tt> if no asynchronous write is in progress, {@link #PENDING} until the write is
+   * started, the thread running the write afterwards.
+   */
+  private final AtomicReference<Object> writer = new AtomicReference<>();
+  private final Set<Object> modifiedSheets =
+      Collections.synchronizedSet(Sets.<Object>newIdentityHashSet());
+  private volatile boolean structureModified;
+
+  EditState(final boolean editable) {
+    this.editable = editable;
+  }
+
+  boolean isEditable() {
+    return editable;
+  }
+
+  /**
+   * Checks that the spreadsheet can be modified by the current thread.
+   *
+   * @throws IllegalStateException if the spreadsheet is read-only or is being written by another
+   *         thread
+   */
+  void checkEditable() throws IllegalStateException {
+    if (!editable) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    final Object current = writer.get();
+    if (current != null && current != Thread.currentThread()) {
+      throw new IllegalStateException(WRITING_MESSAGE);
+    }
+  }
+
+  /**
+   * Checks that the specified sheet can be modified by the current thread and records it as
+   * modified.
+   *
+   * @param sheet the sheet of the underlying engine
+   * @throws IllegalStateException if the spreadsheet is read-only or is being written by another
+   *         thread
+   */
+  void modifying(final Object sheet) throws IllegalStateException {
+    checkEditable();
+    modifiedSheets.add(sheet);
+  }
+
+  /**
+   * Checks that the sheets of the spreadsheet can be added by the current thread and records the
+   * change of the structure of the workbook.
+   *
+   * @throws IllegalStateException if the spreadsheet is read-only or is being written by another
+   *         thread
+   */
+  void modifyingStructure() throws IllegalStateException {
+    checkEditable();
+    structureModified = true;
+  }
+
+  /**
+   * @return the sheets of the underlying engine modified since the last save
+   */
+  List<Object> getModifiedSheets() {
+    synchronized (modifiedSheets) {
+      return new ArrayList<>(modifiedSheets);
+    }
+  }
+
+  boolean isStructureModified() {
+    return structureModified;
+  }
+
+  /**
+   * Records that the spreadsheet has been saved to its file: no sheet is modified anymore.
+   */
+  void saved() {
+    modifiedSheets.clear();
+    structureModified = false;
+  }
+
+  /**
+   * Marks the beginning of an asynchronous write: from now on the mutations are refused.
+   *
+   * @throws IllegalStateException if the spreadsheet is read-only or is already being written
+   */
+  void beginWrite() throws IllegalStateException {
+    if (!editable) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    if (!writer.compareAndSet(null, PENDING)) {
+      throw new IllegalStateException(WRITING_MESSAGE);
+    }
+  }
+
+  /**
+   * Binds the asynchronous write to the current thread, the one running the serialization.
+   */
+  void startWrite() {
+    writer.set(Thread.currentThread());
+  }
+
+  /**
+   * Marks the end of the asynchronous write: the mutations are allowed again.
+   */
+  void endWrite() {
+    writer.set(null);
+  }
+
+  /**
+   * Marks the end of an asynchronous write cancelled before being started.
+   */
+  void cancelWrite() {
+    writer.compareAndSet(PENDING, null);
+  }
+}
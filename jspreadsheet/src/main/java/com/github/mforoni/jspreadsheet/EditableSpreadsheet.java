@@ -0,0 +1,12 @@
+package com.github.mforoni.jspreadsheet;
+
+/**
+ * A {@link Spreadsheet} whose mutations are guarded by an {@link EditState} shared with its
+ * sheets.
+ *
+ * @author Foroni Marco
+ */
+interface EditableSpreadsheet extends Spreadsheet {
+
+  EditState getEditState();
+}
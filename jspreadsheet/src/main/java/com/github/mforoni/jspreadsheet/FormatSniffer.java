@@ -0,0 +1,172 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import javax.annotation.Nullable;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Detects the format of a spreadsheet file or stream from its content, reading at most the first
+ * {@value #HEADER_SIZE} bytes, through a {@link FileChannel} in case of a file:
+ * <ul>
+ * <li>the OLE2 signature identifies an <i>xls</i> file;</li>
+ * <li>a zip local file header is followed by the headers of the first entries of the package: an
+ * entry named {@code [Content_Types].xml} or placed in the {@code xl/} folder identifies an
+ * <i>xlsx</i> file, unless the package holds a text document or a presentation; a stored
+ * {@code mimetype} entry holding {@value OdsXml#MIMETYPE} identifies an <i>ods</i> file.</li>
+ * </ul>
+ * The files that cannot be recognized, e.g. delimited text files, are left to the detection by
+ * extension.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#detectAPI(File)
+ */
+final class FormatSniffer {
+  static final int HEADER_SIZE = 4096;
+  private static final long OLE2_SIGNATURE = 0xE11AB1A1E011CFD0L;
+  private static final int ZIP_LOCAL_HEADER_SIGNATURE = 0x04034B50;
+  private static final int ZIP_LOCAL_HEADER_SIZE = 30;
+  private static final int ZIP_DATA_DESCRIPTOR_FLAG = 0x08;
+  private static final int ZIP_STORED = 0;
+  private static final String CONTENT_TYPES_ENTRY = "[Content_Types].xml";
+  private static final String XLSX_FOLDER = "xl/";
+  private static final String WORD_FOLDER = "word/";
+  private static final String POWERPOINT_FOLDER = "ppt/";
+
+  enum Format {
+    XLS("xls"), XLSX("xlsx"), ODS("ods");
+    private final String extension;
+
+    private Format(final String extension) {
+      this.extension = extension;
+    }
+
+    String getExtension() {
+      return extension;
+    }
+  }
+
+  private FormatSniffer() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns the format of the specified file recognized from its first bytes.
+   *
+   * @param file the file to inspect
+   * @return the format of the file, <tt>null</tt> if the file does not exist or its format is not
+   *         recognized
+   */
+  @Nullable
+  static Format sniff(final File file) {
+    if (!file.isFile()) {
+      return null;
+    }
+    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      while (header.hasRemaining() && channel.read(header) > 0) {
+        // reads the header of the file
+      }
+    } catch (final IOException ex) {
+      return null;
+    }
+    header.flip();
+    return sniff(header);
+  }
+
+  /**
+   * Returns the format of the spreadsheet held by the specified stream recognized from its first
+   * bytes. The stream is reset to its current position before returning.
+   *
+   * @param in a stream supporting {@link InputStream#mark(int)}
+   * @return the format of the content, <tt>null</tt> if it is not recognized
+   * @throws IOException if an I/O error occurs while reading the stream
+   */
+  @Nullable
+  static Format sniff(final InputStream in) throws IOException {
+    Preconditions.checkArgument(in.markSupported(), "The stream must support mark and reset");
+    final byte[] header = new byte[HEADER_SIZE];
+    in.mark(HEADER_SIZE);
+    final int length;
+    try {
+      length = ByteStreams.read(in, header, 0, HEADER_SIZE);
+    } finally {
+      in.reset();
+    }
+    return sniff(ByteBuffer.wrap(header, 0, length).order(ByteOrder.LITTLE_ENDIAN));
+  }
+
+  @Nullable
+  private static Format sniff(final ByteBuffer header) {
+    if (header.remaining() >= 8 && header.getLong(0) == OLE2_SIGNATURE) {
+      return Format.XLS;
+    }
+    return sniffZip(header);
+  }
+
+  /**
+   * Walks the local headers of the zip entries contained in the buffer. The entries written by a
+   * stream, e.g. by POI, record their size in a data descriptor following the data: in this case
+   * the next local header is searched by its signature. An OOXML package is taken for an
+   * <i>xlsx</i> file unless one of its entries is placed in the folder of another document type.
+   */
+  @Nullable
+  private static Format sniffZip(final ByteBuffer header) {
+    boolean contentTypes = false;
+    int position = 0;
+    while (position + ZIP_LOCAL_HEADER_SIZE <= header.limit()
+        && header.getInt(position) == ZIP_LOCAL_HEADER_SIGNATURE) {
+      final int flags = header.getShort(position + 6) & 0xFFFF;
+      final int method = header.getShort(position + 8) & 0xFFFF;
+      final int compressedSize = header.getInt(position + 18);
+      final int nameLength = header.getShort(position + 26) & 0xFFFF;
+      final int extraLength = header.getShort(position + 28) & 0xFFFF;
+      final int nameOffset = position + ZIP_LOCAL_HEADER_SIZE;
+      if (nameOffset + nameLength > header.limit()) {
+        break;
+      }
+      final String name = new String(header.array(), nameOffset, nameLength,
+          StandardCharsets.UTF_8);
+      if (name.startsWith(XLSX_FOLDER)) {
+        return Format.XLSX;
+      } else if (name.startsWith(WORD_FOLDER) || name.startsWith(POWERPOINT_FOLDER)) {
+        return null;
+      }
+      contentTypes |= name.equals(CONTENT_TYPES_ENTRY);
+      final int dataOffset = nameOffset + nameLength + extraLength;
+      if (name.equals(OdsXml.MIMETYPE_ENTRY)) {
+        if (method != ZIP_STORED || compressedSize < 0
+            || compressedSize > header.limit() - dataOffset) {
+          return null;
+        }
+        final String mimetype = new String(header.array(), dataOffset, compressedSize,
+            StandardCharsets.US_ASCII);
+        return mimetype.trim().equals(OdsXml.MIMETYPE) ? Format.ODS : null;
+      }
+      if ((flags & ZIP_DATA_DESCRIPTOR_FLAG) != 0) {
+        position = nextLocalHeader(header, dataOffset);
+      } else if (compressedSize < 0 || compressedSize > header.limit() - dataOffset) {
+        break;
+      } else {
+        position = dataOffset + compressedSize;
+      }
+    }
+    return contentTypes ? Format.XLSX : null;
+  }
+
+  private static int nextLocalHeader(final ByteBuffer header, final int from) {
+    for (int i = from; i + 4 <= header.limit(); i++) {
+      if (header.getInt(i) == ZIP_LOCAL_HEADER_SIGNATURE) {
+        return i;
+      }
+    }
+    return header.limit();
+  }
+}
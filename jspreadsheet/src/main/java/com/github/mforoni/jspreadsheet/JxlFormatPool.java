@@ -0,0 +1,71 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.concurrent.ExecutionException;
+import jxl.write.WritableCellFormat;
+import jxl.write.WritableWorkbook;
+import jxl.write.WriteException;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Registry of the {@link WritableCellFormat} instances created by the {@link JxlSheet} setters of
+ * a {@link WritableWorkbook}: equal {@link SSCellFormat} values share a single
+ * {@link WritableCellFormat}. JExcelAPI adds a format record and a font record for each distinct
+ * instance, so without sharing a workbook quickly reaches the limit of formats of the Excel
+ * format.
+ * <p>
+ * The formats are never evicted: {@link #stats()} reports the hits and the misses of the format
+ * lookups, the misses being the number of formats created.
+ *
+ * @author Foroni Marco
+ * @see JxlSpreadsheet
+ * @see JxlSheet
+ */
+final class JxlFormatPool {
+  private final LoadingCache<SSCellFormat, WritableCellFormat> formats;
+
+  JxlFormatPool() {
+    this.formats = CacheBuilder.newBuilder().concurrencyLevel(1).recordStats()
+        .build(new CacheLoader<SSCellFormat, WritableCellFormat>() {
+          @Override
+          public WritableCellFormat load(final SSCellFormat key) throws WriteException {
+            return createCellFormat(key);
+          }
+        });
+  }
+
+  /**
+   * Returns the shared {@link WritableCellFormat} having the specified format.
+   *
+   * @param cellFormat the format of the cell
+   * @return the shared {@link WritableCellFormat}
+   * @throws IllegalStateException if JExcelAPI refuses the format
+   */
+  WritableCellFormat getCellFormat(final SSCellFormat cellFormat) {
+    try {
+      return formats.get(cellFormat);
+    } catch (final ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Returns the statistics of the format lookups.
+   */
+  CacheStats stats() {
+    return formats.stats();
+  }
+
+  private static WritableCellFormat createCellFormat(final SSCellFormat cellFormat)
+      throws WriteException {
+    final WritableCellFormat writableCellFormat =
+        new WritableCellFormat(cellFormat.getSSFont().newWritableFont());
+    if (cellFormat.getBackgroundColour() != null) {
+      writableCellFormat.setBackground(cellFormat.getBackgroundColour().getColour(),
+          jxl.format.Pattern.SOLID);
+    }
+    return writableCellFormat;
+  }
+}
@@ -21,7 +21,6 @@ import jxl.Sheet;
 import jxl.format.CellFormat;
 import jxl.write.Label;
 import jxl.write.WritableCell;
-import jxl.write.WritableCellFormat;
 import jxl.write.WritableSheet;
 import jxl.write.WriteException;
 
@@ -31,11 +30,14 @@ import jxl.write.WriteException;
  */
 final class JxlSheet extends AbstractSheet {
   private final jxl.Sheet sheet;
-  private final boolean editable;
+  private final JxlFormatPool formats;
+  private final EditState state;
+  private DimensionIndex dimensionIndex;
 
-  JxlSheet(final jxl.Sheet sheet, final boolean editable) {
+  JxlSheet(final jxl.Sheet sheet, final JxlFormatPool formats, final EditState state) {
     this.sheet = sheet;
-    this.editable = editable;
+    this.formats = formats;
+    this.state = state;
   }
 
   @Override
@@ -53,13 +55,41 @@ final class JxlSheet extends AbstractSheet {
     return sheet.getColumns();
   }
 
+  @Override
+  public int getLastRow() {
+    return getDimensionIndex().getLastRow();
+  }
+
   @Override
   public int getLastColumn(final int rowIndex) {
-    return sheet.getRow(rowIndex).length;
+    return getDimensionIndex().getLastColumn(rowIndex);
+  }
+
+  /**
+   * Returns the {@link DimensionIndex} of the sheet, built on first use from the length of the cell
+   * array of each row.
+   */
+  private DimensionIndex getDimensionIndex() {
+    if (dimensionIndex == null) {
+      final int rows = sheet.getRows();
+      final DimensionIndex index = new DimensionIndex(rows);
+      for (int r = 0; r < rows; r++) {
+        index.include(r, sheet.getRow(r).length);
+      }
+      dimensionIndex = index;
+    }
+    return dimensionIndex;
+  }
+
+  private void updated(final int rowIndex, final int columnIndex) {
+    if (dimensionIndex != null) {
+      dimensionIndex.include(rowIndex, columnIndex + 1);
+    }
   }
 
   private WritableSheet getWritableSheet() {
-    if (editable && sheet instanceof WritableSheet) {
+    state.modifying(sheet);
+    if (sheet instanceof WritableSheet) {
       return (WritableSheet) sheet;
     } else {
       throw new IllegalStateException(
@@ -92,7 +122,11 @@ final class JxlSheet extends AbstractSheet {
 
   @Override
   public Object getObject(final int rowIndex, final int colIndex) {
-    final Cell cell = sheet.getCell(colIndex, rowIndex);
+    return getObject(sheet.getCell(colIndex, rowIndex));
+  }
+
+  @Nullable
+  private static Object getObject(final Cell cell) {
     if (cell.getType().equals(CellType.EMPTY)) {
       return null;
     } else if (cell.getType().equals(NUMBER) || cell.getType().equals(NUMBER_FORMULA)) {
@@ -111,6 +145,55 @@ final class JxlSheet extends AbstractSheet {
     }
   }
 
+  /**
+   * Returns a cursor on the cell arrays returned by {@link jxl.Sheet#getRow(int)}, skipping the
+   * rows whose cells are all empty.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    return new AbstractRowCursor() {
+      private final int rows = sheet.getRows();
+      private int next;
+
+      @Override
+      public boolean next() {
+        while (next < rows) {
+          final int rowIndex = next++;
+          startRow(rowIndex);
+          for (final Cell cell : sheet.getRow(rowIndex)) {
+            set(cell.getColumn(), JxlSheet.getObject(cell));
+          }
+          if (getLastColumn() > 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Fills the specified column from the cell array returned by {@link jxl.Sheet#getColumn(int)},
+   * reading the numeric cells with {@link NumberCell#getValue()}.
+   */
+  @Override
+  void readColumn(final NumericColumn column) {
+    if (column.columnIndex >= sheet.getColumns()) {
+      return;
+    }
+    final Cell[] cells = sheet.getColumn(column.columnIndex);
+    final int toRow = Math.min(column.toRow, cells.length);
+    for (int r = column.fromRow; r < toRow; r++) {
+      final Cell cell = cells[r];
+      final CellType type = cell.getType();
+      if (type == NUMBER || type == NUMBER_FORMULA) {
+        column.put(r, ((NumberCell) cell).getValue());
+      } else if (type != CellType.EMPTY) {
+        throw column.typeMismatch(r, JxlSheet.getObject(cell));
+      }
+    }
+  }
+
   @Override
   public String getString(final int rowIndex, final int colIndex) {
     final Cell cell = sheet.getCell(colIndex, rowIndex);
@@ -175,9 +258,10 @@ final class JxlSheet extends AbstractSheet {
           writableCell = format != null ? new Label(columnIndex, rowIndex, value, format)
               : new Label(columnIndex, rowIndex, value);
         } else {
-          writableCell = new Label(columnIndex, rowIndex, value, toWritableCellFormat(cellFormat));
+          writableCell = new Label(columnIndex, rowIndex, value, formats.getCellFormat(cellFormat));
         }
         writableSheet.addCell(writableCell);
+        updated(rowIndex, columnIndex);
       } catch (final WriteException e) {
         throw new IllegalStateException(
             String.format("Error while setting value %s at Sheet=%s, cell=[%d, %d].", value,
@@ -199,10 +283,11 @@ final class JxlSheet extends AbstractSheet {
             : new jxl.write.Number(columnIndex, rowIndex, value);
       } else {
         writableCell =
-            new jxl.write.Number(columnIndex, rowIndex, value, toWritableCellFormat(cellFormat));
+            new jxl.write.Number(columnIndex, rowIndex, value, formats.getCellFormat(cellFormat));
       }
       try {
         writableSheet.addCell(writableCell);
+        updated(rowIndex, columnIndex);
       } catch (final WriteException e) {
         throw new IllegalStateException(
             String.format("Error while setting value %s at Sheet=%s, cell=[%d, %d].", value,
@@ -222,18 +307,4 @@ final class JxlSheet extends AbstractSheet {
       final SSCellFormat cellFormat) {
     // TODO Auto-generated method stub
   }
-
-  private static WritableCellFormat toWritableCellFormat(final SSCellFormat cellFormat) {
-    try {
-      final WritableCellFormat writableCellFormat =
-          new WritableCellFormat(cellFormat.getSSFont().newWritableFont());
-      if (cellFormat.getBackgroundColour() != null) {
-        writableCellFormat.setBackground(cellFormat.getBackgroundColour().getColour(),
-            jxl.format.Pattern.SOLID);
-      }
-      return writableCellFormat;
-    } catch (final WriteException e) {
-      throw new IllegalStateException(e);
-    }
-  }
 }
@@ -1,12 +1,23 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import com.github.mforoni.jspreadsheet.Spreadsheets.Mode;
+import com.google.common.cache.CacheStats;
+import com.google.common.io.ByteStreams;
 import jxl.Workbook;
 import jxl.WorkbookSettings;
 import jxl.read.biff.BiffException;
@@ -28,27 +39,33 @@ import jxl.write.WriteException;
  * @see Spreadsheet
  * @see Sheet
  */
-final class JxlSpreadsheet implements Spreadsheet {
+final class JxlSpreadsheet implements EditableSpreadsheet {
+  @Nullable
   private final File file;
   private final Mode mode;
+  private final EditState state;
   private final WritableWorkbook writableWorkbook;
   private final Workbook workbook;
+  @Nullable
+  private final DeferredOutputStream output;
+  private boolean written;
+  private final JxlFormatPool formats = new JxlFormatPool();
+  private final Map<jxl.Sheet, JxlSheet> sheets = new IdentityHashMap<>();
 
-  private JxlSpreadsheet(final File file, final Mode mode) throws IOException {
+  private JxlSpreadsheet(@Nullable final File file, final Mode mode) throws IOException {
     this.file = file;
     this.mode = mode;
+    state = new EditState(mode.editable());
+    output = mode.editable() ? new DeferredOutputStream(file) : null;
     switch (mode) {
       case CREATE:
-        writableWorkbook = Workbook.createWorkbook(file);
+        writableWorkbook = Workbook.createWorkbook(output);
         workbook = null;
         break;
       case OPEN:
         writableWorkbook = null;
         try {
-          final WorkbookSettings settings = new WorkbookSettings();
-          settings.setRationalization(false);
-          settings.setEncoding("Cp1252");
-          workbook = Workbook.getWorkbook(file, settings);
+          workbook = Workbook.getWorkbook(file, readOnlySettings());
         } catch (final BiffException ex) {
           throw new IOException(ex);
         }
@@ -58,7 +75,7 @@ final class JxlSpreadsheet implements Spreadsheet {
         Workbook workbook = null;
         try {
           workbook = Workbook.getWorkbook(file);
-          writableWorkbook = Workbook.createWorkbook(file, workbook);
+          writableWorkbook = Workbook.createWorkbook(output, workbook);
         } catch (final BiffException ex) {
           throw new IOException(ex);
         } finally {
@@ -72,10 +89,64 @@ final class JxlSpreadsheet implements Spreadsheet {
     }
   }
 
+  /**
+   * Reads the workbook from the specified stream: JXL loads the whole stream in memory before
+   * parsing it. A workbook edited from a stream has no file to be written to.
+   */
+  private JxlSpreadsheet(final InputStream in, final Mode mode) throws IOException {
+    this.file = null;
+    this.mode = mode;
+    state = new EditState(mode.editable());
+    output = mode.editable() ? new DeferredOutputStream(null) : null;
+    switch (mode) {
+      case OPEN:
+        writableWorkbook = null;
+        try {
+          workbook = Workbook.getWorkbook(in, readOnlySettings());
+        } catch (final BiffException ex) {
+          throw new IOException(ex);
+        }
+        break;
+      case EDIT:
+        workbook = null;
+        Workbook workbook = null;
+        try {
+          workbook = Workbook.getWorkbook(in);
+          writableWorkbook = Workbook.createWorkbook(output, workbook);
+        } catch (final BiffException ex) {
+          throw new IOException(ex);
+        } finally {
+          if (workbook != null) {
+            workbook.close();
+          }
+        }
+        break;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  private static WorkbookSettings readOnlySettings() {
+    final WorkbookSettings settings = new WorkbookSettings();
+    settings.setRationalization(false);
+    settings.setEncoding("Cp1252");
+    return settings;
+  }
+
   static JxlSpreadsheet create(final File file) throws IOException {
     return new JxlSpreadsheet(file, Mode.CREATE);
   }
 
+  /**
+   * Creates a new Excel workbook having no file, to be written with {@link #write(OutputStream)}.
+   * 
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static JxlSpreadsheet createInMemory() throws IOException {
+    return new JxlSpreadsheet((File) null, Mode.CREATE);
+  }
+
   /**
    * Opens the specified Excel file in read-only mode.
    * 
@@ -98,18 +169,49 @@ final class JxlSpreadsheet implements Spreadsheet {
     return new JxlSpreadsheet(file, Mode.EDIT);
   }
 
+  /**
+   * Opens the Excel workbook read from the specified stream in read-only mode.
+   * 
+   * @param in
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static JxlSpreadsheet open(final InputStream in) throws IOException {
+    return new JxlSpreadsheet(in, Mode.OPEN);
+  }
+
+  /**
+   * Edits the Excel workbook read from the specified stream.
+   * 
+   * @param in
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static JxlSpreadsheet edit(final InputStream in) throws IOException {
+    return new JxlSpreadsheet(in, Mode.EDIT);
+  }
+
   /**
    * Checks if the spreadsheet is open in read-only mode, i.e. checks if writableWorkbook is null.
    * 
    * @throws IllegalStateException
    */
   private void canWrite() throws IllegalStateException {
-    if (mode == Mode.OPEN || writableWorkbook == null) {
+    if (writableWorkbook == null) {
+      throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+    }
+    state.checkEditable();
+    if (written) {
       throw new IllegalStateException(
-          "Write operation not allowed on file opened in read-only mode.");
+          "Write operation not allowed: the workbook has already been written to a stream.");
     }
   }
 
+  @Override
+  public EditState getEditState() {
+    return state;
+  }
+
   @Override
   public File getFile() {
     return file;
@@ -175,20 +277,20 @@ final class JxlSpreadsheet implements Spreadsheet {
   public List<Sheet> getSheets() {
     final List<Sheet> sheets = new ArrayList<>();
     for (final String name : getSheetNames()) {
-      sheets.add(new JxlSheet(getJxlSheet(name), mode.editable()));
+      sheets.add(wrap(getJxlSheet(name)));
     }
     return sheets;
   }
 
   @Override
   public Sheet getSheet(final String name) {
-    return new JxlSheet(getJxlSheet(name), mode.editable());
+    return wrap(getJxlSheet(name));
   }
 
   @Nonnull
   @Override
   public Sheet getSheet(final int index) {
-    return new JxlSheet(getJxlSheet(index), mode.editable());
+    return wrap(getJxlSheet(index));
   }
 
   @Override
@@ -196,26 +298,144 @@ final class JxlSpreadsheet implements Spreadsheet {
     canWrite();
     final int sheets = writableWorkbook.getNumberOfSheets();
     final jxl.Sheet sheet = writableWorkbook.createSheet(name, sheets);
-    return new JxlSheet(sheet, mode.editable());
+    return wrap(sheet);
+  }
+
+  /**
+   * Returns the {@link JxlSheet} wrapping the specified sheet: the same instance is returned for
+   * the same sheet, so that its {@link DimensionIndex} is built only once. All the sheets share
+   * the {@link JxlFormatPool} of the workbook.
+   */
+  private JxlSheet wrap(final jxl.Sheet sheet) {
+    if (sheet == null) {
+      return new JxlSheet(sheet, formats, state);
+    }
+    JxlSheet jxlSheet = this.sheets.get(sheet);
+    if (jxlSheet == null) {
+      jxlSheet = new JxlSheet(sheet, formats, state);
+      this.sheets.put(sheet, jxlSheet);
+    }
+    return jxlSheet;
+  }
+
+  /**
+   * Returns the statistics of the lookups in the {@link JxlFormatPool} of the workbook.
+   */
+  CacheStats getStyleCacheStats() {
+    return formats.stats();
   }
 
   @Override
   public void write() throws IOException {
     canWrite();
+    if (file == null) {
+      throw new IllegalStateException(Spreadsheets.NO_FILE_MESSAGE);
+    }
     writableWorkbook.write();
   }
 
+  /**
+   * Writes the workbook and completes it, since JXL emits the document only when the writable
+   * workbook is closed: the spreadsheet cannot be written anymore.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    canWrite();
+    final ShieldedOutputStream target = new ShieldedOutputStream(out);
+    output.setTarget(target);
+    writableWorkbook.write();
+    written = true;
+    try {
+      writableWorkbook.close();
+    } catch (final WriteException ex) {
+      throw new IOException("Error while closing WritableWorkbook", ex);
+    }
+    target.flush();
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    write(Channels.newOutputStream(channel));
+  }
+
   @Override
   public void close() throws IOException {
     try {
-      if (writableWorkbook != null) {
+      if (writableWorkbook != null && !written) {
         writableWorkbook.close();
       }
     } catch (final WriteException ex) {
       throw new IOException("Error while closing WritableWorkbook", ex);
     } finally {
-      if (workbook != null) {
-        workbook.close();
+      try {
+        if (output != null) {
+          output.close();
+        }
+      } finally {
+        if (workbook != null) {
+          workbook.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * The stream the writable workbook is created on. JXL emits the whole document when the workbook
+   * is closed: the document goes to the stream given to {@link JxlSpreadsheet#write(OutputStream)},
+   * if any, otherwise to the file of the spreadsheet, which is opened only at that time. The
+   * document of a spreadsheet having no file is discarded.
+   */
+  private static final class DeferredOutputStream extends OutputStream {
+    @Nullable
+    private final File file;
+    @Nullable
+    private OutputStream target;
+    private boolean opened;
+
+    DeferredOutputStream(@Nullable final File file) {
+      this.file = file;
+    }
+
+    void setTarget(final OutputStream target) {
+      this.target = target;
+    }
+
+    private OutputStream target() throws IOException {
+      if (target == null) {
+        if (file != null) {
+          target = new BufferedOutputStream(new FileOutputStream(file),
+              ShieldedOutputStream.BUFFER_SIZE);
+          opened = true;
+        } else {
+          target = ByteStreams.nullOutputStream();
+        }
+      }
+      return target;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      target().write(b);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      target().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (target != null) {
+        target.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (opened) {
+        target.close();
       }
     }
   }
@@ -0,0 +1,132 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Date;
+import javax.annotation.Nullable;
+
+/**
+ * Read-only sheet of a {@link LazySpreadsheet}: only its name is known until one of its cells is
+ * accessed, then every method reads the {@link SheetTable} loaded by the spreadsheet. The values
+ * have the types returned by {@link SheetTable#getObject(int, int)}.
+ *
+ * @author Foroni Marco
+ * @see LazySpreadsheet
+ */
+final class LazySheet extends AbstractSheet {
+  private final LazySpreadsheet spreadsheet;
+  private final int index;
+  private final String name;
+
+  LazySheet(final LazySpreadsheet spreadsheet, final int index, final String name) {
+    this.spreadsheet = spreadsheet;
+    this.index = index;
+    this.name = name;
+  }
+
+  private SnapshotSheet loaded() {
+    return spreadsheet.getLoadedSheet(index);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int getRows() {
+    return loaded().getRows();
+  }
+
+  @Override
+  public int getColumns() {
+    return loaded().getColumns();
+  }
+
+  @Override
+  public int getLastRow() {
+    return loaded().getLastRow();
+  }
+
+  @Override
+  public int getLastColumn(final int rowIndex) {
+    return loaded().getLastColumn(rowIndex);
+  }
+
+  @Override
+  public String getRawValue(final int rowIndex, final int columnIndex) {
+    return loaded().getRawValue(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    return loaded().getObject(rowIndex, columnIndex);
+  }
+
+  @Override
+  public String getString(final int rowIndex, final int columnIndex) {
+    return loaded().getString(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    return loaded().getDouble(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    return loaded().getDate(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    return loaded().getBoolean(rowIndex, columnIndex);
+  }
+
+  /**
+   * Iterates the rows of the table loaded when the cursor is created, even if the sheet is
+   * released in the meantime.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    return loaded().rowCursor();
+  }
+
+  @Override
+  void readColumn(final NumericColumn column) {
+    loaded().readColumn(column);
+  }
+
+  @Override
+  public void setAutoSize(final int fromColumn, final int toColumn) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setString(final int rowIndex, final int columnIndex, @Nullable final String value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDouble(final int rowIndex, final int columnIndex, @Nullable final Double value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDate(final int rowIndex, final int columnIndex, @Nullable final Date value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setBoolean(final int rowIndex, final int columnIndex, @Nullable final Boolean value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setObject(final int rowIndex, final int columnIndex, @Nullable final Object value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+}
@@ -0,0 +1,219 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Read-only spreadsheet whose sheets are loaded on demand. Opening the file reads only the names
+ * of the sheets through the streaming {@link Spreadsheet} of its format: the {@code workbook.xml}
+ * part of <i>xlsx</i> files, the names of the table elements of <i>ods</i> files. The content of
+ * a sheet is decoded into a {@link SheetTable} the first time one of its cells is accessed.
+ * <p>
+ * The loaded tables are kept in a cache holding them through soft references, so that the garbage
+ * collector can release them when the heap is running low. Since the tables store the cells
+ * outside of the Java heap, where the soft references do not help, the cache is also bounded by the
+ * number of off-heap bytes of the loaded tables, by default half of the {@linkplain
+ * #defaultMaxLoadedBytes() maximum direct memory}: the least recently used tables are released when
+ * the bound is exceeded. A released sheet is loaded again, from the still open source file, the
+ * next time it is accessed.
+ * To instantiate this class use {@link Spreadsheets#openLazy(File)}.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#openLazy(File, long)
+ * @see LazySheet
+ */
+final class LazySpreadsheet implements Spreadsheet {
+  private static final String MAX_DIRECT_MEMORY_OPTION = "-XX:MaxDirectMemorySize=";
+  private final Spreadsheet source;
+  private final boolean sharedStream;
+  private final List<String> sheetNames;
+  private final List<LazySheet> sheets;
+  private final LoadingCache<Integer, SnapshotSheet> loaded;
+
+  /**
+   * @param source the streaming spreadsheet reading the file
+   * @param sharedStream whether the sheets of the source share a single stream, so that they must
+   *        be loaded one at a time
+   * @param maxLoadedBytes the maximum number of off-heap bytes of the loaded tables, a negative
+   *        value for no bound
+   */
+  LazySpreadsheet(final Spreadsheet source, final boolean sharedStream,
+      final long maxLoadedBytes) {
+    this.source = source;
+    this.sharedStream = sharedStream;
+    this.sheetNames = Collections.unmodifiableList(new ArrayList<>(source.getSheetNames()));
+    final List<LazySheet> lazySheets = new ArrayList<>(sheetNames.size());
+    for (int i = 0; i < sheetNames.size(); i++) {
+      lazySheets.add(new LazySheet(this, i, sheetNames.get(i)));
+    }
+    this.sheets = lazySheets;
+    // a single segment, otherwise the bound would be split among the segments
+    final CacheBuilder<Object, Object> builder =
+        CacheBuilder.newBuilder().concurrencyLevel(1).softValues();
+    if (maxLoadedBytes >= 0) {
+      builder.maximumWeight(maxLoadedBytes).weigher(new Weigher<Integer, SnapshotSheet>() {
+        @Override
+        public int weigh(final Integer key, final SnapshotSheet value) {
+          return (int) Math.min(Integer.MAX_VALUE, value.getTable().getOffHeapSize());
+        }
+      });
+    }
+    this.loaded = builder.build(new CacheLoader<Integer, SnapshotSheet>() {
+      @Override
+      public SnapshotSheet load(final Integer key) {
+        return new SnapshotSheet(loadTable(key));
+      }
+    });
+  }
+
+  /**
+   * Returns half of the maximum direct memory of the JVM, as set by
+   * {@code -XX:MaxDirectMemorySize} or, by default, the maximum heap size.
+   */
+  static long defaultMaxLoadedBytes() {
+    long maxDirectMemory = Runtime.getRuntime().maxMemory();
+    for (final String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (argument.startsWith(MAX_DIRECT_MEMORY_OPTION)) {
+        maxDirectMemory = parseSize(argument.substring(MAX_DIRECT_MEMORY_OPTION.length()));
+      }
+    }
+    return maxDirectMemory / 2;
+  }
+
+  /**
+   * Parses a JVM memory size, e.g. {@code 512m}.
+   */
+  private static long parseSize(final String size) {
+    final char unit = Character.toLowerCase(size.charAt(size.length() - 1));
+    final int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : unit == 't' ? 40 : 0;
+    final String digits = shift > 0 ? size.substring(0, size.length() - 1) : size;
+    return Long.parseLong(digits) << shift;
+  }
+
+  private SheetTable loadTable(final int index) {
+    if (sharedStream) {
+      synchronized (source) {
+        return SheetTable.load(source.getSheet(index));
+      }
+    }
+    return SheetTable.load(source.getSheet(index));
+  }
+
+  /**
+   * Returns the content of the sheet at the specified index, loading it if it has never been
+   * accessed or it has been released.
+   */
+  SnapshotSheet getLoadedSheet(final int index) {
+    try {
+      return loaded.getUnchecked(index);
+    } catch (final UncheckedExecutionException ex) {
+      final Throwable cause = ex.getCause();
+      throw cause instanceof RuntimeException ? (RuntimeException) cause
+          : new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * @return <tt>true</tt> if the content of the sheet at the specified index is currently loaded
+   */
+  boolean isLoaded(final int index) {
+    return loaded.getIfPresent(index) != null;
+  }
+
+  /**
+   * Releases the content of all the loaded sheets.
+   */
+  void release() {
+    loaded.invalidateAll();
+  }
+
+  @Override
+  public File getFile() {
+    return source.getFile();
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return sheetNames;
+  }
+
+  /**
+   * Returns the sheets of the spreadsheet without loading them.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public List<Sheet> getSheets() {
+    return Collections.<Sheet>unmodifiableList(sheets);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    final int index = sheetNames.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return sheets.get(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheets.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheets.size() - 1));
+    }
+    return sheets.get(index);
+  }
+
+  @Override
+  public Sheet addSheet(final String name) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write() throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  /**
+   * Releases the loaded sheets and closes the source file: the sheets not yet loaded cannot be
+   * accessed anymore.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    release();
+    source.close();
+  }
+}
@@ -0,0 +1,126 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.Nonnull;
+import com.google.common.base.Preconditions;
+
+/**
+ * Destination of a bulk read of the numeric cells of a column, filling a caller provided primitive
+ * array and a null bitmap without boxing the values: the value of row {@code r} is stored at index
+ * {@code r - fromRow} of the array.
+ * <p>
+ * On creation the whole range is marked as blank, so that the sheets only have to
+ * {@link #put(int, double)} the non blank cells and may skip the absent rows.
+ *
+ * @author Foroni Marco
+ * @see Sheet#readDoubleColumn(int, int, int, double[], BitSet)
+ * @see Sheet#readLongColumn(int, int, int, long[], BitSet)
+ */
+abstract class NumericColumn {
+  final int columnIndex;
+  final int fromRow;
+  final int toRow;
+  private final String type;
+  private final BitSet nulls;
+  private int count;
+
+  private NumericColumn(final String type, final int columnIndex, final int fromRow,
+      final int toRow, final int capacity, final BitSet nulls) {
+    Preconditions.checkArgument(columnIndex >= 0, "Column index (%s) must be non negative",
+        columnIndex);
+    Preconditions.checkPositionIndexes(fromRow, toRow, Integer.MAX_VALUE);
+    if (toRow - fromRow > capacity) {
+      throw new IndexOutOfBoundsException(
+          String.format("Cannot read %d rows into an array of length %d", toRow - fromRow,
+              capacity));
+    }
+    this.columnIndex = columnIndex;
+    this.fromRow = fromRow;
+    this.toRow = toRow;
+    this.type = type;
+    this.nulls = nulls;
+    nulls.set(0, toRow - fromRow);
+  }
+
+  static NumericColumn ofDouble(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final double[] values, @Nonnull final BitSet nulls) {
+    return new NumericColumn("double", columnIndex, fromRow, toRow, values.length, nulls) {
+      {
+        Arrays.fill(values, 0, toRow - fromRow, 0);
+      }
+
+      @Override
+      void store(final int rowIndex, final double value) {
+        values[rowIndex - this.fromRow] = value;
+      }
+    };
+  }
+
+  static NumericColumn ofLong(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final long[] values, @Nonnull final BitSet nulls) {
+    return new NumericColumn("long", columnIndex, fromRow, toRow, values.length, nulls) {
+      {
+        Arrays.fill(values, 0, toRow - fromRow, 0);
+      }
+
+      @Override
+      void store(final int rowIndex, final double value) {
+        final long longValue = (long) value;
+        if (longValue != value) {
+          throw new IllegalStateException(
+              String.format("Cannot retrieve a long value from cell [%d, %d] having value %s",
+                  rowIndex, this.columnIndex, value));
+        }
+        values[rowIndex - this.fromRow] = longValue;
+      }
+    };
+  }
+
+  abstract void store(final int rowIndex, final double value);
+
+  /**
+   * Stores the value of the cell at the specified row, marking it as non blank.
+   *
+   * @param rowIndex index of the row (starting from 0), between {@link #fromRow} and
+   *        {@link #toRow}
+   * @param value the numeric value of the cell
+   * @throws IllegalStateException if the column cannot hold the value
+   */
+  final void put(final int rowIndex, final double value) {
+    store(rowIndex, value);
+    nulls.clear(rowIndex - fromRow);
+    count++;
+  }
+
+  /**
+   * Stores the value of the cell at the specified row as returned by
+   * {@link Sheet#getObject(int, int)}.
+   *
+   * @param rowIndex index of the row (starting from 0), between {@link #fromRow} and
+   *        {@link #toRow}
+   * @param value the value of the cell, <tt>null</tt> for blank cells
+   * @throws IllegalStateException if the value is not a {@link Number}
+   */
+  final void putObject(final int rowIndex, final Object value) {
+    if (value instanceof Number) {
+      put(rowIndex, ((Number) value).doubleValue());
+    } else if (value != null) {
+      throw typeMismatch(rowIndex, value);
+    }
+  }
+
+  /**
+   * Returns the exception thrown when the cell at the specified row is not numeric.
+   */
+  final IllegalStateException typeMismatch(final int rowIndex, final Object value) {
+    return AbstractSheet.typeMismatch(type, rowIndex, columnIndex, value);
+  }
+
+  /**
+   * @return the number of non blank cells stored
+   */
+  final int getCount() {
+    return count;
+  }
+}
@@ -0,0 +1,95 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bitmap of the non empty cells of a sheet, holding a {@link BitSet} for each row: the rows
+ * without any non empty cell do not allocate a {@link BitSet}.
+ * <p>
+ * The last column of a row is the length of its {@link BitSet}, while the last row is kept up to
+ * date by {@link #set(int, int)}: since the cells are never emptied, it can only grow.
+ *
+ * @author Foroni Marco
+ * @see OdsSheet
+ */
+final class OccupancyBitmap {
+  private static final int INITIAL_CAPACITY = 16;
+  private BitSet[] rows;
+  private int lastRow;
+
+  OccupancyBitmap(final int expectedRows) {
+    rows = new BitSet[Math.max(expectedRows, INITIAL_CAPACITY)];
+  }
+
+  /**
+   * Marks the specified cell as non empty.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   * @param columnIndex index of the column (starting from 0)
+   */
+  void set(final int rowIndex, final int columnIndex) {
+    if (rowIndex >= rows.length) {
+      rows = Arrays.copyOf(rows, Math.max(rowIndex + 1, rows.length * 2));
+    }
+    BitSet row = rows[rowIndex];
+    if (row == null) {
+      row = new BitSet();
+      rows[rowIndex] = row;
+    }
+    row.set(columnIndex);
+    if (rowIndex >= lastRow) {
+      lastRow = rowIndex + 1;
+    }
+  }
+
+  /**
+   * @param rowIndex index of the row (starting from 0)
+   * @param columnIndex index of the column (starting from 0)
+   * @return <tt>true</tt> if the specified cell is not empty
+   */
+  boolean isSet(final int rowIndex, final int columnIndex) {
+    final BitSet row = getRow(rowIndex);
+    return row != null && row.get(columnIndex);
+  }
+
+  /**
+   * @param rowIndex index of the row (starting from 0)
+   * @return <tt>true</tt> if all the cells of the specified row are empty
+   */
+  boolean isEmptyRow(final int rowIndex) {
+    final BitSet row = getRow(rowIndex);
+    return row == null || row.isEmpty();
+  }
+
+  /**
+   * @param rowIndex index of the row (starting from 0)
+   * @param fromColumn index of the first column to check
+   * @return the index of the first non empty cell of the row starting from {@code fromColumn}, -1
+   *         if there is no such cell
+   */
+  int nextSetColumn(final int rowIndex, final int fromColumn) {
+    final BitSet row = getRow(rowIndex);
+    return row != null ? row.nextSetBit(fromColumn) : -1;
+  }
+
+  /**
+   * @param rowIndex index of the row (starting from 0)
+   * @return the index of the last non empty cell of the row plus one
+   */
+  int getLastColumn(final int rowIndex) {
+    final BitSet row = getRow(rowIndex);
+    return row != null ? row.length() : 0;
+  }
+
+  /**
+   * @return the index of the last non empty row plus one
+   */
+  int getLastRow() {
+    return lastRow;
+  }
+
+  private BitSet getRow(final int rowIndex) {
+    return rowIndex >= 0 && rowIndex < rows.length ? rows[rowIndex] : null;
+  }
+}
@@ -5,6 +5,7 @@ import java.util.Date;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.xml.datatype.Duration;
+import org.jdom.Namespace;
 import org.jopendocument.dom.ODValueType;
 import org.jopendocument.dom.spreadsheet.Cell;
 import org.jopendocument.dom.spreadsheet.MutableCell;
@@ -13,10 +14,18 @@ import org.jopendocument.dom.spreadsheet.SpreadSheet;
 import com.google.common.base.Preconditions;
 
 final class OdsSheet extends AbstractSheet {
+  private static final Namespace OFFICE_NS = Namespace.getNamespace("office", OdsXml.OFFICE_NS);
   private final Sheet sheet;
+  private final EditState state;
+  private OccupancyBitmap occupancy;
 
   OdsSheet(final Sheet sheet) {
+    this(sheet, new EditState(true));
+  }
+
+  OdsSheet(final Sheet sheet, final EditState state) {
     this.sheet = sheet;
+    this.state = state;
   }
 
   private Cell<SpreadSheet> getImmutableCell(final int rowIndex, final int columnIndex) {
@@ -27,7 +36,14 @@ final class OdsSheet extends AbstractSheet {
     return sheet.getCellAt(columnIndex, rowIndex);
   }
 
+  /**
+   * Returns the value type of the specified cell, <tt>null</tt> if the cell is empty: once the
+   * {@link OccupancyBitmap} is built, the empty cells are not looked up in the document.
+   */
   private ODValueType getCellType(final int rowIndex, final int columnIndex) {
+    if (occupancy != null && !occupancy.isSet(rowIndex, columnIndex)) {
+      return null;
+    }
     return sheet.getImmutableCellAt(columnIndex, rowIndex).getValueType();
   }
 
@@ -56,18 +72,41 @@ final class OdsSheet extends AbstractSheet {
     return sheet.getColumnCount();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getLastRow() {
+    return getOccupancy().getLastRow();
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public int getLastColumn(final int rowIndex) {
-    int lastCol = sheet.getColumnCount();
-    for (; lastCol > 0; lastCol--) {
-      if (getObject(rowIndex, lastCol - 1) != null) {
-        return lastCol;
+    return getOccupancy().getLastColumn(rowIndex);
+  }
+
+  /**
+   * Returns the {@link OccupancyBitmap} of the sheet, built on first use looking up each cell of the
+   * table once.
+   */
+  private OccupancyBitmap getOccupancy() {
+    if (occupancy == null) {
+      final int rows = sheet.getRowCount();
+      final int columns = sheet.getColumnCount();
+      final OccupancyBitmap bitmap = new OccupancyBitmap(rows);
+      for (int r = 0; r < rows; r++) {
+        for (int c = 0; c < columns; c++) {
+          if (sheet.getImmutableCellAt(c, r).getValueType() != null) {
+            bitmap.set(r, c);
+          }
+        }
       }
+      occupancy = bitmap;
     }
-    return 0;
+    return occupancy;
   }
 
   /**
@@ -93,6 +132,70 @@ final class OdsSheet extends AbstractSheet {
     return getImmutableCell(rowIndex, columnIndex).getValue();
   }
 
+  /**
+   * Returns a cursor looking up each cell of the table only once, instead of the two lookups of
+   * {@link #getObject(int, int)}. If the {@link OccupancyBitmap} is already built, only the non
+   * empty cells are looked up.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    return new AbstractRowCursor() {
+      private final int rows = sheet.getRowCount();
+      private final int columns = sheet.getColumnCount();
+      private int next;
+
+      @Override
+      public boolean next() {
+        while (next < rows) {
+          final int rowIndex = next++;
+          startRow(rowIndex);
+          if (occupancy != null) {
+            for (int c = occupancy.nextSetColumn(rowIndex, 0); c >= 0; c =
+                occupancy.nextSetColumn(rowIndex, c + 1)) {
+              set(c, sheet.getImmutableCellAt(c, rowIndex).getValue());
+            }
+          } else {
+            for (int c = 0; c < columns; c++) {
+              final Cell<SpreadSheet> cell = sheet.getImmutableCellAt(c, rowIndex);
+              if (cell.getValueType() != null) {
+                set(c, cell.getValue());
+              }
+            }
+          }
+          if (getLastColumn() > 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Fills the specified column parsing the <tt>office:value</tt> attribute of the numeric cells,
+   * instead of going through the {@link BigDecimal} returned by {@link Cell#getValue()}. Each cell
+   * is looked up once, and only if not empty according to the {@link OccupancyBitmap}.
+   */
+  @Override
+  void readColumn(final NumericColumn column) {
+    final OccupancyBitmap occupancy = getOccupancy();
+    final int toRow = Math.min(column.toRow, occupancy.getLastRow());
+    for (int r = column.fromRow; r < toRow; r++) {
+      if (occupancy.isSet(r, column.columnIndex)) {
+        final Cell<SpreadSheet> cell = getImmutableCell(r, column.columnIndex);
+        final ODValueType cellType = cell.getValueType();
+        if (cellType == ODValueType.FLOAT || cellType == ODValueType.CURRENCY
+            || cellType == ODValueType.PERCENTAGE) {
+          final String value = cell.getElement().getAttributeValue("value", OFFICE_NS);
+          column.put(r, value != null ? Double.parseDouble(value)
+              : ((BigDecimal) cell.getValue()).doubleValue());
+        } else if (cellType != null) {
+          throw column.typeMismatch(r, cell.getValue());
+        }
+      }
+    }
+  }
+
   @Nullable
   @Override
   public String getString(final int rowIndex, final int columnIndex) {
@@ -182,6 +285,7 @@ final class OdsSheet extends AbstractSheet {
   @Override
   public void setObject(final int rowIndex, final int columnIndex, @Nullable final Object value,
       @Nullable final SSCellFormat cellFormat) {
+    state.modifying(sheet);
     if (value != null) {
       if (columnIndex + 1 > getColumns()) {
         sheet.setColumnCount(columnIndex + 1);
@@ -191,6 +295,9 @@ final class OdsSheet extends AbstractSheet {
       }
       final MutableCell<SpreadSheet> cell = getMutableCell(rowIndex, columnIndex);
       cell.setValue(value);
+      if (occupancy != null) {
+        occupancy.set(rowIndex, columnIndex);
+      }
       if (cellFormat != null) {
         setCellStyle(cell, cellFormat);
       }
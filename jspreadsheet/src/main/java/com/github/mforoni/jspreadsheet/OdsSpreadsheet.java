@@ -2,9 +2,19 @@ package com.github.mforoni.jspreadsheet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import org.jopendocument.dom.ODPackage;
 import org.jopendocument.dom.spreadsheet.SpreadSheet;
 import com.github.mforoni.jspreadsheet.Spreadsheets.Mode;
 
@@ -17,14 +27,19 @@ import com.github.mforoni.jspreadsheet.Spreadsheets.Mode;
  * @see SpreadSheet
  * @see OdsSheet
  */
-final class OdsSpreadsheet implements Spreadsheet {
+final class OdsSpreadsheet implements EditableSpreadsheet {
   private final SpreadSheet spreadSheet;
   private final Mode mode;
+  private final EditState state;
+  @Nullable
   private final File file;
+  private final Map<org.jopendocument.dom.spreadsheet.Sheet, OdsSheet> sheets =
+      new IdentityHashMap<>();
 
-  private OdsSpreadsheet(final File file, final Mode mode) throws IOException {
+  private OdsSpreadsheet(@Nullable final File file, final Mode mode) throws IOException {
     this.file = file;
     this.mode = mode;
+    state = new EditState(mode.editable());
     switch (mode) {
       case CREATE:
         spreadSheet = SpreadSheet.create(1, 1, 1);
@@ -40,6 +55,18 @@ final class OdsSpreadsheet implements Spreadsheet {
     }
   }
 
+  /**
+   * Reads the package of the spreadsheet from the specified stream: jOpenDocument loads all the
+   * entries of the package in memory. A spreadsheet edited from a stream has no file to be written
+   * to.
+   */
+  private OdsSpreadsheet(final InputStream in, final Mode mode) throws IOException {
+    this.file = null;
+    this.mode = mode;
+    state = new EditState(mode.editable());
+    spreadSheet = SpreadSheet.get(new ODPackage(in));
+  }
+
   /**
    * Creates a new ODS spreadsheet from scratch placed in the specified {@code file}.
    * 
@@ -51,6 +78,17 @@ final class OdsSpreadsheet implements Spreadsheet {
     return new OdsSpreadsheet(file, Mode.CREATE);
   }
 
+  /**
+   * Creates a new ODS spreadsheet from scratch having no file, to be written with
+   * {@link #write(OutputStream)}.
+   * 
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static OdsSpreadsheet createInMemory() throws IOException {
+    return new OdsSpreadsheet((File) null, Mode.CREATE);
+  }
+
   /**
    * Edits the specified ODS spreadsheet {@code file}.
    * 
@@ -73,6 +111,28 @@ final class OdsSpreadsheet implements Spreadsheet {
     return new OdsSpreadsheet(file, Mode.OPEN);
   }
 
+  /**
+   * Edits the ODS spreadsheet read from the specified stream.
+   * 
+   * @param in a stream holding an ODS spreadsheet
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static OdsSpreadsheet edit(final InputStream in) throws IOException {
+    return new OdsSpreadsheet(in, Mode.EDIT);
+  }
+
+  /**
+   * Opens the ODS spreadsheet read from the specified stream in read-only mode.
+   * 
+   * @param in a stream holding an ODS spreadsheet
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static OdsSpreadsheet open(final InputStream in) throws IOException {
+    return new OdsSpreadsheet(in, Mode.OPEN);
+  }
+
   @Override
   public File getFile() {
     return file;
@@ -100,7 +160,7 @@ final class OdsSpreadsheet implements Spreadsheet {
     final List<Sheet> sheets = new ArrayList<>();
     for (int i = 0; i < spreadSheet.getSheetCount(); i++) {
       final org.jopendocument.dom.spreadsheet.Sheet sheet = spreadSheet.getSheet(i);
-      sheets.add(new OdsSheet(sheet));
+      sheets.add(wrap(sheet));
     }
     return sheets;
   }
@@ -113,7 +173,7 @@ final class OdsSpreadsheet implements Spreadsheet {
   public Sheet getSheet(final String name) {
     final org.jopendocument.dom.spreadsheet.Sheet sheet = spreadSheet.getSheet(name);
     if (sheet != null) {
-      return new OdsSheet(sheet);
+      return wrap(sheet);
     } else {
       throw new IllegalArgumentException("Cannot find sheet having name " + name);
     }
@@ -127,22 +187,35 @@ final class OdsSpreadsheet implements Spreadsheet {
   public Sheet getSheet(final int index) {
     try {
       final org.jopendocument.dom.spreadsheet.Sheet sheet = spreadSheet.getSheet(index);
-      return new OdsSheet(sheet);
+      return wrap(sheet);
     } catch (final IndexOutOfBoundsException e) {
       throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
           index, spreadSheet.getSheetCount() - 1), e);
     }
   }
 
+  /**
+   * Returns the {@link OdsSheet} wrapping the specified sheet: the same instance is returned for the
+   * same sheet, so that its {@link OccupancyBitmap} is built only once.
+   */
+  private OdsSheet wrap(final org.jopendocument.dom.spreadsheet.Sheet sheet) {
+    OdsSheet odsSheet = sheets.get(sheet);
+    if (odsSheet == null) {
+      odsSheet = new OdsSheet(sheet, state);
+      sheets.put(sheet, odsSheet);
+    }
+    return odsSheet;
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public Sheet addSheet(final String name) {
-    canWrite();
+    state.modifyingStructure();
     // what happens if you add a sheet with an already existing name ? FIXME
     final org.jopendocument.dom.spreadsheet.Sheet sheet = spreadSheet.addSheet(name);
-    return new OdsSheet(sheet);
+    return wrap(sheet);
   }
 
   /**
@@ -151,7 +224,52 @@ final class OdsSpreadsheet implements Spreadsheet {
   @Override
   public void write() throws IOException {
     canWrite();
-    spreadSheet.saveAs(file);
+    if (file == null) {
+      throw new IllegalStateException(Spreadsheets.NO_FILE_MESSAGE);
+    }
+    if (!writeIncrementally()) {
+      spreadSheet.saveAs(file);
+    }
+    state.saved();
+  }
+
+  /**
+   * Saves an edited spreadsheet to its file replacing only the <i>content.xml</i> entry, which
+   * holds the tables of all the sheets: the other entries of the package are copied untouched by
+   * {@link ZipPatcher}. Nothing is written if no sheet has been modified.
+   *
+   * @return <tt>false</tt> if the spreadsheet must be saved entirely, because it has been created
+   *         or sheets have been added, or the file cannot be patched
+   */
+  private boolean writeIncrementally() throws IOException {
+    if (mode != Mode.EDIT || state.isStructureModified()) {
+      return false;
+    }
+    if (state.getModifiedSheets().isEmpty()) {
+      return true;
+    }
+    final String content = spreadSheet.getPackage().getContent().asString();
+    return ZipPatcher.patch(file, Collections.singletonMap(OdsXml.CONTENT_ENTRY,
+        content.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    canWrite();
+    final ShieldedOutputStream target = new ShieldedOutputStream(out);
+    spreadSheet.getPackage().save(target);
+    target.flush();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    write(Channels.newOutputStream(channel));
   }
 
   /**
@@ -164,9 +282,11 @@ final class OdsSpreadsheet implements Spreadsheet {
   }
 
   private void canWrite() throws IllegalStateException {
-    if (mode == Mode.OPEN) {
-      throw new IllegalStateException(
-          "Write operation not allowed on file opened in read-only mode.");
-    }
+    state.checkEditable();
+  }
+
+  @Override
+  public EditState getEditState() {
+    return state;
   }
 }
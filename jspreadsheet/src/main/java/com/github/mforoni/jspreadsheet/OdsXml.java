@@ -0,0 +1,26 @@
+package com.github.mforoni.jspreadsheet;
+
+/**
+ * Namespaces and entry names of the OpenDocument packages handled by the streaming ODS engines.
+ *
+ * @author Foroni Marco
+ */
+final class OdsXml {
+  static final String OFFICE_NS = "urn:oasis:names:tc:opendocument:xmlns:office:1.0";
+  static final String TABLE_NS = "urn:oasis:names:tc:opendocument:xmlns:table:1.0";
+  static final String TEXT_NS = "urn:oasis:names:tc:opendocument:xmlns:text:1.0";
+  static final String STYLE_NS = "urn:oasis:names:tc:opendocument:xmlns:style:1.0";
+  static final String NUMBER_NS = "urn:oasis:names:tc:opendocument:xmlns:datastyle:1.0";
+  static final String FO_NS = "urn:oasis:names:tc:opendocument:xmlns:xsl-fo-compatible:1.0";
+  static final String MANIFEST_NS = "urn:oasis:names:tc:opendocument:xmlns:manifest:1.0";
+  static final String VERSION = "1.2";
+  static final String MIMETYPE = "application/vnd.oasis.opendocument.spreadsheet";
+  static final String MIMETYPE_ENTRY = "mimetype";
+  static final String CONTENT_ENTRY = "content.xml";
+  static final String STYLES_ENTRY = "styles.xml";
+  static final String MANIFEST_ENTRY = "META-INF/manifest.xml";
+
+  private OdsXml() {
+    throw new AssertionError();
+  }
+}
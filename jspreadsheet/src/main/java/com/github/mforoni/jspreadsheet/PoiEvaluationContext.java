@@ -0,0 +1,176 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Date;
+import javax.annotation.Nullable;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Workbook;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Evaluation state of a {@link Workbook} shared by all the {@link PoiSheet} instances of a
+ * {@link PoiSpreadsheet}: a single {@link FormulaEvaluator}, keeping the POI cache of the formula
+ * results, and a single {@link DataFormatter}, keeping the parsed formats.
+ * <p>
+ * The values returned by {@link #getObject(Cell)} are cached by cell identity and the date check
+ * of the data formats is cached by style index: both caches hold at most {@code maximumSize}
+ * entries. Any cell modification must be notified through {@link #invalidate(Cell)}, since it may
+ * change the value of the formulas depending on it.
+ * <p>
+ * <b>Note</b>: like the POI workbook, this class is not thread-safe.
+ *
+ * @author Foroni Marco
+ * @see PoiSpreadsheet
+ * @see PoiSheet
+ */
+final class PoiEvaluationContext {
+  /**
+   * The default maximum number of entries of each cache.
+   */
+  static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+  /**
+   * Placeholder of the <tt>null</tt> values, not allowed in the cache.
+   */
+  private static final Object NULL = new Object();
+  private final Workbook workbook;
+  private final Cache<Cell, Object> values;
+  private final Cache<Short, Boolean> dateFormats;
+  private FormulaEvaluator evaluator;
+  private DataFormatter formatter;
+
+  PoiEvaluationContext(final Workbook workbook) {
+    this(workbook, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  PoiEvaluationContext(final Workbook workbook, final int maximumSize) {
+    this.workbook = workbook;
+    // weak keys are compared by identity: cells are looked up without allocating a key
+    this.values =
+        CacheBuilder.newBuilder().concurrencyLevel(1).weakKeys().maximumSize(maximumSize).build();
+    this.dateFormats =
+        CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(maximumSize).build();
+  }
+
+  Workbook getWorkbook() {
+    return workbook;
+  }
+
+  /**
+   * Returns the {@link FormulaEvaluator} of the workbook, created on first use.
+   */
+  FormulaEvaluator getEvaluator() {
+    if (evaluator == null) {
+      evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+    }
+    return evaluator;
+  }
+
+  /**
+   * Returns the {@link DataFormatter} of the workbook, created on first use.
+   */
+  DataFormatter getFormatter() {
+    if (formatter == null) {
+      formatter = new DataFormatter();
+    }
+    return formatter;
+  }
+
+  /**
+   * Returns the value of the specified cell, evaluating its formula if any. The cache is looked up
+   * before reading the type of the cell, which is costly for the XSSF cells.
+   *
+   * @param cell a cell
+   * @return the value of the cell, <tt>null</tt> if the cell is blank
+   */
+  @Nullable
+  Object getObject(final Cell cell) {
+    final Object cached = values.getIfPresent(cell);
+    if (cached != null) {
+      return cached == NULL ? null : copy(cached);
+    }
+    final Object value = evaluate(cell);
+    values.put(cell, value != null ? value : NULL);
+    return copy(value);
+  }
+
+  /**
+   * Returns a copy of the mutable {@link Date} values, in order to keep the cached ones unchanged.
+   */
+  @Nullable
+  private static Object copy(@Nullable final Object value) {
+    return value instanceof Date ? new Date(((Date) value).getTime()) : value;
+  }
+
+  @Nullable
+  private Object evaluate(final Cell cell) {
+    final CellValue cellValue = getEvaluator().evaluate(cell);
+    if (cellValue == null) {
+      return null;
+    }
+    switch (cellValue.getCellType()) {
+      case Cell.CELL_TYPE_BOOLEAN:
+        return cellValue.getBooleanValue();
+      case Cell.CELL_TYPE_NUMERIC:
+        if (isDateFormatted(cell, cellValue.getNumberValue())) {
+          return cell.getDateCellValue();
+        }
+        return cellValue.getNumberValue();
+      case Cell.CELL_TYPE_STRING:
+        return cellValue.getStringValue();
+      case Cell.CELL_TYPE_BLANK:
+        return null;
+      case Cell.CELL_TYPE_ERROR:
+        return cellValue.getErrorValue();
+      case Cell.CELL_TYPE_FORMULA:
+        // CELL_TYPE_FORMULA should never occur
+        throw new AssertionError("Cell having type FORMULA after evaluation not expected");
+      default:
+        throw new IllegalStateException("Cell type " + cell.getCellType() + " not handled");
+    }
+  }
+
+  /**
+   * Equivalent to {@link DateUtil#isCellDateFormatted(Cell)}, without parsing again the format
+   * string of the styles already met.
+   */
+  boolean isDateFormatted(final Cell cell, final double value) {
+    if (!DateUtil.isValidExcelDate(value)) {
+      return false;
+    }
+    final CellStyle style = cell.getCellStyle();
+    if (style == null) {
+      return false;
+    }
+    final Short index = style.getIndex();
+    Boolean date = dateFormats.getIfPresent(index);
+    if (date == null) {
+      final String formatString = style.getDataFormatString();
+      date = formatString != null && DateUtil.isADateFormat(style.getDataFormat(), formatString);
+      dateFormats.put(index, date);
+    }
+    return date;
+  }
+
+  /**
+   * Notifies that the value or the style of the specified cell has been modified: the cached values
+   * are discarded, since the formulas depending on the cell may change as well, together with the
+   * POI cache of the cell and the cached date check of its style.
+   *
+   * @param cell the modified cell
+   */
+  void invalidate(final Cell cell) {
+    values.invalidateAll();
+    if (evaluator != null) {
+      evaluator.notifyUpdateCell(cell);
+    }
+    final CellStyle style = cell.getCellStyle();
+    if (style != null) {
+      dateFormats.invalidate(style.getIndex());
+    }
+  }
+}
@@ -1,18 +1,12 @@
 package com.github.mforoni.jspreadsheet;
 
 import java.util.Date;
+import java.util.Iterator;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.CellValue;
-import org.apache.poi.ss.usermodel.CreationHelper;
-import org.apache.poi.ss.usermodel.DataFormatter;
-import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 
 /**
  * @author Foroni Marco
@@ -20,21 +14,26 @@ import org.apache.poi.ss.usermodel.Workbook;
  */
 final class PoiSheet extends AbstractSheet {
   private final org.apache.poi.ss.usermodel.Sheet sheet;
-  private final Workbook workbook;
-  private final boolean editable;
+  private final PoiEvaluationContext context;
+  private final PoiStylePool styles;
+  private final EditState state;
+  private DimensionIndex dimensionIndex;
 
-  PoiSheet(final org.apache.poi.ss.usermodel.Sheet sheet, final Workbook workbook,
-      final boolean editable) {
+  PoiSheet(final org.apache.poi.ss.usermodel.Sheet sheet, final PoiEvaluationContext context,
+      final PoiStylePool styles, final boolean editable) {
+    this(sheet, context, styles, new EditState(editable));
+  }
+
+  PoiSheet(final org.apache.poi.ss.usermodel.Sheet sheet, final PoiEvaluationContext context,
+      final PoiStylePool styles, final EditState state) {
     this.sheet = sheet;
-    this.workbook = workbook;
-    this.editable = editable;
+    this.context = context;
+    this.styles = styles;
+    this.state = state;
   }
 
   private void canWrite() throws IllegalStateException {
-    if (!editable) {
-      throw new IllegalStateException(
-          "Write operation not allowed on file opened in read-only mode.");
-    }
+    state.modifying(sheet);
   }
 
   /**
@@ -59,14 +58,15 @@ final class PoiSheet extends AbstractSheet {
    */
   @Override
   public int getColumns() {
-    int maxNumCols = 0;
-    for (int r = 0; r < getRows(); r++) {
-      final int lastColumn = getLastColumn(r);
-      if (lastColumn > maxNumCols) {
-        maxNumCols = lastColumn;
-      }
-    }
-    return maxNumCols;
+    return getDimensionIndex().getColumns();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getLastRow() {
+    return getDimensionIndex().getLastRow();
   }
 
   /**
@@ -74,11 +74,35 @@ final class PoiSheet extends AbstractSheet {
    */
   @Override
   public int getLastColumn(final int rowIndex) {
-    final Row row = sheet.getRow(rowIndex);
-    if (row != null) {
-      return row.getLastCellNum(); // short
+    return getDimensionIndex().getLastColumn(rowIndex);
+  }
+
+  /**
+   * Returns the {@link DimensionIndex} of the sheet, built on first use from the last cell of each
+   * physically defined row.
+   */
+  private DimensionIndex getDimensionIndex() {
+    if (dimensionIndex == null) {
+      final DimensionIndex index = new DimensionIndex(getRows());
+      final Iterator<Row> rows = sheet.rowIterator();
+      while (rows.hasNext()) {
+        final Row row = rows.next();
+        index.include(row.getRowNum(), row.getLastCellNum());
+      }
+      dimensionIndex = index;
+    }
+    return dimensionIndex;
+  }
+
+  /**
+   * Notifies the modification of the specified cell to the {@link PoiEvaluationContext} and to the
+   * {@link DimensionIndex}.
+   */
+  private void updated(final Cell cell) {
+    context.invalidate(cell);
+    if (dimensionIndex != null) {
+      dimensionIndex.include(cell.getRowIndex(), cell.getColumnIndex() + 1);
     }
-    return 0;
   }
 
   @Override
@@ -111,38 +135,73 @@ final class PoiSheet extends AbstractSheet {
 
   @Override
   public String getRawValue(final int rowIndex, final int columnIndex) {
-    final DataFormatter df = new DataFormatter();
     final Cell cell = getCell(sheet, rowIndex, columnIndex);
-    return df.formatCellValue(cell);
+    return context.getFormatter().formatCellValue(cell);
   }
 
   @Override
   public Object getObject(final int rowIndex, final int columnIndex) {
     final Cell cell = getCell(sheet, rowIndex, columnIndex);
-    if (cell == null || cell.getCellType() == Cell.CELL_TYPE_BLANK) {
-      return null;
-    } else {
-      final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
-      final CellValue cellValue = evaluator.evaluate(cell);
-      switch (cellValue.getCellType()) {
-        case Cell.CELL_TYPE_BOOLEAN:
-          return cellValue.getBooleanValue();
-        case Cell.CELL_TYPE_NUMERIC:
-          if (DateUtil.isCellDateFormatted(cell)) {
-            return cell.getDateCellValue();
+    return cell != null ? context.getObject(cell) : null;
+  }
+
+  /**
+   * Returns a cursor on {@link org.apache.poi.ss.usermodel.Sheet#rowIterator()}: only the rows
+   * physically defined in the sheet are visited and the cells are evaluated through the
+   * {@link PoiEvaluationContext} of the workbook.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    return new AbstractRowCursor() {
+      private final Iterator<Row> rows = sheet.rowIterator();
+
+      @Override
+      public boolean next() {
+        while (rows.hasNext()) {
+          final Row row = rows.next();
+          startRow(row.getRowNum());
+          final Iterator<Cell> cells = row.cellIterator();
+          while (cells.hasNext()) {
+            final Cell cell = cells.next();
+            set(cell.getColumnIndex(), context.getObject(cell));
           }
-          return cellValue.getNumberValue();
-        case Cell.CELL_TYPE_STRING:
-          return cellValue.getStringValue();
-        case Cell.CELL_TYPE_BLANK:
-          return null;
-        case Cell.CELL_TYPE_ERROR:
-          return cellValue.getErrorValue();
-        case Cell.CELL_TYPE_FORMULA:
-          // CELL_TYPE_FORMULA should never occur
-          throw new AssertionError("Cell having type FORMULA after evaluation not expected");
-        default:
-          throw new IllegalStateException("Cell type " + cell.getCellType() + " not handled");
+          if (getLastColumn() > 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Fills the specified column reading the numeric cells with
+   * {@link Cell#getNumericCellValue()}, only the formula cells are evaluated through the
+   * {@link PoiEvaluationContext} of the workbook. The absent rows are skipped, while a numeric
+   * cell formatted as a date is a type mismatch as for the other backends.
+   */
+  @Override
+  void readColumn(final NumericColumn column) {
+    final int toRow = Math.min(column.toRow, sheet.getLastRowNum() + 1);
+    for (int r = column.fromRow; r < toRow; r++) {
+      final Row row = sheet.getRow(r);
+      final Cell cell = row != null ? row.getCell(column.columnIndex) : null;
+      if (cell != null) {
+        switch (cell.getCellType()) {
+          case Cell.CELL_TYPE_NUMERIC:
+            if (context.isDateFormatted(cell, cell.getNumericCellValue())) {
+              throw column.typeMismatch(r, cell.getDateCellValue());
+            }
+            column.put(r, cell.getNumericCellValue());
+            break;
+          case Cell.CELL_TYPE_BLANK:
+            break;
+          case Cell.CELL_TYPE_FORMULA:
+            column.putObject(r, context.getObject(cell));
+            break;
+          default:
+            throw column.typeMismatch(r, context.getObject(cell));
+        }
       }
     }
   }
@@ -177,6 +236,12 @@ final class PoiSheet extends AbstractSheet {
       final int rowIndex, final int columnIndex) {
     Row row = sheet.getRow(rowIndex);
     if (row == null) {
+      if (sheet instanceof SXSSFSheet
+          && rowIndex <= ((SXSSFSheet) sheet).getLastFlushedRowNum()) {
+        throw new IllegalStateException(String.format(
+            "Cannot write row %d of sheet %s: the rows up to %d have already been flushed to disk",
+            rowIndex, sheet.getSheetName(), ((SXSSFSheet) sheet).getLastFlushedRowNum()));
+      }
       row = sheet.createRow(rowIndex);
     }
     Cell cell = row.getCell(columnIndex);
@@ -196,8 +261,9 @@ final class PoiSheet extends AbstractSheet {
       cell.setCellType(Cell.CELL_TYPE_STRING);
       cell.setCellValue(value);
       if (cellFormat != null) {
-        setCellFormat(cell, cellFormat);
+        cell.setCellStyle(styles.getCellStyle(cellFormat, false));
       }
+      updated(cell);
     }
   }
 
@@ -211,8 +277,9 @@ final class PoiSheet extends AbstractSheet {
       cell.setCellType(Cell.CELL_TYPE_NUMERIC);
       cell.setCellValue(value);
       if (cellFormat != null) {
-        setCellFormat(cell, cellFormat);
+        cell.setCellStyle(styles.getCellStyle(cellFormat, false));
       }
+      updated(cell);
     }
   }
 
@@ -222,15 +289,10 @@ final class PoiSheet extends AbstractSheet {
     canWrite();
     if (value != null) {
       final Cell cell = getOrCreateCell(sheet, rowIndex, columnIndex);
-      // set cell type and the value
-      final CellStyle cellStyle = workbook.createCellStyle();
-      final CreationHelper createHelper = workbook.getCreationHelper();
-      cellStyle.setDataFormat(createHelper.createDataFormat().getFormat("m/d/yy h:mm"));
-      cell.setCellStyle(cellStyle);
+      // set the value and the date format
+      cell.setCellStyle(styles.getCellStyle(cellFormat, true));
       cell.setCellValue(value);
-      if (cellFormat != null) {
-        setCellFormat(cell, cellFormat);
-      }
+      updated(cell);
     }
   }
 
@@ -244,28 +306,9 @@ final class PoiSheet extends AbstractSheet {
       cell.setCellType(Cell.CELL_TYPE_BOOLEAN);
       cell.setCellValue(value);
       if (cellFormat != null) {
-        setCellFormat(cell, cellFormat);
+        cell.setCellStyle(styles.getCellStyle(cellFormat, false));
       }
+      updated(cell);
     }
   }
-
-  private void setCellFormat(@Nonnull final Cell cell, @Nonnull final SSCellFormat cellFormat) {
-    final Font font = workbook.createFont();
-    final CellStyle cellStyle = workbook.createCellStyle();
-    final SSFont ssFont = cellFormat.getSSFont();
-    font.setFontName(ssFont.getName());
-    font.setFontHeightInPoints((short) ssFont.getSize());
-    if (ssFont.isBold()) {
-      // font.setBold(true);
-      // or:
-      font.setBoldweight(Font.BOLDWEIGHT_BOLD);
-    }
-    cellStyle.setFont(font);
-    final SSColor backgroundColour = cellFormat.getBackgroundColour();
-    if (backgroundColour != null) {
-      cellStyle.setFillForegroundColor(backgroundColour.getPoiIndex());
-      cellStyle.setFillPattern(CellStyle.SOLID_FOREGROUND);
-    }
-    cell.setCellStyle(cellStyle);
-  }
 }
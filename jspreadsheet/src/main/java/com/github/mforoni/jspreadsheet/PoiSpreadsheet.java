@@ -1,36 +1,74 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import org.apache.poi.EncryptedDocumentException;
+import org.apache.poi.POIXMLDocumentPart;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.Name;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.model.CalculationChain;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
 import com.github.mforoni.jspreadsheet.Spreadsheets.Mode;
+import com.google.common.cache.CacheStats;
 
 /**
  * Wrapping APACHE POI API in order to handle Microsoft Excel Files. To instantiate this class use
  * the methods provided in the {@link Spreadsheets} class.
  * <p>
  * <b>Note</b>: the APACHE POI class supports both <i>xls</i> and <i>xlsx</i> Excel files.
+ * <p>
+ * The sheets of a spreadsheet share a single {@link PoiEvaluationContext}, caching the evaluated
+ * values and the data formats of the workbook, and a single {@link PoiStylePool}, sharing the cell
+ * styles created by the setters.
  * 
  * @see Spreadsheets
  * @see Spreadsheet
  * @see PoiSheet
  * @author Foroni Marco
  */
-final class PoiSpreadsheet implements Spreadsheet {
+final class PoiSpreadsheet implements EditableSpreadsheet {
+  @Nullable
+  private static final Method SHEET_WRITER = sheetWriter();
   private final Workbook workbook;
+  @Nullable
   private final File file;
   private final Mode mode;
+  private final EditState state;
+  private final PoiEvaluationContext context;
+  private final PoiStylePool styles;
+  private final Map<org.apache.poi.ss.usermodel.Sheet, PoiSheet> sheets = new IdentityHashMap<>();
+  /**
+   * The defined names of an edited <i>xlsx</i> workbook as read from its file, <tt>null</tt> for
+   * the other workbooks.
+   */
+  @Nullable
+  private final List<String> names;
 
   private PoiSpreadsheet(final File file, final Mode mode) throws IOException {
     if (file == null) {
@@ -38,13 +76,10 @@ final class PoiSpreadsheet implements Spreadsheet {
     }
     this.file = file;
     this.mode = mode;
+    state = new EditState(mode.editable());
     switch (mode) {
       case OPEN:
-        try {
-          workbook = WorkbookFactory.create(file, null, true);
-        } catch (final EncryptedDocumentException | InvalidFormatException ex) {
-          throw new IOException(ex);
-        }
+        workbook = openReadOnly(file);
         break;
       case EDIT:
         try (final FileInputStream fis = new FileInputStream(file)) {
@@ -54,16 +89,105 @@ final class PoiSpreadsheet implements Spreadsheet {
         }
         break;
       case CREATE:
-        if (file.exists()) {
-          throw new IllegalStateException(String.format(
-              "Cannot create file %s: the file already exist", file));
-        }
-        com.google.common.io.Files.createParentDirs(file);
+        checkNewFile(file);
         workbook = Spreadsheets.isExtensionXlsx(file) ? new XSSFWorkbook() : new HSSFWorkbook();
         break;
       default:
         throw new AssertionError();
     }
+    names = mode == Mode.EDIT && workbook instanceof XSSFWorkbook ? definedNames(workbook) : null;
+    context = new PoiEvaluationContext(workbook);
+    styles = new PoiStylePool(workbook);
+  }
+
+  private PoiSpreadsheet(final File file, final int rowAccessWindowSize,
+      final boolean compressTempFiles) throws IOException {
+    if (file == null) {
+      throw new IllegalArgumentException("A file must be specified");
+    }
+    if (!Spreadsheets.isExtensionXlsx(file)) {
+      throw new IllegalArgumentException(
+          String.format("Cannot create file %s in streaming mode: only xlsx files are supported",
+              file));
+    }
+    this.file = file;
+    this.mode = Mode.CREATE;
+    state = new EditState(true);
+    checkNewFile(file);
+    workbook = new SXSSFWorkbook(null, rowAccessWindowSize, compressTempFiles);
+    names = null;
+    context = new PoiEvaluationContext(workbook);
+    styles = new PoiStylePool(workbook);
+  }
+
+  /**
+   * Reads the workbook from the specified stream, which must support {@link InputStream#mark(int)}
+   * so that {@link WorkbookFactory} can recognize its format without wrapping it again. POI loads
+   * the whole stream in memory. A workbook edited from a stream has no file to be written to.
+   */
+  private PoiSpreadsheet(final InputStream in, final Mode mode) throws IOException {
+    this.file = null;
+    this.mode = mode;
+    state = new EditState(mode.editable());
+    try {
+      workbook = WorkbookFactory.create(in);
+    } catch (final EncryptedDocumentException | InvalidFormatException ex) {
+      throw new IOException(ex);
+    }
+    names = null;
+    context = new PoiEvaluationContext(workbook);
+    styles = new PoiStylePool(workbook);
+  }
+
+  /**
+   * Wraps a new workbook having no file, to be written with {@link #write(OutputStream)}.
+   */
+  private PoiSpreadsheet(final Workbook workbook) {
+    this.file = null;
+    this.mode = Mode.CREATE;
+    state = new EditState(true);
+    this.workbook = workbook;
+    names = null;
+    context = new PoiEvaluationContext(workbook);
+    styles = new PoiStylePool(workbook);
+  }
+
+  /**
+   * Opens the workbook in read-only mode with the POI model matching the signature of the file,
+   * falling back to {@link WorkbookFactory} when the signature is not recognized.
+   */
+  private static Workbook openReadOnly(final File file) throws IOException {
+    try {
+      final FormatSniffer.Format format = FormatSniffer.sniff(file);
+      if (format == FormatSniffer.Format.XLSX) {
+        final OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ);
+        try {
+          return WorkbookFactory.create(pkg);
+        } catch (final IOException | RuntimeException ex) {
+          pkg.revert();
+          throw ex;
+        }
+      } else if (format == FormatSniffer.Format.XLS) {
+        final NPOIFSFileSystem fileSystem = new NPOIFSFileSystem(file, true);
+        try {
+          return WorkbookFactory.create(fileSystem);
+        } catch (final IOException | RuntimeException ex) {
+          fileSystem.close();
+          throw ex;
+        }
+      }
+      return WorkbookFactory.create(file, null, true);
+    } catch (final EncryptedDocumentException | InvalidFormatException ex) {
+      throw new IOException(ex);
+    }
+  }
+
+  private static void checkNewFile(final File file) throws IOException {
+    if (file.exists()) {
+      throw new IllegalStateException(
+          String.format("Cannot create file %s: the file already exist", file));
+    }
+    com.google.common.io.Files.createParentDirs(file);
   }
 
   /**
@@ -77,6 +201,33 @@ final class PoiSpreadsheet implements Spreadsheet {
     return new PoiSpreadsheet(file, Mode.CREATE);
   }
 
+  /**
+   * Creates a new Excel workbook from scratch having no file, an <i>xlsx</i> workbook if
+   * {@code xlsx} is <tt>true</tt>, an <i>xls</i> one otherwise.
+   * 
+   * @param xlsx whether to create an <i>xlsx</i> workbook
+   * @see Spreadsheet
+   */
+  static PoiSpreadsheet createInMemory(final boolean xlsx) {
+    return new PoiSpreadsheet(xlsx ? new XSSFWorkbook() : new HSSFWorkbook());
+  }
+
+  /**
+   * Creates a new <i>xlsx</i> file from scratch placed in the specified {@code file}, backed by a
+   * {@link SXSSFWorkbook}: only the last {@code rowAccessWindowSize} rows of each sheet are kept in
+   * memory, the older ones are flushed to a temporary file and cannot be read or written anymore.
+   * 
+   * @param file
+   * @param rowAccessWindowSize the number of rows kept in memory for each sheet
+   * @param compressTempFiles whether to compress the temporary files holding the flushed rows
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static PoiSpreadsheet createStreaming(final File file, final int rowAccessWindowSize,
+      final boolean compressTempFiles) throws IOException {
+    return new PoiSpreadsheet(file, rowAccessWindowSize, compressTempFiles);
+  }
+
   /**
    * Edits the specified Excel {@code file}.
    * 
@@ -99,6 +250,28 @@ final class PoiSpreadsheet implements Spreadsheet {
     return new PoiSpreadsheet(file, Mode.OPEN);
   }
 
+  /**
+   * Edits the Excel workbook read from the specified stream.
+   * 
+   * @param in
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static PoiSpreadsheet edit(final InputStream in) throws IOException {
+    return new PoiSpreadsheet(in, Mode.EDIT);
+  }
+
+  /**
+   * Opens the Excel workbook read from the specified stream in read-only mode.
+   * 
+   * @param in
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static PoiSpreadsheet open(final InputStream in) throws IOException {
+    return new PoiSpreadsheet(in, Mode.OPEN);
+  }
+
   @Override
   public File getFile() {
     return file;
@@ -117,7 +290,7 @@ final class PoiSpreadsheet implements Spreadsheet {
   public List<Sheet> getSheets() {
     final List<Sheet> sheets = new ArrayList<>();
     for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-      sheets.add(new PoiSheet(workbook.getSheetAt(i), workbook, mode.editable()));
+      sheets.add(wrap(workbook.getSheetAt(i)));
     }
     return sheets;
   }
@@ -130,7 +303,7 @@ final class PoiSpreadsheet implements Spreadsheet {
   public Sheet getSheet(final String name) {
     final org.apache.poi.ss.usermodel.Sheet sheet = workbook.getSheet(name);
     if (sheet != null) {
-      return new PoiSheet(sheet, workbook, mode.editable());
+      return wrap(sheet);
     } else {
       throw new IllegalArgumentException("Cannot find sheet having name " + name);
     }
@@ -142,7 +315,7 @@ final class PoiSpreadsheet implements Spreadsheet {
   @Nonnull
   @Override
   public Sheet getSheet(final int index) {
-    return new PoiSheet(workbook.getSheetAt(index), workbook, mode.editable());
+    return wrap(workbook.getSheetAt(index));
   }
 
   /**
@@ -150,9 +323,36 @@ final class PoiSpreadsheet implements Spreadsheet {
    */
   @Override
   public Sheet addSheet(final String name) {
-    canWrite();
+    state.modifyingStructure();
     final org.apache.poi.ss.usermodel.Sheet sheet = workbook.createSheet(name);
-    return new PoiSheet(sheet, workbook, mode.editable());
+    return wrap(sheet);
+  }
+
+  /**
+   * Returns the {@link PoiSheet} wrapping the specified sheet: the same instance is returned for
+   * the same sheet, so that its {@link DimensionIndex} is built only once.
+   */
+  private PoiSheet wrap(final org.apache.poi.ss.usermodel.Sheet sheet) {
+    PoiSheet poiSheet = sheets.get(sheet);
+    if (poiSheet == null) {
+      poiSheet = new PoiSheet(sheet, context, styles, state);
+      sheets.put(sheet, poiSheet);
+    }
+    return poiSheet;
+  }
+
+  /**
+   * Returns the underlying POI workbook.
+   */
+  Workbook getWorkbook() {
+    return workbook;
+  }
+
+  /**
+   * Returns the statistics of the lookups in the {@link PoiStylePool} of the workbook.
+   */
+  CacheStats getStyleCacheStats() {
+    return styles.stats();
   }
 
   /**
@@ -161,16 +361,149 @@ final class PoiSpreadsheet implements Spreadsheet {
   @Override
   public void write() throws IOException {
     canWrite();
-    try (final FileOutputStream fos = new FileOutputStream(file)) {
-      workbook.write(fos);
+    if (file == null) {
+      throw new IllegalStateException(Spreadsheets.NO_FILE_MESSAGE);
     }
+    if (!writeIncrementally()) {
+      try (final FileOutputStream fos = new FileOutputStream(file)) {
+        workbook.write(fos);
+      }
+    }
+    state.saved();
   }
 
-  private void canWrite() throws IllegalStateException {
-    if (mode == Mode.OPEN) {
-      throw new IllegalStateException(
-          "Write operation not allowed on file opened in read-only mode.");
+  /**
+   * Saves an edited <i>xlsx</i> workbook to its file replacing only the XML of the modified sheets
+   * and of the parts shared by the sheets, i.e. the shared strings, the styles and the calculation
+   * chain: the other entries of the package are copied untouched by {@link ZipPatcher}. Nothing is
+   * written if no sheet has been modified.
+   *
+   * @return <tt>false</tt> if the workbook must be written entirely, because it is not an edited
+   *         <i>xlsx</i> workbook, sheets have been added, the defined names have been changed, a
+   *         modified sheet is not self-contained or the file cannot be patched
+   */
+  private boolean writeIncrementally() throws IOException {
+    if (mode != Mode.EDIT || !(workbook instanceof XSSFWorkbook) || SHEET_WRITER == null
+        || state.isStructureModified()) {
+      return false;
+    }
+    final List<Object> modified = state.getModifiedSheets();
+    if (modified.isEmpty()) {
+      return true;
+    }
+    if (!definedNames(workbook).equals(names)) {
+      // the defined names are saved in the workbook part
+      return false;
+    }
+    for (final Object sheet : modified) {
+      if (!isSelfContained((XSSFSheet) sheet)) {
+        return false;
+      }
+    }
+    final XSSFWorkbook xssf = (XSSFWorkbook) workbook;
+    final Map<String, byte[]> replacements = new HashMap<>();
+    for (final Object sheet : modified) {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try {
+        SHEET_WRITER.invoke(sheet, bytes);
+      } catch (final IllegalAccessException ex) {
+        return false;
+      } catch (final InvocationTargetException ex) {
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      }
+      replacements.put(entryName((XSSFSheet) sheet), bytes.toByteArray());
     }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    xssf.getSharedStringSource().writeTo(bytes);
+    replacements.put(entryName(xssf.getSharedStringSource()), bytes.toByteArray());
+    bytes = new ByteArrayOutputStream();
+    xssf.getStylesSource().writeTo(bytes);
+    replacements.put(entryName(xssf.getStylesSource()), bytes.toByteArray());
+    final CalculationChain chain = xssf.getCalculationChain();
+    if (chain != null) {
+      bytes = new ByteArrayOutputStream();
+      chain.writeTo(bytes);
+      replacements.put(entryName(chain), bytes.toByteArray());
+    }
+    return ZipPatcher.patch(file, replacements);
+  }
+
+  /**
+   * Tells whether the XML of the specified sheet can be replaced alone: the comments, the
+   * hyperlinks and the drawings of a sheet are saved in other parts of the package or need
+   * relationships of the sheet, which are written only together with the whole workbook.
+   */
+  private static boolean isSelfContained(final XSSFSheet sheet) {
+    final CTWorksheet worksheet = sheet.getCTWorksheet();
+    return !sheet.hasComments() && sheet.getNumHyperlinks() == 0 && !worksheet.isSetDrawing()
+        && !worksheet.isSetLegacyDrawing();
+  }
+
+  /**
+   * @return the name, the scope, the formula and the comment of each defined name of the workbook
+   */
+  private static List<String> definedNames(final Workbook workbook) {
+    final List<String> names = new ArrayList<>(workbook.getNumberOfNames());
+    for (int i = 0; i < workbook.getNumberOfNames(); i++) {
+      final Name name = workbook.getNameAt(i);
+      names.add(name.getNameName() + '\0' + name.getSheetIndex() + '\0'
+          + name.getRefersToFormula() + '\0' + name.getComment());
+    }
+    return names;
+  }
+
+  /**
+   * @return the name of the zip entry holding the specified part, i.e. its part name without the
+   *         leading slash
+   */
+  private static String entryName(final POIXMLDocumentPart part) {
+    return part.getPackagePart().getPartName().getName().substring(1);
+  }
+
+  /**
+   * Returns the protected method serializing the XML of a sheet, which POI only invokes when the
+   * whole package is written, <tt>null</tt> if it cannot be accessed.
+   */
+  @Nullable
+  private static Method sheetWriter() {
+    try {
+      final Method method = XSSFSheet.class.getDeclaredMethod("write", OutputStream.class);
+      method.setAccessible(true);
+      return method;
+    } catch (final NoSuchMethodException | SecurityException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    canWrite();
+    final ShieldedOutputStream target = new ShieldedOutputStream(out);
+    workbook.write(target);
+    target.flush();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    write(Channels.newOutputStream(channel));
+  }
+
+  private void canWrite() throws IllegalStateException {
+    state.checkEditable();
+  }
+
+  @Override
+  public EditState getEditState() {
+    return state;
   }
 
   /**
@@ -178,6 +511,10 @@ final class PoiSpreadsheet implements Spreadsheet {
    */
   @Override
   public void close() throws IOException {
+    if (workbook instanceof SXSSFWorkbook) {
+      // deletes the temporary files of the flushed rows
+      ((SXSSFWorkbook) workbook).dispose();
+    }
     if (workbook != null) {
       workbook.close();
     }
@@ -0,0 +1,128 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Objects;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Workbook;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+
+/**
+ * Registry of the {@link CellStyle} and {@link Font} instances created by the {@link PoiSheet}
+ * setters of a {@link Workbook}: equal {@link SSCellFormat} values, optionally combined with the
+ * date format, share a single {@link CellStyle}, and equal {@link SSFont} values share a single
+ * {@link Font}. This keeps the workbook far from the limit of 64000 cell styles of the Excel
+ * format.
+ * <p>
+ * The styles are never evicted: {@link #stats()} reports the hits and the misses of the style
+ * lookups, the misses being the number of styles created.
+ *
+ * @author Foroni Marco
+ * @see PoiSpreadsheet
+ * @see PoiSheet
+ */
+final class PoiStylePool {
+  static final String DATE_FORMAT = "m/d/yy h:mm";
+  private final Workbook workbook;
+  private final LoadingCache<SSFont, Font> fonts;
+  private final LoadingCache<StyleKey, CellStyle> styles;
+  private short dateFormat = -1;
+
+  PoiStylePool(final Workbook workbook) {
+    this.workbook = workbook;
+    this.fonts =
+        CacheBuilder.newBuilder().concurrencyLevel(1).build(new CacheLoader<SSFont, Font>() {
+          @Override
+          public Font load(final SSFont key) {
+            return createFont(key);
+          }
+        });
+    this.styles = CacheBuilder.newBuilder().concurrencyLevel(1).recordStats()
+        .build(new CacheLoader<StyleKey, CellStyle>() {
+          @Override
+          public CellStyle load(final StyleKey key) {
+            return createCellStyle(key);
+          }
+        });
+  }
+
+  /**
+   * Returns the shared {@link CellStyle} having the specified format.
+   *
+   * @param cellFormat the format of the cell, may be <tt>null</tt> for date cells
+   * @param date whether the style must have the date format {@value #DATE_FORMAT}
+   * @return the shared {@link CellStyle}
+   */
+  CellStyle getCellStyle(@Nullable final SSCellFormat cellFormat, final boolean date) {
+    return styles.getUnchecked(new StyleKey(cellFormat, date));
+  }
+
+  /**
+   * Returns the statistics of the style lookups.
+   */
+  CacheStats stats() {
+    return styles.stats();
+  }
+
+  private CellStyle createCellStyle(final StyleKey key) {
+    final CellStyle cellStyle = workbook.createCellStyle();
+    if (key.date) {
+      if (dateFormat < 0) {
+        dateFormat = workbook.getCreationHelper().createDataFormat().getFormat(DATE_FORMAT);
+      }
+      cellStyle.setDataFormat(dateFormat);
+    }
+    if (key.cellFormat != null) {
+      cellStyle.setFont(fonts.getUnchecked(key.cellFormat.getSSFont()));
+      final SSColor backgroundColour = key.cellFormat.getBackgroundColour();
+      if (backgroundColour != null) {
+        cellStyle.setFillForegroundColor(backgroundColour.getPoiIndex());
+        cellStyle.setFillPattern(CellStyle.SOLID_FOREGROUND);
+      }
+    }
+    return cellStyle;
+  }
+
+  private Font createFont(final SSFont ssFont) {
+    final Font font = workbook.createFont();
+    font.setFontName(ssFont.getName());
+    // in twentieths of a point, keeping the fractional sizes
+    font.setFontHeight((short) Math.round(ssFont.getSize() * 20));
+    if (ssFont.isBold()) {
+      // font.setBold(true);
+      // or:
+      font.setBoldweight(Font.BOLDWEIGHT_BOLD);
+    }
+    return font;
+  }
+
+  @Immutable
+  private static final class StyleKey {
+    @Nullable
+    private final SSCellFormat cellFormat;
+    private final boolean date;
+
+    StyleKey(@Nullable final SSCellFormat cellFormat, final boolean date) {
+      this.cellFormat = cellFormat;
+      this.date = date;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(cellFormat, date);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (!(obj instanceof StyleKey)) {
+        return false;
+      }
+      final StyleKey other = (StyleKey) obj;
+      return Objects.equals(cellFormat, other.cellFormat) && date == other.date;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Holds the cells of a single row decoded by a streaming reader. The buffer is reused for every row
+ * of the sheet, so its arrays only grow up to the widest row encountered.
+ *
+ * @author Foroni Marco
+ * @see StreamingSheet
+ */
+final class RowBuffer {
+  private static final int INITIAL_CAPACITY = 16;
+  private int rowIndex = -1;
+  private int size;
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private Object[] formulas = new Object[INITIAL_CAPACITY];
+  private double[] numbers = new double[INITIAL_CAPACITY];
+  private int[] formats = new int[INITIAL_CAPACITY];
+
+  /**
+   * Empties the buffer and positions it at the row having the specified index.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   */
+  void reset(final int rowIndex) {
+    Arrays.fill(values, 0, size, null);
+    Arrays.fill(formulas, 0, size, null);
+    this.rowIndex = rowIndex;
+    this.size = 0;
+  }
+
+  int getRowIndex() {
+    return rowIndex;
+  }
+
+  /**
+   * Moves the cells currently held by the buffer to the row having the specified index, used by the
+   * readers to expand repeated rows without decoding them again.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   */
+  void setRowIndex(final int rowIndex) {
+    this.rowIndex = rowIndex;
+  }
+
+  /**
+   * Returns the index of the last written column plus one, i.e. 0 if the row has no cells.
+   *
+   * @return the number of columns of the row
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Stores a cell of the row.
+   *
+   * @param columnIndex index of the column (starting from 0)
+   * @param value the value of the cell, <tt>null</tt> for blank cells
+   * @param formula the formula of the cell, in a representation defined by the reader
+   * @param number the numeric value of the cell, used to format numbers and dates
+   * @param format the format of the cell, in a representation defined by the reader
+   */
+  void set(final int columnIndex, @Nullable final Object value, @Nullable final Object formula,
+      final double number, final int format) {
+    ensureCapacity(columnIndex + 1);
+    values[columnIndex] = value;
+    formulas[columnIndex] = formula;
+    numbers[columnIndex] = number;
+    formats[columnIndex] = format;
+    if (columnIndex >= size) {
+      size = columnIndex + 1;
+    }
+  }
+
+  @Nullable
+  Object getValue(final int columnIndex) {
+    return columnIndex < size ? values[columnIndex] : null;
+  }
+
+  @Nullable
+  Object getFormula(final int columnIndex) {
+    return columnIndex < size ? formulas[columnIndex] : null;
+  }
+
+  double getNumber(final int columnIndex) {
+    return numbers[columnIndex];
+  }
+
+  int getFormat(final int columnIndex) {
+    return formats[columnIndex];
+  }
+
+  private void ensureCapacity(final int capacity) {
+    if (capacity > values.length) {
+      final int newCapacity = Math.max(capacity, values.length * 2);
+      values = Arrays.copyOf(values, newCapacity);
+      formulas = Arrays.copyOf(formulas, newCapacity);
+      numbers = Arrays.copyOf(numbers, newCapacity);
+      formats = Arrays.copyOf(formats, newCapacity);
+    }
+  }
+}
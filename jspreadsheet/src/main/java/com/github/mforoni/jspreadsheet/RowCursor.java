@@ -0,0 +1,86 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Date;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.google.common.annotations.Beta;
+
+/**
+ * A forward-only cursor over the physically present rows of a {@link Sheet}, in ascending order.
+ * Each row is decoded once by the underlying API, so scanning a sheet with a cursor is cheaper than
+ * calling {@link Sheet#getRow(int)} for each row index.
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * try (final RowCursor cursor = sheet.rowCursor()) {
+ *   while (cursor.next()) {
+ *     final String name = cursor.getString(0);
+ *     ...
+ *   }
+ * }
+ * </pre>
+ *
+ * @author Foroni Marco
+ * @see Sheet#rowCursor()
+ */
+@Beta
+public interface RowCursor extends AutoCloseable {
+  /**
+   * Moves the cursor to the next physically present row.
+   *
+   * @return <tt>false</tt> if there are no more rows
+   */
+  public boolean next();
+
+  /**
+   * Returns the index of the current row.
+   *
+   * @return the index of the current row (starting from 0)
+   */
+  public int getRowIndex();
+
+  /**
+   * Returns the index of the last non empty column of the current row plus one, i.e. 0 if all the
+   * cells of the row are empty.
+   *
+   * @return the last written column of the current row
+   */
+  public int getLastColumn();
+
+  /**
+   * Retrieves the value of the cell of the current row at the specified column, having the same
+   * type returned by {@link Sheet#getObject(int, int)}.
+   *
+   * @param columnIndex of the cell (starting from 0)
+   * @return the value of the cell
+   */
+  @Nullable
+  public Object getObject(final int columnIndex);
+
+  @Nullable
+  public String getString(final int columnIndex);
+
+  @Nullable
+  public Double getDouble(final int columnIndex);
+
+  @Nullable
+  public Date getDate(final int columnIndex);
+
+  @Nullable
+  public Boolean getBoolean(final int columnIndex);
+
+  /**
+   * Returns the values of the current row from the first column to the last written one.
+   *
+   * @return a new array holding the values of the current row
+   */
+  @Nonnull
+  public Object[] getRow();
+
+  /**
+   * Releases the resources held by the cursor.
+   */
+  @Override
+  public void close();
+}
@@ -1,5 +1,6 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.util.Objects;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -33,4 +34,26 @@ public final class SSCellFormat {
   public SSColor getBackgroundColour() {
     return backgroundColor;
   }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(ssFont, backgroundColor);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SSCellFormat)) {
+      return false;
+    }
+    final SSCellFormat other = (SSCellFormat) obj;
+    return ssFont.equals(other.ssFont) && Objects.equals(backgroundColor, other.backgroundColor);
+  }
+
+  @Override
+  public String toString() {
+    return "SSCellFormat [ssFont=" + ssFont + ", backgroundColor=" + backgroundColor + "]";
+  }
 }
@@ -1,6 +1,8 @@
 package com.github.mforoni.jspreadsheet;
 
 import java.awt.Color;
+import java.util.Objects;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import jxl.format.Colour;
@@ -43,6 +45,8 @@ public final class SSColor {
   // IndexedColors.LIGHT_ORANGE.getIndex(), Color.ORANGE.brighter());
   // public static final SSColor LIGHT_TURQUOISE = new SSColor(Colour.LIGHT_TURQUOISE,
   // IndexedColors.LIGHT_TURQUOISE.getIndex(), null);
+  private static final SSColor[] PALETTE =
+      {BLACK, BLUE, GRAY_50, GRAY_25, GRAY_80, GREEN, ORANGE, RED, YELLOW};
   private final Colour colour; // JXL
   private final short poiIndex; // POI
   private final java.awt.Color color; // ODS
@@ -82,6 +86,45 @@ public final class SSColor {
     return color;
   }
 
+  /**
+   * Returns the predefined color having the specified POI index.
+   *
+   * @param poiIndex the index of an {@link IndexedColors} value
+   * @return the color or <tt>null</tt> if no predefined color has that index
+   */
+  @Nullable
+  static SSColor fromPoiIndex(final short poiIndex) {
+    for (final SSColor color : PALETTE) {
+      if (color.poiIndex == poiIndex) {
+        return color;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(colour != null ? colour.getValue() : null, poiIndex, color);
+  }
+
+  /**
+   * Two colors are equal if they have the same JXL, POI and ODS colors: the JXL colors are compared
+   * by value, since {@link Colour} does not override {@link Object#equals(Object)}.
+   */
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SSColor)) {
+      return false;
+    }
+    final SSColor other = (SSColor) obj;
+    return (colour == null ? other.colour == null
+        : other.colour != null && colour.getValue() == other.colour.getValue())
+        && poiIndex == other.poiIndex && Objects.equals(color, other.color);
+  }
+
   @Override
   public String toString() {
     return "SSColor [colour=" + colour + ", poiIndex=" + poiIndex + "]";
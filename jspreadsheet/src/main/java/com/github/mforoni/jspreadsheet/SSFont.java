@@ -1,5 +1,6 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.util.Objects;
 import javax.annotation.concurrent.Immutable;
 import jxl.write.WritableFont;
 import jxl.write.WriteException;
@@ -81,6 +82,24 @@ public final class SSFont {
     return bold;
   }
 
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, size, bold);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof SSFont)) {
+      return false;
+    }
+    final SSFont other = (SSFont) obj;
+    return Objects.equals(name, other.name) && Double.compare(size, other.size) == 0
+        && bold == other.bold;
+  }
+
   @Override
   public String toString() {
     return "SSFont [name=" + name + ", size=" + size + ", bold=" + bold + "]";
@@ -1,5 +1,6 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.util.BitSet;
 import java.util.Date;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -87,6 +88,17 @@ public interface Sheet {
   @Nullable
   public Boolean getBoolean(final int rowIndex, int columnIndex);
 
+  /**
+   * Returns a forward-only cursor over the physically present rows of the sheet, skipping the
+   * absent and the empty ones. The cursor should be closed when no longer needed.
+   * 
+   * @return a new {@link RowCursor} positioned before the first row
+   * @see RowCursor
+   */
+  @Nonnull
+  @Beta
+  public RowCursor rowCursor();
+
   /**
    * Retrieves the {@code Double} value of the cell at [{@code rowIndex}, {@code columnIndex}]. For
    * blank cells it returns <tt>null</tt>. For text type cell it throws an exception. Formulas in
@@ -102,6 +114,44 @@ public interface Sheet {
   public Double getDouble(final int rowIndex, final int columnIndex)
       throws IllegalStateException, NumberFormatException;
 
+  /**
+   * Reads the numeric values of the column {@code columnIndex} from row {@code fromRow} (inclusive)
+   * to row {@code toRow} (exclusive) into the specified array without boxing them: the value of row
+   * {@code fromRow + i} is stored in {@code values[i]}. For blank cells it stores 0 and sets bit
+   * {@code i} of {@code nulls}, the bits of the non blank cells are cleared. Formulas in formula
+   * type cells will be evaluated.
+   *
+   * @param columnIndex index of the column (starting from 0)
+   * @param fromRow index of the first row to read (starting from 0)
+   * @param toRow index of the last row to read plus one
+   * @param values the array filled with the values of the cells
+   * @param nulls the bitmap of the blank cells
+   * @return the number of non blank cells read
+   * @throws IllegalStateException if a non blank cell is not numeric
+   * @throws IndexOutOfBoundsException if {@code values} is shorter than the range of rows
+   */
+  @Beta
+  public int readDoubleColumn(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final double[] values, @Nonnull final BitSet nulls);
+
+  /**
+   * Reads the integral values of the column {@code columnIndex} from row {@code fromRow}
+   * (inclusive) to row {@code toRow} (exclusive) into the specified array, as done by
+   * {@link #readDoubleColumn(int, int, int, double[], BitSet)}.
+   *
+   * @param columnIndex index of the column (starting from 0)
+   * @param fromRow index of the first row to read (starting from 0)
+   * @param toRow index of the last row to read plus one
+   * @param values the array filled with the values of the cells
+   * @param nulls the bitmap of the blank cells
+   * @return the number of non blank cells read
+   * @throws IllegalStateException if a non blank cell is not numeric or has a fractional part
+   * @throws IndexOutOfBoundsException if {@code values} is shorter than the range of rows
+   */
+  @Beta
+  public int readLongColumn(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final long[] values, @Nonnull final BitSet nulls);
+
   @Nonnull
   public Object[] getRow(final int rowIndex);
 
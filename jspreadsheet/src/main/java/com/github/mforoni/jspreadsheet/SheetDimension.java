@@ -0,0 +1,39 @@
+package com.github.mforoni.jspreadsheet;
+
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * The extent of a sheet as returned by {@link Sheet#getRows()}, {@link Sheet#getColumns()} and
+ * {@link Sheet#getLastRow()}.
+ *
+ * @author Foroni Marco
+ */
+@Immutable
+final class SheetDimension {
+  private final int rows;
+  private final int columns;
+  private final int lastRow;
+
+  SheetDimension(final int rows, final int columns, final int lastRow) {
+    this.rows = rows;
+    this.columns = columns;
+    this.lastRow = lastRow;
+  }
+
+  int getRows() {
+    return rows;
+  }
+
+  int getColumns() {
+    return columns;
+  }
+
+  int getLastRow() {
+    return lastRow;
+  }
+
+  @Override
+  public String toString() {
+    return "SheetDimension [rows=" + rows + ", columns=" + columns + ", lastRow=" + lastRow + "]";
+  }
+}
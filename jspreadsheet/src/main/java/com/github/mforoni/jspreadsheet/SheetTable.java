@@ -0,0 +1,567 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import com.google.common.annotations.Beta;
+
+/**
+ * An immutable snapshot of the content of a {@link Sheet}, loaded once through
+ * {@link Sheet#rowCursor()} into column buffers allocated outside of the Java heap. Once loaded,
+ * the table does not reference the source {@link Spreadsheet}, which can be closed.
+ * <p>
+ * Each column holds a direct buffer of one byte per row for the type of the cells and a direct
+ * buffer of eight bytes per row for their values:
+ * <ul>
+ * <li>numbers are stored as primitive doubles;</li>
+ * <li>booleans are stored as a bit of the type byte, without using the value buffer;</li>
+ * <li>dates are stored as milliseconds since the epoch;</li>
+ * <li>strings are stored as indexes into a pool shared by all the columns, holding each distinct
+ * string once encoded in UTF-8.</li>
+ * </ul>
+ * The values of other types, like the durations of the <i>ods</i> time cells, are stored as their
+ * string representation. The heap holds only a few buffer objects per column, whatever the number
+ * of cells: the off-heap memory is released when the table becomes unreachable.
+ * <p>
+ * The reads never modify the buffers, so a table can be shared among threads.
+ *
+ * @author Foroni Marco
+ * @see Sheet
+ */
+@Beta
+@Immutable
+public final class SheetTable {
+  private static final byte EMPTY = 0;
+  private static final byte NUMBER = 1;
+  private static final byte DATE = 2;
+  private static final byte STRING = 3;
+  private static final byte FALSE = 4;
+  private static final byte TRUE = FALSE | 1;
+  private static final int VALUE_SIZE = 8;
+  private static final int INITIAL_ROWS = 64;
+  private final String name;
+  private final int rows;
+  private final Column[] columns;
+  private final ByteBuffer stringPool;
+  private final ByteBuffer stringOffsetBytes;
+  private final IntBuffer stringOffsets;
+
+  private SheetTable(final String name, final int rows, final Column[] columns,
+      final ByteBuffer stringPool, final ByteBuffer stringOffsetBytes) {
+    this.name = name;
+    this.rows = rows;
+    this.columns = columns;
+    this.stringPool = stringPool;
+    this.stringOffsetBytes = stringOffsetBytes;
+    this.stringOffsets = stringOffsetBytes.asIntBuffer();
+  }
+
+  /**
+   * Loads the content of the specified sheet, scanning its rows once with a {@link RowCursor}.
+   *
+   * @param sheet the sheet to load
+   * @return a new {@link SheetTable} holding the content of the sheet
+   */
+  @Nonnull
+  public static SheetTable load(final Sheet sheet) {
+    return load(sheet.getName(), sheet.rowCursor());
+  }
+
+  /**
+   * Loads the rows returned by the specified cursor, which is closed once all the rows are read.
+   *
+   * @param name the name of the table
+   * @param rowCursor the cursor on the rows of a sheet
+   * @return a new {@link SheetTable} holding the rows of the cursor
+   */
+  @Nonnull
+  static SheetTable load(final String name, final RowCursor rowCursor) {
+    final Builder builder = new Builder();
+    try (final RowCursor cursor = rowCursor) {
+      while (cursor.next()) {
+        final int rowIndex = cursor.getRowIndex();
+        final int lastColumn = cursor.getLastColumn();
+        for (int c = 0; c < lastColumn; c++) {
+          final Object value = cursor.getObject(c);
+          if (value != null) {
+            builder.set(rowIndex, c, value);
+          }
+        }
+      }
+    }
+    return builder.build(name);
+  }
+
+  /**
+   * Loads the content of the specified sheets, decoding them concurrently on {@code pool}: the
+   * sheets must be independent, i.e. each one must read its rows through its own stream, as done
+   * by the streaming <i>xlsx</i> sheets. If a sheet cannot be loaded, the exception is thrown once
+   * all the other sheets are done.
+   *
+   * @param sheets the sheets to load
+   * @param pool the pool decoding the sheets, <tt>null</tt> to load them one at a time
+   * @return the tables holding the content of the sheets, in the same order
+   */
+  static List<SheetTable> loadAll(final List<Sheet> sheets, @Nullable final ForkJoinPool pool) {
+    final List<SheetTable> tables = new ArrayList<>(sheets.size());
+    if (pool == null || sheets.size() < 2) {
+      for (final Sheet sheet : sheets) {
+        tables.add(load(sheet));
+      }
+      return tables;
+    }
+    final List<ForkJoinTask<SheetTable>> tasks = new ArrayList<>(sheets.size());
+    for (final Sheet sheet : sheets) {
+      tasks.add(pool.submit(new Callable<SheetTable>() {
+        @Override
+        public SheetTable call() {
+          return load(sheet);
+        }
+      }));
+    }
+    for (final ForkJoinTask<SheetTable> task : tasks) {
+      task.quietlyJoin();
+    }
+    for (final ForkJoinTask<SheetTable> task : tasks) {
+      tables.add(task.join());
+    }
+    return tables;
+  }
+
+  /**
+   * @return the name of the source sheet
+   */
+  @Nonnull
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the index of the last non empty row plus one.
+   *
+   * @return the number of rows of the table
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the index of the last non empty column plus one.
+   *
+   * @return the number of columns of the table
+   */
+  public int getColumns() {
+    return columns.length;
+  }
+
+  /**
+   * Returns the index of the last non empty column of the specified row plus one.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   * @return the last written column of the row, 0 if all the cells of the row are empty
+   */
+  public int getLastColumn(final int rowIndex) {
+    for (int c = columns.length; c > 0; c--) {
+      if (columns[c - 1].getTag(rowIndex) != EMPTY) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the number of bytes allocated outside of the Java heap by the table.
+   *
+   * @return the size of the direct buffers of the table
+   */
+  public long getOffHeapSize() {
+    long size = stringPool.capacity() + (long) stringOffsets.capacity() * 4;
+    for (final Column column : columns) {
+      size += column.tags.capacity() + column.values.capacity();
+    }
+    return size;
+  }
+
+  private byte getTag(final int rowIndex, final int columnIndex) {
+    if (columnIndex >= columns.length) {
+      return EMPTY;
+    }
+    return columns[columnIndex].getTag(rowIndex);
+  }
+
+  /**
+   * @param rowIndex of the cell (starting from 0)
+   * @param columnIndex of the cell (starting from 0)
+   * @return <tt>true</tt> if the specified cell is empty
+   */
+  public boolean isEmpty(final int rowIndex, final int columnIndex) {
+    return getTag(rowIndex, columnIndex) == EMPTY;
+  }
+
+  /**
+   * Retrieves the value of the cell at [{@code rowIndex}, {@code columnIndex}]: a {@link Double},
+   * a {@link Boolean}, a {@link Date} or a {@link String}.
+   *
+   * @param rowIndex of the cell (starting from 0)
+   * @param columnIndex of the cell (starting from 0)
+   * @return the value of the cell, <tt>null</tt> if the cell is empty
+   */
+  @Nullable
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    final byte tag = getTag(rowIndex, columnIndex);
+    switch (tag) {
+      case EMPTY:
+        return null;
+      case NUMBER:
+        return columns[columnIndex].getDouble(rowIndex);
+      case DATE:
+        return new Date(columns[columnIndex].getLong(rowIndex));
+      case STRING:
+        return getPooledString((int) columns[columnIndex].getLong(rowIndex));
+      case FALSE:
+      case TRUE:
+        return tag == TRUE;
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  @Nullable
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    final byte tag = getTag(rowIndex, columnIndex);
+    if (tag == EMPTY) {
+      return null;
+    } else if (tag == NUMBER) {
+      return columns[columnIndex].getDouble(rowIndex);
+    }
+    throw typeMismatch("double", rowIndex, columnIndex);
+  }
+
+  @Nullable
+  public String getString(final int rowIndex, final int columnIndex) {
+    final byte tag = getTag(rowIndex, columnIndex);
+    if (tag == EMPTY) {
+      return null;
+    } else if (tag == STRING) {
+      return getPooledString((int) columns[columnIndex].getLong(rowIndex));
+    }
+    throw typeMismatch("string", rowIndex, columnIndex);
+  }
+
+  @Nullable
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    final byte tag = getTag(rowIndex, columnIndex);
+    if (tag == EMPTY) {
+      return null;
+    } else if (tag == DATE) {
+      return new Date(columns[columnIndex].getLong(rowIndex));
+    }
+    throw typeMismatch("date", rowIndex, columnIndex);
+  }
+
+  @Nullable
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    final byte tag = getTag(rowIndex, columnIndex);
+    if (tag == EMPTY) {
+      return null;
+    } else if (tag == FALSE || tag == TRUE) {
+      return tag == TRUE;
+    }
+    throw typeMismatch("boolean", rowIndex, columnIndex);
+  }
+
+  private IllegalStateException typeMismatch(final String type, final int rowIndex,
+      final int columnIndex) {
+    return AbstractSheet.typeMismatch(type, rowIndex, columnIndex,
+        getObject(rowIndex, columnIndex));
+  }
+
+  /**
+   * Reads the numeric values of a column as done by
+   * {@link Sheet#readDoubleColumn(int, int, int, double[], BitSet)}.
+   */
+  public int readDoubleColumn(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final double[] values, @Nonnull final BitSet nulls) {
+    final NumericColumn column = NumericColumn.ofDouble(columnIndex, fromRow, toRow, values, nulls);
+    readColumn(column);
+    return column.getCount();
+  }
+
+  /**
+   * Reads the integral values of a column as done by
+   * {@link Sheet#readLongColumn(int, int, int, long[], BitSet)}.
+   */
+  public int readLongColumn(final int columnIndex, final int fromRow, final int toRow,
+      @Nonnull final long[] values, @Nonnull final BitSet nulls) {
+    final NumericColumn column = NumericColumn.ofLong(columnIndex, fromRow, toRow, values, nulls);
+    readColumn(column);
+    return column.getCount();
+  }
+
+  void readColumn(final NumericColumn numericColumn) {
+    if (numericColumn.columnIndex >= columns.length) {
+      return;
+    }
+    final Column column = columns[numericColumn.columnIndex];
+    final int toRow = Math.min(numericColumn.toRow, column.capacity);
+    for (int r = numericColumn.fromRow; r < toRow; r++) {
+      final byte tag = column.getTag(r);
+      if (tag == NUMBER) {
+        numericColumn.put(r, column.getDouble(r));
+      } else if (tag != EMPTY) {
+        throw numericColumn.typeMismatch(r, getObject(r, numericColumn.columnIndex));
+      }
+    }
+  }
+
+  private String getPooledString(final int index) {
+    final int start = stringOffsets.get(index);
+    final byte[] bytes = new byte[stringOffsets.get(index + 1) - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = stringPool.get(start + i);
+    }
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes the image of the table read back by {@link #map(ByteBuffer)}. The buffers are written in
+   * the native byte order, each one padded to a multiple of eight bytes, so that they stay aligned
+   * if the image starts at an aligned position.
+   *
+   * @param channel the destination of the image
+   * @throws IOException
+   */
+  void writeTo(final WritableByteChannel channel) throws IOException {
+    final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    final int strings = stringOffsets.capacity() - 1;
+    final ByteBuffer header = ByteBuffer
+        .allocate(align(4 + nameBytes.length) + align(16 + 4 * columns.length))
+        .order(ByteOrder.nativeOrder());
+    header.putInt(nameBytes.length).put(nameBytes);
+    header.position(align(header.position()));
+    header.putInt(rows).putInt(columns.length).putInt(strings).putInt(stringPool.capacity());
+    for (final Column column : columns) {
+      header.putInt(column.length(rows));
+    }
+    header.clear();
+    writeFully(channel, header);
+    for (final Column column : columns) {
+      final int length = column.length(rows);
+      writeSection(channel, column.tags, length);
+      writeSection(channel, column.values, length * VALUE_SIZE);
+    }
+    writeSection(channel, stringOffsetBytes, (strings + 1) * 4);
+    writeSection(channel, stringPool, stringPool.capacity());
+  }
+
+  private static void writeSection(final WritableByteChannel channel, final ByteBuffer buffer,
+      final int length) throws IOException {
+    final ByteBuffer section = buffer.duplicate();
+    section.clear().limit(length);
+    writeFully(channel, section);
+    if (align(length) > length) {
+      writeFully(channel, ByteBuffer.allocate(align(length) - length));
+    }
+  }
+
+  private static void writeFully(final WritableByteChannel channel, final ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Reads a table from an image written by {@link #writeTo(WritableByteChannel)}, starting at the
+   * current position of {@code image} which is moved past the end of the table. The buffers of
+   * the table are slices of {@code image}: if it is a {@link java.nio.MappedByteBuffer} the cells
+   * are never copied into memory, the pages of the file being loaded on demand.
+   *
+   * @param image a buffer in native byte order holding the image of the table
+   * @return a table backed by {@code image}
+   */
+  static SheetTable map(final ByteBuffer image) {
+    final byte[] nameBytes = new byte[image.getInt()];
+    image.get(nameBytes);
+    image.position(align(image.position()));
+    final int rows = image.getInt();
+    final Column[] columns = new Column[image.getInt()];
+    final int strings = image.getInt();
+    final int poolSize = image.getInt();
+    final int[] lengths = new int[columns.length];
+    for (int c = 0; c < columns.length; c++) {
+      lengths[c] = image.getInt();
+    }
+    image.position(align(image.position()));
+    for (int c = 0; c < columns.length; c++) {
+      final ByteBuffer tags = slice(image, lengths[c]);
+      columns[c] = new Column(tags, slice(image, lengths[c] * VALUE_SIZE), lengths[c]);
+    }
+    final ByteBuffer stringOffsetBytes = slice(image, (strings + 1) * 4);
+    final ByteBuffer stringPool = slice(image, poolSize);
+    return new SheetTable(new String(nameBytes, StandardCharsets.UTF_8), rows, columns, stringPool,
+        stringOffsetBytes);
+  }
+
+  private static ByteBuffer slice(final ByteBuffer image, final int length) {
+    final ByteBuffer slice = image.slice();
+    slice.limit(length);
+    image.position(image.position() + align(length));
+    return slice.order(ByteOrder.nativeOrder());
+  }
+
+  private static int align(final int position) {
+    return (position + VALUE_SIZE - 1) & -VALUE_SIZE;
+  }
+
+  @Override
+  public String toString() {
+    return "SheetTable [name=" + name + ", rows=" + rows + ", columns=" + columns.length + "]";
+  }
+
+  private static ByteBuffer allocate(final int capacity) {
+    return ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * The type and value buffers of a column, enlarged while the table is loaded.
+   */
+  private static final class Column {
+    private ByteBuffer tags;
+    private ByteBuffer values;
+    private int capacity;
+
+    Column(final int capacity) {
+      this(allocate(capacity), allocate(capacity * VALUE_SIZE), capacity);
+    }
+
+    Column(final ByteBuffer tags, final ByteBuffer values, final int capacity) {
+      this.tags = tags;
+      this.values = values;
+      this.capacity = capacity;
+    }
+
+    /**
+     * Returns the number of rows actually used by the column in a table of the specified rows.
+     */
+    int length(final int rows) {
+      return Math.min(capacity, rows);
+    }
+
+    void ensureCapacity(final int rows) {
+      if (rows > capacity) {
+        final int newCapacity = Math.max(rows, capacity * 2);
+        tags = copy(tags, newCapacity);
+        values = copy(values, newCapacity * VALUE_SIZE);
+        capacity = newCapacity;
+      }
+    }
+
+    private static ByteBuffer copy(final ByteBuffer buffer, final int capacity) {
+      final ByteBuffer copy = allocate(capacity);
+      buffer.rewind();
+      copy.put(buffer);
+      copy.clear();
+      return copy;
+    }
+
+    byte getTag(final int rowIndex) {
+      return rowIndex < capacity ? tags.get(rowIndex) : EMPTY;
+    }
+
+    double getDouble(final int rowIndex) {
+      return values.getDouble(rowIndex * VALUE_SIZE);
+    }
+
+    long getLong(final int rowIndex) {
+      return values.getLong(rowIndex * VALUE_SIZE);
+    }
+  }
+
+  /**
+   * Collects the cells of a sheet in ascending row order.
+   */
+  private static final class Builder {
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private Column[] columns = new Column[0];
+    private int rows;
+
+    void set(final int rowIndex, final int columnIndex, final Object value) {
+      if (columnIndex >= columns.length) {
+        columns = Arrays.copyOf(columns, columnIndex + 1);
+      }
+      Column column = columns[columnIndex];
+      if (column == null) {
+        column = new Column(Math.max(rowIndex + 1, INITIAL_ROWS));
+        columns[columnIndex] = column;
+      } else {
+        column.ensureCapacity(rowIndex + 1);
+      }
+      final int offset = rowIndex * VALUE_SIZE;
+      if (value instanceof Number) {
+        column.tags.put(rowIndex, NUMBER);
+        column.values.putDouble(offset, ((Number) value).doubleValue());
+      } else if (value instanceof Boolean) {
+        column.tags.put(rowIndex, (Boolean) value ? TRUE : FALSE);
+      } else if (value instanceof Date) {
+        column.tags.put(rowIndex, DATE);
+        column.values.putLong(offset, ((Date) value).getTime());
+      } else {
+        column.tags.put(rowIndex, STRING);
+        column.values.putLong(offset, intern(value.toString()));
+      }
+      rows = Math.max(rows, rowIndex + 1);
+    }
+
+    private int intern(final String value) {
+      Integer index = dictionary.get(value);
+      if (index == null) {
+        index = strings.size();
+        dictionary.put(value, index);
+        strings.add(value);
+      }
+      return index;
+    }
+
+    SheetTable build(final String name) {
+      final byte[][] encoded = new byte[strings.size()][];
+      int size = 0;
+      for (int i = 0; i < encoded.length; i++) {
+        encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+        size += encoded[i].length;
+      }
+      final ByteBuffer stringPool = allocate(size);
+      final ByteBuffer stringOffsetBytes = allocate((encoded.length + 1) * 4);
+      final IntBuffer stringOffsets = stringOffsetBytes.asIntBuffer();
+      for (int i = 0; i < encoded.length; i++) {
+        stringOffsets.put(i, stringPool.position());
+        stringPool.put(encoded[i]);
+      }
+      stringOffsets.put(encoded.length, stringPool.position());
+      stringPool.clear();
+      for (int c = 0; c < columns.length; c++) {
+        if (columns[c] == null) {
+          columns[c] = new Column(0);
+        }
+      }
+      return new SheetTable(name, rows, columns, stringPool, stringOffsetBytes);
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} reading from a source owned by the caller of
+ * {@link Spreadsheets#open(InputStream)}: closing it does nothing, so that the source is left open
+ * by the libraries closing the stream they read the workbook from.
+ *
+ * @author Foroni Marco
+ * @see ShieldedOutputStream
+ */
+final class ShieldedInputStream extends FilterInputStream {
+
+  ShieldedInputStream(final InputStream in) {
+    super(in);
+  }
+
+  @Override
+  public void close() {
+    // the source is closed by its owner
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A buffered {@link OutputStream} writing to a target owned by the caller of
+ * {@link Spreadsheet#write(OutputStream)}: closing it only flushes the buffer, so that the target
+ * is left open by the libraries closing the zip or compound stream they serialize to.
+ *
+ * @author Foroni Marco
+ */
+final class ShieldedOutputStream extends BufferedOutputStream {
+  static final int BUFFER_SIZE = 1 << 16;
+
+  ShieldedOutputStream(final OutputStream out) {
+    super(out, BUFFER_SIZE);
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+  }
+}
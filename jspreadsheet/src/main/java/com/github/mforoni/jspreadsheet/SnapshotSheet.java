@@ -0,0 +1,131 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.Date;
+import javax.annotation.Nullable;
+
+/**
+ * Read-only sheet backed by a {@link SheetTable}, usually mapped from a snapshot file by
+ * {@link SnapshotSpreadsheet}. The values have the types returned by
+ * {@link SheetTable#getObject(int, int)}: numbers are always {@link Double} values.
+ *
+ * @author Foroni Marco
+ * @see SnapshotSpreadsheet
+ */
+final class SnapshotSheet extends AbstractSheet {
+  private final SheetTable table;
+
+  SnapshotSheet(final SheetTable table) {
+    this.table = table;
+  }
+
+  SheetTable getTable() {
+    return table;
+  }
+
+  @Override
+  public String getName() {
+    return table.getName();
+  }
+
+  @Override
+  public int getRows() {
+    return table.getRows();
+  }
+
+  @Override
+  public int getColumns() {
+    return table.getColumns();
+  }
+
+  @Override
+  public int getLastRow() {
+    return table.getRows();
+  }
+
+  @Override
+  public int getLastColumn(final int rowIndex) {
+    return table.getLastColumn(rowIndex);
+  }
+
+  /**
+   * Returns the string representation of the value of the cell: the integral numbers are formatted
+   * without decimal digits.
+   */
+  @Override
+  public String getRawValue(final int rowIndex, final int columnIndex) {
+    final Object value = table.getObject(rowIndex, columnIndex);
+    if (value == null) {
+      return "";
+    } else if (value instanceof Double) {
+      final double d = (Double) value;
+      return d == Math.rint(d) && !Double.isInfinite(d) && Math.abs(d) < Long.MAX_VALUE
+          ? Long.toString((long) d) : Double.toString(d);
+    }
+    return value.toString();
+  }
+
+  @Override
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    return table.getObject(rowIndex, columnIndex);
+  }
+
+  @Override
+  public String getString(final int rowIndex, final int columnIndex) {
+    return table.getString(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    return table.getDouble(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    return table.getDate(rowIndex, columnIndex);
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    return table.getBoolean(rowIndex, columnIndex);
+  }
+
+  @Override
+  void readColumn(final NumericColumn column) {
+    table.readColumn(column);
+  }
+
+  @Override
+  public void setAutoSize(final int fromColumn, final int toColumn) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setString(final int rowIndex, final int columnIndex, @Nullable final String value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDouble(final int rowIndex, final int columnIndex, @Nullable final Double value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDate(final int rowIndex, final int columnIndex, @Nullable final Date value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setBoolean(final int rowIndex, final int columnIndex, @Nullable final Boolean value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setObject(final int rowIndex, final int columnIndex, @Nullable final Object value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+}
@@ -0,0 +1,288 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.google.common.hash.Hashing;
+
+/**
+ * Read-only spreadsheet whose sheets are {@link SheetTable} instances, either mapped from a
+ * snapshot file by {@link Spreadsheets#openSnapshot(File, File)} or loaded concurrently by
+ * {@link Spreadsheets#openParallel(File, java.util.concurrent.ForkJoinPool)}. Since the tables are
+ * immutable, the sheets can be read from many threads.
+ * <p>
+ * The snapshot of a spreadsheet file is placed in the cache directory under a name derived from
+ * the absolute path of the file. Its header records the path, the size, the last modified time
+ * and the 128 bit murmur3 hash of the content of the file: the snapshot is reused only if the
+ * path, the size and the last modified time match, together with the hash when the verification
+ * of the content is requested, otherwise the file is parsed again and a new snapshot replaces the
+ * old one. Since
+ * the snapshots are mapped read-only, their pages are shared by all the processes opening the same
+ * file.
+ * <p>
+ * The snapshot file starts with the following header, followed by the images written by
+ * {@link SheetTable#writeTo(java.nio.channels.WritableByteChannel)}:
+ *
+ * <pre>
+ * magic       8 bytes
+ * byte order  int, {@value #BYTE_ORDER_MARK} in the byte order of the file
+ * sheets      int
+ * size        long
+ * modified    long
+ * hash        16 bytes
+ * path        int length, UTF-8 bytes, padded to a multiple of 8 bytes
+ * </pre>
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#openSnapshot(File, File)
+ * @see SnapshotSheet
+ */
+final class SnapshotSpreadsheet implements Spreadsheet {
+  private static final byte[] MAGIC = "JSSNAP01".getBytes(StandardCharsets.US_ASCII);
+  private static final int BYTE_ORDER_MARK = 0x01020304;
+  private static final String EXTENSION = ".snapshot";
+  private final File file;
+  private final List<String> sheetNames;
+  private final List<SnapshotSheet> sheets;
+
+  SnapshotSpreadsheet(final File file, final List<SheetTable> tables) {
+    this.file = file;
+    final List<String> names = new ArrayList<>();
+    final List<SnapshotSheet> snapshotSheets = new ArrayList<>();
+    for (final SheetTable table : tables) {
+      names.add(table.getName());
+      snapshotSheets.add(new SnapshotSheet(table));
+    }
+    this.sheetNames = Collections.unmodifiableList(names);
+    this.sheets = snapshotSheets;
+  }
+
+  /**
+   * Opens the specified {@code file} in read-only mode through the snapshot placed in
+   * {@code directory}, creating or replacing the snapshot if it does not match the file.
+   *
+   * @param file the input file
+   * @param directory the directory of the snapshots, created if it does not exist
+   * @param verifyContent whether the hash of the content of the file must match as well, which
+   *        requires to read the whole file
+   * @throws IOException
+   */
+  static SnapshotSpreadsheet open(final File file, final File directory,
+      final boolean verifyContent) throws IOException {
+    if (!file.exists()) {
+      throw new IOException("File " + file.getName() + " not found.");
+    }
+    final Key key = new Key(file);
+    final Path snapshot = directory.toPath().resolve(
+        Hashing.murmur3_128().hashString(key.path, StandardCharsets.UTF_8).toString() + EXTENSION);
+    if (Files.exists(snapshot)) {
+      final List<SheetTable> tables = map(snapshot, key, verifyContent);
+      if (tables != null) {
+        return new SnapshotSpreadsheet(file, tables);
+      }
+    }
+    if (key.hash == null) {
+      key.hash = key.computeHash();
+    }
+    Files.createDirectories(directory.toPath());
+    write(snapshot, key);
+    final List<SheetTable> tables = map(snapshot, key, false);
+    if (tables == null) {
+      throw new IOException("Cannot read the snapshot " + snapshot + " of file " + file.getName());
+    }
+    return new SnapshotSpreadsheet(file, tables);
+  }
+
+  /**
+   * Maps the specified snapshot, returning <tt>null</tt> if it does not match the key or it is
+   * corrupted. The hash of the key is computed only if the content must be verified and the other
+   * attributes match.
+   */
+  @Nullable
+  private static List<SheetTable> map(final Path snapshot, final Key key,
+      final boolean verifyContent) throws IOException {
+    final MappedByteBuffer image;
+    try (final FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    image.order(ByteOrder.nativeOrder());
+    try {
+      final byte[] magic = new byte[MAGIC.length];
+      image.get(magic);
+      if (!Arrays.equals(MAGIC, magic) || image.getInt() != BYTE_ORDER_MARK) {
+        return null;
+      }
+      final int sheets = image.getInt();
+      final long size = image.getLong();
+      final long modified = image.getLong();
+      final byte[] hash = new byte[16];
+      image.get(hash);
+      final byte[] path = new byte[image.getInt()];
+      image.get(path);
+      image.position((image.position() + 7) & -8);
+      if (size != key.size || modified != key.modified
+          || !key.path.equals(new String(path, StandardCharsets.UTF_8))) {
+        return null;
+      }
+      if (verifyContent) {
+        if (key.hash == null) {
+          key.hash = key.computeHash();
+        }
+        if (!Arrays.equals(hash, key.hash)) {
+          return null;
+        }
+      }
+      final List<SheetTable> tables = new ArrayList<>(sheets);
+      for (int i = 0; i < sheets; i++) {
+        tables.add(SheetTable.map(image));
+      }
+      return tables;
+    } catch (final RuntimeException e) {
+      // truncated or corrupted snapshot
+      return null;
+    }
+  }
+
+  private static void write(final Path snapshot, final Key key) throws IOException {
+    final List<SheetTable> tables = new ArrayList<>();
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(new File(key.path))) {
+      for (final Sheet sheet : spreadsheet.getSheets()) {
+        tables.add(SheetTable.load(sheet));
+      }
+    }
+    final byte[] path = key.path.getBytes(StandardCharsets.UTF_8);
+    final int headerSize = MAGIC.length + 44 + path.length;
+    final ByteBuffer header =
+        ByteBuffer.allocate((headerSize + 7) & -8).order(ByteOrder.nativeOrder());
+    header.put(MAGIC).putInt(BYTE_ORDER_MARK).putInt(tables.size());
+    header.putLong(key.size).putLong(key.modified).put(key.hash);
+    header.putInt(path.length).put(path);
+    header.clear();
+    final Path temporary =
+        Files.createTempFile(snapshot.getParent(), snapshot.getFileName().toString(), ".tmp");
+    try {
+      try (final FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        while (header.hasRemaining()) {
+          channel.write(header);
+        }
+        for (final SheetTable table : tables) {
+          table.writeTo(channel);
+        }
+      }
+      try {
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return sheetNames;
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    return Collections.<Sheet>unmodifiableList(sheets);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    final int index = sheetNames.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return sheets.get(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheets.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheets.size() - 1));
+    }
+    return sheets.get(index);
+  }
+
+  @Override
+  public Sheet addSheet(final String name) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write() throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  /**
+   * Does nothing: the mapped snapshot is released when the sheets become unreachable.
+   */
+  @Override
+  public void close() throws IOException {}
+
+  /**
+   * The attributes of the spreadsheet file identifying its snapshot: the hash of the content is
+   * computed only when needed, since it requires to read the whole file.
+   */
+  private static final class Key {
+    private final String path;
+    private final long size;
+    private final long modified;
+    private byte[] hash;
+
+    Key(final File file) {
+      this.path = file.getAbsolutePath();
+      this.size = file.length();
+      this.modified = file.lastModified();
+    }
+
+    byte[] computeHash() throws IOException {
+      return com.google.common.io.Files.asByteSource(new File(path)).hash(Hashing.murmur3_128())
+          .asBytes();
+    }
+  }
+}
@@ -2,6 +2,8 @@ package com.github.mforoni.jspreadsheet;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -80,7 +82,13 @@ public interface Spreadsheet extends AutoCloseable {
   public static final int EXCEL_2003_ROW_LIMIT = 65536;
   public static final int EXCEL_2003_COLUMN_LIMIT = 256;
 
-  @Nonnull
+  /**
+   * Returns the file of the spreadsheet.
+   * 
+   * @return the file of the spreadsheet, <tt>null</tt> if the spreadsheet has been read from a
+   *         stream or a buffer
+   */
+  @Nullable
   public File getFile();
 
   /**
@@ -138,6 +146,31 @@ public interface Spreadsheet extends AutoCloseable {
 
   public void write() throws IOException;
 
+  /**
+   * Writes the spreadsheet to the specified stream through a large buffer, without any
+   * intermediate file. The stream is flushed but not closed.
+   * <p>
+   * <b>Note:</b> the JXL engine serializes a workbook only once: after this method returns, the
+   * spreadsheet cannot be written anymore.
+   * 
+   * @param out the target stream
+   * @throws IOException if an I/O error occurs while writing
+   * @throws IllegalStateException if the spreadsheet is read-only or its rows are written directly
+   *         to its file
+   */
+  public void write(final OutputStream out) throws IOException;
+
+  /**
+   * Writes the spreadsheet to the specified channel as done by {@link #write(OutputStream)}. The
+   * channel is not closed.
+   * 
+   * @param channel the target channel
+   * @throws IOException if an I/O error occurs while writing
+   * @throws IllegalStateException if the spreadsheet is read-only or its rows are written directly
+   *         to its file
+   */
+  public void write(final WritableByteChannel channel) throws IOException;
+
   @Override
   public void close() throws IOException;
 }
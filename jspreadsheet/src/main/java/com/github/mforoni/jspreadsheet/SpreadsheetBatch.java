@@ -0,0 +1,388 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Ordering;
+
+/**
+ * Processes a batch of spreadsheet files with a bounded number of threads, opening each file in
+ * read-only mode and passing it to a {@link Processor}. A failure of a file is recorded in its
+ * {@link Result} and does not stop the batch.
+ * <p>
+ * Before opening a file the batch reserves the heap it is expected to use, estimated from its size:
+ * a file is admitted only when its estimate fits into the heap budget left by the files being
+ * processed, so that many large files are never opened at once. A file exceeding the whole budget
+ * is processed alone.
+ * <p>
+ * If a {@linkplain Builder#parallelSheetsThreshold(long) parallel sheets threshold} is set, the
+ * files larger than the threshold are opened by
+ * {@link Spreadsheets#openParallel(java.io.File, ForkJoinPool)}: their sheets are decoded
+ * concurrently on a work-stealing {@link ForkJoinPool} shared by the batch and hold only the values
+ * of the cells.
+ * <p>
+ * Typical usage:
+ *
+ * <pre>
+ * final SpreadsheetBatch batch = new SpreadsheetBatch.Builder().threads(4).build();
+ * final SpreadsheetBatch.Report report = batch.process(directory, processor);
+ * for (final SpreadsheetBatch.Result failure : report.getFailures()) {
+ *   ...
+ * }
+ * </pre>
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#IS_SPREADSHEET
+ */
+@Beta
+@Immutable
+public final class SpreadsheetBatch {
+  /**
+   * The default ratio between the heap used by an opened spreadsheet and the size of its file.
+   */
+  public static final int DEFAULT_EXPANSION_FACTOR = 20;
+  /**
+   * The default heap estimator: the size of the file times {@value #DEFAULT_EXPANSION_FACTOR}.
+   */
+  public static final Function<Path, Long> DEFAULT_HEAP_ESTIMATOR = new Function<Path, Long>() {
+    @Override
+    public Long apply(@Nonnull final Path input) {
+      return input.toFile().length() * DEFAULT_EXPANSION_FACTOR;
+    }
+  };
+  private final int threads;
+  private final long heapBudget;
+  private final Function<Path, Long> heapEstimator;
+  private final long parallelSheetsThreshold;
+
+  private SpreadsheetBatch(final Builder builder) {
+    this.threads = builder.threads;
+    this.heapBudget = builder.heapBudget;
+    this.heapEstimator = builder.heapEstimator;
+    this.parallelSheetsThreshold = builder.parallelSheetsThreshold;
+  }
+
+  /**
+   * The callback invoked for each file of the batch, possibly from many threads at once.
+   */
+  public interface Processor {
+    /**
+     * Processes the specified spreadsheet, which is closed by the batch when this method returns.
+     *
+     * @param file the path of the spreadsheet file
+     * @param spreadsheet the spreadsheet opened in read-only mode
+     * @throws Exception if the file cannot be processed
+     */
+    public void process(Path file, Spreadsheet spreadsheet) throws Exception;
+  }
+
+  public static final class Builder {
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+    private Function<Path, Long> heapEstimator = DEFAULT_HEAP_ESTIMATOR;
+    private long parallelSheetsThreshold = Long.MAX_VALUE;
+
+    /**
+     * Sets the maximum number of files processed at once, by default the number of processors.
+     */
+    public Builder threads(final int threads) {
+      Preconditions.checkArgument(threads > 0, "The number of threads must be positive");
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Sets the heap available to the files processed at once, by default half of the maximum heap.
+     */
+    public Builder heapBudget(final long bytes) {
+      Preconditions.checkArgument(bytes > 0, "The heap budget must be positive");
+      this.heapBudget = bytes;
+      return this;
+    }
+
+    /**
+     * Sets the function estimating the heap used by a file while it is processed, by default
+     * {@link SpreadsheetBatch#DEFAULT_HEAP_ESTIMATOR}.
+     */
+    public Builder heapEstimator(final Function<Path, Long> heapEstimator) {
+      this.heapEstimator = Preconditions.checkNotNull(heapEstimator);
+      return this;
+    }
+
+    /**
+     * Sets the size above which the sheets of a file are decoded concurrently, by default no file
+     * is. The files above the threshold are opened by
+     * {@link Spreadsheets#openParallel(java.io.File, ForkJoinPool)} instead of
+     * {@link Spreadsheets#open(java.io.File)}: their sheets are {@link SheetTable} snapshots holding
+     * only the values of the cells, whose types are not the ones returned by the engine of the
+     * file, e.g. {@link Double} instead of {@link java.math.BigDecimal} for the numeric cells of
+     * <i>ods</i> files.
+     */
+    public Builder parallelSheetsThreshold(final long bytes) {
+      this.parallelSheetsThreshold = bytes;
+      return this;
+    }
+
+    public SpreadsheetBatch build() {
+      return new SpreadsheetBatch(this);
+    }
+  }
+
+  /**
+   * Processes the spreadsheet files placed in the specified directory, as selected by
+   * {@link Spreadsheets#IS_SPREADSHEET}, in alphabetical order. The subdirectories are ignored.
+   *
+   * @param directory the directory of the files
+   * @param processor the callback invoked for each file
+   * @return the report of the batch
+   * @throws IOException if the directory cannot be listed
+   * @throws InterruptedException if the current thread is interrupted while waiting
+   */
+  @Nonnull
+  public Report process(final Path directory, final Processor processor)
+      throws IOException, InterruptedException {
+    final List<Path> files = new ArrayList<>();
+    try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+      for (final Path path : stream) {
+        if (Files.isRegularFile(path) && Spreadsheets.IS_SPREADSHEET.apply(path)) {
+          files.add(path);
+        }
+      }
+    }
+    return process(Ordering.natural().sortedCopy(files), processor);
+  }
+
+  /**
+   * Processes the specified spreadsheet files. The files are admitted in the given order, but may
+   * complete in any order.
+   *
+   * @param files the paths of the files
+   * @param processor the callback invoked for each file
+   * @return the report of the batch, holding the results in the order of {@code files}
+   * @throws InterruptedException if the current thread is interrupted while waiting: the files
+   *         already admitted are completed before throwing
+   */
+  @Nonnull
+  public Report process(final List<Path> files, final Processor processor)
+      throws InterruptedException {
+    final long start = System.nanoTime();
+    final Result[] results = new Result[files.size()];
+    final Semaphore slots = new Semaphore(threads);
+    final HeapBudget budget = new HeapBudget(heapBudget);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    final ForkJoinPool sheetPool = new ForkJoinPool(threads);
+    try {
+      for (int i = 0; i < files.size(); i++) {
+        final int index = i;
+        final Path file = files.get(i);
+        final long estimate;
+        try {
+          estimate = estimate(file);
+        } catch (final RuntimeException e) {
+          // the file is not admitted and its failure is reported
+          results[index] = new Result(file, 0, false, 0, e);
+          continue;
+        }
+        slots.acquire();
+        try {
+          budget.acquire(estimate);
+        } catch (final InterruptedException e) {
+          slots.release();
+          throw e;
+        }
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              results[index] = processFile(file, estimate, processor, sheetPool);
+            } finally {
+              budget.release(estimate);
+              slots.release();
+            }
+          }
+        });
+      }
+    } finally {
+      executor.shutdown();
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        // waits for the files already admitted
+      }
+      sheetPool.shutdown();
+    }
+    return new Report(ImmutableList.copyOf(results),
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+  }
+
+  private long estimate(final Path file) {
+    final Long estimate = heapEstimator.apply(file);
+    return estimate != null ? Math.max(estimate, 0) : 0;
+  }
+
+  private Result processFile(final Path file, final long estimate, final Processor processor,
+      final ForkJoinPool sheetPool) {
+    final long start = System.nanoTime();
+    final boolean parallelSheets = file.toFile().length() > parallelSheetsThreshold;
+    Throwable failure = null;
+    try (final Spreadsheet spreadsheet =
+        parallelSheets ? Spreadsheets.openParallel(file.toFile(), sheetPool)
+            : Spreadsheets.open(file.toFile())) {
+      processor.process(file, spreadsheet);
+    } catch (final Throwable e) {
+      failure = e;
+    }
+    return new Result(file, estimate, parallelSheets,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), failure);
+  }
+
+  /**
+   * The heap reserved by the files being processed.
+   */
+  private static final class HeapBudget {
+    private final long capacity;
+    private long used;
+
+    HeapBudget(final long capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized void acquire(final long bytes) throws InterruptedException {
+      while (used > 0 && used + bytes > capacity) {
+        wait();
+      }
+      used += bytes;
+    }
+
+    synchronized void release(final long bytes) {
+      used -= bytes;
+      notifyAll();
+    }
+  }
+
+  /**
+   * The outcome of the processing of a file.
+   */
+  @Immutable
+  public static final class Result {
+    private final Path file;
+    private final long estimatedHeap;
+    private final boolean parallelSheets;
+    private final long elapsedMillis;
+    @Nullable
+    private final Throwable failure;
+
+    private Result(final Path file, final long estimatedHeap, final boolean parallelSheets,
+        final long elapsedMillis, @Nullable final Throwable failure) {
+      this.file = file;
+      this.estimatedHeap = estimatedHeap;
+      this.parallelSheets = parallelSheets;
+      this.elapsedMillis = elapsedMillis;
+      this.failure = failure;
+    }
+
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * @return the heap reserved for the file
+     */
+    public long getEstimatedHeap() {
+      return estimatedHeap;
+    }
+
+    /**
+     * @return <tt>true</tt> if the sheets of the file were decoded concurrently
+     */
+    public boolean isParallelSheets() {
+      return parallelSheets;
+    }
+
+    /**
+     * @return the time spent opening, processing and closing the file
+     */
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    public boolean isSuccess() {
+      return failure == null;
+    }
+
+    /**
+     * @return the exception thrown while processing the file, <tt>null</tt> on success
+     */
+    @Nullable
+    public Throwable getFailure() {
+      return failure;
+    }
+
+    @Override
+    public String toString() {
+      return "Result [file=" + file + ", elapsedMillis=" + elapsedMillis + ", failure=" + failure
+          + "]";
+    }
+  }
+
+  /**
+   * The results of a batch.
+   */
+  @Immutable
+  public static final class Report {
+    private final ImmutableList<Result> results;
+    private final long elapsedMillis;
+
+    private Report(final ImmutableList<Result> results, final long elapsedMillis) {
+      this.results = results;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return the results of the files, in the order they were submitted
+     */
+    public List<Result> getResults() {
+      return results;
+    }
+
+    /**
+     * @return the results of the files that could not be processed
+     */
+    public List<Result> getFailures() {
+      final List<Result> failures = new ArrayList<>();
+      for (final Result result : results) {
+        if (!result.isSuccess()) {
+          failures.add(result);
+        }
+      }
+      return Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * @return the time spent by the whole batch
+     */
+    public long getElapsedMillis() {
+      return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+      return "Report [files=" + results.size() + ", failures=" + getFailures().size()
+          + ", elapsedMillis=" + elapsedMillis + "]";
+    }
+  }
+}
@@ -0,0 +1,406 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DocumentInputStream;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.util.LittleEndian;
+import com.github.mforoni.jspreadsheet.SpreadsheetMetadata.SheetMetadata;
+
+/**
+ * Reads the {@link SpreadsheetMetadata} of a spreadsheet file touching only the structures that
+ * record the names and the dimensions of the sheets:
+ * <ul>
+ * <li><i>xlsx</i>: the central directory of the zip file, {@code workbook.xml} with its
+ * relationships and the {@code <dimension>} element at the top of each sheet part, whose parsing
+ * stops before {@code <sheetData>};</li>
+ * <li><i>xls</i>: the {@code BOUNDSHEET} records of the workbook globals and the
+ * {@code DIMENSIONS} record following the {@code BOF} of each sheet substream, skipping the bodies
+ * of all the other records, the shared strings included;</li>
+ * <li><i>ods</i>: the attributes of the {@code <table:table>}, {@code <table:table-row>} and
+ * {@code <table:table-cell>} elements of {@code content.xml}, without reading the text of the
+ * cells. The package records no dimension per table (the statistics of {@code meta.xml} cover the
+ * whole document), so the rows are streamed;</li>
+ * <li><i>csv</i> and <i>tsv</i>: the line breaks of the file, without splitting the fields.</li>
+ * </ul>
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#inspect(File)
+ */
+final class SpreadsheetInspector {
+  private static final String RELATIONSHIPS_ENTRY = "_rels/.rels";
+  private static final String OFFICE_DOCUMENT_TYPE = "/officeDocument";
+  private static final int BOF_SID = 0x0809;
+  private static final int EOF_SID = 0x000A;
+  private static final int FILEPASS_SID = 0x002F;
+  private static final int BOUNDSHEET_SID = 0x0085;
+  private static final int DIMENSIONS_SID = 0x0200;
+  private static final int BIFF8_VERSION = 0x0600;
+  /**
+   * The identifiers of the {@code ROW} record and of the cell records, which follow the
+   * {@code DIMENSIONS} record in a sheet substream.
+   */
+  private static final int[] ROW_AND_CELL_SIDS =
+      {0x0208, 0x0006, 0x00BD, 0x00BE, 0x00FD, 0x0201, 0x0203, 0x0204, 0x0205, 0x027E};
+
+  private SpreadsheetInspector() {
+    throw new AssertionError();
+  }
+
+  static SpreadsheetMetadata inspectXlsx(final File file) throws IOException {
+    try (final ZipFile zipFile = new ZipFile(file)) {
+      final String workbook = findOfficeDocument(zipFile);
+      final String directory = workbook.substring(0, workbook.lastIndexOf('/') + 1);
+      final Map<String, String> targets = readRelationships(zipFile,
+          directory + "_rels/" + workbook.substring(directory.length()) + ".rels");
+      final List<SheetMetadata> sheets = new ArrayList<>();
+      XMLStreamReader reader = null;
+      try (final InputStream in = getInputStream(zipFile, workbook)) {
+        reader = XmlStreams.newReader(in);
+        while (reader.hasNext()) {
+          final int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT && "sheet".equals(reader.getLocalName())) {
+            final String target = targets.get(XmlStreams.getAttribute(reader, "id"));
+            final String ref =
+                target != null ? readDimensionRef(zipFile, resolve(directory, target)) : null;
+            sheets.add(toSheetMetadata(XmlStreams.getAttribute(reader, "name"), ref));
+          } else if (event == XMLStreamConstants.END_ELEMENT
+              && "sheets".equals(reader.getLocalName())) {
+            break;
+          }
+        }
+      } catch (final XMLStreamException ex) {
+        throw new IOException(ex);
+      } finally {
+        XmlStreams.closeQuietly(reader);
+      }
+      return new SpreadsheetMetadata(file, sheets);
+    }
+  }
+
+  private static String findOfficeDocument(final ZipFile zipFile) throws IOException {
+    XMLStreamReader reader = null;
+    try (final InputStream in = getInputStream(zipFile, RELATIONSHIPS_ENTRY)) {
+      reader = XmlStreams.newReader(in);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && "Relationship".equals(reader.getLocalName())) {
+          final String type = XmlStreams.getAttribute(reader, "Type");
+          if (type != null && type.endsWith(OFFICE_DOCUMENT_TYPE)) {
+            return resolve("", XmlStreams.getAttribute(reader, "Target"));
+          }
+        }
+      }
+      throw new IOException("Cannot find the workbook part in file " + zipFile.getName());
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+  }
+
+  private static Map<String, String> readRelationships(final ZipFile zipFile, final String name)
+      throws IOException {
+    final Map<String, String> targets = new HashMap<>();
+    if (zipFile.getEntry(name) == null) {
+      return targets;
+    }
+    XMLStreamReader reader = null;
+    try (final InputStream in = getInputStream(zipFile, name)) {
+      reader = XmlStreams.newReader(in);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && "Relationship".equals(reader.getLocalName())) {
+          targets.put(XmlStreams.getAttribute(reader, "Id"),
+              XmlStreams.getAttribute(reader, "Target"));
+        }
+      }
+      return targets;
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+  }
+
+  /**
+   * Returns the {@code ref} attribute of the {@code <dimension>} element of the specified sheet
+   * part, <tt>null</tt> if the element is missing.
+   */
+  @Nullable
+  private static String readDimensionRef(final ZipFile zipFile, final String name)
+      throws IOException {
+    if (zipFile.getEntry(name) == null) {
+      return null;
+    }
+    XMLStreamReader reader = null;
+    try (final InputStream in = getInputStream(zipFile, name)) {
+      reader = XmlStreams.newReader(in);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          final String localName = reader.getLocalName();
+          if ("dimension".equals(localName)) {
+            return XmlStreams.getAttribute(reader, "ref");
+          } else if ("sheetData".equals(localName)) {
+            return null;
+          }
+        }
+      }
+      return null;
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+  }
+
+  private static SheetMetadata toSheetMetadata(final String name, @Nullable final String ref) {
+    if (ref == null || ref.isEmpty()) {
+      return new SheetMetadata(name, SpreadsheetMetadata.UNKNOWN, SpreadsheetMetadata.UNKNOWN);
+    }
+    final String last = ref.substring(ref.indexOf(':') + 1);
+    return new SheetMetadata(name, StreamingXlsxSheet.parseRowIndex(last) + 1,
+        StreamingXlsxSheet.parseColumnIndex(last) + 1);
+  }
+
+  /**
+   * Resolves the target of a relationship against the directory of its source part.
+   */
+  private static String resolve(final String directory, final String target) {
+    return target.startsWith("/") ? target.substring(1) : directory + target;
+  }
+
+  private static InputStream getInputStream(final ZipFile zipFile, final String name)
+      throws IOException {
+    final ZipEntry entry = zipFile.getEntry(name);
+    if (entry == null) {
+      throw new IOException("Cannot find " + name + " in file " + zipFile.getName());
+    }
+    return zipFile.getInputStream(entry);
+  }
+
+  static SpreadsheetMetadata inspectXls(final File file) throws IOException {
+    try (final NPOIFSFileSystem fileSystem = new NPOIFSFileSystem(file, true)) {
+      final String workbookEntry = HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot());
+      final List<String> names = new ArrayList<>();
+      final List<Integer> bofPositions = new ArrayList<>();
+      RecordScanner scanner =
+          new RecordScanner(fileSystem.createDocumentInputStream(workbookEntry));
+      try {
+        if (scanner.next() != BOF_SID
+            || LittleEndian.getUShort(scanner.readBody()) != BIFF8_VERSION) {
+          throw new IOException("Unsupported BIFF version in file " + file.getName());
+        }
+        int sid;
+        while ((sid = scanner.next()) != EOF_SID && sid >= 0) {
+          if (sid == FILEPASS_SID) {
+            throw new IOException("Cannot inspect the encrypted file " + file.getName());
+          } else if (sid == BOUNDSHEET_SID) {
+            final byte[] body = scanner.readBody();
+            bofPositions.add(LittleEndian.getInt(body, 0));
+            names.add(readShortString(body, 6));
+          }
+        }
+        final List<SheetMetadata> sheets = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++) {
+          if (bofPositions.get(i) < scanner.position) {
+            // the substreams are usually placed in the order of the sheets
+            scanner.close();
+            scanner = new RecordScanner(fileSystem.createDocumentInputStream(workbookEntry));
+          }
+          scanner.skipTo(bofPositions.get(i));
+          sheets.add(readDimensions(scanner, names.get(i)));
+        }
+        return new SpreadsheetMetadata(file, sheets);
+      } finally {
+        scanner.close();
+      }
+    }
+  }
+
+  /**
+   * Decodes the {@code ShortXLUnicodeString} placed at the specified offset of a record body.
+   */
+  private static String readShortString(final byte[] body, final int offset) {
+    final int length = LittleEndian.getUByte(body, offset);
+    final boolean unicode = (LittleEndian.getUByte(body, offset + 1) & 0x01) != 0;
+    return unicode ? new String(body, offset + 2, length * 2, StandardCharsets.UTF_16LE)
+        : new String(body, offset + 2, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Reads the records of the sheet substream until the {@code DIMENSIONS} record, giving up at the
+   * first cell or at the end of the substream.
+   */
+  private static SheetMetadata readDimensions(final RecordScanner scanner, final String name)
+      throws IOException {
+    int sid;
+    while ((sid = scanner.next()) != EOF_SID && sid >= 0 && !isRowOrCell(sid)) {
+      if (sid == DIMENSIONS_SID) {
+        final byte[] body = scanner.readBody();
+        final int rows = LittleEndian.getInt(body, 4);
+        final int columns = LittleEndian.getUShort(body, 10);
+        return rows > 0 ? new SheetMetadata(name, rows, columns) : new SheetMetadata(name, 0, 0);
+      }
+    }
+    return new SheetMetadata(name, SpreadsheetMetadata.UNKNOWN, SpreadsheetMetadata.UNKNOWN);
+  }
+
+  private static boolean isRowOrCell(final int sid) {
+    for (final int rowOrCell : ROW_AND_CELL_SIDS) {
+      if (sid == rowOrCell) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static SpreadsheetMetadata inspectOds(final File file) throws IOException {
+    final List<SheetMetadata> sheets = new ArrayList<>();
+    try (final ZipFile zipFile = new ZipFile(file)) {
+      XMLStreamReader reader = null;
+      try (final InputStream in = getInputStream(zipFile, OdsXml.CONTENT_ENTRY)) {
+        reader = XmlStreams.newReader(in);
+        String name = null;
+        int depth = 0;
+        int rowCount = 0;
+        int rowRepeated = 0;
+        int columnIndex = 0;
+        int lastRow = 0;
+        int lastColumn = 0;
+        while (reader.hasNext()) {
+          final int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            if (StreamingOdsSpreadsheet.isTable(reader)) {
+              if (depth++ == 0) {
+                name = reader.getAttributeValue(OdsXml.TABLE_NS, "name");
+                rowCount = 0;
+                lastRow = 0;
+                lastColumn = 0;
+              }
+            } else if (depth == 1 && isTableElement(reader, "table-row")) {
+              rowRepeated = getRepeated(reader, "number-rows-repeated");
+              columnIndex = 0;
+            } else if (depth == 1 && (isTableElement(reader, "table-cell")
+                || isTableElement(reader, "covered-table-cell"))) {
+              // the cells covered by a merged region take their columns as well
+              final int repeated = getRepeated(reader, "number-columns-repeated");
+              columnIndex += repeated;
+              if (reader.getAttributeValue(OdsXml.OFFICE_NS, "value-type") != null) {
+                lastRow = rowCount + rowRepeated;
+                lastColumn = Math.max(lastColumn, columnIndex);
+              }
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT) {
+            if (StreamingOdsSpreadsheet.isTable(reader)) {
+              if (--depth == 0) {
+                sheets.add(new SheetMetadata(name, lastRow, lastColumn));
+              }
+            } else if (depth == 1 && isTableElement(reader, "table-row")) {
+              rowCount += rowRepeated;
+            }
+          }
+        }
+      } catch (final XMLStreamException ex) {
+        throw new IOException(ex);
+      } finally {
+        XmlStreams.closeQuietly(reader);
+      }
+    }
+    return new SpreadsheetMetadata(file, sheets);
+  }
+
+  private static boolean isTableElement(final XMLStreamReader reader, final String localName) {
+    return localName.equals(reader.getLocalName())
+        && OdsXml.TABLE_NS.equals(reader.getNamespaceURI());
+  }
+
+  private static int getRepeated(final XMLStreamReader reader, final String localName) {
+    final String repeated = reader.getAttributeValue(OdsXml.TABLE_NS, localName);
+    return repeated != null ? Integer.parseInt(repeated) : 1;
+  }
+
+  static SpreadsheetMetadata inspectCsv(final File file) throws IOException {
+    try (final CsvSpreadsheet spreadsheet = CsvSpreadsheet.open(file, CsvFormat.forFile(file))) {
+      final List<SheetMetadata> sheets = new ArrayList<>();
+      for (final Sheet sheet : spreadsheet.getSheets()) {
+        sheets.add(new SheetMetadata(sheet.getName(), sheet.getLastRow(), sheet.getColumns()));
+      }
+      return new SpreadsheetMetadata(file, sheets);
+    }
+  }
+
+  /**
+   * Pulls the headers of the BIFF8 records of a stream: the body of a record is skipped unless it
+   * is read by {@link #readBody()} right after {@link #next()}.
+   */
+  private static final class RecordScanner implements Closeable {
+    private final DocumentInputStream in;
+    private byte[] body = new byte[64];
+    private long position;
+    private int remaining;
+
+    RecordScanner(final DocumentInputStream in) {
+      this.in = in;
+    }
+
+    /**
+     * Moves to the next record, skipping the body of the current one if not read.
+     *
+     * @return the identifier of the record, -1 at the end of the stream
+     */
+    int next() throws IOException {
+      skipTo(position + remaining);
+      if (in.available() < 4) {
+        return -1;
+      }
+      final int sid = in.readUShort();
+      remaining = in.readUShort();
+      position += 4;
+      return sid;
+    }
+
+    /**
+     * Reads the body of the current record: the returned array may be longer than the body.
+     */
+    byte[] readBody() throws IOException {
+      if (remaining > body.length) {
+        body = new byte[remaining];
+      }
+      in.readFully(body, 0, remaining);
+      position += remaining;
+      remaining = 0;
+      return body;
+    }
+
+    void skipTo(final long target) throws IOException {
+      while (position < target) {
+        final long skipped = in.skip(target - position);
+        if (skipped <= 0) {
+          throw new IOException("Unexpected end of the workbook stream at " + position);
+        }
+        position += skipped;
+      }
+      remaining = 0;
+    }
+
+    @Override
+    public void close() {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * The names and the approximate dimensions of the sheets of a spreadsheet file, as returned by
+ * {@link Spreadsheets#inspect(File)} without decoding the cells. The dimensions are those recorded
+ * by the file itself, so they may include formatted but empty cells.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#inspect(File)
+ */
+@Beta
+@Immutable
+public final class SpreadsheetMetadata {
+  /**
+   * The number of rows or columns of a sheet whose file does not record its dimension.
+   */
+  public static final int UNKNOWN = -1;
+  private final File file;
+  private final ImmutableList<SheetMetadata> sheets;
+
+  SpreadsheetMetadata(final File file, final List<SheetMetadata> sheets) {
+    this.file = file;
+    this.sheets = ImmutableList.copyOf(sheets);
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * @return the metadata of the sheets, in the order of the file
+   */
+  public ImmutableList<SheetMetadata> getSheets() {
+    return sheets;
+  }
+
+  /**
+   * @return the names of the sheets, in the order of the file
+   */
+  public List<String> getSheetNames() {
+    final List<String> names = new ArrayList<>(sheets.size());
+    for (final SheetMetadata sheet : sheets) {
+      names.add(sheet.getName());
+    }
+    return names;
+  }
+
+  @Override
+  public String toString() {
+    return "SpreadsheetMetadata [file=" + file + ", sheets=" + sheets + "]";
+  }
+
+  /**
+   * The name and the approximate dimension of a sheet.
+   */
+  @Immutable
+  public static final class SheetMetadata {
+    private final String name;
+    private final int rows;
+    private final int columns;
+
+    SheetMetadata(final String name, final int rows, final int columns) {
+      this.name = name;
+      this.rows = rows;
+      this.columns = columns;
+    }
+
+    @Nonnull
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the index of the last used row plus one, as recorded by the file.
+     *
+     * @return the number of rows of the sheet or {@link SpreadsheetMetadata#UNKNOWN}
+     */
+    public int getRows() {
+      return rows;
+    }
+
+    /**
+     * Returns the index of the last used column plus one, as recorded by the file.
+     *
+     * @return the number of columns of the sheet or {@link SpreadsheetMetadata#UNKNOWN}
+     */
+    public int getColumns() {
+      return columns;
+    }
+
+    @Override
+    public String toString() {
+      return "SheetMetadata [name=" + name + ", rows=" + rows + ", columns=" + columns + "]";
+    }
+  }
+}
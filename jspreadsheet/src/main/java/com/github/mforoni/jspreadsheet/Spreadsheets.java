@@ -1,13 +1,28 @@
 package com.github.mforoni.jspreadsheet;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
 
 /**
  * @author Foroni Marco
@@ -18,12 +33,22 @@ public final class Spreadsheets {
   private static final String XLS = "xls";
   private static final String XLSX = "xlsx";
   private static final String ODS = "ods";
+  private static final String CSV = "csv";
+  private static final String TSV = "tsv";
+  static final String NO_FILE_MESSAGE =
+      "Cannot write a spreadsheet read from a stream: no file has been specified.";
+  /**
+   * The default number of rows kept in memory by the spreadsheets created with
+   * {@link #createStreaming(File)}.
+   */
+  public static final int DEFAULT_ROW_ACCESS_WINDOW = 100;
   public static final Predicate<Path> IS_SPREADSHEET = new Predicate<Path>() {
     @Override
     public boolean apply(@Nonnull final Path input) {
       final String fileExtension = Files.getFileExtension(input.getFileName().toString());
       return fileExtension.equalsIgnoreCase(XLS) || fileExtension.equalsIgnoreCase(XLSX)
-          || fileExtension.equalsIgnoreCase(ODS);
+          || fileExtension.equalsIgnoreCase(ODS) || fileExtension.equalsIgnoreCase(CSV)
+          || fileExtension.equalsIgnoreCase(TSV);
     }
   };
 
@@ -32,7 +57,31 @@ public final class Spreadsheets {
   }
 
   public enum API {
-    JXL, POI, SIMPLE_ODF
+    JXL, POI, SIMPLE_ODF,
+    /**
+     * Read-only streaming engine for <i>xlsx</i> files built on the APACHE POI XSSF event model.
+     * The heap usage does not depend on the number of rows, but the rows of each sheet should be
+     * read in ascending order.
+     */
+    STREAMING_XLSX,
+    /**
+     * Read-only streaming engine for <i>xls</i> files built on the APACHE POI HSSF event model. The
+     * shared strings table is the only workbook structure kept in memory, the records of each sheet
+     * are decoded while its rows are read in ascending order.
+     */
+    STREAMING_XLS,
+    /**
+     * Read-only streaming engine for <i>ods</i> files parsing {@code content.xml} with StAX instead
+     * of building the jOpenDocument tree. The rows of each sheet should be read in ascending order.
+     */
+    STREAMING_ODS,
+    /**
+     * Engine for delimited text files (<i>csv</i> and <i>tsv</i>) holding a single sheet. The file
+     * is parsed in chunks through a {@code FileChannel} and each line is split into its fields only
+     * when read; the created files are write-only. The default delimiter is given by the extension,
+     * see {@link Spreadsheets#openCsv(File, CsvFormat)} to specify another {@link CsvFormat}.
+     */
+    CSV
   }
   enum Mode {
     OPEN, EDIT, CREATE;
@@ -56,6 +105,17 @@ public final class Spreadsheets {
     return isExtension(file, XLSX);
   }
 
+  /**
+   * Returns <tt>true</tt> if the specified file has extension <tt>csv</tt> or <tt>tsv</tt>,
+   * <tt>false</tt> otherwise.
+   *
+   * @param file
+   * @return <tt>true</tt> if the specified file is a delimited text file
+   */
+  public static boolean isExtensionCsv(final File file) {
+    return isExtension(file, CSV) || isExtension(file, TSV);
+  }
+
   public static boolean isExcelFile(final File file) {
     return isExtensionXls(file) || isExtensionXlsx(file);
   }
@@ -68,31 +128,66 @@ public final class Spreadsheets {
     return Files.getFileExtension(file.getName());
   }
 
+  /**
+   * Returns the extension matching the actual format of the {@code file}: <tt>xls</tt>,
+   * <tt>xlsx</tt> or <tt>ods</tt> if the file exists and its first bytes hold the signature of one
+   * of these formats, the extension of the file otherwise. At most
+   * {@value FormatSniffer#HEADER_SIZE} bytes are read.
+   *
+   * @param file
+   * @return the extension of the format of the file
+   */
+  private static String getFormat(final File file) {
+    final FormatSniffer.Format format = FormatSniffer.sniff(file);
+    return format != null ? format.getExtension() : getExtension(file);
+  }
+
+  /**
+   * Returns the default {@link API} for the given {@code file}. The format of an existing file is
+   * recognized from the signature held by its first few kilobytes, so that a file having a wrong
+   * extension is opened with the engine of its actual format; otherwise, e.g. for the files to
+   * create and for the delimited text files, it is given by the extension of the file.
+   *
+   * @param file the file to open or create
+   * @return the default {@link API} for the file
+   * @throws IllegalArgumentException if the format of the file is not supported
+   */
   @Nonnull
   public static API detectAPI(final File file) {
-    final String extension = getExtension(file);
+    final String extension = getFormat(file);
     if (extension.equalsIgnoreCase(XLS)) {
       return API.POI;
     } else if (extension.equalsIgnoreCase(XLSX)) {
       return API.POI;
     } else if (extension.equalsIgnoreCase(ODS)) {
       return API.SIMPLE_ODF;
+    } else if (extension.equalsIgnoreCase(CSV) || extension.equalsIgnoreCase(TSV)) {
+      return API.CSV;
     } else {
       throw new IllegalArgumentException(String.format(
-          "Unable to detect API for file %s. The extension %s is not valid, please specify a file with one of the following extension: %s, %s, or %s",
-          file, extension, XLS, XLSX, ODS));
+          "Unable to detect API for file %s. The extension %s is not valid, please specify a file with one of the following extension: %s, %s, %s, %s, or %s",
+          file, extension, XLS, XLSX, ODS, CSV, TSV));
     }
   }
 
+  /**
+   * Returns the {@link API}s supporting the format of the given {@code file}, recognized as done
+   * by {@link #detectAPI(File)}.
+   *
+   * @param file the file to open or create
+   * @return the {@link API}s supporting the file, an empty set if its format is not supported
+   */
   @Nonnull
   public static ImmutableSet<API> getAdmittedAPIs(final File file) {
-    final String extension = getExtension(file);
+    final String extension = getFormat(file);
     if (extension.equalsIgnoreCase(XLS)) {
-      return Sets.immutableEnumSet(API.POI, API.JXL);
+      return Sets.immutableEnumSet(API.POI, API.JXL, API.STREAMING_XLS);
     } else if (extension.equalsIgnoreCase(XLSX)) {
-      return Sets.immutableEnumSet(API.POI);
+      return Sets.immutableEnumSet(API.POI, API.STREAMING_XLSX);
     } else if (extension.equalsIgnoreCase(ODS)) {
-      return Sets.immutableEnumSet(API.SIMPLE_ODF);
+      return Sets.immutableEnumSet(API.SIMPLE_ODF, API.STREAMING_ODS);
+    } else if (extension.equalsIgnoreCase(CSV) || extension.equalsIgnoreCase(TSV)) {
+      return Sets.immutableEnumSet(API.CSV);
     } else {
       return ImmutableSet.of();
     }
@@ -107,8 +202,8 @@ public final class Spreadsheets {
                 api, admittedAPIs));
       } else {
         throw new IllegalStateException(String.format(
-            "Unable to open the file %s. Please specify a file with one of the following extension: %s, %s, or %s",
-            file, XLS, XLSX, ODS));
+            "Unable to open the file %s. Please specify a file with one of the following extension: %s, %s, %s, %s, or %s",
+            file, XLS, XLSX, ODS, CSV, TSV));
       }
     }
   }
@@ -141,6 +236,47 @@ public final class Spreadsheets {
     return _create(file, api);
   }
 
+  /**
+   * Creates a new {@link Spreadsheet} placed in the given output {@code file} whose memory usage
+   * does not depend on the number of rows written:
+   * <ul>
+   * <li>an <i>xlsx</i> spreadsheet keeps in memory only the last
+   * {@value #DEFAULT_ROW_ACCESS_WINDOW} rows of each sheet, the older rows being flushed to
+   * compressed temporary files;</li>
+   * <li>an <i>ods</i> spreadsheet is write-only and serializes each row into the package as soon as
+   * a following row is set, the sheets must be filled one at a time.</li>
+   * </ul>
+   *
+   * @param file the output <i>xlsx</i> or <i>ods</i> {@code File}
+   * @return an {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @see #createStreaming(File, int, boolean)
+   */
+  public static Spreadsheet createStreaming(final File file) throws IOException {
+    if (isExtension(file, ODS)) {
+      return StreamingOdsWriter.create(file);
+    }
+    return createStreaming(file, DEFAULT_ROW_ACCESS_WINDOW, true);
+  }
+
+  /**
+   * Creates a new <i>xlsx</i> {@link Spreadsheet} placed in the given output {@code file} that
+   * keeps in memory only the last {@code rowAccessWindowSize} rows of each sheet. The rows must be
+   * written in ascending order: writing a row already flushed to disk throws an
+   * {@link IllegalStateException}, while reading it returns empty cells.
+   *
+   * @param file the output <i>xlsx</i> {@code File}
+   * @param rowAccessWindowSize the number of rows kept in memory for each sheet
+   * @param compressTempFiles whether to compress the temporary files holding the flushed rows
+   * @return an {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  public static Spreadsheet createStreaming(final File file, final int rowAccessWindowSize,
+      final boolean compressTempFiles) throws IOException {
+    return PoiSpreadsheet.createStreaming(file, rowAccessWindowSize, compressTempFiles);
+  }
+
   private static Spreadsheet _create(final File file, final API api) throws IOException {
     switch (api) {
       case JXL:
@@ -149,6 +285,12 @@ public final class Spreadsheets {
         return PoiSpreadsheet.create(file);
       case SIMPLE_ODF:
         return OdsSpreadsheet.create(file);
+      case CSV:
+        return CsvSpreadsheet.create(file, CsvFormat.forFile(file));
+      case STREAMING_XLSX:
+      case STREAMING_XLS:
+      case STREAMING_ODS:
+        throw readOnlyAPI(api);
       default:
         // should never occur
         throw new IllegalArgumentException("API " + api + " not handled");
@@ -182,6 +324,13 @@ public final class Spreadsheets {
         return PoiSpreadsheet.edit(in);
       case SIMPLE_ODF:
         return OdsSpreadsheet.edit(in);
+      case STREAMING_XLSX:
+      case STREAMING_XLS:
+      case STREAMING_ODS:
+        throw readOnlyAPI(api);
+      case CSV:
+        throw new IllegalStateException(String.format(
+            "API %s does not support the edit mode: please use the open or create methods", api));
       default:
         // should never occur
         throw new IllegalArgumentException("API " + api + " not handled");
@@ -216,6 +365,501 @@ public final class Spreadsheets {
     return _open(in, api);
   }
 
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input stream. The format
+   * of the content, <i>xls</i>, <i>xlsx</i> or <i>ods</i>, is recognized from its first bytes and
+   * the default {@link API} for that format is used. The whole stream is read before returning,
+   * but it is not closed. The returned spreadsheet has no {@linkplain Spreadsheet#getFile() file}.
+   *
+   * @param in the input stream
+   * @return an {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @throws IllegalArgumentException if the format of the content is not recognized
+   * @see #open(InputStream, API)
+   */
+  @Beta
+  public static Spreadsheet open(final InputStream in) throws IOException {
+    return _open(in, null, Mode.OPEN);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input stream using the
+   * specified {@link API}. The streaming engines and the {@link API#CSV} engine need a file and
+   * cannot be used.
+   *
+   * @param in the input stream
+   * @param api the API to use
+   * @return an {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see #open(InputStream)
+   */
+  @Beta
+  public static Spreadsheet open(final InputStream in, final API api) throws IOException {
+    return _open(in, Preconditions.checkNotNull(api), Mode.OPEN);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given bytes, as done by
+   * {@link #open(InputStream)}. The array is read in place.
+   *
+   * @param bytes the content of the spreadsheet
+   * @return an {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   */
+  @Beta
+  public static Spreadsheet open(final byte[] bytes) throws IOException {
+    return open(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the remaining bytes of the given
+   * buffer, as done by {@link #open(InputStream)}. The buffer, e.g. a read-only
+   * {@link java.nio.MappedByteBuffer} mapped from a file, is read in place through a duplicate and
+   * its position is left untouched.
+   *
+   * @param buffer the content of the spreadsheet
+   * @return an {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   */
+  @Beta
+  public static Spreadsheet open(final ByteBuffer buffer) throws IOException {
+    return open(new ByteBufferInputStream(buffer));
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in write-mode from the given input stream, recognizing its
+   * format as done by {@link #open(InputStream)}. The returned spreadsheet has no
+   * {@linkplain Spreadsheet#getFile() file}: it is written with
+   * {@link Spreadsheet#write(OutputStream)}, while {@link Spreadsheet#write()} throws an
+   * {@link IllegalStateException}.
+   *
+   * @param in the input stream
+   * @return a {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @throws IllegalArgumentException if the format of the content is not recognized
+   */
+  @Beta
+  public static Spreadsheet edit(final InputStream in) throws IOException {
+    return _open(in, null, Mode.EDIT);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in write-mode from the given input stream using the
+   * specified {@link API}.
+   *
+   * @param in the input stream
+   * @param api the API to use
+   * @return a {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @see #edit(InputStream)
+   */
+  @Beta
+  public static Spreadsheet edit(final InputStream in, final API api) throws IOException {
+    return _open(in, Preconditions.checkNotNull(api), Mode.EDIT);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in write-mode from the given bytes, as done by
+   * {@link #edit(InputStream)}.
+   *
+   * @param bytes the content of the spreadsheet
+   * @return a {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   */
+  @Beta
+  public static Spreadsheet edit(final byte[] bytes) throws IOException {
+    return edit(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in write-mode from the remaining bytes of the given
+   * buffer, as done by {@link #edit(InputStream)}. The buffer is read in place and never modified.
+   *
+   * @param buffer the content of the spreadsheet
+   * @return a {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   */
+  @Beta
+  public static Spreadsheet edit(final ByteBuffer buffer) throws IOException {
+    return edit(new ByteBufferInputStream(buffer));
+  }
+
+  private static Spreadsheet _open(final InputStream in, @Nullable final API api,
+      final Mode mode) throws IOException {
+    // POI, JXL and jOpenDocument close the stream they read
+    final InputStream shielded = new ShieldedInputStream(in);
+    final InputStream stream = in.markSupported() ? shielded : new BufferedInputStream(shielded);
+    final FormatSniffer.Format format = FormatSniffer.sniff(stream);
+    if (format == null) {
+      throw new IllegalArgumentException(String.format(
+          "Unable to detect the format of the stream. Please specify a stream holding a spreadsheet in one of the following formats: %s, %s or %s",
+          XLS, XLSX, ODS));
+    }
+    final API selected = api != null ? api : detectAPI(format);
+    final ImmutableSet<API> admittedAPIs = getAdmittedAPIs(format);
+    if (!admittedAPIs.contains(selected)) {
+      throw new IllegalStateException(
+          String.format("Unable to open the %s stream with API %s. Please use this API %s",
+              format.getExtension(), selected, admittedAPIs));
+    }
+    final boolean open = mode == Mode.OPEN;
+    switch (selected) {
+      case JXL:
+        return open ? JxlSpreadsheet.open(stream) : JxlSpreadsheet.edit(stream);
+      case POI:
+        return open ? PoiSpreadsheet.open(stream) : PoiSpreadsheet.edit(stream);
+      case SIMPLE_ODF:
+        return open ? OdsSpreadsheet.open(stream) : OdsSpreadsheet.edit(stream);
+      default:
+        // should never occur
+        throw new IllegalArgumentException("API " + selected + " not handled");
+    }
+  }
+
+  private static API detectAPI(final FormatSniffer.Format format) {
+    return format == FormatSniffer.Format.ODS ? API.SIMPLE_ODF : API.POI;
+  }
+
+  /**
+   * Returns the {@link API}s able to handle a spreadsheet having no file.
+   */
+  private static ImmutableSet<API> getAdmittedAPIs(final FormatSniffer.Format format) {
+    switch (format) {
+      case XLS:
+        return Sets.immutableEnumSet(API.POI, API.JXL);
+      case XLSX:
+        return Sets.immutableEnumSet(API.POI);
+      case ODS:
+        return Sets.immutableEnumSet(API.SIMPLE_ODF);
+      default:
+        throw new AssertionError();
+    }
+  }
+
+  /**
+   * Creates a new {@link Spreadsheet} having no file, of the format given by the specified
+   * {@code extension}: the spreadsheet is kept in memory and is meant to be written with
+   * {@link Spreadsheet#write(OutputStream)} or {@link Spreadsheet#write(WritableByteChannel)}.
+   *
+   * @param extension the extension of the format: <tt>xls</tt>, <tt>xlsx</tt> or <tt>ods</tt>
+   * @return an {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @throws IllegalArgumentException if the format is not supported
+   * @see #createInMemory(String, API)
+   */
+  @Beta
+  public static Spreadsheet createInMemory(final String extension) throws IOException {
+    return _createInMemory(extension, null);
+  }
+
+  /**
+   * Creates a new {@link Spreadsheet} having no file, as done by {@link #createInMemory(String)},
+   * using the specified {@link API}.
+   *
+   * @param extension the extension of the format: <tt>xls</tt>, <tt>xlsx</tt> or <tt>ods</tt>
+   * @param api the API to use
+   * @return an {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   */
+  @Beta
+  public static Spreadsheet createInMemory(final String extension, final API api)
+      throws IOException {
+    return _createInMemory(extension, Preconditions.checkNotNull(api));
+  }
+
+  private static Spreadsheet _createInMemory(final String extension, @Nullable final API api)
+      throws IOException {
+    FormatSniffer.Format format = null;
+    for (final FormatSniffer.Format f : FormatSniffer.Format.values()) {
+      if (f.getExtension().equalsIgnoreCase(extension)) {
+        format = f;
+      }
+    }
+    if (format == null) {
+      throw new IllegalArgumentException(String.format(
+          "Unable to create a spreadsheet in memory with extension %s. Please specify one of the following extension: %s, %s or %s",
+          extension, XLS, XLSX, ODS));
+    }
+    final API selected = api != null ? api : detectAPI(format);
+    final ImmutableSet<API> admittedAPIs = getAdmittedAPIs(format);
+    if (!admittedAPIs.contains(selected)) {
+      throw new IllegalStateException(
+          String.format("Unable to create a %s spreadsheet with API %s. Please use this API %s",
+              extension, selected, admittedAPIs));
+    }
+    switch (selected) {
+      case JXL:
+        return JxlSpreadsheet.createInMemory();
+      case POI:
+        return PoiSpreadsheet.createInMemory(format == FormatSniffer.Format.XLSX);
+      case SIMPLE_ODF:
+        return OdsSpreadsheet.createInMemory();
+      default:
+        // should never occur
+        throw new IllegalArgumentException("API " + selected + " not handled");
+    }
+  }
+
+  /**
+   * Writes the given spreadsheet to its file on the specified executor, as done by
+   * {@link #writeAsync(Spreadsheet, OutputStream, Executor)}: the spreadsheet must not be accessed
+   * until the returned future is done.
+   *
+   * @param spreadsheet a spreadsheet created or edited with the POI, JXL or SIMPLE_ODF API
+   * @param executor the executor running the serialization
+   * @return the future outcome of the write
+   * @throws IllegalStateException if the spreadsheet is read-only, is already being written or has
+   *         no file
+   */
+  @Beta
+  public static ListenableFuture<WriteReport> writeAsync(final Spreadsheet spreadsheet,
+      final Executor executor) {
+    return AsyncWriter.submit(spreadsheet, null, executor);
+  }
+
+  /**
+   * Writes the given spreadsheet to the specified stream on the specified executor, returning
+   * immediately. Until the returned future is done any mutation of the spreadsheet or of its
+   * sheets, as well as any other write, throws an {@link IllegalStateException}. The spreadsheet
+   * and its sheets must not be read either until the future is done, since the underlying
+   * libraries are not thread-safe and the serialization may update their internal state, e.g.
+   * evaluating the formulas. The future fails with the exception thrown by the write, if any, and
+   * otherwise reports the number of bytes written and the duration of the serialization.
+   *
+   * @param spreadsheet a spreadsheet created or edited with the POI, JXL or SIMPLE_ODF API
+   * @param out the target stream, flushed but not closed
+   * @param executor the executor running the serialization
+   * @return the future outcome of the write
+   * @throws IllegalArgumentException if the spreadsheet does not support the asynchronous write
+   * @throws IllegalStateException if the spreadsheet is read-only or is already being written
+   * @see Spreadsheet#write(OutputStream)
+   */
+  @Beta
+  public static ListenableFuture<WriteReport> writeAsync(final Spreadsheet spreadsheet,
+      final OutputStream out, final Executor executor) {
+    return AsyncWriter.submit(spreadsheet, Preconditions.checkNotNull(out), executor);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input file {@code in}
+   * through a snapshot cache placed in {@code cacheDirectory}. The first time, the file is parsed
+   * with the default {@link API} and a columnar binary image of its sheets is written in the cache
+   * directory; the following calls map the image in memory instead of parsing the file again, as
+   * long as the path, the size and the last modified time of the file do not change.
+   * <p>
+   * The sheets of the returned spreadsheet hold only the values of the cells: the formulas are
+   * replaced by their values and the numbers are always returned as {@link Double} values.
+   *
+   * @param in the input file
+   * @param cacheDirectory the directory of the snapshots, created if it does not exist
+   * @return a {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see SheetTable
+   */
+  @Beta
+  public static Spreadsheet openSnapshot(final File in, final File cacheDirectory)
+      throws IOException {
+    return SnapshotSpreadsheet.open(in, cacheDirectory, false);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input file {@code in}
+   * through a snapshot cache placed in {@code cacheDirectory}, as
+   * {@link #openSnapshot(File, File)}. If {@code verifyContent} is <tt>true</tt>, the snapshot is
+   * reused only if the hash of the content of the file matches as well: this detects the changes
+   * preserving the size and the last modified time, at the cost of reading the whole file.
+   *
+   * @param in the input file
+   * @param cacheDirectory the directory of the snapshots, created if it does not exist
+   * @param verifyContent whether the content of the file must be verified
+   * @return a {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see SheetTable
+   */
+  @Beta
+  public static Spreadsheet openSnapshot(final File in, final File cacheDirectory,
+      final boolean verifyContent) throws IOException {
+    return SnapshotSpreadsheet.open(in, cacheDirectory, verifyContent);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input file {@code in},
+   * whose sheets are decoded concurrently on the specified {@code pool} and loaded into
+   * {@link SheetTable} instances. The sheets are read with the streaming {@link API} of the file,
+   * each one through its own stream: for <i>xlsx</i> files the sheet XML parts are parsed in
+   * parallel. The tables of <i>ods</i> files are all held by the same content entry, which is
+   * parsed once loading the tables one at a time; the sheets of <i>xls</i> files share a single
+   * stream and are loaded one at a time as well.
+   * <p>
+   * The returned sheets are immutable and can be read from many threads. As for
+   * {@link #openSnapshot(File, File)}, they hold only the values of the cells.
+   *
+   * @param in the input file
+   * @param pool the pool decoding the sheets
+   * @return a {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see SheetTable
+   */
+  @Beta
+  public static Spreadsheet openParallel(final File in, final ForkJoinPool pool)
+      throws IOException {
+    final API api = getStreamingAPI(in);
+    final List<SheetTable> tables;
+    try (final Spreadsheet spreadsheet = _open(in, api)) {
+      if (api == API.STREAMING_ODS) {
+        final List<StreamingOdsSheet> sheets = new ArrayList<>();
+        for (final Sheet sheet : spreadsheet.getSheets()) {
+          sheets.add((StreamingOdsSheet) sheet);
+        }
+        tables = StreamingOdsSheet.loadAll(sheets);
+      } else {
+        tables =
+            SheetTable.loadAll(spreadsheet.getSheets(), api != API.STREAMING_XLS ? pool : null);
+      }
+    }
+    return new SnapshotSpreadsheet(in, tables);
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input file {@code in},
+   * whose sheets are loaded only when they are accessed. Opening the file reads only the names of
+   * the sheets with the streaming {@link API} of the file: the {@code workbook.xml} part of
+   * <i>xlsx</i> files and the names of the tables of <i>ods</i> files. The first access to a cell
+   * of a sheet loads the whole sheet into a {@link SheetTable}, so that reading one sheet of a
+   * large workbook does not decode the others.
+   * <p>
+   * The loaded sheets store their cells outside of the Java heap, which the soft references of the
+   * cache cannot release under direct memory pressure: the sheets are released, least recently
+   * used first, as soon as the memory they allocate exceeds half of the maximum direct memory of
+   * the JVM, and loaded again on the next access. The file stays open until the spreadsheet is
+   * closed. As for {@link #openSnapshot(File, File)}, the sheets hold only the values of the cells.
+   *
+   * @param in the input file
+   * @return a {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see #openLazy(File, long)
+   */
+  @Beta
+  public static Spreadsheet openLazy(final File in) throws IOException {
+    return _openLazy(in, LazySpreadsheet.defaultMaxLoadedBytes());
+  }
+
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given input file {@code in},
+   * whose sheets are loaded only when they are accessed, as described in {@link #openLazy(File)}.
+   * The loaded sheets are also released, least recently used first, as soon as the memory they
+   * allocate outside of the Java heap exceeds {@code maxLoadedBytes}.
+   *
+   * @param in the input file
+   * @param maxLoadedBytes the maximum number of bytes allocated by the loaded sheets
+   * @return a {@link Spreadsheet} opened in read-only mode
+   * @throws IOException
+   * @see SheetTable#getOffHeapSize()
+   */
+  @Beta
+  public static Spreadsheet openLazy(final File in, final long maxLoadedBytes)
+      throws IOException {
+    Preconditions.checkArgument(maxLoadedBytes >= 0, "Negative maximum loaded bytes: %s",
+        maxLoadedBytes);
+    return _openLazy(in, maxLoadedBytes);
+  }
+
+  private static Spreadsheet _openLazy(final File in, final long maxLoadedBytes)
+      throws IOException {
+    final API api = getStreamingAPI(in);
+    return new LazySpreadsheet(_open(in, api), api == API.STREAMING_XLS, maxLoadedBytes);
+  }
+
+  /**
+   * Returns the names and the approximate dimensions of the sheets of the given input file
+   * {@code in}, without opening it as a {@link Spreadsheet}. Only the structures recording the
+   * sheets are read, so that the time and the memory needed do not depend on the number of cells,
+   * except for <i>ods</i> and delimited text files which do not record the dimensions of their
+   * sheets: their rows are scanned without decoding the values.
+   *
+   * @param in the input <i>xls</i>, <i>xlsx</i>, <i>ods</i>, <i>csv</i> or <i>tsv</i> file
+   * @return the metadata of the sheets of the file
+   * @throws IOException
+   * @see SpreadsheetMetadata
+   */
+  @Beta
+  public static SpreadsheetMetadata inspect(final File in) throws IOException {
+    if (!in.exists()) {
+      throw new IOException("File " + in.getName() + " not found.");
+    }
+    switch (getStreamingAPI(in)) {
+      case STREAMING_XLS:
+        return SpreadsheetInspector.inspectXls(in);
+      case STREAMING_XLSX:
+        return SpreadsheetInspector.inspectXlsx(in);
+      case STREAMING_ODS:
+        return SpreadsheetInspector.inspectOds(in);
+      default:
+        return SpreadsheetInspector.inspectCsv(in);
+    }
+  }
+
+  /**
+   * Converts the spreadsheet file {@code in} into the file {@code out}, whose format is given by
+   * its extension: <i>xlsx</i>, <i>ods</i>, <i>csv</i> or <i>tsv</i>. The source is read with the
+   * streaming {@link API} of its format and the rows are written one at a time into a streaming
+   * target, so that the memory usage does not depend on the size of the files. The formulas are
+   * replaced by their cached values; the font and the background color of the cells are carried
+   * over from <i>xls</i> and <i>xlsx</i> files.
+   * <p>
+   * A delimited text file holds only the first sheet of the source, see
+   * {@link #convert(File, String, File)} to choose another one.
+   *
+   * @param in the input <i>xls</i>, <i>xlsx</i>, <i>ods</i>, <i>csv</i> or <i>tsv</i> file
+   * @param out the output file, which must not exist
+   * @throws IOException
+   * @see #createStreaming(File)
+   */
+  @Beta
+  public static void convert(final File in, final File out) throws IOException {
+    _convert(in, null, out);
+  }
+
+  /**
+   * Converts the sheet of the spreadsheet file {@code in} having the specified name into the file
+   * {@code out}, as described in {@link #convert(File, File)}.
+   *
+   * @param in the input <i>xls</i>, <i>xlsx</i>, <i>ods</i>, <i>csv</i> or <i>tsv</i> file
+   * @param sheetName the name of the sheet to convert
+   * @param out the output file, which must not exist
+   * @throws IOException
+   */
+  @Beta
+  public static void convert(final File in, final String sheetName, final File out)
+      throws IOException {
+    _convert(in, sheetName, out);
+  }
+
+  private static void _convert(final File in, @Nullable final String sheetName, final File out)
+      throws IOException {
+    if (!isExtensionCsv(out) && !isExtension(out, XLSX) && !isExtension(out, ODS)) {
+      throw new IllegalArgumentException(String.format(
+          "Unable to convert to file %s. Please specify a file with one of the following extension: %s, %s, %s, or %s",
+          out, XLSX, ODS, CSV, TSV));
+    }
+    try (final Spreadsheet source = _open(in, getStreamingAPI(in))) {
+      StreamingConverter.convert(source, sheetName, out);
+    }
+  }
+
+  private static API getStreamingAPI(final File file) {
+    final String extension = getFormat(file);
+    if (extension.equalsIgnoreCase(XLS)) {
+      return API.STREAMING_XLS;
+    } else if (extension.equalsIgnoreCase(XLSX)) {
+      return API.STREAMING_XLSX;
+    } else if (extension.equalsIgnoreCase(ODS)) {
+      return API.STREAMING_ODS;
+    }
+    // the delimited text files are always streamed, the other extensions are reported
+    return detectAPI(file);
+  }
+
   private static Spreadsheet _open(final File in, final API api) throws IOException {
     if (!in.exists()) {
       throw new IOException("File " + in.getName() + " not found.");
@@ -227,12 +871,84 @@ public final class Spreadsheets {
         return PoiSpreadsheet.open(in);
       case SIMPLE_ODF:
         return OdsSpreadsheet.open(in);
+      case STREAMING_XLSX:
+        return StreamingXlsxSpreadsheet.open(in);
+      case STREAMING_XLS:
+        return StreamingXlsSpreadsheet.open(in);
+      case STREAMING_ODS:
+        return StreamingOdsSpreadsheet.open(in);
+      case CSV:
+        return CsvSpreadsheet.open(in, CsvFormat.forFile(in));
       default:
         // should never occur
         throw new IllegalStateException("Undefined Excel API Class type.");
     }
   }
 
+  /**
+   * Returns a {@link Spreadsheet} opened in read-only mode from the given delimited text file
+   * {@code in}, parsed with the specified {@link CsvFormat}.
+   *
+   * @param in the input file
+   * @param format the delimiter, the quote character and the indexing of the file
+   * @return a {@link Spreadsheet} opened in read-only mode holding a single sheet
+   * @throws IOException
+   * @see API#CSV
+   */
+  @Beta
+  public static Spreadsheet openCsv(final File in, final CsvFormat format) throws IOException {
+    if (!in.exists()) {
+      throw new IOException("File " + in.getName() + " not found.");
+    }
+    return CsvSpreadsheet.open(in, format);
+  }
+
+  /**
+   * Creates a new delimited text file placed in the given output {@code file}, written with the
+   * specified {@link CsvFormat}. The returned spreadsheet is write-only and holds a single sheet,
+   * whose rows must be written in ascending order.
+   *
+   * @param file the output {@code File}
+   * @param format the delimiter and the quote character of the file
+   * @return an {@link Spreadsheet} opened in write-mode
+   * @throws IOException
+   * @see API#CSV
+   */
+  @Beta
+  public static Spreadsheet createCsv(final File file, final CsvFormat format) throws IOException {
+    return CsvSpreadsheet.create(file, format);
+  }
+
+  private static IllegalStateException readOnlyAPI(final API api) {
+    return new IllegalStateException(
+        String.format("API %s supports only the read-only mode: please use the open method", api));
+  }
+
+  static IllegalStateException writtenToFile(final File file) {
+    return new IllegalStateException(String.format(
+        "Cannot write the spreadsheet to a stream: its rows are written directly to the file %s",
+        file));
+  }
+
+  /**
+   * Returns the hit and miss counts of the cache sharing a single cell style among the cells
+   * written with equal {@link SSCellFormat} values: each miss corresponds to a new style added to
+   * the file. The spreadsheets not caching their styles return empty statistics.
+   *
+   * @param spreadsheet a spreadsheet opened in write-mode
+   * @return the statistics of the style cache of the specified spreadsheet
+   */
+  @Beta
+  @Nonnull
+  public static CacheStats getStyleCacheStats(final Spreadsheet spreadsheet) {
+    if (spreadsheet instanceof PoiSpreadsheet) {
+      return ((PoiSpreadsheet) spreadsheet).getStyleCacheStats();
+    } else if (spreadsheet instanceof JxlSpreadsheet) {
+      return ((JxlSpreadsheet) spreadsheet).getStyleCacheStats();
+    }
+    return new CacheStats(0, 0, 0, 0, 0, 0);
+  }
+
   public static int getColumnIndex(final String columnLabel) {
     int columnIndex = 0;
     int esp = 0;
@@ -0,0 +1,143 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.xml.datatype.Duration;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.joda.time.DateTime;
+import com.github.mforoni.jspreadsheet.StreamingSheet.RowReader;
+
+/**
+ * Copies the sheets of a spreadsheet opened with a streaming {@link Spreadsheets.API} into a
+ * streaming target, one row at a time: the source sheets are read by their {@link RowReader} and
+ * the rows are written into a spreadsheet created by {@link Spreadsheets#createStreaming(File)} or
+ * into a {@link CsvWriter}, so that neither workbook is ever held in memory.
+ * <p>
+ * The formula cells are replaced by their cached values and the error cells by the text of the
+ * error. The font and the background color of the cells are carried over as {@link SSCellFormat}
+ * values when the source sheet provides them.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#convert(File, File)
+ */
+final class StreamingConverter {
+  private StreamingConverter() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Converts the specified sheets of {@code source} into the file {@code out}, which is deleted if
+   * the conversion fails.
+   *
+   * @param source a spreadsheet whose sheets are {@link StreamingSheet} instances
+   * @param sheetName the name of the only sheet to convert or <tt>null</tt> for all the sheets
+   * @param out the output <i>xlsx</i>, <i>ods</i>, <i>csv</i> or <i>tsv</i> file
+   * @throws IOException
+   */
+  static void convert(final Spreadsheet source, @Nullable final String sheetName, final File out)
+      throws IOException {
+    if (out.exists()) {
+      throw new IllegalStateException(
+          String.format("Cannot create file %s: the file already exist", out));
+    }
+    final List<StreamingSheet> sheets = new ArrayList<>();
+    if (sheetName != null) {
+      sheets.add((StreamingSheet) source.getSheet(sheetName));
+    } else {
+      for (final Sheet sheet : source.getSheets()) {
+        sheets.add((StreamingSheet) sheet);
+      }
+    }
+    if (Spreadsheets.isExtensionCsv(out)) {
+      toCsv(sheets.get(0), out);
+    } else {
+      toSpreadsheet(sheets, out);
+    }
+  }
+
+  private static void toSpreadsheet(final List<StreamingSheet> sheets, final File out)
+      throws IOException {
+    try (final Spreadsheet target = Spreadsheets.createStreaming(out)) {
+      for (final StreamingSheet sheet : sheets) {
+        final Sheet targetSheet = target.addSheet(sheet.getName());
+        final RowBuffer row = new RowBuffer();
+        try (final RowReader reader = sheet.openRowReader()) {
+          while (reader.next(row)) {
+            for (int c = 0; c < row.size(); c++) {
+              final Object value = toValue(row.getValue(c));
+              if (value != null) {
+                targetSheet.setObject(row.getRowIndex(), c, value, sheet.getCellFormat(row, c));
+              }
+            }
+          }
+        }
+      }
+      target.write();
+    } catch (final IOException | RuntimeException ex) {
+      java.nio.file.Files.deleteIfExists(out.toPath());
+      throw ex;
+    }
+  }
+
+  private static void toCsv(final StreamingSheet sheet, final File out) throws IOException {
+    com.google.common.io.Files.createParentDirs(out);
+    final CsvFormat format = CsvFormat.forFile(out);
+    try (final CsvWriter writer = new CsvWriter(
+        FileChannel.open(out.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+        format.getDelimiter(), format.getQuote(), CsvWriter.DEFAULT_BUFFER_SIZE)) {
+      final RowBuffer row = new RowBuffer();
+      int nextRow = 0;
+      try (final RowReader reader = sheet.openRowReader()) {
+        while (reader.next(row)) {
+          final Object[] values = new Object[row.size()];
+          boolean empty = true;
+          for (int c = 0; c < values.length; c++) {
+            values[c] = toValue(row.getValue(c));
+            empty &= values[c] == null;
+          }
+          if (!empty) {
+            // the rows not present in the sheet are written as empty lines
+            writer.writeEmptyRows(row.getRowIndex() - nextRow);
+            writer.writeRow(values);
+            nextRow = row.getRowIndex() + 1;
+          }
+        }
+      }
+    } catch (final IOException | RuntimeException ex) {
+      java.nio.file.Files.deleteIfExists(out.toPath());
+      throw ex;
+    }
+  }
+
+  /**
+   * Replaces the error codes returned by the streaming sheets with the text of the error and the
+   * values not handled by {@link Sheet#setObject(int, int, Object)} with their text: the time
+   * cells of ODS sheets, read as {@link Duration} values, are written as <i>[h]:mm:ss</i>.
+   */
+  @Nullable
+  private static Object toValue(@Nullable final Object value) {
+    if (value instanceof Byte) {
+      return FormulaError.forInt((Byte) value).getString();
+    } else if (value instanceof Duration) {
+      return formatDuration((Duration) value);
+    } else if (value == null || value instanceof String || value instanceof Number
+        || value instanceof Date || value instanceof DateTime || value instanceof Boolean) {
+      return value;
+    }
+    return value.toString();
+  }
+
+  private static String formatDuration(final Duration duration) {
+    final long millis = Math.abs(duration.getTimeInMillis(new Date(0)));
+    final long seconds = TimeUnit.MILLISECONDS.toSeconds(millis);
+    return String.format("%s%d:%02d:%02d", duration.getSign() < 0 ? "-" : "",
+        TimeUnit.SECONDS.toHours(seconds), TimeUnit.SECONDS.toMinutes(seconds) % 60, seconds % 60);
+  }
+}
@@ -0,0 +1,343 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.jopendocument.dom.ODValueType;
+import com.google.common.base.Preconditions;
+
+/**
+ * Read-only sheet parsing a {@code <table:table>} element of the {@code content.xml} entry of an
+ * <i>ods</i> file as a stream.
+ * <p>
+ * The values returned by {@link #getObject(int, int)} have the same types returned by
+ * {@link OdsSheet}, e.g. {@link BigDecimal} for numeric cells. Rows and cells marked with
+ * {@code table:number-rows-repeated} or {@code table:number-columns-repeated} are decoded once:
+ * empty runs are skipped and the non empty ones are replayed from the row buffer.
+ *
+ * @author Foroni Marco
+ * @see StreamingOdsSpreadsheet
+ * @see StreamingSheet
+ */
+final class StreamingOdsSheet extends StreamingSheet {
+  private final int tableIndex;
+  private final ZipFile zipFile;
+  private final ZipEntry content;
+
+  StreamingOdsSheet(final String name, final int tableIndex, final ZipFile zipFile,
+      final ZipEntry content) {
+    super(name);
+    this.tableIndex = tableIndex;
+    this.zipFile = zipFile;
+    this.content = content;
+  }
+
+  @Override
+  RowReader openRowReader() throws IOException {
+    return new OdsRowReader();
+  }
+
+  /**
+   * Counts the declared columns and all the rows of the table, empty repeated ones included, as
+   * done by {@link OdsSheet}.
+   */
+  @Override
+  SheetDimension readDimension() throws IOException {
+    final RowBuffer buffer = new RowBuffer();
+    int lastRow = 0;
+    int columns = 0;
+    try (final OdsRowReader scanner = new OdsRowReader()) {
+      while (scanner.next(buffer)) {
+        lastRow = buffer.getRowIndex() + 1;
+        columns = Math.max(columns, buffer.size());
+      }
+      return new SheetDimension(scanner.rowCount, Math.max(columns, scanner.columnCount), lastRow);
+    }
+  }
+
+  @Override
+  String formatRawValue(final RowBuffer row, final int columnIndex) {
+    final String raw = (String) row.getFormula(columnIndex);
+    return raw != null ? raw : "";
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    final RowBuffer row = moveTo(rowIndex);
+    final Object value = row != null ? row.getValue(columnIndex) : null;
+    if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).doubleValue();
+    }
+    return super.getDouble(rowIndex, columnIndex);
+  }
+
+  /**
+   * Loads the specified sheets of the same <i>ods</i> file in a single pass of its content: the
+   * content is parsed once from the top and each table is loaded when the parser reaches it,
+   * whereas loading each sheet on its own would parse again all the tables before it.
+   *
+   * @param sheets the sheets to load, in the order of their tables
+   * @return the tables holding the content of the sheets, in the same order
+   * @throws IOException
+   */
+  static List<SheetTable> loadAll(final List<StreamingOdsSheet> sheets) throws IOException {
+    final List<SheetTable> tables = new ArrayList<>(sheets.size());
+    if (sheets.isEmpty()) {
+      return tables;
+    }
+    final StreamingOdsSheet first = sheets.get(0);
+    XMLStreamReader reader = null;
+    try (final InputStream in = first.zipFile.getInputStream(first.content)) {
+      reader = XmlStreams.newReader(in);
+      int tableIndex = -1;
+      for (final StreamingOdsSheet sheet : sheets) {
+        Preconditions.checkArgument(sheet.tableIndex > tableIndex,
+            "The sheets must be in the order of their tables");
+        final OdsRowReader rowReader =
+            sheet.new OdsRowReader(reader, sheet.tableIndex - tableIndex - 1);
+        tableIndex = sheet.tableIndex;
+        tables.add(SheetTable.load(sheet.getName(), sheet.rowCursor(rowReader)));
+      }
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+    return tables;
+  }
+
+  private static int getRepeated(final XMLStreamReader reader, final String localName) {
+    final String repeated = reader.getAttributeValue(OdsXml.TABLE_NS, localName);
+    return repeated != null ? Integer.parseInt(repeated) : 1;
+  }
+
+  private static boolean is(final XMLStreamReader reader, final String namespace,
+      final String localName) {
+    return localName.equals(reader.getLocalName()) && namespace.equals(reader.getNamespaceURI());
+  }
+
+  /**
+   * Pulls the {@code <table:table-row>} elements of the table. The same {@link RowBuffer} must be
+   * passed to every call, since non empty repeated rows are replayed from its content.
+   * <p>
+   * The formula slot of the buffer holds the raw value of the cell, i.e. its formula or its text.
+   */
+  private final class OdsRowReader implements RowReader {
+    @Nullable
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private final StringBuilder text = new StringBuilder();
+    private int rowCount;
+    private int columnCount;
+    private int pendingRepeats;
+    private boolean ended;
+
+    OdsRowReader() throws IOException {
+      in = zipFile.getInputStream(content);
+      try {
+        reader = XmlStreams.newReader(in);
+        moveToTable(tableIndex);
+      } catch (final XMLStreamException ex) {
+        in.close();
+        throw new IOException(ex);
+      } catch (final IOException | RuntimeException ex) {
+        in.close();
+        throw ex;
+      }
+    }
+
+    /**
+     * Reads the rows of the table through the specified reader, shared with the readers of the
+     * other tables of the content and left open by {@link #close()}.
+     *
+     * @param reader the reader of the content, positioned before the table
+     * @param skip the number of tables to skip before the one of this sheet
+     */
+    OdsRowReader(final XMLStreamReader reader, final int skip)
+        throws XMLStreamException, IOException {
+      in = null;
+      this.reader = reader;
+      moveToTable(skip);
+    }
+
+    private void moveToTable(final int skip) throws XMLStreamException, IOException {
+      int index = -1;
+      int depth = 0;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT
+            && StreamingOdsSpreadsheet.isTable(reader)) {
+          if (depth++ == 0 && ++index == skip) {
+            return;
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT
+            && StreamingOdsSpreadsheet.isTable(reader)) {
+          depth--;
+        }
+      }
+      throw new IOException("Cannot find table " + getName());
+    }
+
+    @Override
+    public boolean next(final RowBuffer buffer) throws IOException {
+      if (pendingRepeats > 0) {
+        pendingRepeats--;
+        buffer.setRowIndex(rowCount++);
+        return true;
+      }
+      if (ended) {
+        return false;
+      }
+      try {
+        while (reader.hasNext()) {
+          final int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT) {
+            if (is(reader, OdsXml.TABLE_NS, "table-column")) {
+              columnCount += getRepeated(reader, "number-columns-repeated");
+            } else if (is(reader, OdsXml.TABLE_NS, "table-row")) {
+              final int repeated = getRepeated(reader, "number-rows-repeated");
+              buffer.reset(rowCount);
+              readRow(buffer);
+              if (buffer.size() > 0) {
+                pendingRepeats = repeated - 1;
+                rowCount++;
+                return true;
+              }
+              rowCount += repeated;
+            }
+          } else if (event == XMLStreamConstants.END_ELEMENT
+              && StreamingOdsSpreadsheet.isTable(reader)) {
+            break;
+          }
+        }
+        ended = true;
+        return false;
+      } catch (final XMLStreamException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    private void readRow(final RowBuffer buffer) throws XMLStreamException {
+      int columnIndex = 0;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT && (is(reader, OdsXml.TABLE_NS, "table-cell")
+            || is(reader, OdsXml.TABLE_NS, "covered-table-cell"))) {
+          final int repeated = getRepeated(reader, "number-columns-repeated");
+          readCell(buffer, columnIndex, repeated);
+          columnIndex += repeated;
+        } else if (event == XMLStreamConstants.END_ELEMENT
+            && is(reader, OdsXml.TABLE_NS, "table-row")) {
+          return;
+        }
+      }
+    }
+
+    private void readCell(final RowBuffer buffer, final int columnIndex, final int repeated)
+        throws XMLStreamException {
+      final ODValueType type = getValueType();
+      final String formula = reader.getAttributeValue(OdsXml.TABLE_NS, "formula");
+      final String attribute =
+          type != null ? reader.getAttributeValue(OdsXml.OFFICE_NS, type.getValueAttribute())
+              : null;
+      readText();
+      if (type == null && formula == null && text.length() == 0) {
+        return;
+      }
+      final Object value;
+      if (type == ODValueType.STRING) {
+        value = attribute != null ? attribute : text.toString();
+      } else {
+        value = attribute != null ? type.parse(attribute) : null;
+      }
+      final String raw = formula != null ? formula : text.toString();
+      for (int c = columnIndex; c < columnIndex + repeated; c++) {
+        buffer.set(c, value, raw, 0, 0);
+      }
+    }
+
+    @Nullable
+    private ODValueType getValueType() {
+      final String valueType = reader.getAttributeValue(OdsXml.OFFICE_NS, "value-type");
+      return valueType != null ? ODValueType.get(valueType) : null;
+    }
+
+    /**
+     * Collects the text of the paragraphs of the current cell, separated by a new line, skipping
+     * the annotations.
+     */
+    private void readText() throws XMLStreamException {
+      text.setLength(0);
+      int depth = 1;
+      int paragraphs = 0;
+      boolean inParagraph = false;
+      while (depth > 0 && reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (is(reader, OdsXml.OFFICE_NS, "annotation")) {
+            skipElement();
+            depth--;
+          } else if (is(reader, OdsXml.TEXT_NS, "p") || is(reader, OdsXml.TEXT_NS, "h")) {
+            if (paragraphs++ > 0) {
+              text.append('\n');
+            }
+            inParagraph = true;
+          } else if (is(reader, OdsXml.TEXT_NS, "s")) {
+            final String count = reader.getAttributeValue(OdsXml.TEXT_NS, "c");
+            for (int i = count != null ? Integer.parseInt(count) : 1; i > 0; i--) {
+              text.append(' ');
+            }
+          } else if (is(reader, OdsXml.TEXT_NS, "tab")) {
+            text.append('\t');
+          } else if (is(reader, OdsXml.TEXT_NS, "line-break")) {
+            text.append('\n');
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+          if (is(reader, OdsXml.TEXT_NS, "p") || is(reader, OdsXml.TEXT_NS, "h")) {
+            inParagraph = false;
+          }
+        } else if (event == XMLStreamConstants.CHARACTERS
+            || event == XMLStreamConstants.CDATA) {
+          if (inParagraph) {
+            text.append(reader.getText());
+          }
+        }
+      }
+    }
+
+    private void skipElement() throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0 && reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          depth--;
+        }
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (in == null) {
+        // the reader is closed by its owner
+        return;
+      }
+      try {
+        XmlStreams.closeQuietly(reader);
+      } finally {
+        in.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Read-only <i>ods</i> spreadsheet parsing the {@code content.xml} entry of the package with StAX:
+ * the document is never loaded as a JDOM tree and the repeated rows and cells are expanded only
+ * when they are read. To instantiate this class use the methods provided in the {@link Spreadsheets}
+ * class with {@link Spreadsheets.API#STREAMING_ODS}.
+ * <p>
+ * <b>Note</b>: the sheets returned by this class are forward-only cursors, see
+ * {@link StreamingSheet}.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets
+ * @see StreamingOdsSheet
+ */
+final class StreamingOdsSpreadsheet implements Spreadsheet {
+  private final File file;
+  private final ZipFile zipFile;
+  private final ZipEntry content;
+  private final List<String> sheetNames;
+  private final List<StreamingOdsSheet> sheets = new ArrayList<>();
+
+  private StreamingOdsSpreadsheet(final File file) throws IOException {
+    this.file = file;
+    this.zipFile = new ZipFile(file);
+    try {
+      content = zipFile.getEntry(OdsXml.CONTENT_ENTRY);
+      if (content == null) {
+        throw new IOException("Cannot find " + OdsXml.CONTENT_ENTRY + " in file " + file.getName());
+      }
+      sheetNames = readSheetNames();
+      for (int i = 0; i < sheetNames.size(); i++) {
+        sheets.add(null);
+      }
+    } catch (final IOException | RuntimeException ex) {
+      zipFile.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Opens the specified <i>ods</i> {@code file} in read-only mode.
+   *
+   * @param file
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static StreamingOdsSpreadsheet open(final File file) throws IOException {
+    return new StreamingOdsSpreadsheet(file);
+  }
+
+  private List<String> readSheetNames() throws IOException {
+    final List<String> names = new ArrayList<>();
+    XMLStreamReader reader = null;
+    try (final InputStream in = zipFile.getInputStream(content)) {
+      reader = XmlStreams.newReader(in);
+      int depth = 0;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT && isTable(reader)) {
+          if (depth++ == 0) {
+            names.add(reader.getAttributeValue(OdsXml.TABLE_NS, "name"));
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT && isTable(reader)) {
+          depth--;
+        }
+      }
+      return names;
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+  }
+
+  static boolean isTable(final XMLStreamReader reader) {
+    return "table".equals(reader.getLocalName()) && OdsXml.TABLE_NS.equals(reader.getNamespaceURI());
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return Collections.unmodifiableList(sheetNames);
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    final List<Sheet> result = new ArrayList<>();
+    for (int i = 0; i < sheetNames.size(); i++) {
+      result.add(getSheet(i));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    final int index = sheetNames.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return getSheet(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheetNames.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheetNames.size() - 1));
+    }
+    StreamingOdsSheet sheet = sheets.get(index);
+    if (sheet == null) {
+      sheet = new StreamingOdsSheet(sheetNames.get(index), index, zipFile, content);
+      sheets.set(index, sheet);
+    }
+    return sheet;
+  }
+
+  @Override
+  public Sheet addSheet(final String name) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write() throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      for (final StreamingOdsSheet sheet : sheets) {
+        if (sheet != null) {
+          sheet.closeReader();
+        }
+      }
+    } finally {
+      zipFile.close();
+    }
+  }
+}
@@ -0,0 +1,372 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.annotation.Nonnull;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Write-only <i>ods</i> spreadsheet serializing the cells straight into the {@code content.xml}
+ * entry of the package while they are set, without building any document tree. To instantiate
+ * this class use {@link Spreadsheets#createStreaming(File)} with an <i>ods</i> file.
+ * <p>
+ * The sheets must be filled one at a time and the rows of each sheet in ascending order: adding a
+ * new sheet completes the previous one and only the last row is kept in memory, so writing a
+ * million-row sheet requires constant memory. The cell formats are saved as named cell styles in
+ * {@code styles.xml} when {@link #write()} is invoked.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets
+ * @see StreamingOdsWriterSheet
+ */
+final class StreamingOdsWriter implements Spreadsheet {
+  static final String DEFAULT_STYLE = "Default";
+  static final String DATE_STYLE = "Date";
+  private static final String DATE_DATA_STYLE = "N1";
+  private final File file;
+  private final ZipOutputStream zip;
+  private final XMLStreamWriter content;
+  private final List<StreamingOdsWriterSheet> sheets = new ArrayList<>();
+  private final Map<SSCellFormat, Integer> cellFormats = new LinkedHashMap<>();
+  private boolean written;
+
+  private StreamingOdsWriter(final File file) throws IOException {
+    this.file = file;
+    if (file.exists()) {
+      throw new IllegalStateException(
+          String.format("Cannot create file %s: the file already exist", file));
+    }
+    com.google.common.io.Files.createParentDirs(file);
+    zip = new ZipOutputStream(new FileOutputStream(file));
+    try {
+      writeMimetype();
+      zip.putNextEntry(new ZipEntry(OdsXml.CONTENT_ENTRY));
+      content = XmlStreams.newWriter(zip);
+      startContent();
+    } catch (final XMLStreamException ex) {
+      zip.close();
+      throw new IOException(ex);
+    } catch (final IOException | RuntimeException ex) {
+      zip.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Creates a new <i>ods</i> file from scratch placed in the specified {@code file}.
+   *
+   * @param file
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static StreamingOdsWriter create(final File file) throws IOException {
+    return new StreamingOdsWriter(file);
+  }
+
+  /**
+   * The {@code mimetype} entry must be the first one of the package and must be stored
+   * uncompressed.
+   */
+  private void writeMimetype() throws IOException {
+    final byte[] bytes = OdsXml.MIMETYPE.getBytes(StandardCharsets.US_ASCII);
+    final CRC32 crc = new CRC32();
+    crc.update(bytes);
+    final ZipEntry entry = new ZipEntry(OdsXml.MIMETYPE_ENTRY);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(bytes.length);
+    entry.setCrc(crc.getValue());
+    zip.putNextEntry(entry);
+    zip.write(bytes);
+    zip.closeEntry();
+  }
+
+  private void startContent() throws XMLStreamException {
+    content.writeStartDocument("UTF-8", "1.0");
+    content.writeStartElement("office", "document-content", OdsXml.OFFICE_NS);
+    content.writeNamespace("office", OdsXml.OFFICE_NS);
+    content.writeNamespace("style", OdsXml.STYLE_NS);
+    content.writeNamespace("table", OdsXml.TABLE_NS);
+    content.writeNamespace("text", OdsXml.TEXT_NS);
+    content.writeAttribute("office", OdsXml.OFFICE_NS, "version", OdsXml.VERSION);
+    content.writeStartElement("office", "body", OdsXml.OFFICE_NS);
+    content.writeStartElement("office", "spreadsheet", OdsXml.OFFICE_NS);
+  }
+
+  /**
+   * Writes the {@code <table:table>} element of a completed sheet into {@code content.xml}: the
+   * rows serialized by the sheet are copied after the declaration of the columns of its widest
+   * row.
+   *
+   * @param sheet the completed sheet
+   */
+  void writeTable(final StreamingOdsWriterSheet sheet) throws XMLStreamException, IOException {
+    final int columns = Math.max(sheet.getColumns(), 1);
+    content.writeStartElement("table", "table", OdsXml.TABLE_NS);
+    content.writeAttribute("table", OdsXml.TABLE_NS, "name", sheet.getName());
+    content.writeStartElement("table", "table-column", OdsXml.TABLE_NS);
+    if (columns > 1) {
+      content.writeAttribute("table", OdsXml.TABLE_NS, "number-columns-repeated",
+          String.valueOf(columns));
+    }
+    content.writeEndElement();
+    content.flush();
+    sheet.copyRows(zip);
+    content.writeEndElement();
+  }
+
+  /**
+   * Returns the name of the named cell style having the specified format.
+   *
+   * @param cellFormat the format of the cell, may be <tt>null</tt>
+   * @param date whether the cell holds a date
+   * @return the name of the style or <tt>null</tt> for the default one
+   */
+  String getStyleName(final SSCellFormat cellFormat, final boolean date) {
+    if (cellFormat == null) {
+      return date ? DATE_STYLE : null;
+    }
+    Integer index = cellFormats.get(cellFormat);
+    if (index == null) {
+      index = cellFormats.size() + 1;
+      cellFormats.put(cellFormat, index);
+    }
+    return date ? "ce" + index + DATE_STYLE : "ce" + index;
+  }
+
+  private void checkNotWritten() {
+    if (written) {
+      throw new IllegalStateException(
+          String.format("Cannot modify file %s: the file has already been written", file));
+    }
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    final List<String> names = new ArrayList<>();
+    for (final StreamingOdsWriterSheet sheet : sheets) {
+      names.add(sheet.getName());
+    }
+    return names;
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    return new ArrayList<Sheet>(sheets);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    for (final StreamingOdsWriterSheet sheet : sheets) {
+      if (sheet.getName().equals(name)) {
+        return sheet;
+      }
+    }
+    throw new IllegalArgumentException("Cannot find sheet having name " + name);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheets.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheets.size() - 1));
+    }
+    return sheets.get(index);
+  }
+
+  /**
+   * Adds a new sheet completing the previous one, that cannot be modified anymore.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public Sheet addSheet(final String name) {
+    checkNotWritten();
+    if (getSheetNames().contains(name)) {
+      throw new IllegalArgumentException("A sheet having name " + name + " already exists");
+    }
+    if (!sheets.isEmpty()) {
+      sheets.get(sheets.size() - 1).finish();
+    }
+    final StreamingOdsWriterSheet sheet = new StreamingOdsWriterSheet(name, this);
+    sheets.add(sheet);
+    return sheet;
+  }
+
+  /**
+   * Completes the last sheet and the package: no further modification is allowed.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void write() throws IOException {
+    checkNotWritten();
+    if (sheets.isEmpty()) {
+      addSheet("Sheet1");
+    }
+    sheets.get(sheets.size() - 1).finish();
+    try {
+      content.writeEndDocument();
+      content.close();
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry(OdsXml.STYLES_ENTRY));
+      writeStyles();
+      zip.closeEntry();
+      zip.putNextEntry(new ZipEntry(OdsXml.MANIFEST_ENTRY));
+      writeManifest();
+      zip.closeEntry();
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    }
+    zip.close();
+    written = true;
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw Spreadsheets.writtenToFile(file);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw Spreadsheets.writtenToFile(file);
+  }
+
+  private void writeStyles() throws XMLStreamException {
+    final XMLStreamWriter xml = XmlStreams.newWriter(zip);
+    xml.writeStartDocument("UTF-8", "1.0");
+    xml.writeStartElement("office", "document-styles", OdsXml.OFFICE_NS);
+    xml.writeNamespace("office", OdsXml.OFFICE_NS);
+    xml.writeNamespace("style", OdsXml.STYLE_NS);
+    xml.writeNamespace("number", OdsXml.NUMBER_NS);
+    xml.writeNamespace("fo", OdsXml.FO_NS);
+    xml.writeAttribute("office", OdsXml.OFFICE_NS, "version", OdsXml.VERSION);
+    xml.writeStartElement("office", "styles", OdsXml.OFFICE_NS);
+    writeDateDataStyle(xml);
+    writeStyle(xml, DEFAULT_STYLE, null, false);
+    writeStyle(xml, DATE_STYLE, null, true);
+    for (final Map.Entry<SSCellFormat, Integer> entry : cellFormats.entrySet()) {
+      writeStyle(xml, "ce" + entry.getValue(), entry.getKey(), false);
+      writeStyle(xml, "ce" + entry.getValue() + DATE_STYLE, entry.getKey(), true);
+    }
+    xml.writeEndDocument();
+    xml.close();
+  }
+
+  private static void writeDateDataStyle(final XMLStreamWriter xml) throws XMLStreamException {
+    xml.writeStartElement("number", "date-style", OdsXml.NUMBER_NS);
+    xml.writeAttribute("style", OdsXml.STYLE_NS, "name", DATE_DATA_STYLE);
+    xml.writeEmptyElement("number", "year", OdsXml.NUMBER_NS);
+    xml.writeAttribute("number", OdsXml.NUMBER_NS, "style", "long");
+    xml.writeStartElement("number", "text", OdsXml.NUMBER_NS);
+    xml.writeCharacters("-");
+    xml.writeEndElement();
+    xml.writeEmptyElement("number", "month", OdsXml.NUMBER_NS);
+    xml.writeAttribute("number", OdsXml.NUMBER_NS, "style", "long");
+    xml.writeStartElement("number", "text", OdsXml.NUMBER_NS);
+    xml.writeCharacters("-");
+    xml.writeEndElement();
+    xml.writeEmptyElement("number", "day", OdsXml.NUMBER_NS);
+    xml.writeAttribute("number", OdsXml.NUMBER_NS, "style", "long");
+    xml.writeEndElement();
+  }
+
+  private static void writeStyle(final XMLStreamWriter xml, final String name,
+      final SSCellFormat cellFormat, final boolean date) throws XMLStreamException {
+    xml.writeStartElement("style", "style", OdsXml.STYLE_NS);
+    xml.writeAttribute("style", OdsXml.STYLE_NS, "name", name);
+    xml.writeAttribute("style", OdsXml.STYLE_NS, "family", "table-cell");
+    if (!DEFAULT_STYLE.equals(name)) {
+      xml.writeAttribute("style", OdsXml.STYLE_NS, "parent-style-name", DEFAULT_STYLE);
+    }
+    if (date) {
+      xml.writeAttribute("style", OdsXml.STYLE_NS, "data-style-name", DATE_DATA_STYLE);
+    }
+    if (cellFormat != null) {
+      final SSColor background = cellFormat.getBackgroundColour();
+      if (background != null && background.getColor() != null) {
+        xml.writeEmptyElement("style", "table-cell-properties", OdsXml.STYLE_NS);
+        xml.writeAttribute("fo", OdsXml.FO_NS, "background-color",
+            String.format("#%06x", background.getColor().getRGB() & 0xFFFFFF));
+      }
+      final SSFont font = cellFormat.getSSFont();
+      xml.writeEmptyElement("style", "text-properties", OdsXml.STYLE_NS);
+      xml.writeAttribute("fo", OdsXml.FO_NS, "font-family", font.getName());
+      xml.writeAttribute("fo", OdsXml.FO_NS, "font-size",
+          StreamingOdsWriterSheet.formatNumber(font.getSize()) + "pt");
+      if (font.isBold()) {
+        xml.writeAttribute("fo", OdsXml.FO_NS, "font-weight", "bold");
+      }
+    }
+    xml.writeEndElement();
+  }
+
+  private void writeManifest() throws XMLStreamException {
+    final XMLStreamWriter xml = XmlStreams.newWriter(zip);
+    xml.writeStartDocument("UTF-8", "1.0");
+    xml.writeStartElement("manifest", "manifest", OdsXml.MANIFEST_NS);
+    xml.writeNamespace("manifest", OdsXml.MANIFEST_NS);
+    xml.writeAttribute("manifest", OdsXml.MANIFEST_NS, "version", OdsXml.VERSION);
+    writeFileEntry(xml, "/", OdsXml.MIMETYPE);
+    writeFileEntry(xml, OdsXml.CONTENT_ENTRY, "text/xml");
+    writeFileEntry(xml, OdsXml.STYLES_ENTRY, "text/xml");
+    xml.writeEndDocument();
+    xml.close();
+  }
+
+  private static void writeFileEntry(final XMLStreamWriter xml, final String path,
+      final String mediaType) throws XMLStreamException {
+    xml.writeEmptyElement("manifest", "file-entry", OdsXml.MANIFEST_NS);
+    xml.writeAttribute("manifest", OdsXml.MANIFEST_NS, "full-path", path);
+    if ("/".equals(path)) {
+      xml.writeAttribute("manifest", OdsXml.MANIFEST_NS, "version", OdsXml.VERSION);
+    }
+    xml.writeAttribute("manifest", OdsXml.MANIFEST_NS, "media-type", mediaType);
+  }
+
+  /**
+   * Releases the file: if {@link #write()} has not been invoked the incomplete file is deleted.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    if (!written) {
+      written = true;
+      try {
+        if (!sheets.isEmpty()) {
+          sheets.get(sheets.size() - 1).discard();
+        }
+        XmlStreams.closeQuietly(content);
+        zip.close();
+      } finally {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+  }
+}
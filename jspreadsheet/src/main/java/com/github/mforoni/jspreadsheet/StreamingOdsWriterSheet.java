@@ -0,0 +1,434 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Write-only sheet of a {@link StreamingOdsWriter}: the cells of the current row are buffered and
+ * the row is serialized as soon as a cell of a following row is set.
+ * <p>
+ * Runs of empty rows and cells are collapsed with {@code table:number-rows-repeated} and
+ * {@code table:number-columns-repeated}. Since the {@code <table:table-column>} declaration must
+ * precede the rows, the rows are serialized into a temporary file placed next to the target file
+ * and copied into {@code content.xml} when the sheet is completed, declaring the width of the
+ * widest row: each row is then padded to that width, as required by jOpenDocument.
+ *
+ * @author Foroni Marco
+ * @see StreamingOdsWriter
+ */
+final class StreamingOdsWriterSheet extends AbstractSheet {
+  static final String WRITE_ONLY_MESSAGE =
+      "Read operation not allowed on file created in streaming mode.";
+  private static final int INITIAL_CAPACITY = 16;
+  private static final byte[] ROW_END = "</table:table-row>".getBytes(StandardCharsets.UTF_8);
+  private final String name;
+  private final StreamingOdsWriter writer;
+  private final ByteArrayOutputStream row = new ByteArrayOutputStream();
+  private Path rowsFile;
+  private DataOutputStream rowsOut;
+  private XMLStreamWriter xml;
+  private int rowCount;
+  private final DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+  private final DateFormat dateTimeFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss");
+  private final Calendar calendar = Calendar.getInstance();
+  private Object[] values = new Object[INITIAL_CAPACITY];
+  private SSCellFormat[] formats = new SSCellFormat[INITIAL_CAPACITY];
+  private int size;
+  private int currentRow = -1;
+  private int nextRow;
+  private int columns;
+  private boolean finished;
+
+  StreamingOdsWriterSheet(final String name, final StreamingOdsWriter writer) {
+    this.name = name;
+    this.writer = writer;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the number of rows written so far.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRows() {
+    return Math.max(nextRow, currentRow + 1);
+  }
+
+  /**
+   * Returns the number of columns of the widest row written so far.
+   * <p>
+   * {@inheritDoc}
+   */
+  @Override
+  public int getColumns() {
+    return Math.max(columns, size);
+  }
+
+  @Override
+  public int getLastColumn(final int rowIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public String getRawValue(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public String getString(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public RowCursor rowCursor() {
+    throw new IllegalStateException(WRITE_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setAutoSize(final int fromColumn, final int toColumn) {
+    throw new IllegalStateException("Feature not avaiable");
+  }
+
+  @Override
+  public void setString(final int rowIndex, final int columnIndex, @Nullable final String value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value, cellFormat);
+  }
+
+  @Override
+  public void setDouble(final int rowIndex, final int columnIndex, @Nullable final Double value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value, cellFormat);
+  }
+
+  @Override
+  public void setDate(final int rowIndex, final int columnIndex, @Nullable final Date value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value, cellFormat);
+  }
+
+  @Override
+  public void setBoolean(final int rowIndex, final int columnIndex, @Nullable final Boolean value,
+      @Nullable final SSCellFormat cellFormat) {
+    put(rowIndex, columnIndex, value, cellFormat);
+  }
+
+  private void put(final int rowIndex, final int columnIndex, @Nullable final Object value,
+      @Nullable final SSCellFormat cellFormat) {
+    if (finished) {
+      throw new IllegalStateException(String.format(
+          "Cannot write sheet %s: the sheet has already been completed, the sheets must be filled one at a time",
+          name));
+    }
+    if (value == null) {
+      return;
+    }
+    final int firstWritableRow = Math.max(nextRow, currentRow);
+    if (rowIndex < firstWritableRow) {
+      throw new IllegalStateException(String.format(
+          "Cannot write row %d of sheet %s: the rows up to %d have already been written", rowIndex,
+          name, firstWritableRow - 1));
+    }
+    if (rowIndex > currentRow) {
+      flushRow();
+      currentRow = rowIndex;
+    }
+    ensureCapacity(columnIndex + 1);
+    values[columnIndex] = value;
+    formats[columnIndex] = cellFormat;
+    size = Math.max(size, columnIndex + 1);
+  }
+
+  private void ensureCapacity(final int capacity) {
+    if (capacity > values.length) {
+      final int newCapacity = Math.max(capacity, values.length * 2);
+      values = Arrays.copyOf(values, newCapacity);
+      formats = Arrays.copyOf(formats, newCapacity);
+    }
+  }
+
+  /**
+   * Writes the buffered row, if any, preceded by the empty rows separating it from the previous
+   * one.
+   */
+  private void flushRow() {
+    if (currentRow < 0) {
+      return;
+    }
+    try {
+      start();
+      if (currentRow > nextRow) {
+        writeEmptyRows(currentRow - nextRow);
+      }
+      xml.writeStartElement("table", "table-row", OdsXml.TABLE_NS);
+      int empty = 0;
+      for (int c = 0; c < size; c++) {
+        if (values[c] == null) {
+          empty++;
+        } else {
+          if (empty > 0) {
+            writeEmptyCells(empty);
+            empty = 0;
+          }
+          writeCell(values[c], formats[c]);
+        }
+      }
+      xml.writeEndElement();
+      endRow(size);
+    } catch (final XMLStreamException | IOException ex) {
+      throw new IllegalStateException(
+          String.format("Error while writing row %d of sheet %s", currentRow, name), ex);
+    }
+    columns = Math.max(columns, size);
+    Arrays.fill(values, 0, size, null);
+    Arrays.fill(formats, 0, size, null);
+    size = 0;
+    nextRow = currentRow + 1;
+    currentRow = -1;
+  }
+
+  /**
+   * Opens the temporary file receiving the rows of the sheet.
+   */
+  private void start() throws XMLStreamException, IOException {
+    if (xml == null) {
+      final Path target = writer.getFile().toPath().toAbsolutePath();
+      rowsFile = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      rowsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(rowsFile)));
+      xml = XmlStreams.newWriter(row);
+    }
+  }
+
+  /**
+   * Appends the row just serialized to the temporary file, preceded by its width and its length
+   * and without its end tag, so that {@link #copyRows(OutputStream)} can pad it.
+   */
+  private void endRow(final int width) throws XMLStreamException, IOException {
+    xml.flush();
+    final int length = row.size() - ROW_END.length;
+    rowsOut.writeInt(width);
+    rowsOut.writeInt(length);
+    rowsOut.write(row.toByteArray(), 0, length);
+    row.reset();
+    rowCount++;
+  }
+
+  /**
+   * Copies the rows of the completed sheet to the specified stream, padding each row to the number
+   * of columns of the widest one.
+   *
+   * @param out the stream of {@code content.xml}
+   */
+  void copyRows(final OutputStream out) throws IOException {
+    final int width = getColumns();
+    try (final DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(rowsFile)))) {
+      byte[] buffer = new byte[0];
+      for (int i = 0; i < rowCount; i++) {
+        final int rowWidth = in.readInt();
+        final int length = in.readInt();
+        if (length > buffer.length) {
+          buffer = new byte[length];
+        }
+        in.readFully(buffer, 0, length);
+        out.write(buffer, 0, length);
+        if (rowWidth < width) {
+          final String padding = width - rowWidth > 1
+              ? "<table:table-cell table:number-columns-repeated=\"" + (width - rowWidth) + "\"/>"
+              : "<table:table-cell/>";
+          out.write(padding.getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(ROW_END);
+      }
+    }
+  }
+
+  private void writeEmptyRows(final int count) throws XMLStreamException, IOException {
+    xml.writeStartElement("table", "table-row", OdsXml.TABLE_NS);
+    if (count > 1) {
+      xml.writeAttribute("table", OdsXml.TABLE_NS, "number-rows-repeated", String.valueOf(count));
+    }
+    writeEmptyCells(1);
+    xml.writeEndElement();
+    endRow(1);
+  }
+
+  private void writeEmptyCells(final int count) throws XMLStreamException {
+    xml.writeEmptyElement("table", "table-cell", OdsXml.TABLE_NS);
+    if (count > 1) {
+      xml.writeAttribute("table", OdsXml.TABLE_NS, "number-columns-repeated",
+          String.valueOf(count));
+    }
+  }
+
+  private void writeCell(final Object value, @Nullable final SSCellFormat cellFormat)
+      throws XMLStreamException {
+    xml.writeStartElement("table", "table-cell", OdsXml.TABLE_NS);
+    final String styleName = writer.getStyleName(cellFormat, value instanceof Date);
+    if (styleName != null) {
+      xml.writeAttribute("table", OdsXml.TABLE_NS, "style-name", styleName);
+    }
+    final String text;
+    if (value instanceof String) {
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "value-type", "string");
+      text = (String) value;
+    } else if (value instanceof Double) {
+      text = formatNumber((Double) value);
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "value-type", "float");
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "value", text);
+    } else if (value instanceof Date) {
+      text = formatDate((Date) value);
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "value-type", "date");
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "date-value", text);
+    } else {
+      final boolean bool = (Boolean) value;
+      text = bool ? "TRUE" : "FALSE";
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "value-type", "boolean");
+      xml.writeAttribute("office", OdsXml.OFFICE_NS, "boolean-value", String.valueOf(bool));
+    }
+    writeParagraphs(text);
+    xml.writeEndElement();
+  }
+
+  /**
+   * Writes the specified text as {@code <text:p>} elements, one for each line, preserving the
+   * consecutive spaces and the tabs that would be collapsed otherwise.
+   */
+  private void writeParagraphs(final String text) throws XMLStreamException {
+    for (final String line : text.split("\n", -1)) {
+      xml.writeStartElement("text", "p", OdsXml.TEXT_NS);
+      int start = 0;
+      int i = 0;
+      while (i < line.length()) {
+        final char ch = line.charAt(i);
+        if (ch == '\t' || (ch == ' ' && (i == 0 || line.charAt(i - 1) == ' '))) {
+          xml.writeCharacters(line.substring(start, i));
+          if (ch == '\t') {
+            xml.writeEmptyElement("text", "tab", OdsXml.TEXT_NS);
+            i++;
+          } else {
+            int spaces = 0;
+            while (i < line.length() && line.charAt(i) == ' ') {
+              spaces++;
+              i++;
+            }
+            xml.writeEmptyElement("text", "s", OdsXml.TEXT_NS);
+            if (spaces > 1) {
+              xml.writeAttribute("text", OdsXml.TEXT_NS, "c", String.valueOf(spaces));
+            }
+          }
+          start = i;
+        } else {
+          i++;
+        }
+      }
+      xml.writeCharacters(line.substring(start));
+      xml.writeEndElement();
+    }
+  }
+
+  private String formatDate(final Date date) {
+    calendar.setTime(date);
+    final boolean midnight = calendar.get(Calendar.HOUR_OF_DAY) == 0
+        && calendar.get(Calendar.MINUTE) == 0 && calendar.get(Calendar.SECOND) == 0;
+    return midnight ? dateFormat.format(date) : dateTimeFormat.format(date);
+  }
+
+  /**
+   * Formats the specified number without the trailing <tt>.0</tt> of the integral values.
+   *
+   * @param value a number
+   * @return the number as string
+   */
+  static String formatNumber(final double value) {
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      return String.valueOf((long) value);
+    }
+    return String.valueOf(value);
+  }
+
+  /**
+   * Writes the buffered row and closes the table: the sheet cannot be modified anymore.
+   */
+  void finish() {
+    if (finished) {
+      return;
+    }
+    flushRow();
+    try {
+      start();
+      if (nextRow == 0) {
+        writeEmptyRows(1);
+      }
+      xml.close();
+      rowsOut.close();
+      writer.writeTable(this);
+    } catch (final XMLStreamException | IOException ex) {
+      throw new IllegalStateException("Error while completing sheet " + name, ex);
+    } finally {
+      discard();
+    }
+  }
+
+  /**
+   * Deletes the temporary file of the rows: the sheet cannot be modified anymore.
+   */
+  void discard() {
+    finished = true;
+    if (xml != null) {
+      XmlStreams.closeQuietly(xml);
+      try {
+        rowsOut.close();
+        Files.deleteIfExists(rowsFile);
+      } catch (final IOException ex) {
+        // the temporary file is left on disk
+      }
+    }
+  }
+}
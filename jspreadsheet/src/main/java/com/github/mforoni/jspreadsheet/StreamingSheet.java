@@ -0,0 +1,384 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Date;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Base class of the read-only sheets backed by a streaming reader. The cell data is never
+ * materialized: only the current row is kept in memory and the rows are decoded in ascending order,
+ * so the heap usage does not depend on the number of rows of the sheet.
+ * <p>
+ * Reading a row placed before the current one restarts the underlying stream from the top of the
+ * sheet: random access is supported but only forward scans are cheap, unless the sheet is
+ * {@linkplain #isSeekable() seekable}. The rows missing between the previous physical row and the
+ * current one are known to be empty, so that the ascending scans of sparse sheets never restart
+ * the stream.
+ *
+ * @author Foroni Marco
+ * @see Sheet
+ */
+abstract class StreamingSheet extends AbstractSheet {
+  static final String READ_ONLY_MESSAGE =
+      "Write operation not allowed on file opened in read-only mode.";
+  /**
+   * The minimum distance, in rows, of a forward jump reopening a {@linkplain #isSeekable()
+   * seekable} reader: the shorter jumps are cheaper to decode than to seek.
+   */
+  static final int SEEK_DISTANCE = 64;
+  private final String name;
+  private final RowBuffer current = new RowBuffer();
+  private RowReader reader;
+  private int position = -1;
+  /**
+   * The index of the first row following the physical row read before the current one: the rows
+   * from this index up to {@link #position} excluded are not physically present.
+   */
+  private int gapStart;
+  private boolean exhausted;
+  private SheetDimension dimension;
+
+  /**
+   * A forward-only reader delivering the physical rows of a sheet in ascending order.
+   */
+  interface RowReader extends Closeable {
+    /**
+     * Decodes the next physical row into the specified buffer.
+     *
+     * @param buffer the buffer to fill
+     * @return <tt>false</tt> if there are no more rows
+     * @throws IOException
+     */
+    boolean next(RowBuffer buffer) throws IOException;
+  }
+
+  StreamingSheet(final String name) {
+    this.name = name;
+  }
+
+  /**
+   * Opens a new {@link RowReader} positioned before the first row of the sheet.
+   *
+   * @return a new {@link RowReader}
+   * @throws IOException
+   */
+  abstract RowReader openRowReader() throws IOException;
+
+  /**
+   * Opens a new {@link RowReader} positioned before the row having the specified index or before
+   * an earlier row. The default implementation returns {@link #openRowReader()}.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   * @return a new {@link RowReader}
+   * @throws IOException
+   * @see #isSeekable()
+   */
+  RowReader openRowReader(final int rowIndex) throws IOException {
+    return openRowReader();
+  }
+
+  /**
+   * Returns <tt>true</tt> if {@link #openRowReader(int)} positions the reader right before the
+   * requested row without decoding the previous ones: in that case the random access methods
+   * reopen the reader also to skip forward.
+   */
+  boolean isSeekable() {
+    return false;
+  }
+
+  /**
+   * Returns the string content of the cell at the specified column of the given row buffer.
+   *
+   * @param row the current row
+   * @param columnIndex the index of the column
+   * @return the string content of the cell
+   */
+  @Nonnull
+  abstract String formatRawValue(RowBuffer row, int columnIndex);
+
+  /**
+   * Returns the format of the cell at the specified column of the given row buffer, as far as it
+   * can be expressed by a {@link SSCellFormat}. The default implementation returns <tt>null</tt>,
+   * i.e. the default format.
+   *
+   * @param row the current row
+   * @param columnIndex the index of the column
+   * @return the format of the cell or <tt>null</tt> for the default format
+   */
+  @Nullable
+  SSCellFormat getCellFormat(final RowBuffer row, final int columnIndex) {
+    return null;
+  }
+
+  /**
+   * Computes the dimension of the sheet. The default implementation scans the whole sheet with a
+   * dedicated {@link RowReader}.
+   *
+   * @return the dimension of the sheet
+   * @throws IOException
+   */
+  SheetDimension readDimension() throws IOException {
+    final RowBuffer buffer = new RowBuffer();
+    int lastRowIndex = 0;
+    int columns = 0;
+    int lastRow = 0;
+    try (final RowReader scanner = openRowReader()) {
+      while (scanner.next(buffer)) {
+        lastRowIndex = buffer.getRowIndex();
+        if (buffer.size() > 0) {
+          lastRow = lastRowIndex + 1;
+          columns = Math.max(columns, buffer.size());
+        }
+      }
+    }
+    return new SheetDimension(lastRowIndex + 1, columns, lastRow);
+  }
+
+  private SheetDimension getDimension() {
+    if (dimension == null) {
+      try {
+        dimension = readDimension();
+      } catch (final IOException ex) {
+        throw new IllegalStateException("Error while reading the dimension of sheet " + name, ex);
+      }
+    }
+    return dimension;
+  }
+
+  /**
+   * Moves the cursor on the row having the specified index.
+   *
+   * @param rowIndex index of the row (starting from 0)
+   * @return the buffer holding the row or <tt>null</tt> if the row is not physically present
+   */
+  @Nullable
+  final RowBuffer moveTo(final int rowIndex) {
+    if (rowIndex < 0) {
+      throw new IndexOutOfBoundsException("Row index " + rowIndex + " must be non negative");
+    }
+    try {
+      if (reader == null || rowIndex < gapStart
+          || (!exhausted && rowIndex > position + SEEK_DISTANCE && isSeekable())) {
+        restart(rowIndex);
+      }
+      while (!exhausted && position < rowIndex) {
+        final int previous = position;
+        if (reader.next(current)) {
+          position = current.getRowIndex();
+        } else {
+          exhausted = true;
+          current.reset(-1);
+        }
+        gapStart = previous + 1;
+      }
+    } catch (final IOException ex) {
+      throw new IllegalStateException(
+          String.format("Error while reading row %d of sheet %s", rowIndex, name), ex);
+    }
+    return !exhausted && position == rowIndex ? current : null;
+  }
+
+  private void restart(final int rowIndex) throws IOException {
+    closeReader();
+    reader = openRowReader(rowIndex);
+    // the rows before the requested one may have been skipped: none of them is known to be empty
+    position = rowIndex - 1;
+    gapStart = rowIndex;
+    exhausted = false;
+    current.reset(-1);
+  }
+
+  /**
+   * Releases the stream currently opened by the cursor, if any.
+   */
+  final void closeReader() throws IOException {
+    if (reader != null) {
+      try {
+        reader.close();
+      } finally {
+        reader = null;
+      }
+    }
+  }
+
+  @Nullable
+  private Object getValue(final int rowIndex, final int columnIndex) {
+    final RowBuffer row = moveTo(rowIndex);
+    return row != null ? row.getValue(columnIndex) : null;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Fills the specified column moving the cursor forward, without computing the dimension of the
+   * sheet: the rows past the end of the sheet are left blank.
+   */
+  @Override
+  void readColumn(final NumericColumn column) {
+    for (int r = column.fromRow; r < column.toRow; r++) {
+      final RowBuffer row = moveTo(r);
+      if (row != null) {
+        column.putObject(r, row.getValue(column.columnIndex));
+      } else if (exhausted) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Returns a cursor on a new {@link RowReader}, independent from the one used by the random access
+   * methods: the cursor must be closed to release the underlying stream.
+   */
+  @Override
+  public RowCursor rowCursor() {
+    try {
+      return rowCursor(openRowReader());
+    } catch (final IOException ex) {
+      throw new IllegalStateException("Error while reading sheet " + name, ex);
+    }
+  }
+
+  /**
+   * Returns a cursor on the specified {@link RowReader}, which is closed by the cursor.
+   */
+  final RowCursor rowCursor(final RowReader rowReader) {
+    return new AbstractRowCursor() {
+      private final RowBuffer buffer = new RowBuffer();
+
+      @Override
+      public boolean next() {
+        try {
+          while (rowReader.next(buffer)) {
+            startRow(buffer.getRowIndex());
+            for (int c = 0; c < buffer.size(); c++) {
+              set(c, buffer.getValue(c));
+            }
+            if (getLastColumn() > 0) {
+              return true;
+            }
+          }
+          return false;
+        } catch (final IOException ex) {
+          throw new IllegalStateException("Error while reading sheet " + name, ex);
+        }
+      }
+
+      @Override
+      public void close() {
+        try {
+          rowReader.close();
+        } catch (final IOException ex) {
+          throw new IllegalStateException("Error while closing sheet " + name, ex);
+        }
+      }
+    };
+  }
+
+  @Override
+  public int getRows() {
+    return getDimension().getRows();
+  }
+
+  @Override
+  public int getColumns() {
+    return getDimension().getColumns();
+  }
+
+  @Override
+  public int getLastRow() {
+    return getDimension().getLastRow();
+  }
+
+  @Override
+  public int getLastColumn(final int rowIndex) {
+    final RowBuffer row = moveTo(rowIndex);
+    return row != null ? row.size() : 0;
+  }
+
+  @Override
+  public String getRawValue(final int rowIndex, final int columnIndex) {
+    final RowBuffer row = moveTo(rowIndex);
+    return row != null && columnIndex < row.size() ? formatRawValue(row, columnIndex) : "";
+  }
+
+  @Override
+  public Object getObject(final int rowIndex, final int columnIndex) {
+    return getValue(rowIndex, columnIndex);
+  }
+
+  @Override
+  public String getString(final int rowIndex, final int columnIndex) {
+    final Object value = getValue(rowIndex, columnIndex);
+    if (value == null || value instanceof String) {
+      return (String) value;
+    }
+    throw typeMismatch("string", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Double getDouble(final int rowIndex, final int columnIndex) {
+    final Object value = getValue(rowIndex, columnIndex);
+    if (value == null || value instanceof Double) {
+      return (Double) value;
+    }
+    throw typeMismatch("double", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Date getDate(final int rowIndex, final int columnIndex) {
+    final Object value = getValue(rowIndex, columnIndex);
+    if (value == null || value instanceof Date) {
+      return (Date) value;
+    }
+    throw typeMismatch("date", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public Boolean getBoolean(final int rowIndex, final int columnIndex) {
+    final Object value = getValue(rowIndex, columnIndex);
+    if (value == null || value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    throw typeMismatch("boolean", rowIndex, columnIndex, value);
+  }
+
+  @Override
+  public void setAutoSize(final int fromColumn, final int toColumn) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setString(final int rowIndex, final int columnIndex, @Nullable final String value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDouble(final int rowIndex, final int columnIndex, @Nullable final Double value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setDate(final int rowIndex, final int columnIndex, @Nullable final Date value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setBoolean(final int rowIndex, final int columnIndex, @Nullable final Boolean value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void setObject(final int rowIndex, final int columnIndex, @Nullable final Object value,
+      @Nullable final SSCellFormat cellFormat) {
+    throw new IllegalStateException(READ_ONLY_MESSAGE);
+  }
+}
@@ -0,0 +1,315 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.DimensionsRecord;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.MulBlankRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactoryInputStream;
+import org.apache.poi.hssf.record.SharedFormulaRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+
+/**
+ * Read-only sheet pulling the BIFF8 records of a sheet substream of an <i>xls</i> file.
+ * <p>
+ * The values returned by {@link #getObject(int, int)} have the same types returned by
+ * {@link PoiSheet}, except for formula cells that return the value cached in the file instead of
+ * being evaluated. Formulas are rendered as text only when {@link #getRawValue(int, int)} is
+ * invoked.
+ *
+ * @author Foroni Marco
+ * @see StreamingXlsSpreadsheet
+ * @see StreamingSheet
+ */
+final class StreamingXlsSheet extends StreamingSheet {
+  private final NPOIFSFileSystem fileSystem;
+  private final String workbookEntry;
+  private final int bofPosition;
+  private final StreamingXlsSpreadsheet.Globals globals;
+  private final DataFormatter dataFormatter = new DataFormatter();
+
+  StreamingXlsSheet(final String name, final NPOIFSFileSystem fileSystem,
+      final String workbookEntry, final int bofPosition,
+      final StreamingXlsSpreadsheet.Globals globals) {
+    super(name);
+    this.fileSystem = fileSystem;
+    this.workbookEntry = workbookEntry;
+    this.bofPosition = bofPosition;
+    this.globals = globals;
+  }
+
+  @Override
+  RowReader openRowReader() throws IOException {
+    return new XlsRowReader();
+  }
+
+  /**
+   * Uses the used range stored in the {@link DimensionsRecord} at the top of the sheet substream,
+   * when available, to avoid a full scan of the sheet.
+   */
+  @Override
+  SheetDimension readDimension() throws IOException {
+    try (final XlsRowReader scanner = new XlsRowReader()) {
+      Record record;
+      while ((record = scanner.nextRecord()) != null) {
+        if (record instanceof DimensionsRecord) {
+          final DimensionsRecord dimensions = (DimensionsRecord) record;
+          if (dimensions.getLastRow() > 0) {
+            return new SheetDimension(dimensions.getLastRow(), dimensions.getLastCol(),
+                dimensions.getLastRow());
+          }
+          break;
+        } else if (record instanceof CellValueRecordInterface) {
+          break;
+        }
+      }
+    }
+    return super.readDimension();
+  }
+
+  @Override
+  String formatRawValue(final RowBuffer row, final int columnIndex) {
+    final Object formula = row.getFormula(columnIndex);
+    if (formula != null) {
+      final Ptg[] tokens = formula instanceof SharedFormula
+          ? ((SharedFormula) formula).getFormulaTokens()
+          : ((FormulaRecord) formula).getParsedExpression();
+      return HSSFFormulaParser.toFormulaString(globals.getStubWorkbook(), tokens);
+    }
+    final Object value = row.getValue(columnIndex);
+    if (value == null) {
+      return "";
+    } else if (value instanceof String) {
+      return (String) value;
+    } else if (value instanceof Byte) {
+      return FormulaError.forInt((Byte) value).getString();
+    } else if (value instanceof Boolean) {
+      return value.toString();
+    } else {
+      final int formatIndex = globals.getFormatIndex(row.getFormat(columnIndex));
+      return dataFormatter.formatRawCellContents(row.getNumber(columnIndex), formatIndex,
+          getFormatString(formatIndex), globals.isDate1904());
+    }
+  }
+
+  @Override
+  SSCellFormat getCellFormat(final RowBuffer row, final int columnIndex) {
+    return globals.getCellFormat(row.getFormat(columnIndex));
+  }
+
+  private String getFormatString(final int formatIndex) {
+    final String format = globals.getFormats().getFormatString(formatIndex);
+    return format != null ? format : "General";
+  }
+
+  /**
+   * A formula cell whose tokens are held by a {@link SharedFormulaRecord}, which follows the first
+   * cell of its range: the tokens are resolved through the shared formulas read by the
+   * {@link XlsRowReader} that produced the row, since each reader reads its own records.
+   */
+  private static final class SharedFormula {
+    private final FormulaRecord formula;
+    private final List<SharedFormulaRecord> sharedFormulas;
+
+    SharedFormula(final FormulaRecord formula, final List<SharedFormulaRecord> sharedFormulas) {
+      this.formula = formula;
+      this.sharedFormulas = sharedFormulas;
+    }
+
+    Ptg[] getFormulaTokens() {
+      for (final SharedFormulaRecord shared : sharedFormulas) {
+        if (shared.isInRange(formula.getRow(), formula.getColumn())) {
+          return shared.getFormulaTokens(formula);
+        }
+      }
+      return formula.getParsedExpression();
+    }
+  }
+
+  /**
+   * Groups the cell records of the sheet substream by row. The first cell record of the next row is
+   * kept aside until the following call of {@link #next(RowBuffer)}.
+   */
+  private final class XlsRowReader implements RowReader {
+    private final InputStream in;
+    private final RecordFactoryInputStream records;
+    private final List<SharedFormulaRecord> sharedFormulas = new ArrayList<>();
+    private int depth;
+    @Nullable
+    private Record pending;
+    private int stringColumn = -1;
+
+    XlsRowReader() throws IOException {
+      in = fileSystem.createDocumentInputStream(workbookEntry);
+      try {
+        long toSkip = bofPosition;
+        while (toSkip > 0) {
+          final long skipped = in.skip(toSkip);
+          if (skipped <= 0) {
+            throw new IOException("Cannot find the BOF record of sheet " + getName());
+          }
+          toSkip -= skipped;
+        }
+        records = new RecordFactoryInputStream(in, false);
+      } catch (final IOException | RuntimeException ex) {
+        in.close();
+        throw ex;
+      }
+    }
+
+    /**
+     * Returns the next record of the sheet substream, skipping the embedded substreams (e.g.
+     * charts).
+     *
+     * @return the next record or <tt>null</tt> at the end of the sheet
+     */
+    @Nullable
+    Record nextRecord() {
+      while (depth >= 0) {
+        final Record record = records.nextRecord();
+        if (record == null) {
+          depth = -1;
+        } else if (record instanceof BOFRecord) {
+          depth++;
+        } else if (record instanceof EOFRecord) {
+          depth--;
+          if (depth == 0) {
+            depth = -1;
+            return null;
+          }
+        } else if (depth > 1) {
+          continue;
+        }
+        return record;
+      }
+      return null;
+    }
+
+    @Override
+    public boolean next(final RowBuffer buffer) throws IOException {
+      boolean started = false;
+      if (pending != null) {
+        buffer.reset(getRow(pending));
+        decode(pending, buffer);
+        pending = null;
+        started = true;
+      }
+      Record record;
+      while ((record = nextRecord()) != null) {
+        final int rowIndex = getRow(record);
+        if (rowIndex >= 0) {
+          if (!started) {
+            buffer.reset(rowIndex);
+            started = true;
+          } else if (rowIndex != buffer.getRowIndex()) {
+            pending = record;
+            return true;
+          }
+          decode(record, buffer);
+        } else if (record instanceof StringRecord) {
+          if (stringColumn >= 0) {
+            buffer.set(stringColumn, ((StringRecord) record).getString(),
+                buffer.getFormula(stringColumn), 0, buffer.getFormat(stringColumn));
+            stringColumn = -1;
+          }
+        } else if (record instanceof SharedFormulaRecord) {
+          sharedFormulas.add((SharedFormulaRecord) record);
+        }
+      }
+      return started;
+    }
+
+    private int getRow(final Record record) {
+      if (record instanceof CellValueRecordInterface) {
+        return ((CellValueRecordInterface) record).getRow();
+      } else if (record instanceof MulBlankRecord) {
+        return ((MulBlankRecord) record).getRow();
+      }
+      return -1;
+    }
+
+    private void decode(final Record record, final RowBuffer buffer) {
+      stringColumn = -1;
+      if (record instanceof MulBlankRecord) {
+        final MulBlankRecord blanks = (MulBlankRecord) record;
+        for (int c = blanks.getFirstColumn(); c <= blanks.getLastColumn(); c++) {
+          buffer.set(c, null, null, 0, blanks.getXFAt(c - blanks.getFirstColumn()));
+        }
+        return;
+      }
+      final CellValueRecordInterface cell = (CellValueRecordInterface) record;
+      final int columnIndex = cell.getColumn();
+      final short xfIndex = cell.getXFIndex();
+      if (record instanceof NumberRecord) {
+        setNumber(buffer, cell, ((NumberRecord) record).getValue(), null);
+      } else if (record instanceof LabelSSTRecord) {
+        buffer.set(columnIndex, globals.getString(((LabelSSTRecord) record).getSSTIndex()), null, 0,
+            xfIndex);
+      } else if (record instanceof LabelRecord) {
+        buffer.set(columnIndex, ((LabelRecord) record).getValue(), null, 0, xfIndex);
+      } else if (record instanceof BoolErrRecord) {
+        final BoolErrRecord boolErr = (BoolErrRecord) record;
+        final Object value =
+            boolErr.isBoolean() ? boolErr.getBooleanValue() : (Object) boolErr.getErrorValue();
+        buffer.set(columnIndex, value, null, 0, xfIndex);
+      } else if (record instanceof FormulaRecord) {
+        final FormulaRecord formula = (FormulaRecord) record;
+        final Object cellFormula =
+            formula.isSharedFormula() ? new SharedFormula(formula, sharedFormulas) : formula;
+        switch (formula.getCachedResultType()) {
+          case Cell.CELL_TYPE_STRING:
+            buffer.set(columnIndex, "", cellFormula, 0, xfIndex);
+            if (formula.hasCachedResultString()) {
+              stringColumn = columnIndex;
+            }
+            break;
+          case Cell.CELL_TYPE_BOOLEAN:
+            buffer.set(columnIndex, formula.getCachedBooleanValue(), cellFormula, 0, xfIndex);
+            break;
+          case Cell.CELL_TYPE_ERROR:
+            buffer.set(columnIndex, (byte) formula.getCachedErrorValue(), cellFormula, 0, xfIndex);
+            break;
+          default:
+            setNumber(buffer, cell, formula.getValue(), cellFormula);
+        }
+      } else if (record instanceof BlankRecord) {
+        buffer.set(columnIndex, null, null, 0, xfIndex);
+      }
+    }
+
+    private void setNumber(final RowBuffer buffer, final CellValueRecordInterface cell,
+        final double number, @Nullable final Object formula) {
+      final int formatIndex = globals.getFormatIndex(cell.getXFIndex());
+      final Object value =
+          DateUtil.isADateFormat(formatIndex, getFormatString(formatIndex))
+              && DateUtil.isValidExcelDate(number)
+                  ? DateUtil.getJavaDate(number, globals.isDate1904())
+                  : Double.valueOf(number);
+      buffer.set(cell.getColumn(), value, formula, number, cell.getXFIndex());
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
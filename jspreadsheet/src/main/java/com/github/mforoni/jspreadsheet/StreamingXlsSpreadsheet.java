@@ -0,0 +1,298 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.ContinueRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.ExtendedFormatRecord;
+import org.apache.poi.hssf.record.FilePassRecord;
+import org.apache.poi.hssf.record.FontRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.RecordFactory;
+import org.apache.poi.hssf.record.RecordInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+
+/**
+ * Read-only <i>xls</i> spreadsheet built on the APACHE POI HSSF event model: only the workbook
+ * globals (formats and sheet positions) are decoded when the file is opened, the records of each
+ * sheet are pulled from the BIFF8 stream when its rows are requested. The shared strings are kept
+ * in their raw form by {@link XlsSharedStrings} and decoded on demand. To instantiate
+ * this class use the methods provided in the {@link Spreadsheets} class with
+ * {@link Spreadsheets.API#STREAMING_XLS}.
+ * <p>
+ * <b>Note</b>: the sheets returned by this class are forward-only cursors, see
+ * {@link StreamingSheet}.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets
+ * @see StreamingXlsSheet
+ * @see HSSFListener
+ */
+final class StreamingXlsSpreadsheet implements Spreadsheet {
+  private final File file;
+  private final NPOIFSFileSystem fileSystem;
+  private final String workbookEntry;
+  private final Globals globals;
+  private final List<String> sheetNames = new ArrayList<>();
+  private final List<StreamingXlsSheet> sheets = new ArrayList<>();
+  private final int[] bofPositions;
+
+  /**
+   * The records of the workbook globals substream shared by all the sheets.
+   */
+  static final class Globals implements HSSFListener {
+    private final SheetRecordCollectingListener collector = new SheetRecordCollectingListener(this);
+    private final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(collector);
+    private final List<ExtendedFormatRecord> extendedFormats = new ArrayList<>();
+    private final List<FontRecord> fonts = new ArrayList<>();
+    private final Map<Integer, SSCellFormat> cellFormats = new HashMap<>();
+    private XlsSharedStrings sst;
+    private boolean date1904;
+    private boolean encrypted;
+    private HSSFWorkbook stubWorkbook;
+
+    @Override
+    public void processRecord(final Record record) {
+      if (record instanceof DateWindow1904Record) {
+        date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+      } else if (record instanceof FilePassRecord) {
+        encrypted = true;
+      } else if (record instanceof ExtendedFormatRecord) {
+        extendedFormats.add((ExtendedFormatRecord) record);
+      } else if (record instanceof FontRecord) {
+        fonts.add((FontRecord) record);
+      }
+    }
+
+    FormatTrackingHSSFListener getFormats() {
+      return formats;
+    }
+
+    /**
+     * Returns the index of the number format referenced by the specified extended format.
+     *
+     * @param xfIndex the index of the extended format of a cell
+     * @return the index of the number format
+     */
+    int getFormatIndex(final int xfIndex) {
+      return xfIndex < extendedFormats.size() ? extendedFormats.get(xfIndex).getFormatIndex() : 0;
+    }
+
+    /**
+     * Converts the font and the solid fill of the specified extended format: the cells having the
+     * default font and no fill return <tt>null</tt>.
+     *
+     * @param xfIndex the index of the extended format of a cell
+     * @return the format of the cell or <tt>null</tt> for the default format
+     */
+    synchronized SSCellFormat getCellFormat(final int xfIndex) {
+      if (xfIndex >= extendedFormats.size()) {
+        return null;
+      }
+      if (!cellFormats.containsKey(xfIndex)) {
+        final ExtendedFormatRecord xf = extendedFormats.get(xfIndex);
+        final SSColor background = xf.getAdtlFillPattern() == CellStyle.SOLID_FOREGROUND
+            ? SSColor.fromPoiIndex(xf.getFillForeground()) : null;
+        // the font index 4 is not used by the file format
+        final int fontIndex = xf.getFontIndex() < 4 ? xf.getFontIndex() : xf.getFontIndex() - 1;
+        SSCellFormat cellFormat = null;
+        if ((fontIndex != 0 || background != null) && fontIndex < fonts.size()) {
+          final FontRecord font = fonts.get(fontIndex);
+          final SSFont.Builder builder =
+              new SSFont.Builder(font.getFontName(), font.getFontHeight() / 20.0);
+          if (font.getBoldWeight() >= Font.BOLDWEIGHT_BOLD) {
+            builder.bold();
+          }
+          cellFormat = new SSCellFormat(builder.build(), background);
+        }
+        cellFormats.put(xfIndex, cellFormat);
+      }
+      return cellFormats.get(xfIndex);
+    }
+
+    String getString(final int index) {
+      return sst.getString(index);
+    }
+
+    boolean isDate1904() {
+      return date1904;
+    }
+
+    /**
+     * Returns the stub {@link HSSFWorkbook} used to render the formulas, created on first use.
+     *
+     * @return the stub workbook
+     */
+    HSSFWorkbook getStubWorkbook() {
+      if (stubWorkbook == null) {
+        stubWorkbook = collector.getStubHSSFWorkbook();
+      }
+      return stubWorkbook;
+    }
+  }
+
+  private StreamingXlsSpreadsheet(final File file) throws IOException {
+    this.file = file;
+    this.fileSystem = new NPOIFSFileSystem(file, true);
+    try {
+      workbookEntry = HSSFWorkbook.getWorkbookDirEntryName(fileSystem.getRoot());
+      globals = new Globals();
+      try (final InputStream in = fileSystem.createDocumentInputStream(workbookEntry)) {
+        readGlobals(new RecordInputStream(in));
+      }
+      if (globals.encrypted) {
+        throw new IOException("Encrypted xls files are not supported by API STREAMING_XLS");
+      }
+      final BoundSheetRecord[] boundSheets = globals.collector.getBoundSheetRecords();
+      bofPositions = new int[boundSheets.length];
+      for (int i = 0; i < boundSheets.length; i++) {
+        sheetNames.add(boundSheets[i].getSheetname());
+        bofPositions[i] = boundSheets[i].getPositionOfBof();
+        sheets.add(null);
+      }
+    } catch (final IOException | RuntimeException ex) {
+      fileSystem.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads the records of the workbook globals substream up to its {@link EOFRecord}. The
+   * {@link SSTRecord} is not decoded: its raw payload is kept by {@link XlsSharedStrings}, so the
+   * shared strings are decoded only when the cells referencing them are read.
+   */
+  private void readGlobals(final RecordInputStream records) {
+    while (records.hasNextRecord()) {
+      records.nextRecord();
+      if (records.getSid() == SSTRecord.sid) {
+        globals.sst = XlsSharedStrings.read(records);
+        continue;
+      }
+      for (final Record record : RecordFactory.createRecord(records)) {
+        if (!(record instanceof ContinueRecord)) {
+          globals.getFormats().processRecord(record);
+        }
+        if (record instanceof EOFRecord || globals.encrypted) {
+          // the records following a FilePassRecord are encrypted
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Opens the specified <i>xls</i> {@code file} in read-only mode.
+   *
+   * @param file
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static StreamingXlsSpreadsheet open(final File file) throws IOException {
+    return new StreamingXlsSpreadsheet(file);
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return Collections.unmodifiableList(sheetNames);
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    final List<Sheet> result = new ArrayList<>();
+    for (int i = 0; i < sheetNames.size(); i++) {
+      result.add(getSheet(i));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    final int index = sheetNames.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return getSheet(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheetNames.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheetNames.size() - 1));
+    }
+    StreamingXlsSheet sheet = sheets.get(index);
+    if (sheet == null) {
+      sheet = new StreamingXlsSheet(sheetNames.get(index), fileSystem, workbookEntry,
+          bofPositions[index], globals);
+      sheets.set(index, sheet);
+    }
+    return sheet;
+  }
+
+  @Override
+  public Sheet addSheet(final String name) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write() throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      for (final StreamingXlsSheet sheet : sheets) {
+        if (sheet != null) {
+          sheet.closeReader();
+        }
+      }
+    } finally {
+      fileSystem.close();
+    }
+  }
+}
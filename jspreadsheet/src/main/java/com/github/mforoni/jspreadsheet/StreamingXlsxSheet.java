@@ -0,0 +1,322 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFFont;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTXf;
+
+/**
+ * Read-only sheet parsing the worksheet XML part of an <i>xlsx</i> file as a stream.
+ * <p>
+ * The values returned by {@link #getObject(int, int)} have the same types returned by
+ * {@link PoiSheet}, except for formula cells that return the value cached in the file instead of
+ * being evaluated.
+ *
+ * @author Foroni Marco
+ * @see StreamingXlsxSpreadsheet
+ * @see StreamingSheet
+ */
+final class StreamingXlsxSheet extends StreamingSheet {
+  private final PackagePart part;
+  private final ReadOnlySharedStringsTable sharedStrings;
+  @Nullable
+  private final StylesTable styles;
+  private final boolean date1904;
+  private final DataFormatter dataFormatter = new DataFormatter();
+  private final Map<Integer, NumberFormat> numberFormats = new HashMap<>();
+  private final Map<Integer, SSCellFormat> cellFormats = new HashMap<>();
+
+  /**
+   * The number format referenced by a cell style.
+   */
+  private static final class NumberFormat {
+    private final int index;
+    private final String format;
+    private final boolean date;
+
+    NumberFormat(final int index, final String format) {
+      this.index = index;
+      this.format = format;
+      this.date = DateUtil.isADateFormat(index, format);
+    }
+  }
+
+  StreamingXlsxSheet(final String name, final PackagePart part,
+      final ReadOnlySharedStringsTable sharedStrings, @Nullable final StylesTable styles,
+      final boolean date1904) {
+    super(name);
+    this.part = part;
+    this.sharedStrings = sharedStrings;
+    this.styles = styles;
+    this.date1904 = date1904;
+  }
+
+  private NumberFormat getNumberFormat(final int styleIndex) {
+    NumberFormat numberFormat = numberFormats.get(styleIndex);
+    if (numberFormat == null) {
+      int index = 0;
+      String format = null;
+      if (styles != null && styleIndex < styles.getNumCellStyles()) {
+        final CTXf xf = styles.getCellXfAt(styleIndex);
+        index = (int) xf.getNumFmtId();
+        format = styles.getNumberFormatAt((short) index);
+      }
+      if (format == null) {
+        format = BuiltinFormats.getBuiltinFormat(index);
+      }
+      numberFormat = new NumberFormat(index, format != null ? format : "General");
+      numberFormats.put(styleIndex, numberFormat);
+    }
+    return numberFormat;
+  }
+
+  /**
+   * Converts the font and the solid fill of the cell style: the cells having the default font and
+   * no fill return <tt>null</tt>.
+   */
+  @Override
+  SSCellFormat getCellFormat(final RowBuffer row, final int columnIndex) {
+    final int styleIndex = row.getFormat(columnIndex);
+    if (styles == null || styleIndex <= 0 || styleIndex >= styles.getNumCellStyles()) {
+      return null;
+    }
+    if (!cellFormats.containsKey(styleIndex)) {
+      final XSSFCellStyle style = styles.getStyleAt(styleIndex);
+      final SSColor background = style.getFillPattern() == CellStyle.SOLID_FOREGROUND
+          ? SSColor.fromPoiIndex(style.getFillForegroundColor()) : null;
+      SSCellFormat cellFormat = null;
+      if (style.getFontIndex() != 0 || background != null) {
+        final XSSFFont font = style.getFont();
+        final SSFont.Builder builder =
+            new SSFont.Builder(font.getFontName(), font.getFontHeightInPoints());
+        if (font.getBold()) {
+          builder.bold();
+        }
+        cellFormat = new SSCellFormat(builder.build(), background);
+      }
+      cellFormats.put(styleIndex, cellFormat);
+    }
+    return cellFormats.get(styleIndex);
+  }
+
+  @Override
+  RowReader openRowReader() throws IOException {
+    return new XlsxRowReader(part.getInputStream());
+  }
+
+  /**
+   * Uses the used range stored in the {@code <dimension>} element of the worksheet, when available,
+   * to avoid a full scan of the sheet.
+   */
+  @Override
+  SheetDimension readDimension() throws IOException {
+    final String ref = readDimensionRef();
+    if (ref != null && ref.indexOf(':') > 0) {
+      final String last = ref.substring(ref.indexOf(':') + 1);
+      final int rows = parseRowIndex(last) + 1;
+      return new SheetDimension(rows, parseColumnIndex(last) + 1, rows);
+    }
+    return super.readDimension();
+  }
+
+  @Nullable
+  private String readDimensionRef() throws IOException {
+    XMLStreamReader reader = null;
+    try (final InputStream in = part.getInputStream()) {
+      reader = XmlStreams.newReader(in);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          final String localName = reader.getLocalName();
+          if ("dimension".equals(localName)) {
+            return XmlStreams.getAttribute(reader, "ref");
+          } else if ("sheetData".equals(localName)) {
+            return null;
+          }
+        }
+      }
+      return null;
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(reader);
+    }
+  }
+
+  @Override
+  String formatRawValue(final RowBuffer row, final int columnIndex) {
+    final String formula = (String) row.getFormula(columnIndex);
+    if (formula != null && !formula.isEmpty()) {
+      return formula;
+    }
+    final Object value = row.getValue(columnIndex);
+    if (value == null) {
+      return "";
+    } else if (value instanceof String) {
+      return (String) value;
+    } else if (value instanceof Byte) {
+      return FormulaError.forInt((Byte) value).getString();
+    } else if (value instanceof Boolean) {
+      return value.toString();
+    } else {
+      final NumberFormat numberFormat = getNumberFormat(row.getFormat(columnIndex));
+      return dataFormatter.formatRawCellContents(row.getNumber(columnIndex), numberFormat.index,
+          numberFormat.format, date1904);
+    }
+  }
+
+  /**
+   * Parses the column of a cell reference like <tt>AB12</tt>.
+   *
+   * @param ref the cell reference
+   * @return the index of the column (starting from 0)
+   */
+  static int parseColumnIndex(final String ref) {
+    int column = 0;
+    for (int i = 0; i < ref.length(); i++) {
+      final char ch = ref.charAt(i);
+      if (ch >= 'A' && ch <= 'Z') {
+        column = column * 26 + (ch - 'A' + 1);
+      } else if (ch != '$') {
+        break;
+      }
+    }
+    return column - 1;
+  }
+
+  static int parseRowIndex(final String ref) {
+    int row = 0;
+    for (int i = 0; i < ref.length(); i++) {
+      final char ch = ref.charAt(i);
+      if (ch >= '0' && ch <= '9') {
+        row = row * 10 + (ch - '0');
+      }
+    }
+    return row - 1;
+  }
+
+  /**
+   * Pulls the {@code <row>} elements of the {@code <sheetData>} section.
+   */
+  private final class XlsxRowReader implements RowReader {
+    private final InputStream in;
+    private final XMLStreamReader reader;
+    private final StringBuilder text = new StringBuilder();
+    private int lastRowIndex = -1;
+
+    XlsxRowReader(final InputStream in) throws IOException {
+      this.in = in;
+      try {
+        this.reader = XmlStreams.newReader(in);
+      } catch (final XMLStreamException ex) {
+        in.close();
+        throw new IOException(ex);
+      }
+    }
+
+    @Override
+    public boolean next(final RowBuffer buffer) throws IOException {
+      try {
+        while (reader.hasNext()) {
+          final int event = reader.next();
+          if (event == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+            final String r = XmlStreams.getAttribute(reader, "r");
+            lastRowIndex = r != null ? Integer.parseInt(r) - 1 : lastRowIndex + 1;
+            buffer.reset(lastRowIndex);
+            readCells(buffer);
+            return true;
+          } else if (event == XMLStreamConstants.END_ELEMENT
+              && "sheetData".equals(reader.getLocalName())) {
+            return false;
+          }
+        }
+        return false;
+      } catch (final XMLStreamException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    private void readCells(final RowBuffer buffer) throws XMLStreamException {
+      int columnIndex = -1;
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+          final String ref = XmlStreams.getAttribute(reader, "r");
+          columnIndex = ref != null ? parseColumnIndex(ref) : columnIndex + 1;
+          readCell(buffer, columnIndex);
+        } else if (event == XMLStreamConstants.END_ELEMENT
+            && "row".equals(reader.getLocalName())) {
+          return;
+        }
+      }
+    }
+
+    private void readCell(final RowBuffer buffer, final int columnIndex)
+        throws XMLStreamException {
+      final String type = XmlStreams.getAttribute(reader, "t");
+      final String s = XmlStreams.getAttribute(reader, "s");
+      final int styleIndex = s != null ? Integer.parseInt(s) : 0;
+      String value = null;
+      String formula = null;
+      text.setLength(0);
+      while (reader.hasNext()) {
+        final int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          final String localName = reader.getLocalName();
+          if ("v".equals(localName)) {
+            value = reader.getElementText();
+          } else if ("f".equals(localName)) {
+            formula = reader.getElementText();
+          } else if ("t".equals(localName)) {
+            text.append(reader.getElementText());
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(reader.getLocalName())) {
+          break;
+        }
+      }
+      double number = 0;
+      final Object object;
+      if ("s".equals(type)) {
+        object = value != null ? sharedStrings.getEntryAt(Integer.parseInt(value.trim())) : null;
+      } else if ("inlineStr".equals(type)) {
+        object = text.toString();
+      } else if ("str".equals(type)) {
+        object = value != null ? value : "";
+      } else if ("b".equals(type)) {
+        object = value != null ? "1".equals(value) || "true".equalsIgnoreCase(value) : null;
+      } else if ("e".equals(type)) {
+        object = value != null ? FormulaError.forString(value).getCode() : null;
+      } else if (value == null || value.isEmpty()) {
+        object = null;
+      } else {
+        number = Double.parseDouble(value);
+        object = getNumberFormat(styleIndex).date ? DateUtil.getJavaDate(number, date1904)
+            : Double.valueOf(number);
+      }
+      buffer.set(columnIndex, object, formula, number, styleIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        XmlStreams.closeQuietly(reader);
+      } finally {
+        in.close();
+      }
+    }
+  }
+}
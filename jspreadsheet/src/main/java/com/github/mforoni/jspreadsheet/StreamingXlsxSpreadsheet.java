@@ -0,0 +1,201 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.xml.sax.SAXException;
+
+/**
+ * Read-only <i>xlsx</i> spreadsheet built on the APACHE POI XSSF event model: the workbook is never
+ * loaded as a DOM, each sheet XML part is parsed as a stream when its rows are requested. To
+ * instantiate this class use the methods provided in the {@link Spreadsheets} class with
+ * {@link Spreadsheets.API#STREAMING_XLSX}.
+ * <p>
+ * <b>Note</b>: the sheets returned by this class are forward-only cursors, see
+ * {@link StreamingSheet}.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets
+ * @see StreamingXlsxSheet
+ * @see XSSFReader
+ */
+final class StreamingXlsxSpreadsheet implements Spreadsheet {
+  private final File file;
+  private final OPCPackage pkg;
+  private final ReadOnlySharedStringsTable sharedStrings;
+  @Nullable
+  private final StylesTable styles;
+  private final boolean date1904;
+  private final List<String> sheetNames = new ArrayList<>();
+  private final List<PackagePart> sheetParts = new ArrayList<>();
+  private final List<StreamingXlsxSheet> sheets = new ArrayList<>();
+
+  private StreamingXlsxSpreadsheet(final File file) throws IOException {
+    this.file = file;
+    try {
+      pkg = OPCPackage.open(file, PackageAccess.READ);
+    } catch (final OpenXML4JException ex) {
+      throw new IOException(ex);
+    }
+    try {
+      final XSSFReader reader = new XSSFReader(pkg);
+      sharedStrings = new ReadOnlySharedStringsTable(pkg);
+      styles = reader.getStylesTable();
+      date1904 = isDate1904(reader);
+      final XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+      while (iterator.hasNext()) {
+        // the iterator opens the stream of each sheet, that is read later by StreamingXlsxSheet
+        final InputStream in = iterator.next();
+        try {
+          sheetNames.add(iterator.getSheetName());
+          sheetParts.add(iterator.getSheetPart());
+          sheets.add(null);
+        } finally {
+          in.close();
+        }
+      }
+    } catch (final OpenXML4JException | SAXException | IOException | RuntimeException ex) {
+      pkg.revert();
+      throw ex instanceof IOException ? (IOException) ex : new IOException(ex);
+    }
+  }
+
+  /**
+   * Opens the specified <i>xlsx</i> {@code file} in read-only mode.
+   *
+   * @param file
+   * @throws IOException
+   * @see Spreadsheet
+   */
+  static StreamingXlsxSpreadsheet open(final File file) throws IOException {
+    return new StreamingXlsxSpreadsheet(file);
+  }
+
+  private static boolean isDate1904(final XSSFReader reader)
+      throws IOException, OpenXML4JException {
+    XMLStreamReader xml = null;
+    try (final InputStream in = reader.getWorkbookData()) {
+      xml = XmlStreams.newReader(in);
+      while (xml.hasNext()) {
+        if (xml.next() == XMLStreamConstants.START_ELEMENT) {
+          final String localName = xml.getLocalName();
+          if ("workbookPr".equals(localName)) {
+            final String date1904 = XmlStreams.getAttribute(xml, "date1904");
+            return "1".equals(date1904) || "true".equalsIgnoreCase(date1904);
+          } else if ("sheets".equals(localName)) {
+            return false;
+          }
+        }
+      }
+      return false;
+    } catch (final XMLStreamException ex) {
+      throw new IOException(ex);
+    } finally {
+      XmlStreams.closeQuietly(xml);
+    }
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public List<String> getSheetNames() {
+    return Collections.unmodifiableList(sheetNames);
+  }
+
+  @Override
+  public List<Sheet> getSheets() {
+    final List<Sheet> result = new ArrayList<>();
+    for (int i = 0; i < sheetNames.size(); i++) {
+      result.add(getSheet(i));
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final String name) {
+    final int index = sheetNames.indexOf(name);
+    if (index < 0) {
+      throw new IllegalArgumentException("Cannot find sheet having name " + name);
+    }
+    return getSheet(index);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Nonnull
+  @Override
+  public Sheet getSheet(final int index) {
+    if (index < 0 || index >= sheetNames.size()) {
+      throw new IllegalArgumentException(String.format("Sheet index (%d) is out of range (0..%d)",
+          index, sheetNames.size() - 1));
+    }
+    StreamingXlsxSheet sheet = sheets.get(index);
+    if (sheet == null) {
+      sheet = new StreamingXlsxSheet(sheetNames.get(index), sheetParts.get(index), sharedStrings,
+          styles, date1904);
+      sheets.set(index, sheet);
+    }
+    return sheet;
+  }
+
+  @Override
+  public Sheet addSheet(final String name) {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write() throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final OutputStream out) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  @Override
+  public void write(final WritableByteChannel channel) throws IOException {
+    throw new IllegalStateException(StreamingSheet.READ_ONLY_MESSAGE);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      for (final StreamingXlsxSheet sheet : sheets) {
+        if (sheet != null) {
+          sheet.closeReader();
+        }
+      }
+    } finally {
+      pkg.revert();
+    }
+  }
+}
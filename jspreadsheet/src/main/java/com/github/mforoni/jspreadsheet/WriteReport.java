@@ -0,0 +1,50 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.Immutable;
+import com.google.common.annotations.Beta;
+
+/**
+ * The outcome of an asynchronous write of a spreadsheet, as returned by
+ * {@link Spreadsheets#writeAsync(Spreadsheet, java.io.OutputStream, Executor)}: the number of bytes
+ * written and the time spent serializing the spreadsheet.
+ *
+ * @author Foroni Marco
+ * @see Spreadsheets#writeAsync(Spreadsheet, Executor)
+ */
+@Beta
+@Immutable
+public final class WriteReport {
+  private final long bytesWritten;
+  private final long durationNanos;
+
+  WriteReport(final long bytesWritten, final long durationNanos) {
+    this.bytesWritten = bytesWritten;
+    this.durationNanos = durationNanos;
+  }
+
+  /**
+   * @return the number of bytes written to the target
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Returns the time spent writing the spreadsheet, from the start of the serialization on the
+   * executor to the flush of the target.
+   *
+   * @param unit the unit of the returned duration
+   * @return the duration of the write in the given unit
+   */
+  public long getDuration(final TimeUnit unit) {
+    return unit.convert(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return "WriteReport [bytesWritten=" + bytesWritten + ", durationMillis="
+        + getDuration(TimeUnit.MILLISECONDS) + "]";
+  }
+}
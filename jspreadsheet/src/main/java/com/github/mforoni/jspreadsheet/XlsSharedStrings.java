@@ -0,0 +1,159 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import org.apache.poi.hssf.record.ContinueRecord;
+import org.apache.poi.hssf.record.RecordFormatException;
+import org.apache.poi.hssf.record.RecordInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+
+/**
+ * Shared strings table of an <i>xls</i> file kept in its raw BIFF8 form: the payloads of the
+ * {@link SSTRecord} and of its continue records are stored as a single byte array together with
+ * the offset of each string, which is decoded only when requested. The heap cost is about one
+ * byte per character of the table (two for the strings not representable in ISO-8859-1) plus an
+ * <tt>int</tt> per string, instead of the objects of a decoded {@link SSTRecord}.
+ *
+ * @author Foroni Marco
+ * @see StreamingXlsSpreadsheet
+ */
+final class XlsSharedStrings {
+  private static final int HIGH_BYTE = 0x01;
+  private static final int EXT_STRING = 0x04;
+  private static final int RICH_TEXT = 0x08;
+  private final byte[] data;
+  /** The offsets of the payloads of the continue records in {@link #data}. */
+  private final int[] continues;
+  /** The offsets of the strings in {@link #data}, <tt>-1</tt> for a string missing. */
+  private final int[] offsets;
+
+  private XlsSharedStrings(final byte[] data, final int[] continues, final int uniqueStrings) {
+    this.data = data;
+    this.continues = continues;
+    this.offsets = new int[uniqueStrings];
+    int position = 0;
+    for (int i = 0; i < uniqueStrings; i++) {
+      if (position >= data.length) {
+        // the table declares more strings than it contains
+        offsets[i] = -1;
+      } else {
+        offsets[i] = position;
+        position = readString(position, null);
+      }
+    }
+  }
+
+  /**
+   * Reads the current {@link SSTRecord} of the specified stream and its continue records, leaving
+   * the stream on the last of them.
+   *
+   * @param in the stream positioned on a {@link SSTRecord}
+   * @return the shared strings table
+   */
+  static XlsSharedStrings read(final RecordInputStream in) {
+    in.readInt(); // total number of strings
+    final int uniqueStrings = in.readInt();
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(in.remaining());
+    int[] continues = new int[0];
+    copyRemaining(in, out);
+    while (in.hasNextRecord() && in.getNextSid() == ContinueRecord.sid) {
+      in.nextRecord();
+      continues = Arrays.copyOf(continues, continues.length + 1);
+      continues[continues.length - 1] = out.size();
+      copyRemaining(in, out);
+    }
+    return new XlsSharedStrings(out.toByteArray(), continues, uniqueStrings);
+  }
+
+  private static void copyRemaining(final RecordInputStream in, final ByteArrayOutputStream out) {
+    final byte[] buffer = new byte[in.remaining()];
+    in.readFully(buffer);
+    out.write(buffer, 0, buffer.length);
+  }
+
+  int size() {
+    return offsets.length;
+  }
+
+  /**
+   * Decodes the string at the specified index of the table: the formatting runs and the phonetic
+   * data of the string are ignored.
+   *
+   * @param index the index of the string in the table
+   * @return the string
+   */
+  String getString(final int index) {
+    if (offsets[index] < 0) {
+      return "";
+    }
+    final StringBuilder sb = new StringBuilder();
+    readString(offsets[index], sb);
+    return sb.toString();
+  }
+
+  /**
+   * Reads the string starting at the specified offset, appending its characters to {@code sb}
+   * when it is not <tt>null</tt>.
+   *
+   * @return the offset of the next string
+   */
+  private int readString(final int offset, final StringBuilder sb) {
+    int position = offset;
+    final int length = readUShort(position);
+    final int options = data[position + 2];
+    position += 3;
+    int runs = 0;
+    if ((options & RICH_TEXT) != 0) {
+      runs = readUShort(position);
+      position += 2;
+    }
+    int extLength = 0;
+    if ((options & EXT_STRING) != 0) {
+      extLength = readUShort(position) | readUShort(position + 2) << 16;
+      position += 4;
+    }
+    position = readChars(position, length, (options & HIGH_BYTE) != 0, sb);
+    return position + 4 * runs + extLength;
+  }
+
+  /**
+   * Reads the characters of a string: when the characters span a continue record, its payload
+   * starts with an option byte telling the encoding of the remaining characters.
+   */
+  private int readChars(final int offset, final int length, final boolean highByte,
+      final StringBuilder sb) {
+    int position = offset;
+    boolean wide = highByte;
+    int next = Arrays.binarySearch(continues, position);
+    if (next < 0) {
+      next = -next - 1;
+    }
+    int read = 0;
+    while (read < length) {
+      if (next < continues.length && position == continues[next]) {
+        wide = (data[position] & HIGH_BYTE) != 0;
+        position++;
+        next++;
+      }
+      final int end = next < continues.length ? continues[next] : data.length;
+      final int width = wide ? 2 : 1;
+      final int count = Math.min(length - read, (end - position) / width);
+      if (count == 0 && (position != end || next == continues.length)) {
+        throw new RecordFormatException("Malformed string in the shared strings table");
+      }
+      if (sb != null) {
+        for (int i = 0; i < count; i++) {
+          final int c = wide ? readUShort(position + 2 * i) : data[position + i] & 0xFF;
+          sb.append((char) c);
+        }
+      }
+      position += count * width;
+      read += count;
+    }
+    return position;
+  }
+
+  private int readUShort(final int position) {
+    return (data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8;
+  }
+}
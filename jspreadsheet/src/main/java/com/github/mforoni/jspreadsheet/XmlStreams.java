@@ -0,0 +1,103 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Static utility methods for the StAX based readers and writers.
+ *
+ * @author Foroni Marco
+ */
+final class XmlStreams {
+  private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+  private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+  private XmlStreams() {
+    throw new AssertionError();
+  }
+
+  private static XMLInputFactory newInputFactory() {
+    final XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+    return factory;
+  }
+
+  /**
+   * Returns a new {@link XMLStreamReader} on the specified {@code InputStream}.
+   *
+   * @param in the XML input stream
+   * @return a new {@link XMLStreamReader}
+   * @throws XMLStreamException
+   */
+  static XMLStreamReader newReader(final InputStream in) throws XMLStreamException {
+    // the factories are not required to be thread-safe, while the sheets may be read concurrently
+    synchronized (INPUT_FACTORY) {
+      return INPUT_FACTORY.createXMLStreamReader(in);
+    }
+  }
+
+  /**
+   * Returns a new UTF-8 {@link XMLStreamWriter} on the specified {@code OutputStream}. Closing the
+   * writer does not close the stream.
+   *
+   * @param out the XML output stream
+   * @return a new {@link XMLStreamWriter}
+   * @throws XMLStreamException
+   */
+  static XMLStreamWriter newWriter(final OutputStream out) throws XMLStreamException {
+    return OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+  }
+
+  /**
+   * Returns the value of the attribute having the specified local name, ignoring its namespace.
+   *
+   * @param reader an {@link XMLStreamReader} positioned on a start element
+   * @param localName the local name of the attribute
+   * @return the attribute value or <tt>null</tt> if the attribute is not present
+   */
+  static String getAttribute(final XMLStreamReader reader, final String localName) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      if (localName.equals(reader.getAttributeLocalName(i))) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Closes the specified reader ignoring any {@link XMLStreamException}.
+   *
+   * @param reader the reader to close, may be <tt>null</tt>
+   */
+  static void closeQuietly(final XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (final XMLStreamException ex) {
+        // nothing to do
+      }
+    }
+  }
+
+  /**
+   * Closes the specified writer ignoring any {@link XMLStreamException}.
+   *
+   * @param writer the writer to close, may be <tt>null</tt>
+   */
+  static void closeQuietly(final XMLStreamWriter writer) {
+    if (writer != null) {
+      try {
+        writer.close();
+      } catch (final XMLStreamException ex) {
+        // nothing to do
+      }
+    }
+  }
+}
@@ -0,0 +1,342 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Saves an edited zip package, e.g. an <i>xlsx</i> or <i>ods</i> file, incrementally: only the
+ * entries whose content is specified are deflated again, all the other entries, data descriptors
+ * included, are copied byte-for-byte from the original file through
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, without being
+ * inflated. The central directory is copied with the offsets of the entries and the descriptions of
+ * the replaced ones updated.
+ * <p>
+ * The package is written to a temporary file in the same folder, which then replaces the original
+ * file: the owner, the group, the POSIX permissions and the ACL of the original file are copied to
+ * the temporary file before the move, the other hard links of the original file are not updated.
+ * The zip64 packages are not patched.
+ *
+ * @author Foroni Marco
+ * @see PoiSpreadsheet#write()
+ * @see OdsSpreadsheet#write()
+ */
+final class ZipPatcher {
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034B50;
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014B50;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_SIGNATURE = 0x06054B50;
+  private static final int END_SIZE = 22;
+  private static final int MAX_COMMENT_SIZE = 0xFFFF;
+  private static final int DATA_DESCRIPTOR_FLAG = 0x08;
+  private static final int DEFLATED = 8;
+  private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+  private ZipPatcher() {
+    throw new AssertionError();
+  }
+
+  /**
+   * An entry of the central directory, the slice of the directory describing it.
+   */
+  private static final class Entry {
+    private final String name;
+    private final ByteBuffer header;
+    private final long offset;
+    private long end;
+
+    private Entry(final String name, final ByteBuffer header, final long offset) {
+      this.name = name;
+      this.header = header;
+      this.offset = offset;
+    }
+  }
+
+  /**
+   * Replaces the content of the specified entries of the zip {@code file}, copying the other
+   * entries untouched.
+   *
+   * @param file an existing zip file
+   * @param replacements the uncompressed contents of the entries to be replaced, by entry name
+   * @return <tt>true</tt> if the file has been patched, <tt>false</tt> if it cannot be patched, e.g.
+   *         because one of the entries does not exist or the file is a zip64 package, in which case
+   *         the file is left untouched
+   * @throws IOException if an I/O error occurs
+   */
+  static boolean patch(final File file, final Map<String, byte[]> replacements)
+      throws IOException {
+    final Path path = file.toPath();
+    final Path temporary =
+        Files.createTempFile(path.toAbsolutePath().getParent(), file.getName(), ".tmp");
+    try {
+      try (final FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+          final FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+        final ByteBuffer end = readEnd(in);
+        if (end == null) {
+          return false;
+        }
+        final long directoryOffset = end.getInt(16) & ZIP64_MARKER;
+        final List<Entry> entries =
+            readDirectory(in, directoryOffset, end.getInt(12) & ZIP64_MARKER);
+        if (entries == null || !containsAll(entries, replacements.keySet())) {
+          return false;
+        }
+        // the entries are copied in the order of the file, each one up to the next entry
+        final List<Entry> sorted = new ArrayList<>(entries);
+        Collections.sort(sorted, new Comparator<Entry>() {
+          @Override
+          public int compare(final Entry e1, final Entry e2) {
+            return Long.compare(e1.offset, e2.offset);
+          }
+        });
+        for (int i = 0; i < sorted.size(); i++) {
+          sorted.get(i).end =
+              i + 1 < sorted.size() ? sorted.get(i + 1).offset : directoryOffset;
+        }
+        transfer(in, 0, sorted.isEmpty() ? directoryOffset : sorted.get(0).offset, out);
+        for (final Entry entry : sorted) {
+          final long offset = out.position();
+          final byte[] content = replacements.get(entry.name);
+          if (content == null) {
+            transfer(in, entry.offset, entry.end - entry.offset, out);
+          } else {
+            writeEntry(in, entry, content, out);
+          }
+          entry.header.putInt(42, (int) offset);
+        }
+        final long newDirectoryOffset = out.position();
+        for (final Entry entry : entries) {
+          entry.header.rewind();
+          writeFully(entry.header, out);
+        }
+        end.putInt(12, (int) (out.position() - newDirectoryOffset));
+        end.putInt(16, (int) newDirectoryOffset);
+        end.rewind();
+        writeFully(end, out);
+      }
+      copyAttributes(path, temporary);
+      try {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+      return true;
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Copies the ownership and the access permissions of the {@code source} file to the
+   * {@code target} one, as far as they are supported by the file system. The copy is best-effort:
+   * the ownership can be changed only by a privileged user, otherwise the patched file is owned by
+   * the user saving it, as it happens when the file is written from scratch.
+   */
+  private static void copyAttributes(final Path source, final Path target) throws IOException {
+    final PosixFileAttributeView posix =
+        Files.getFileAttributeView(source, PosixFileAttributeView.class);
+    if (posix != null) {
+      final PosixFileAttributes attributes = posix.readAttributes();
+      final PosixFileAttributeView view =
+          Files.getFileAttributeView(target, PosixFileAttributeView.class);
+      view.setPermissions(attributes.permissions());
+      try {
+        if (!attributes.owner().equals(view.getOwner())) {
+          view.setOwner(attributes.owner());
+        }
+        if (!attributes.group().equals(view.readAttributes().group())) {
+          view.setGroup(attributes.group());
+        }
+      } catch (final FileSystemException e) {
+        // not permitted to the current user: the file keeps its default ownership
+      }
+    }
+    final AclFileAttributeView acl = Files.getFileAttributeView(source, AclFileAttributeView.class);
+    if (acl != null) {
+      final AclFileAttributeView view =
+          Files.getFileAttributeView(target, AclFileAttributeView.class);
+      try {
+        if (!acl.getOwner().equals(view.getOwner())) {
+          view.setOwner(acl.getOwner());
+        }
+        view.setAcl(acl.getAcl());
+      } catch (final FileSystemException e) {
+        // not permitted to the current user: the file keeps its default access control list
+      }
+    }
+  }
+
+
+  /**
+   * Reads the end of central directory record, looking for its signature backwards since the
+   * record may be followed by a comment.
+   *
+   * @return the record, comment excluded, or <tt>null</tt> if it is not found or the package is a
+   *         zip64 one
+   */
+  private static ByteBuffer readEnd(final FileChannel in) throws IOException {
+    final long size = in.size();
+    final int length = (int) Math.min(size, END_SIZE + MAX_COMMENT_SIZE);
+    final ByteBuffer tail = read(in, size - length, length);
+    for (int i = length - END_SIZE; i >= 0; i--) {
+      if (tail.getInt(i) == END_SIGNATURE) {
+        tail.position(i).limit(i + END_SIZE);
+        final ByteBuffer end = ByteBuffer.allocate(END_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        end.put(tail).flip();
+        final boolean zip64 = (end.getShort(10) & 0xFFFF) == 0xFFFF
+            || (end.getInt(12) & ZIP64_MARKER) == ZIP64_MARKER
+            || (end.getInt(16) & ZIP64_MARKER) == ZIP64_MARKER;
+        return zip64 ? null : end;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the entries of the central directory in their order, <tt>null</tt> if the directory is
+   *         malformed or describes zip64 entries
+   */
+  private static List<Entry> readDirectory(final FileChannel in, final long offset,
+      final long size) throws IOException {
+    final ByteBuffer directory = read(in, offset, (int) size);
+    final List<Entry> entries = new ArrayList<>();
+    while (directory.remaining() >= CENTRAL_HEADER_SIZE) {
+      final int start = directory.position();
+      if (directory.getInt(start) != CENTRAL_HEADER_SIGNATURE) {
+        return null;
+      }
+      final int nameLength = directory.getShort(start + 28) & 0xFFFF;
+      final int length = CENTRAL_HEADER_SIZE + nameLength
+          + (directory.getShort(start + 30) & 0xFFFF) + (directory.getShort(start + 32) & 0xFFFF);
+      final long entryOffset = directory.getInt(start + 42) & ZIP64_MARKER;
+      if (length > directory.remaining() || entryOffset == ZIP64_MARKER
+          || (directory.getInt(start + 20) & ZIP64_MARKER) == ZIP64_MARKER
+          || (directory.getInt(start + 24) & ZIP64_MARKER) == ZIP64_MARKER) {
+        return null;
+      }
+      final byte[] name = new byte[nameLength];
+      directory.position(start + CENTRAL_HEADER_SIZE);
+      directory.get(name);
+      directory.position(start).limit(start + length);
+      final ByteBuffer header = directory.slice().order(ByteOrder.LITTLE_ENDIAN);
+      directory.limit(directory.capacity()).position(start + length);
+      entries.add(new Entry(new String(name, StandardCharsets.UTF_8), header, entryOffset));
+    }
+    return entries;
+  }
+
+  private static boolean containsAll(final List<Entry> entries, final Iterable<String> names) {
+    for (final String name : names) {
+      boolean found = false;
+      for (final Entry entry : entries) {
+        found |= entry.name.equals(name);
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the specified entry deflating its new content, reusing the name and the modification
+   * time of the original local header, and updates its central directory header accordingly. The
+   * sizes are known in advance, therefore the entry is written without data descriptor.
+   */
+  private static void writeEntry(final FileChannel in, final Entry entry, final byte[] content,
+      final FileChannel out) throws IOException {
+    final ByteBuffer original = read(in, entry.offset, LOCAL_HEADER_SIZE);
+    if (original.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+      throw new IOException(String.format("Invalid local header of entry %s", entry.name));
+    }
+    final int nameLength = original.getShort(26) & 0xFFFF;
+    final ByteBuffer name = read(in, entry.offset + LOCAL_HEADER_SIZE, nameLength);
+    final byte[] compressed = deflate(content);
+    final CRC32 crc = new CRC32();
+    crc.update(content);
+    final short flags = (short) (original.getShort(6) & ~DATA_DESCRIPTOR_FLAG);
+    final ByteBuffer local =
+        ByteBuffer.allocate(LOCAL_HEADER_SIZE + nameLength).order(ByteOrder.LITTLE_ENDIAN);
+    local.putInt(LOCAL_HEADER_SIGNATURE).putShort(original.getShort(4)).putShort(flags)
+        .putShort((short) DEFLATED).putShort(original.getShort(10)).putShort(original.getShort(12))
+        .putInt((int) crc.getValue()).putInt(compressed.length).putInt(content.length)
+        .putShort((short) nameLength).putShort((short) 0).put(name).flip();
+    writeFully(local, out);
+    writeFully(ByteBuffer.wrap(compressed), out);
+    entry.header.putShort(8, flags).putShort(10, (short) DEFLATED)
+        .putInt(16, (int) crc.getValue()).putInt(20, compressed.length)
+        .putInt(24, content.length);
+  }
+
+  private static byte[] deflate(final byte[] content) {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    try {
+      deflater.setInput(content);
+      deflater.finish();
+      final byte[] buffer = new byte[ShieldedOutputStream.BUFFER_SIZE];
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+      while (!deflater.finished()) {
+        bytes.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return bytes.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static ByteBuffer read(final FileChannel in, final long position, final int length)
+      throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    long current = position;
+    while (buffer.hasRemaining()) {
+      final int read = in.read(buffer, current);
+      if (read < 0) {
+        throw new IOException("Unexpected end of zip file");
+      }
+      current += read;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static void transfer(final FileChannel in, final long position, final long count,
+      final FileChannel out) throws IOException {
+    long transferred = 0;
+    while (transferred < count) {
+      final long n = in.transferTo(position + transferred, count - transferred, out);
+      if (n <= 0) {
+        throw new IOException("Unexpected end of zip file");
+      }
+      transferred += n;
+    }
+  }
+
+  private static void writeFully(final ByteBuffer buffer, final FileChannel out)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+}
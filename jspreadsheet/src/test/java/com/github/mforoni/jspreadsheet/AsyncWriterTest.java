@@ -0,0 +1,159 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * @author Foroni Marco
+ */
+public class AsyncWriterTest {
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#writeAsync(Spreadsheet, OutputStream, java.util.concurrent.Executor)}.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteAsync() throws Exception {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final OutputStream out = new OutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        started.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          throw new IOException(e);
+        }
+        bytes.write(b, off, len);
+      }
+    };
+    try (final Spreadsheet spreadsheet = Spreadsheets.createInMemory("xlsx")) {
+      final Sheet sheet = spreadsheet.addSheet("Report");
+      sheet.setString(0, 0, "value");
+      final ListenableFuture<WriteReport> future =
+          Spreadsheets.writeAsync(spreadsheet, out, executor);
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      // the sheets cannot be modified while the spreadsheet is being written
+      assertWriting(sheet);
+      try {
+        spreadsheet.addSheet("Other");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(EditState.WRITING_MESSAGE, e.getMessage());
+      }
+      try {
+        Spreadsheets.writeAsync(spreadsheet, new ByteArrayOutputStream(), executor);
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(EditState.WRITING_MESSAGE, e.getMessage());
+      }
+      assertFalse(future.isDone());
+      release.countDown();
+      final WriteReport report = future.get(10, TimeUnit.SECONDS);
+      assertEquals(bytes.size(), report.getBytesWritten());
+      assertTrue(report.getDuration(TimeUnit.NANOSECONDS) > 0);
+      // the sheets can be accessed again
+      assertEquals("value", sheet.getString(0, 0));
+      sheet.setString(1, 0, "next");
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(bytes.toByteArray())) {
+      assertEquals("value", spreadsheet.getSheet("Report").getString(0, 0));
+    }
+    executor.shutdown();
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#writeAsync(Spreadsheet, java.util.concurrent.Executor)}.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteAsyncFile() throws Exception {
+    Files.createDirectories(OUTPUT_DIR);
+    final File file = OUTPUT_DIR.resolve("WriteAsync.xls").toFile();
+    Files.deleteIfExists(file.toPath());
+    try (final Spreadsheet spreadsheet = Spreadsheets.create(file, API.JXL)) {
+      spreadsheet.addSheet("Report").setString(0, 0, "value");
+      final WriteReport report =
+          Spreadsheets.writeAsync(spreadsheet, MoreExecutors.directExecutor()).get();
+      assertEquals(file.length(), report.getBytesWritten());
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      assertEquals("value", spreadsheet.getSheet("Report").getString(0, 0));
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#writeAsync(Spreadsheet, OutputStream, java.util.concurrent.Executor)}
+   * when the write fails.
+   *
+   * @throws IOException
+   * @throws InterruptedException
+   */
+  @Test
+  public void testWriteAsyncFailure() throws IOException, InterruptedException {
+    final OutputStream out = new OutputStream() {
+      @Override
+      public void write(final int b) throws IOException {
+        throw new IOException("disk full");
+      }
+    };
+    final byte[] content = Files.readAllBytes(JFiles.fromResource(RATINGS_XLSX).toPath());
+    try (final Spreadsheet spreadsheet = Spreadsheets.edit(content)) {
+      try {
+        Spreadsheets.writeAsync(spreadsheet, out, MoreExecutors.directExecutor()).get();
+        fail("Exception not thrown");
+      } catch (final ExecutionException e) {
+        // POI reports the failure of the stream without its cause
+        assertTrue(e.getCause() instanceof RuntimeException || e.getCause() instanceof IOException);
+      }
+      spreadsheet.getSheet(0).setString(0, 0, "value");
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(content)) {
+      Spreadsheets.writeAsync(spreadsheet, out, MoreExecutors.directExecutor());
+      fail("Exception not thrown");
+    } catch (final IllegalStateException e) {
+      assertEquals(StreamingSheet.READ_ONLY_MESSAGE, e.getMessage());
+    }
+  }
+
+  private static void assertWriting(final Sheet sheet) {
+    try {
+      sheet.setString(1, 0, "x");
+      fail("Exception not thrown");
+    } catch (final IllegalStateException e) {
+      assertEquals(EditState.WRITING_MESSAGE, e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.base.Joiner;
+import com.google.common.io.Files;
+
+/**
+ * @author Foroni Marco
+ */
+public class CsvSpreadsheetTest {
+  private static final String TRICKY = "a, \"quoted\"\nvalue";
+
+  @Test
+  public void testCreateAndOpen() throws IOException {
+    final File file = OUTPUT_DIR.resolve("CsvTest.csv").toFile();
+    java.nio.file.Files.deleteIfExists(file.toPath());
+    final Calendar calendar = Calendar.getInstance();
+    calendar.clear();
+    calendar.set(2017, Calendar.MARCH, 21);
+    final Date date = calendar.getTime();
+    try (final Spreadsheet spreadsheet = Spreadsheets.create(file)) {
+      final Sheet sheet = spreadsheet.addSheet("Ignored");
+      assertEquals("CsvTest", sheet.getName());
+      sheet.setString(0, 0, "Name");
+      sheet.setString(0, 1, "Value");
+      sheet.setString(1, 0, TRICKY);
+      sheet.setDouble(1, 1, 2.50);
+      sheet.setDate(3, 1, date);
+      sheet.setBoolean(3, 2, Boolean.TRUE);
+      try {
+        sheet.setString(2, 0, "late");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        // rows must be written in ascending order
+      }
+      spreadsheet.write();
+    }
+    final List<String> lines = Files.readLines(file, StandardCharsets.UTF_8);
+    assertEquals("Name,Value", lines.get(0));
+    assertEquals("\"a, \"\"quoted\"\"", lines.get(1));
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      assertEquals(1, spreadsheet.getSheetNames().size());
+      final Sheet sheet = spreadsheet.getSheet("CsvTest");
+      assertEquals(4, sheet.getRows());
+      assertEquals(3, sheet.getColumns());
+      assertEquals("Name", sheet.getString(0, 0));
+      assertEquals(TRICKY, sheet.getString(1, 0));
+      assertEquals(Double.valueOf(2.5), sheet.getDouble(1, 1));
+      assertNull(sheet.getString(2, 0));
+      assertEquals(date, sheet.getDate(3, 1));
+      assertEquals(Boolean.TRUE, sheet.getBoolean(3, 2));
+      assertEquals("Name", sheet.getString(0, 0));
+      try {
+        sheet.getDouble(0, 1);
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        // not a number
+      }
+      try {
+        sheet.setString(0, 0, "x");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(StreamingSheet.READ_ONLY_MESSAGE, e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testIndexedTsv() throws IOException {
+    final File file = OUTPUT_DIR.resolve("CsvTest.tsv").toFile();
+    java.nio.file.Files.deleteIfExists(file.toPath());
+    final int rows = 5000;
+    try (final Spreadsheet spreadsheet = Spreadsheets.create(file, API.CSV)) {
+      final Sheet sheet = spreadsheet.addSheet("Sheet");
+      for (int r = 0; r < rows; r++) {
+        sheet.setString(r, 0, "row, " + r);
+        sheet.setDouble(r, 1, (double) r);
+      }
+      spreadsheet.write();
+    }
+    assertTrue(Files.readFirstLine(file, StandardCharsets.UTF_8).startsWith("row, 0\t0"));
+    final CsvFormat format = new CsvFormat.Builder('\t').indexed().build();
+    try (final Spreadsheet spreadsheet = Spreadsheets.openCsv(file, format)) {
+      final Sheet sheet = spreadsheet.getSheet(0);
+      assertEquals(rows, sheet.getRows());
+      for (int r = rows - 1; r >= 0; r -= 997) {
+        assertEquals("row, " + r, sheet.getString(r, 0));
+        assertEquals(Double.valueOf(r), sheet.getDouble(r, 1));
+      }
+    }
+  }
+
+  @Test
+  public void testConvertToCsvAndBack() throws IOException {
+    final File csv = OUTPUT_DIR.resolve("RatingsCsvTest.csv").toFile();
+    final File xlsx = OUTPUT_DIR.resolve("RatingsCsvTest.xlsx").toFile();
+    java.nio.file.Files.deleteIfExists(csv.toPath());
+    java.nio.file.Files.deleteIfExists(xlsx.toPath());
+    final File in = JFiles.fromResource(RATINGS_XLSX);
+    Spreadsheets.convert(in, csv);
+    Spreadsheets.convert(csv, xlsx);
+    try (final Spreadsheet source = Spreadsheets.open(in);
+        final Spreadsheet target = Spreadsheets.open(xlsx)) {
+      final Sheet expected = source.getSheet(0);
+      final Sheet actual = target.getSheet(0);
+      assertEquals(expected.getRows(), actual.getRows());
+      assertEquals(expected.getString(0, 0), actual.getString(0, 0));
+    }
+  }
+
+  @Test
+  public void testCsvFormat() {
+    assertEquals(',', CsvFormat.CSV.getDelimiter());
+    assertEquals('\t', CsvFormat.TSV.getDelimiter());
+    assertFalse(CsvFormat.CSV.isIndexed());
+    try {
+      new CsvFormat.Builder(';').quote(';');
+      fail("Exception not thrown");
+    } catch (final IllegalArgumentException e) {
+      // the quote must differ from the delimiter
+    }
+    try {
+      new CsvFormat.Builder('"');
+      fail("Exception not thrown");
+    } catch (final IllegalArgumentException e) {
+      // the delimiter must differ from the default quote
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#openCsv(File, CsvFormat)}:
+   * a quote inside an unquoted field does not enclose the following line breaks.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testUnquotedQuote() throws IOException {
+    final File file = OUTPUT_DIR.resolve("CsvQuotes.csv").toFile();
+    Files.createParentDirs(file);
+    Files.write("Item,Size\nTV,55\" screen\nRadio,\"small, \"\"portable\"\"\"\n"
+        + "Note,\"two\nlines\"\nLast,x\n", file, StandardCharsets.UTF_8);
+    for (final CsvFormat format : new CsvFormat[] {CsvFormat.CSV,
+        new CsvFormat.Builder(',').indexed().build()}) {
+      try (final Spreadsheet spreadsheet = Spreadsheets.openCsv(file, format)) {
+        final Sheet sheet = spreadsheet.getSheet(0);
+        assertEquals(5, sheet.getRows());
+        assertEquals(2, sheet.getColumns());
+        assertEquals("55\" screen", sheet.getString(1, 1));
+        assertEquals("small, \"portable\"", sheet.getString(2, 1));
+        assertEquals("two\nlines", sheet.getString(3, 1));
+        assertEquals("Last", sheet.getString(4, 0));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.CsvSheet#getDouble(int, int)}: only the
+   * plain decimal numbers are parsed.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testGetDouble() throws IOException {
+    final File file = OUTPUT_DIR.resolve("CsvNumbers.csv").toFile();
+    Files.createParentDirs(file);
+    final String[] numbers = {"42", " -2.5 ", "+.5", "1.5e3", "7.", "-1E-2"};
+    final String[] texts = {"12f", "0x1p3", "NaN", "Infinity", "1d", "1_000", "e3", "."};
+    Files.write(Joiner.on(',').join(numbers) + "\n" + Joiner.on(',').join(texts) + "\n", file,
+        StandardCharsets.UTF_8);
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      final Sheet sheet = spreadsheet.getSheet(0);
+      for (int c = 0; c < numbers.length; c++) {
+        assertEquals(Double.valueOf(numbers[c].trim()), sheet.getDouble(0, c));
+      }
+      for (int c = 0; c < texts.length; c++) {
+        try {
+          sheet.getDouble(1, c);
+          fail("Exception not thrown for " + texts[c]);
+        } catch (final IllegalStateException e) {
+          // not a number
+        }
+      }
+    }
+  }
+}
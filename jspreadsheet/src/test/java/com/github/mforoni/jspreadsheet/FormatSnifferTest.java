@@ -0,0 +1,76 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.FormatSniffer.Format;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.collect.Sets;
+
+/**
+ * @author Foroni Marco
+ */
+public class FormatSnifferTest {
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.FormatSniffer#sniff(File)}.
+   */
+  @Test
+  public void testSniff() {
+    assertEquals(Format.XLS, FormatSniffer.sniff(JFiles.fromResource(RATINGS_XLS)));
+    assertEquals(Format.XLSX, FormatSniffer.sniff(JFiles.fromResource(RATINGS_XLSX)));
+    assertEquals(Format.ODS, FormatSniffer.sniff(JFiles.fromResource(RATINGS_ODS)));
+    assertNull(FormatSniffer.sniff(OUTPUT_DIR.resolve("Missing.xlsx").toFile()));
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#detectAPI(File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testDetectMislabeled() throws IOException {
+    final File xlsx = copy(RATINGS_XLSX, "MislabeledXlsx.xls");
+    assertEquals(API.POI, Spreadsheets.detectAPI(xlsx));
+    assertEquals(Sets.immutableEnumSet(API.POI, API.STREAMING_XLSX),
+        Spreadsheets.getAdmittedAPIs(xlsx));
+    assertHeroes(xlsx);
+    final File ods = copy(RATINGS_ODS, "MislabeledOds.xlsx");
+    assertEquals(API.SIMPLE_ODF, Spreadsheets.detectAPI(ods));
+    assertHeroes(ods);
+    final File xls = copy(RATINGS_XLS, "MislabeledXls.ods");
+    assertEquals(API.POI, Spreadsheets.detectAPI(xls));
+    assertEquals(Sets.immutableEnumSet(API.POI, API.JXL, API.STREAMING_XLS),
+        Spreadsheets.getAdmittedAPIs(xls));
+    assertHeroes(xls);
+    // the files to create are detected by extension
+    assertEquals(API.SIMPLE_ODF,
+        Spreadsheets.detectAPI(OUTPUT_DIR.resolve("Missing.ods").toFile()));
+  }
+
+  private static File copy(final String resource, final String name) throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    final File file = OUTPUT_DIR.resolve(name).toFile();
+    Files.copy(JFiles.fromResource(resource).toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    return file;
+  }
+
+  private static void assertHeroes(final File file) throws IOException {
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      assertEquals(HEROES, spreadsheet.getSheetNames().get(0));
+    }
+    assertEquals(HEROES_EXPECTED_ROWS, Spreadsheets.inspect(file).getSheets().get(0).getRows());
+  }
+}
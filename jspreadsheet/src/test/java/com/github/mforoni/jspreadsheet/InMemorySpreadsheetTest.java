@@ -0,0 +1,240 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+
+/**
+ * @author Foroni Marco
+ */
+public class InMemorySpreadsheetTest {
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#open(byte[])}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenBytes() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final byte[] bytes = Files.readAllBytes(JFiles.fromResource(resource).toPath());
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(bytes)) {
+        assertHeroes(resource, spreadsheet);
+        assertNull(spreadsheet.getFile());
+        try {
+          spreadsheet.addSheet("Sheet");
+          fail("Exception not thrown");
+        } catch (final IllegalStateException e) {
+          assertEquals(StreamingSheet.READ_ONLY_MESSAGE, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#open(ByteBuffer)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenMappedBuffer() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final File file = JFiles.fromResource(resource);
+      try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        final MappedByteBuffer buffer =
+            channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        try (final Spreadsheet spreadsheet = Spreadsheets.open(buffer)) {
+          assertHeroes(resource, spreadsheet);
+        }
+        // the position of the buffer is left untouched
+        assertEquals(0, buffer.position());
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#open(InputStream, API)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenStream() throws IOException {
+    final File file = JFiles.fromResource(RATINGS_XLS);
+    try (final InputStream in = new FileInputStream(file);
+        final Spreadsheet spreadsheet = Spreadsheets.open(in, API.JXL)) {
+      assertHeroes(RATINGS_XLS, spreadsheet);
+    }
+    try (final InputStream in = new FileInputStream(file)) {
+      Spreadsheets.open(in, API.STREAMING_XLS);
+      fail("Exception not thrown");
+    } catch (final IllegalStateException e) {
+      // the streaming engines need a file
+    }
+    try {
+      Spreadsheets.open("a,b\n".getBytes(StandardCharsets.US_ASCII));
+      fail("Exception not thrown");
+    } catch (final IllegalArgumentException e) {
+      // the delimited text is not recognized
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#edit(InputStream)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testEditStream() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final byte[] bytes = Files.readAllBytes(JFiles.fromResource(resource).toPath());
+      try (final Spreadsheet spreadsheet = Spreadsheets.edit(new ByteArrayInputStream(bytes))) {
+        final Sheet sheet = spreadsheet.addSheet("Added");
+        sheet.setString(0, 0, "value");
+        assertEquals("value", spreadsheet.getSheet("Added").getString(0, 0));
+        try {
+          spreadsheet.write();
+          fail("Exception not thrown");
+        } catch (final IllegalStateException e) {
+          assertEquals(Spreadsheets.NO_FILE_MESSAGE, e.getMessage());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#open(InputStream)} and
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#edit(InputStream)}: the stream of the
+   * caller is left open.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testStreamNotClosed() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final byte[] bytes = Files.readAllBytes(JFiles.fromResource(resource).toPath());
+      for (final boolean edit : new boolean[] {false, true}) {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final InputStream in = new ByteArrayInputStream(bytes) {
+          @Override
+          public void close() {
+            closed.set(true);
+          }
+        };
+        try (final Spreadsheet spreadsheet =
+            edit ? Spreadsheets.edit(in) : Spreadsheets.open(in)) {
+          assertHeroes(resource, spreadsheet);
+        }
+        assertFalse(resource, closed.get());
+      }
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#createInMemory(String, API)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testCreateInMemory() throws IOException {
+    final String[][] cases =
+        {{"xls", "POI"}, {"xls", "JXL"}, {"xlsx", "POI"}, {"ods", "SIMPLE_ODF"}};
+    for (final String[] c : cases) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (final Spreadsheet spreadsheet =
+          Spreadsheets.createInMemory(c[0], API.valueOf(c[1]))) {
+        assertNull(spreadsheet.getFile());
+        final Sheet sheet = spreadsheet.addSheet("Report");
+        sheet.setString(0, 0, "name");
+        sheet.setString(1, 0, "value");
+        spreadsheet.write(out);
+      }
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(out.toByteArray())) {
+        assertTrue(c[0], spreadsheet.getSheetNames().contains("Report"));
+        assertEquals(c[0], "value", spreadsheet.getSheet("Report").getString(1, 0));
+      }
+    }
+    try {
+      Spreadsheets.createInMemory("csv");
+      fail("Exception not thrown");
+    } catch (final IllegalArgumentException e) {
+      // the delimited text files are written directly to their file
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheet#write(java.nio.channels.WritableByteChannel)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteChannel() throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final File file = OUTPUT_DIR.resolve("WriteChannel" + resource).toFile();
+      final byte[] bytes = Files.readAllBytes(JFiles.fromResource(resource).toPath());
+      try (final Spreadsheet spreadsheet = Spreadsheets.edit(bytes);
+          final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        spreadsheet.getSheet(HEROES).setString(1, 1, "40");
+        spreadsheet.write(channel);
+        // the channel is left open
+        assertTrue(channel.isOpen());
+      }
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+        assertEquals(resource, "40", spreadsheet.getSheet(HEROES).getRawValue(1, 1));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheet#write(java.io.OutputStream)}
+   * on a read-only spreadsheet.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteReadOnly() throws IOException {
+    final File file = JFiles.fromResource(RATINGS_XLSX);
+    for (final API api : new API[] {API.POI, API.STREAMING_XLSX}) {
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(file, api)) {
+        spreadsheet.write(new ByteArrayOutputStream());
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(StreamingSheet.READ_ONLY_MESSAGE, e.getMessage());
+      }
+    }
+  }
+
+  private static void assertHeroes(final String resource, final Spreadsheet spreadsheet) {
+    assertEquals(resource, HEROES, spreadsheet.getSheetNames().get(0));
+    final Sheet heroes = spreadsheet.getSheet(HEROES);
+    assertEquals(resource, HEROES_EXPECTED_ROWS, heroes.getRows());
+    assertEquals(resource, "39", heroes.getRawValue(1, 1));
+  }
+}
@@ -0,0 +1,310 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Hyperlink;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellAddress;
+import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
+import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.junit.Assume;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+
+/**
+ * @author Foroni Marco
+ */
+public class IncrementalSaveTest {
+  private static final List<String> XLSX_SHARED_ENTRIES =
+      Arrays.asList("xl/sharedStrings.xml", "xl/styles.xml", "xl/calcChain.xml");
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#write()} on an edited
+   * <i>xlsx</i> file.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteXlsx() throws IOException {
+    final File file = copy(RATINGS_XLSX);
+    final Map<String, ZipEntry> original = entries(file);
+    editHeroes(file);
+    final Set<String> changed = changedEntries(original, entries(file));
+    boolean sheetChanged = false;
+    for (final String name : changed) {
+      if (name.startsWith("xl/worksheets/")) {
+        sheetChanged = true;
+      } else {
+        assertTrue(name, XLSX_SHARED_ENTRIES.contains(name));
+      }
+    }
+    assertTrue(sheetChanged);
+    // only the modified sheet is replaced
+    assertEquals(1, changed.size() - countShared(changed));
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.OdsSpreadsheet#write()} on an edited
+   * <i>ods</i> file.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteOds() throws IOException {
+    final File file = copy(RATINGS_ODS);
+    final Map<String, ZipEntry> original = entries(file);
+    editHeroes(file);
+    assertEquals(new HashSet<>(Arrays.asList(OdsXml.CONTENT_ENTRY)),
+        changedEntries(original, entries(file)));
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheet#write()} when nothing has
+   * been modified or a sheet has been added.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteUnmodified() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_ODS}) {
+      final File file = copy(resource);
+      final byte[] bytes = Files.readAllBytes(file.toPath());
+      try (final Spreadsheet spreadsheet = Spreadsheets.edit(file)) {
+        spreadsheet.getSheet(HEROES).getRawValue(1, 1);
+        spreadsheet.write();
+      }
+      assertArrayEquals(resource, bytes, Files.readAllBytes(file.toPath()));
+      // adding a sheet writes the whole package
+      try (final Spreadsheet spreadsheet = Spreadsheets.edit(file)) {
+        spreadsheet.addSheet("Added").setString(0, 0, "value");
+        spreadsheet.write();
+      }
+      assertFalse(resource, Arrays.equals(bytes, Files.readAllBytes(file.toPath())));
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+        assertEquals(resource, "value", spreadsheet.getSheet("Added").getString(0, 0));
+        assertEquals(resource, "39", spreadsheet.getSheet(HEROES).getRawValue(1, 1));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheet#write()}: the incremental
+   * save keeps the permissions of the file.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWriteKeepsPermissions() throws IOException {
+    Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+    final Set<PosixFilePermission> permissions = PosixFilePermissions.fromString("rw-r--r--");
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_ODS}) {
+      final File file = copy(resource);
+      Files.setPosixFilePermissions(file.toPath(), permissions);
+      editHeroes(file);
+      assertEquals(resource, permissions, Files.getPosixFilePermissions(file.toPath()));
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#write()}: the comments
+   * of a modified sheet are saved writing the whole workbook.
+   *
+   * @throws IOException
+   * @throws InvalidFormatException
+   */
+  @Test
+  public void testWriteXlsxComments() throws IOException, InvalidFormatException {
+    final File file = copy(RATINGS_XLSX);
+    try (final PoiSpreadsheet spreadsheet = editHeroesXlsx(file)) {
+      final org.apache.poi.ss.usermodel.Sheet sheet = spreadsheet.getWorkbook().getSheet(HEROES);
+      final CreationHelper helper = spreadsheet.getWorkbook().getCreationHelper();
+      final Comment comment =
+          sheet.createDrawingPatriarch().createCellComment(helper.createClientAnchor());
+      comment.setString(helper.createRichTextString("comment"));
+      sheet.getRow(1).getCell(1).setCellComment(comment);
+      spreadsheet.write();
+    }
+    try (final Workbook workbook = openHeroesXlsx(file)) {
+      final Comment comment = workbook.getSheet(HEROES).getCellComment(new CellAddress(1, 1));
+      assertEquals("comment", comment.getString().getString());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#write()}: the
+   * hyperlinks of a modified sheet are saved writing the whole workbook.
+   *
+   * @throws IOException
+   * @throws InvalidFormatException
+   */
+  @Test
+  public void testWriteXlsxHyperlinks() throws IOException, InvalidFormatException {
+    final File file = copy(RATINGS_XLSX);
+    try (final PoiSpreadsheet spreadsheet = editHeroesXlsx(file)) {
+      final Hyperlink hyperlink = spreadsheet.getWorkbook().getCreationHelper()
+          .createHyperlink(Hyperlink.LINK_URL);
+      hyperlink.setAddress("https://github.com/mforoni/jspreadsheet");
+      spreadsheet.getWorkbook().getSheet(HEROES).getRow(1).getCell(1).setHyperlink(hyperlink);
+      spreadsheet.write();
+    }
+    try (final Workbook workbook = openHeroesXlsx(file)) {
+      final Hyperlink hyperlink = workbook.getSheet(HEROES).getRow(1).getCell(1).getHyperlink();
+      assertEquals("https://github.com/mforoni/jspreadsheet", hyperlink.getAddress());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#write()}: the drawings
+   * of a modified sheet are saved writing the whole workbook.
+   *
+   * @throws IOException
+   * @throws InvalidFormatException
+   */
+  @Test
+  public void testWriteXlsxDrawings() throws IOException, InvalidFormatException {
+    final File file = copy(RATINGS_XLSX);
+    try (final PoiSpreadsheet spreadsheet = editHeroesXlsx(file)) {
+      final XSSFDrawing drawing =
+          (XSSFDrawing) spreadsheet.getWorkbook().getSheet(HEROES).createDrawingPatriarch();
+      drawing.createTextbox(new XSSFClientAnchor(0, 0, 0, 0, 3, 1, 5, 4))
+          .setText(new XSSFRichTextString("textbox"));
+      spreadsheet.write();
+    }
+    try (final Workbook workbook = openHeroesXlsx(file)) {
+      final XSSFDrawing drawing = ((XSSFSheet) workbook.getSheet(HEROES)).getDrawingPatriarch();
+      assertEquals(1, drawing.getShapes().size());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#write()}: the defined
+   * names added while editing are saved writing the whole workbook.
+   *
+   * @throws IOException
+   * @throws InvalidFormatException
+   */
+  @Test
+  public void testWriteXlsxDefinedNames() throws IOException, InvalidFormatException {
+    final File file = copy(RATINGS_XLSX);
+    try (final PoiSpreadsheet spreadsheet = editHeroesXlsx(file)) {
+      final Name name = spreadsheet.getWorkbook().createName();
+      name.setNameName("Ratings");
+      name.setRefersToFormula("'" + HEROES + "'!$B$2:$B$4");
+      spreadsheet.write();
+    }
+    try (final Workbook workbook = openHeroesXlsx(file)) {
+      assertEquals("'" + HEROES + "'!$B$2:$B$4", workbook.getName("Ratings").getRefersToFormula());
+    }
+  }
+
+  private static File copy(final String resource) throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    final File file = OUTPUT_DIR.resolve("Incremental" + resource).toFile();
+    Files.copy(JFiles.fromResource(resource).toPath(), file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING);
+    return file;
+  }
+
+  /**
+   * Edits a cell of the heroes sheet, saves the file twice and checks the values read back.
+   */
+  private static void editHeroes(final File file) throws IOException {
+    try (final Spreadsheet spreadsheet = Spreadsheets.edit(file)) {
+      spreadsheet.getSheet(HEROES).setString(1, 1, "40");
+      spreadsheet.write();
+      spreadsheet.getSheet(HEROES).setString(2, 1, "41");
+      spreadsheet.write();
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      final Sheet heroes = spreadsheet.getSheet(HEROES);
+      assertEquals(file.getName(), HEROES_EXPECTED_ROWS, heroes.getRows());
+      assertEquals(file.getName(), "40", heroes.getRawValue(1, 1));
+      assertEquals(file.getName(), "41", heroes.getRawValue(2, 1));
+    }
+  }
+
+  /**
+   * Edits the <i>xlsx</i> file, setting a cell of the heroes sheet.
+   */
+  private static PoiSpreadsheet editHeroesXlsx(final File file) throws IOException {
+    final PoiSpreadsheet spreadsheet = PoiSpreadsheet.edit(file);
+    spreadsheet.getSheet(HEROES).setString(1, 1, "40");
+    return spreadsheet;
+  }
+
+  /**
+   * Opens the <i>xlsx</i> file with POI, checking the cell set by {@link #editHeroesXlsx(File)}.
+   */
+  private static Workbook openHeroesXlsx(final File file)
+      throws IOException, InvalidFormatException {
+    final Workbook workbook = WorkbookFactory.create(file, null, true);
+    assertEquals("40", workbook.getSheet(HEROES).getRow(1).getCell(1).getStringCellValue());
+    return workbook;
+  }
+
+  private static Map<String, ZipEntry> entries(final File file) throws IOException {
+    final Map<String, ZipEntry> entries = new HashMap<>();
+    try (final ZipFile zip = new ZipFile(file)) {
+      final Enumeration<? extends ZipEntry> e = zip.entries();
+      while (e.hasMoreElements()) {
+        final ZipEntry entry = e.nextElement();
+        entries.put(entry.getName(), entry);
+      }
+    }
+    return entries;
+  }
+
+  private static Set<String> changedEntries(final Map<String, ZipEntry> original,
+      final Map<String, ZipEntry> patched) {
+    assertEquals(original.keySet(), patched.keySet());
+    final Set<String> changed = new HashSet<>();
+    for (final ZipEntry entry : original.values()) {
+      final ZipEntry other = patched.get(entry.getName());
+      if (entry.getCrc() != other.getCrc() || entry.getMethod() != other.getMethod()
+          || entry.getCompressedSize() != other.getCompressedSize()) {
+        changed.add(entry.getName());
+      }
+    }
+    return changed;
+  }
+
+  private static int countShared(final Set<String> changed) {
+    int count = 0;
+    for (final String name : changed) {
+      if (XLSX_SHARED_ENTRIES.contains(name)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -9,14 +9,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import com.github.mforoni.jbasic.io.JFiles;
 import com.github.mforoni.jspreadsheet.JxlSpreadsheet;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.cache.CacheStats;
+import jxl.biff.XFRecord;
 import jxl.read.biff.BiffException;
 
 /**
@@ -147,6 +153,66 @@ public class JxlSpreadsheetTest {
 		// TODO
 	}
 
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#getStyleCacheStats(Spreadsheet)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testFormatCache() throws IOException, BiffException {
+		final Path path = Paths.get(OUTPUT_DIR.toString(), "Formats.xls");
+		Files.deleteIfExists(path);
+		final int rows = 10_000;
+		final int columns = 10;
+		final SSFont font = new SSFont.Builder(SSFont.ARIAL, 10).bold().build();
+		final SSColor[] colours = {SSColor.YELLOW, SSColor.RED, SSColor.GREEN};
+		try (final Spreadsheet spreadsheet = Spreadsheets.create(path.toFile(), API.JXL)) {
+			// the sheets of a workbook share its WritableCellFormat instances
+			final Sheet first = spreadsheet.addSheet(SHEET1);
+			final Sheet second = spreadsheet.addSheet("Sheet2");
+			for (int r = 0; r < rows; r++) {
+				final Sheet sheet = r % 2 == 0 ? first : second;
+				for (int c = 0; c < columns; c++) {
+					final SSCellFormat format = new SSCellFormat(font, colours[c % colours.length]);
+					if (c % 2 == 0) {
+						sheet.setString(r / 2, c, "Cell " + r + "-" + c, format);
+					} else {
+						sheet.setDouble(r / 2, c, (double) r * c, format);
+					}
+				}
+			}
+			// a value set without format keeps the WritableCellFormat of the cell
+			first.setString(0, 0, "Unformatted");
+			final CacheStats stats = Spreadsheets.getStyleCacheStats(spreadsheet);
+			assertEquals(colours.length, stats.missCount());
+			assertEquals(rows * columns - colours.length, stats.hitCount());
+			spreadsheet.write();
+		}
+		final jxl.Workbook workbook = jxl.Workbook.getWorkbook(path.toFile());
+		try {
+			// JExcelAPI writes a format record for each distinct WritableCellFormat
+			final Set<Integer> xfIndexes = new HashSet<>();
+			for (final jxl.Sheet sheet : workbook.getSheets()) {
+				assertEquals(rows / 2, sheet.getRows());
+				for (int r = 0; r < sheet.getRows(); r++) {
+					for (int c = 0; c < columns; c++) {
+						final int xfIndex = ((XFRecord) sheet.getCell(c, r).getCellFormat()).getXFIndex();
+						assertEquals(xfIndex(workbook, c % colours.length), xfIndex);
+						xfIndexes.add(xfIndex);
+					}
+				}
+			}
+			assertEquals(colours.length, xfIndexes.size());
+			assertEquals("Unformatted", workbook.getSheet(SHEET1).getCell(0, 0).getContents());
+		} finally {
+			workbook.close();
+		}
+	}
+
+	private static int xfIndex(final jxl.Workbook workbook, final int column) {
+		return ((XFRecord) workbook.getSheet(SHEET1).getCell(column, 0).getCellFormat()).getXFIndex();
+	}
+
 	/**
 	 * Test method for {@link com.github.mforoni.jspreadsheet.JxlSpreadsheet#close()}.
 	 */
@@ -0,0 +1,127 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.SHEET1_EXPECTED_LAST_ROW;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_SHEET_NUMBER;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+
+/**
+ * @author Foroni Marco
+ */
+public class LazySpreadsheetTest {
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#openLazy(File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenLazy() throws IOException {
+    final ForkJoinPool pool = new ForkJoinPool(2);
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_ODS, RATINGS_XLS}) {
+      final File file = JFiles.fromResource(resource);
+      try (final Spreadsheet expected = Spreadsheets.openParallel(file, pool);
+          final LazySpreadsheet lazy = (LazySpreadsheet) Spreadsheets.openLazy(file)) {
+        assertEquals(EXPECTED_SHEET_NUMBER, lazy.getSheetNames().size());
+        assertEquals(HEROES, lazy.getSheetNames().get(0));
+        assertEquals(SHEET1, lazy.getSheets().get(1).getName());
+        assertFalse(lazy.isLoaded(0));
+        assertFalse(lazy.isLoaded(1));
+        final Sheet heroes = lazy.getSheet(HEROES);
+        assertEquals(HEROES_EXPECTED_ROWS, heroes.getRows());
+        assertEquals(HEROES_EXPECTED_COLUMNS, heroes.getColumns());
+        assertTrue(lazy.isLoaded(0));
+        assertFalse(lazy.isLoaded(1));
+        final Sheet sheet = expected.getSheet(HEROES);
+        for (int r = 0; r < HEROES_EXPECTED_ROWS; r++) {
+          for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+            assertEquals(resource, sheet.getObject(r, c), heroes.getObject(r, c));
+          }
+        }
+        // released sheets are loaded again
+        lazy.release();
+        assertFalse(lazy.isLoaded(0));
+        assertEquals("39", heroes.getRawValue(1, 1));
+        assertTrue(lazy.isLoaded(0));
+        try {
+          heroes.setString(0, 0, "x");
+          fail("Exception not thrown");
+        } catch (final IllegalStateException e) {
+          assertEquals(StreamingSheet.READ_ONLY_MESSAGE, e.getMessage());
+        }
+      }
+    }
+    pool.shutdown();
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#openLazy(File, long)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenLazyBounded() throws IOException {
+    final File file = JFiles.fromResource(RATINGS_XLSX);
+    try (final LazySpreadsheet lazy = (LazySpreadsheet) Spreadsheets.openLazy(file, 0)) {
+      final Sheet heroes = lazy.getSheet(0);
+      final Sheet sheet1 = lazy.getSheet(1);
+      assertEquals(HEROES_EXPECTED_ROWS, heroes.getRows());
+      assertEquals(SHEET1_EXPECTED_LAST_ROW, sheet1.getLastRow());
+      // no loaded sheet fits in the bound
+      assertFalse(lazy.isLoaded(0));
+      assertFalse(lazy.isLoaded(1));
+      assertEquals(HEROES_EXPECTED_COLUMNS, heroes.getColumns());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#openLazy(File, long)}: a
+   * sheet within the bound stays loaded.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenLazyWithinBound() throws IOException {
+    final File file = JFiles.fromResource(RATINGS_XLSX);
+    final long weight;
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+      weight = SheetTable.load(spreadsheet.getSheet(HEROES)).getOffHeapSize();
+    }
+    try (final LazySpreadsheet lazy = (LazySpreadsheet) Spreadsheets.openLazy(file, 2 * weight)) {
+      final Sheet heroes = lazy.getSheet(HEROES);
+      assertEquals(HEROES_EXPECTED_ROWS, heroes.getRows());
+      assertTrue(lazy.isLoaded(0));
+      assertEquals(HEROES_EXPECTED_COLUMNS, heroes.getColumns());
+      assertTrue(lazy.isLoaded(0));
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.LazySpreadsheet#defaultMaxLoadedBytes()}.
+   */
+  @Test
+  public void testDefaultMaxLoadedBytes() {
+    final long bound = LazySpreadsheet.defaultMaxLoadedBytes();
+    assertTrue(bound > 0);
+    if (!ManagementFactory.getRuntimeMXBean().getInputArguments().toString()
+        .contains("MaxDirectMemorySize")) {
+      // the direct memory defaults to the maximum heap size
+      assertEquals(Runtime.getRuntime().maxMemory() / 2, bound);
+    }
+  }
+}
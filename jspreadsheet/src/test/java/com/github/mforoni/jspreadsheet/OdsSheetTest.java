@@ -8,13 +8,17 @@ import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
 import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.BitSet;
 import org.joda.time.LocalDate;
+import org.jopendocument.dom.spreadsheet.SpreadSheet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -379,6 +383,123 @@ public class OdsSheetTest {
     }
   }
 
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.OccupancyBitmap#set(int, int)}.
+   */
+  @Test
+  public void testOccupancyBitmapUpdate() {
+    final Sheet sheet = new OdsSheet(SpreadSheet.create(1, 1, 1).getSheet(0));
+    assertEquals(0, sheet.getLastRow());
+    sheet.setString(3, 4, "Abel");
+    assertEquals(4, sheet.getLastRow());
+    assertEquals(5, sheet.getLastColumn(3));
+    assertEquals(0, sheet.getLastColumn(0));
+    sheet.setDouble(5, 1, 3.5);
+    assertEquals(6, sheet.getLastRow());
+    assertEquals(2, sheet.getLastColumn(5));
+    assertEquals("Abel", sheet.getString(3, 4));
+    assertNull(sheet.getObject(3, 3));
+    assertNull(sheet.getDouble(5, 0));
+    assertEquals(Double.valueOf(3.5), sheet.getDouble(5, 1));
+    try (final RowCursor cursor = sheet.rowCursor()) {
+      assertTrue(cursor.next());
+      assertEquals(3, cursor.getRowIndex());
+      assertEquals("Abel", cursor.getString(4));
+      assertTrue(cursor.next());
+      assertEquals(5, cursor.getRowIndex());
+      assertEquals(Double.valueOf(3.5), cursor.getDouble(1));
+      assertFalse(cursor.next());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.OdsSheet#rowCursor()}.
+   * 
+   * @throws IOException
+   * @throws FileNotFoundException
+   */
+  @Test
+  public void testRowCursor() throws FileNotFoundException, IOException {
+    try (final OdsSpreadsheet spreadsheet = OdsSpreadsheet.open(JFiles.fromResource(RATINGS_ODS))) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      int rows = 0;
+      try (final RowCursor cursor = sheet.rowCursor()) {
+        while (cursor.next()) {
+          final int r = cursor.getRowIndex();
+          assertEquals(rows++, r);
+          for (int c = 0; c < sheet.getColumns(); c++) {
+            assertEquals(sheet.getObject(r, c), cursor.getObject(c));
+          }
+          if (r == 1) {
+            assertArrayEquals(EXPECTED_ROW_1, cursor.getRow());
+            assertEquals("Abel", cursor.getString(0));
+            assertEquals(Double.valueOf(3.5), cursor.getDouble(7));
+            assertEquals(new LocalDate(2017, 2, 2).toDate(), cursor.getDate(8));
+            assertEquals(Boolean.TRUE, cursor.getBoolean(9));
+          } else if (r == 5) {
+            assertEquals(1, cursor.getLastColumn());
+            assertNull(cursor.getDouble(1));
+          }
+        }
+      }
+      assertEquals(HEROES_EXPECTED_ROWS, rows);
+      try (final RowCursor cursor = spreadsheet.getSheet(SHEET1).rowCursor()) {
+        assertFalse(cursor.next());
+      }
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.AbstractSheet#readDoubleColumn(int, int, int, double[], java.util.BitSet)}.
+   * 
+   * @throws IOException
+   * @throws FileNotFoundException
+   */
+  @Test
+  public void testReadDoubleColumn() throws FileNotFoundException, IOException {
+    try (final OdsSpreadsheet spreadsheet = OdsSpreadsheet.open(JFiles.fromResource(RATINGS_ODS))) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      // reads past the last row
+      final int toRow = HEROES_EXPECTED_ROWS + 5;
+      final double[] values = new double[toRow];
+      final BitSet nulls = new BitSet();
+      for (final int c : new int[] {1, 6, 7}) {
+        final int count = sheet.readDoubleColumn(c, 1, toRow, values, nulls);
+        int expectedCount = 0;
+        for (int r = 1; r < toRow; r++) {
+          final Double expected = r < HEROES_EXPECTED_ROWS ? sheet.getDouble(r, c) : null;
+          assertEquals(expected == null, nulls.get(r - 1));
+          if (expected != null) {
+            assertEquals(expected, values[r - 1], 0);
+            expectedCount++;
+          }
+        }
+        assertEquals(expectedCount, count);
+      }
+      assertEquals(3.5, values[0], 0);
+      final long[] longs = new long[HEROES_EXPECTED_ROWS];
+      sheet.readLongColumn(1, 1, HEROES_EXPECTED_ROWS, longs, nulls);
+      assertEquals(39, longs[0]);
+      assertTrue(nulls.get(4));
+      try {
+        // the name of the heroes
+        sheet.readDoubleColumn(0, 0, HEROES_EXPECTED_ROWS, values, nulls);
+        fail();
+      } catch (final IllegalStateException e) {
+        assertEquals("Cannot retrieve a double value from cell [0, 0] having type String",
+            e.getMessage());
+      }
+      try {
+        sheet.readLongColumn(7, 1, HEROES_EXPECTED_ROWS, longs, nulls);
+        fail();
+      } catch (final IllegalStateException e) {
+        assertEquals("Cannot retrieve a long value from cell [1, 7] having value 3.5",
+            e.getMessage());
+      }
+    }
+  }
+
   /**
    * Test method for {@link com.github.mforoni.jspreadsheet.AbstractSheet#setAutoSize()}.
    */
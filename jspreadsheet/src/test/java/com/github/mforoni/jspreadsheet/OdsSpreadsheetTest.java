@@ -4,20 +4,26 @@
 package com.github.mforoni.jspreadsheet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import org.joda.time.LocalDate;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import com.github.mforoni.jbasic.io.JFiles;
 import com.github.mforoni.jspreadsheet.OdsSpreadsheet;
 import com.github.mforoni.jspreadsheet.Sheet;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
 
 /**
  * @author Foroni Marco
@@ -33,6 +39,7 @@ public class OdsSpreadsheetTest {
 	static final Path OUTPUT_DIR = Paths.get("output", "test");
 	private static final String CREATE_ODS = "Create.ods";
 	private static final Path OUTPUT_FILEPATH = Paths.get(OUTPUT_DIR.toString(), CREATE_ODS);
+	private static final Path STREAMING_ODS_PATH = Paths.get(OUTPUT_DIR.toString(), "Streaming.ods");
 
 	/**
 	 * @throws java.lang.Exception
@@ -191,6 +198,97 @@ public class OdsSpreadsheetTest {
 		assertTrue(OUTPUT_FILEPATH.toFile().exists());
 	}
 
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#createStreaming(java.io.File)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCreateStreaming() throws IOException {
+    Files.deleteIfExists(STREAMING_ODS_PATH);
+    final int rows = 1000;
+    final SSCellFormat bold = new SSCellFormat(SSFont.BOLD_ARIAL_10, SSColor.YELLOW);
+    try (final Spreadsheet spreadsheet = Spreadsheets.createStreaming(STREAMING_ODS_PATH.toFile())) {
+      final Sheet heroes = spreadsheet.addSheet(HEROES);
+      heroes.setRow(0, new Object[] {"Hero", "HP", "Date", "In Barracks"}, bold);
+      for (int r = 1; r < rows; r++) {
+        if (r % 10 != 0) {
+          heroes.setRow(r, new Object[] {"Hero  " + r, r * 1.5, new LocalDate(2017, 2, 2).toDate(), null});
+        }
+      }
+      heroes.setBoolean(rows - 1, 3, true);
+      try {
+        heroes.setString(1, 0, "Abel");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(String.format("Cannot write row 1 of sheet %s: the rows up to %d have already been written",
+            HEROES, rows - 2), e.getMessage());
+      }
+      spreadsheet.addSheet(SHEET1);
+      try {
+        heroes.setString(rows, 0, "Anna");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertNotNull(e.getMessage());
+      }
+      spreadsheet.write();
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(STREAMING_ODS_PATH.toFile(), API.SIMPLE_ODF)) {
+      assertEquals(EXPECTED_SHEET_NUMBER, spreadsheet.getSheetNames().size());
+      final Sheet heroes = spreadsheet.getSheet(HEROES);
+      assertEquals(rows, heroes.getRows());
+      assertEquals("Hero", heroes.getString(0, 0));
+      assertEquals("Hero  1", heroes.getString(1, 0));
+      assertEquals(Double.valueOf(1.5), heroes.getDouble(1, 1));
+      assertEquals(new LocalDate(2017, 2, 2).toDate(), heroes.getDate(1, 2));
+      assertEquals(null, heroes.getObject(10, 0));
+      assertEquals(Boolean.TRUE, heroes.getBoolean(rows - 1, 3));
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(STREAMING_ODS_PATH.toFile(), API.STREAMING_ODS)) {
+      final Sheet heroes = spreadsheet.getSheet(HEROES);
+      assertEquals(rows, heroes.getLastRow());
+      assertEquals(new BigDecimal("16.5"), heroes.getObject(11, 1));
+      assertEquals(null, heroes.getObject(20, 1));
+      assertEquals(1, spreadsheet.getSheet(SHEET1).getRows());
+    }
+  }
+
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#createStreaming(java.io.File)}
+	 * when a row is wider than the first one.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCreateStreamingWiderRows() throws IOException {
+		final Path path = Paths.get(OUTPUT_DIR.toString(), "StreamingWide.ods");
+		Files.deleteIfExists(path);
+		try (final Spreadsheet spreadsheet = Spreadsheets.createStreaming(path.toFile())) {
+			final Sheet sheet = spreadsheet.addSheet(SHEET1);
+			sheet.setString(0, 0, "Title");
+			sheet.setRow(1, new Object[] {"a", "b", "c", "d"});
+			sheet.setRow(3, new Object[] {1.0, null, 3.0, null, null, 6.0});
+			spreadsheet.write();
+		}
+		for (final API api : new API[] {API.SIMPLE_ODF, API.STREAMING_ODS}) {
+			try (final Spreadsheet spreadsheet = Spreadsheets.open(path.toFile(), api)) {
+				final Sheet sheet = spreadsheet.getSheet(SHEET1);
+				assertEquals(api.name(), "Title", sheet.getString(0, 0));
+				assertEquals(api.name(), "d", sheet.getString(1, 3));
+				assertEquals(api.name(), Double.valueOf(6), sheet.getDouble(3, 5));
+				assertEquals(api.name(), null, sheet.getObject(2, 0));
+			}
+		}
+		try (final Spreadsheet spreadsheet = Spreadsheets.open(path.toFile(), API.SIMPLE_ODF)) {
+			assertEquals(6, spreadsheet.getSheet(SHEET1).getColumns());
+		}
+		// the temporary files of the rows are deleted
+		try (final DirectoryStream<Path> temporary =
+				Files.newDirectoryStream(OUTPUT_DIR, "StreamingWide.ods*.tmp")) {
+			assertFalse(temporary.iterator().hasNext());
+		}
+	}
+
 	/**
 	 * Test method for {@link com.github.mforoni.jspreadsheet.OdsSpreadsheet#close()}.
 	 */
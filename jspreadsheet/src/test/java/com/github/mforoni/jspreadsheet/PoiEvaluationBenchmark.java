@@ -0,0 +1,82 @@
+package com.github.mforoni.jspreadsheet;
+
+import java.io.IOException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Measures the cells read per second by {@link PoiSheet#getObject(int, int)} and
+ * {@link PoiSheet#getRawValue(int, int)} through the shared {@link PoiEvaluationContext}, compared
+ * with the creation of a {@link FormulaEvaluator} and a {@link DataFormatter} for each cell.
+ * <p>
+ * This class is not run by the build, launch it with its {@code main} method.
+ *
+ * @author Foroni Marco
+ */
+public final class PoiEvaluationBenchmark {
+  private static final int ROWS = 2_000;
+  private static final int COLUMNS = 10;
+  private static final int ITERATIONS = 15;
+
+  private PoiEvaluationBenchmark() {
+    throw new AssertionError();
+  }
+
+  public static void main(final String[] args) throws IOException {
+    try (final XSSFWorkbook workbook = new XSSFWorkbook()) {
+      final org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.createSheet("Benchmark");
+      for (int r = 0; r < ROWS; r++) {
+        final Row row = poiSheet.createRow(r);
+        for (int c = 0; c < COLUMNS - 1; c++) {
+          row.createCell(c).setCellValue(r * COLUMNS + c);
+        }
+        row.createCell(COLUMNS - 1).setCellFormula(String.format("SUM(A%d:I%d)", r + 1, r + 1));
+      }
+      for (int i = 0; i < ITERATIONS; i++) {
+        final long before = perCellEvaluator(poiSheet, workbook);
+        final Sheet sheet = new PoiSheet(poiSheet, new PoiEvaluationContext(workbook),
+            new PoiStylePool(workbook), false);
+        final long cold = sharedContext(sheet);
+        final long warm = sharedContext(sheet);
+        System.out.printf(
+            "iteration %d: per-cell evaluator %,d cells/s, shared context %,d cells/s (cached %,d cells/s)%n",
+            i + 1, cellsPerSecond(before), cellsPerSecond(cold), cellsPerSecond(warm));
+      }
+    }
+  }
+
+  /**
+   * Reads the cells as done before the introduction of {@link PoiEvaluationContext}.
+   */
+  private static long perCellEvaluator(final org.apache.poi.ss.usermodel.Sheet sheet,
+      final XSSFWorkbook workbook) {
+    final long start = System.nanoTime();
+    for (int r = 0; r < ROWS; r++) {
+      for (int c = 0; c < COLUMNS; c++) {
+        final Cell cell = sheet.getRow(r).getCell(c);
+        final FormulaEvaluator evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        evaluator.evaluate(cell);
+        new DataFormatter().formatCellValue(cell);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long sharedContext(final Sheet sheet) {
+    final long start = System.nanoTime();
+    for (int r = 0; r < ROWS; r++) {
+      for (int c = 0; c < COLUMNS; c++) {
+        sheet.getObject(r, c);
+        sheet.getRawValue(r, c);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long cellsPerSecond(final long nanos) {
+    return (long) ROWS * COLUMNS * 1_000_000_000L / nanos;
+  }
+}
@@ -10,11 +10,16 @@ import static com.github.mforoni.jspreadsheet.OdsSheetTest.SHEET1_EXPECTED_ROWS;
 import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
 import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
 import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.BitSet;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.joda.time.LocalDate;
 import org.junit.After;
 import org.junit.Before;
@@ -42,11 +47,35 @@ public class PoiSheetTest {
 
 	/**
 	 * Test method for
-	 * {@link com.github.mforoni.jspreadsheet.PoiSheet#PoiSheet(org.apache.poi.ss.usermodel.Sheet, org.apache.poi.ss.usermodel.Workbook, boolean)}.
+	 * {@link com.github.mforoni.jspreadsheet.PoiSheet#PoiSheet(org.apache.poi.ss.usermodel.Sheet, com.github.mforoni.jspreadsheet.PoiEvaluationContext, com.github.mforoni.jspreadsheet.PoiStylePool, boolean)}.
 	 */
 	@Test
 	public void testPoiSheet() {}
 
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiEvaluationContext#invalidate(org.apache.poi.ss.usermodel.Cell)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testEvaluationContextInvalidation() throws IOException {
+		try (final XSSFWorkbook workbook = new XSSFWorkbook()) {
+			final org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.createSheet(HEROES);
+			final Row row = poiSheet.createRow(0);
+			row.createCell(0).setCellValue(1.0);
+			row.createCell(1).setCellFormula("A1*2");
+			final Sheet sheet = new PoiSheet(poiSheet, new PoiEvaluationContext(workbook),
+					new PoiStylePool(workbook), true);
+			assertEquals(1.0, sheet.getObject(0, 0));
+			assertEquals(2.0, sheet.getObject(0, 1));
+			sheet.setDouble(0, 0, 5.0);
+			assertEquals(5.0, sheet.getObject(0, 0));
+			assertEquals(10.0, sheet.getObject(0, 1));
+			sheet.setDate(0, 0, new LocalDate(2017, 2, 2).toDate());
+			assertEquals(new LocalDate(2017, 2, 2).toDate(), sheet.getObject(0, 0));
+		}
+	}
+
 	/**
 	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiSheet#getName()}.
 	 * 
@@ -339,6 +368,104 @@ public class PoiSheetTest {
 		// TODO
 	}
 
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.DimensionIndex#include(int, int)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testDimensionIndexUpdate() throws IOException {
+		try (final XSSFWorkbook workbook = new XSSFWorkbook()) {
+			final Sheet sheet = new PoiSheet(workbook.createSheet(HEROES), new PoiEvaluationContext(workbook),
+					new PoiStylePool(workbook), true);
+			assertEquals(0, sheet.getColumns());
+			assertEquals(0, sheet.getLastRow());
+			sheet.setString(3, 4, "Abel");
+			assertEquals(5, sheet.getColumns());
+			assertEquals(4, sheet.getLastRow());
+			assertEquals(5, sheet.getLastColumn(3));
+			assertEquals(0, sheet.getLastColumn(2));
+			sheet.setDouble(1, 6, 3.5);
+			assertEquals(7, sheet.getColumns());
+			assertEquals(4, sheet.getLastRow());
+			assertEquals(7, sheet.getLastColumn(1));
+		}
+	}
+
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiSheet#rowCursor()}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testRowCursor() throws IOException {
+		try (final PoiSpreadsheet spreadsheet = PoiSpreadsheet.open(JFiles.fromResource(RATINGS_XLSX))) {
+			final Sheet sheet = spreadsheet.getSheet(HEROES);
+			int expectedRow = 0;
+			try (final RowCursor cursor = sheet.rowCursor()) {
+				while (cursor.next()) {
+					final int r = cursor.getRowIndex();
+					assertEquals(expectedRow++, r);
+					for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+						assertEquals(sheet.getObject(r, c), cursor.getObject(c));
+					}
+				}
+			}
+			assertEquals(HEROES_EXPECTED_ROWS, expectedRow);
+		}
+	}
+
+	/**
+	 * Test method for
+	 * {@link com.github.mforoni.jspreadsheet.PoiSheet#readDoubleColumn(int, int, int, double[], java.util.BitSet)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testReadDoubleColumn() throws IOException {
+		try (final XSSFWorkbook workbook = new XSSFWorkbook()) {
+			final org.apache.poi.ss.usermodel.Sheet poiSheet = workbook.createSheet(HEROES);
+			final Sheet sheet = new PoiSheet(poiSheet, new PoiEvaluationContext(workbook),
+					new PoiStylePool(workbook), true);
+			sheet.setString(0, 0, "HP");
+			sheet.setDouble(1, 0, 39.0);
+			sheet.setDouble(3, 0, 154.0);
+			poiSheet.getRow(3).createCell(1);
+			poiSheet.createRow(4).createCell(0).setCellFormula("A2+A4");
+			final double[] values = new double[8];
+			final BitSet nulls = new BitSet();
+			assertEquals(3, sheet.readDoubleColumn(0, 1, 8, values, nulls));
+			assertArrayEquals(new double[] {39, 0, 154, 193, 0, 0, 0, 0}, values, 0);
+			assertEquals("{1, 4, 5, 6}", nulls.toString());
+			assertEquals(0, sheet.readDoubleColumn(1, 0, 8, values, nulls));
+			assertEquals(8, nulls.cardinality());
+			final long[] longs = new long[4];
+			assertEquals(3, sheet.readLongColumn(0, 1, 5, longs, nulls));
+			assertArrayEquals(new long[] {39, 0, 154, 193}, longs);
+			try {
+				sheet.readLongColumn(0, 0, 5, longs, nulls);
+				fail();
+			} catch (final IndexOutOfBoundsException e) {
+				// 5 rows do not fit into 4 values
+			}
+			try {
+				sheet.readDoubleColumn(0, 0, 5, values, nulls);
+				fail();
+			} catch (final IllegalStateException e) {
+				assertEquals("Cannot retrieve a double value from cell [0, 0] having type String",
+						e.getMessage());
+			}
+			sheet.setDate(5, 0, new LocalDate(2018, 1, 1).toDate());
+			try {
+				sheet.readDoubleColumn(0, 1, 8, values, nulls);
+				fail();
+			} catch (final IllegalStateException e) {
+				assertEquals("Cannot retrieve a double value from cell [5, 0] having type Date",
+						e.getMessage());
+			}
+		}
+	}
+
 	/**
 	 * Test method for {@link com.github.mforoni.jspreadsheet.AbstractSheet#add(int, int, java.lang.Double)}.
 	 */
@@ -20,12 +20,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.joda.time.LocalDate;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import com.github.mforoni.jbasic.io.JFiles;
 import com.github.mforoni.jspreadsheet.PoiSpreadsheet;
 import com.github.mforoni.jspreadsheet.Sheet;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.cache.CacheStats;
 
 /**
  * @author Foroni Marco
@@ -35,6 +43,7 @@ public class PoiSpreadsheetTest {
 	static final String RATINGS_XLSX = "Ratings.xlsx";
 	private static final String CREATE_XLSX = "Create.xlsx";
 	private static final Path CREATE_XLSX_PATH = Paths.get(OUTPUT_DIR.toString(), CREATE_XLSX);
+	private static final Path STREAMING_XLSX_PATH = Paths.get(OUTPUT_DIR.toString(), "Streaming.xlsx");
 
 	/**
 	 * @throws java.lang.Exception
@@ -70,6 +79,124 @@ public class PoiSpreadsheetTest {
     }
   }
 
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#createStreaming(java.io.File, int, boolean)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testCreateStreaming() throws IOException {
+    Files.deleteIfExists(STREAMING_XLSX_PATH);
+    final int rows = 1000;
+    try (final Spreadsheet spreadsheet = Spreadsheets.createStreaming(STREAMING_XLSX_PATH.toFile(), 10, true)) {
+      final Sheet sheet = spreadsheet.addSheet(SHEET1);
+      for (int r = 0; r < rows; r++) {
+        sheet.setRow(r, new Object[] {"Row " + r, (double) r, r % 2 == 0});
+      }
+      try {
+        sheet.setString(0, 3, "Flushed");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals(String.format(
+            "Cannot write row 0 of sheet %s: the rows up to %d have already been flushed to disk", SHEET1,
+            rows - 11), e.getMessage());
+      }
+      sheet.setString(rows - 1, 3, "Last");
+      spreadsheet.write();
+    }
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(STREAMING_XLSX_PATH.toFile(), API.STREAMING_XLSX)) {
+      final Sheet sheet = spreadsheet.getSheet(SHEET1);
+      assertEquals(rows, sheet.getRows());
+      assertEquals("Row 0", sheet.getString(0, 0));
+      assertEquals(Double.valueOf(rows - 1), sheet.getDouble(rows - 1, 1));
+      assertEquals("Last", sheet.getString(rows - 1, 3));
+    }
+    try {
+      Spreadsheets.createStreaming(Paths.get(OUTPUT_DIR.toString(), "Streaming.xls").toFile());
+      fail("Exception not thrown");
+    } catch (final IllegalArgumentException e) {
+      assertNotNull(e.getMessage());
+    }
+  }
+
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#getStyleCacheStats(Spreadsheet)}.
+	 * 
+	 * @throws IOException
+	 */
+	@Test
+	public void testStyleCache() throws IOException {
+		final Path path = Paths.get(OUTPUT_DIR.toString(), "Styles.xlsx");
+		Files.deleteIfExists(path);
+		final int rows = 1000;
+		final SSFont font = new SSFont.Builder(SSFont.ARIAL, 10).bold().build();
+		try (final Spreadsheet spreadsheet = Spreadsheets.create(path.toFile())) {
+			final Sheet sheet = spreadsheet.addSheet(SHEET1);
+			for (int r = 0; r < rows; r++) {
+				sheet.setString(r, 0, "Row " + r, new SSCellFormat(font, SSColor.YELLOW));
+				sheet.setDouble(r, 1, (double) r, new SSCellFormat(SSFont.BOLD_ARIAL_10, SSColor.RED));
+				sheet.setDate(r, 2, new LocalDate(2017, 2, 2).toDate());
+				sheet.setDate(r, 3, new LocalDate(2017, 2, 2).toDate(), new SSCellFormat(font, SSColor.YELLOW));
+			}
+			final CacheStats stats = Spreadsheets.getStyleCacheStats(spreadsheet);
+			// yellow, red, date and yellow date
+			assertEquals(4, stats.missCount());
+			assertEquals(4 * rows - 4, stats.hitCount());
+			spreadsheet.write();
+		}
+		try (final Workbook workbook = WorkbookFactory.create(path.toFile(), null, true)) {
+			// the default style plus the four shared ones, the default font plus the bold one
+			assertEquals(5, workbook.getNumCellStyles());
+			assertEquals(2, workbook.getNumberOfFonts());
+			final org.apache.poi.ss.usermodel.Sheet sheet = workbook.getSheet(SHEET1);
+			final Row first = sheet.getRow(0);
+			for (int r = 1; r < rows; r++) {
+				for (int c = 0; c < 4; c++) {
+					assertEquals(first.getCell(c).getCellStyle().getIndex(),
+							sheet.getRow(r).getCell(c).getCellStyle().getIndex());
+				}
+			}
+			// the styles having a different fill or data format share the same Font
+			final CellStyle yellow = first.getCell(0).getCellStyle();
+			final CellStyle yellowDate = first.getCell(3).getCellStyle();
+			assertEquals(yellow.getFontIndex(), first.getCell(1).getCellStyle().getFontIndex());
+			assertEquals(yellow.getFontIndex(), yellowDate.getFontIndex());
+			assertEquals(PoiStylePool.DATE_FORMAT, yellowDate.getDataFormatString());
+			assertEquals(PoiStylePool.DATE_FORMAT, first.getCell(2).getCellStyle().getDataFormatString());
+		} catch (final InvalidFormatException e) {
+			throw new IOException(e);
+		}
+		try (final Spreadsheet spreadsheet = Spreadsheets.open(path.toFile())) {
+			assertEquals(new LocalDate(2017, 2, 2).toDate(), spreadsheet.getSheet(SHEET1).getObject(rows - 1, 3));
+		}
+	}
+
+	/**
+	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiSheet#setString(int, int, String, SSCellFormat)}
+	 * with a fractional font size.
+	 * 
+	 * @throws IOException
+	 * @throws InvalidFormatException
+	 */
+	@Test
+	public void testFractionalFontSize() throws IOException, InvalidFormatException {
+		final Path path = Paths.get(OUTPUT_DIR.toString(), "FontSize.xlsx");
+		Files.deleteIfExists(path);
+		try (final Spreadsheet spreadsheet = Spreadsheets.create(path.toFile())) {
+			final Sheet sheet = spreadsheet.addSheet(SHEET1);
+			sheet.setString(0, 0, "10.5", new SSCellFormat(new SSFont(SSFont.ARIAL, 10.5), SSColor.YELLOW));
+			sheet.setString(1, 0, "10", new SSCellFormat(new SSFont(SSFont.ARIAL, 10), SSColor.YELLOW));
+			spreadsheet.write();
+		}
+		try (final Workbook workbook = WorkbookFactory.create(path.toFile(), null, true)) {
+			final org.apache.poi.ss.usermodel.Sheet sheet = workbook.getSheet(SHEET1);
+			assertEquals(210, workbook.getFontAt(sheet.getRow(0).getCell(0).getCellStyle().getFontIndex())
+					.getFontHeight());
+			assertEquals(200, workbook.getFontAt(sheet.getRow(1).getCell(0).getCellStyle().getFontIndex())
+					.getFontHeight());
+		}
+	}
+
 	/**
 	 * Test method for {@link com.github.mforoni.jspreadsheet.PoiSpreadsheet#edit(java.io.File)}.
 	 * 
@@ -0,0 +1,79 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.BitSet;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+
+/**
+ * @author Foroni Marco
+ */
+public class SheetTableTest {
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.SheetTable#load(Sheet)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testLoad() throws IOException {
+    for (final String resource : new String[] {RATINGS_ODS, RATINGS_XLSX}) {
+      final File file = JFiles.fromResource(resource);
+      final Object[][] expected = new Object[HEROES_EXPECTED_ROWS][HEROES_EXPECTED_COLUMNS];
+      final SheetTable table;
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+        final Sheet sheet = spreadsheet.getSheet(HEROES);
+        for (int r = 0; r < HEROES_EXPECTED_ROWS; r++) {
+          for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+            final Object value = sheet.getObject(r, c);
+            expected[r][c] =
+                value instanceof BigDecimal ? ((BigDecimal) value).doubleValue() : value;
+          }
+        }
+        table = SheetTable.load(sheet);
+        assertEquals(0, SheetTable.load(spreadsheet.getSheet(SHEET1)).getRows());
+      }
+      assertEquals(HEROES, table.getName());
+      assertEquals(HEROES_EXPECTED_ROWS, table.getRows());
+      assertEquals(HEROES_EXPECTED_COLUMNS, table.getColumns());
+      assertTrue(table.getOffHeapSize() > 0);
+      for (int r = 0; r < HEROES_EXPECTED_ROWS; r++) {
+        for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+          assertEquals(expected[r][c], table.getObject(r, c));
+        }
+      }
+      assertEquals("Abel", table.getString(1, 0));
+      assertEquals(Double.valueOf(3.5), table.getDouble(1, 7));
+      assertEquals(new LocalDate(2017, 2, 2).toDate(), table.getDate(1, 8));
+      assertEquals(Boolean.TRUE, table.getBoolean(1, 9));
+      assertTrue(table.isEmpty(5, 1));
+      assertNull(table.getDouble(5, 1));
+      assertNull(table.getObject(HEROES_EXPECTED_ROWS + 10, HEROES_EXPECTED_COLUMNS + 10));
+      final double[] values = new double[HEROES_EXPECTED_ROWS];
+      final BitSet nulls = new BitSet();
+      table.readDoubleColumn(7, 1, HEROES_EXPECTED_ROWS, values, nulls);
+      assertEquals(3.5, values[0], 0);
+      assertTrue(nulls.get(4));
+      try {
+        table.getDouble(1, 0);
+        fail();
+      } catch (final IllegalStateException e) {
+        assertEquals("Cannot retrieve a double value from cell [1, 0] having type String",
+            e.getMessage());
+      }
+    }
+  }
+}
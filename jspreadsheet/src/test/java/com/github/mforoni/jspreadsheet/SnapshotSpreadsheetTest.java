@@ -0,0 +1,194 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+
+/**
+ * @author Foroni Marco
+ */
+public class SnapshotSpreadsheetTest {
+  private static final Path SNAPSHOT_DIR = Paths.get(OUTPUT_DIR.toString(), "snapshots");
+  private static final Path SOURCE_PATH = Paths.get(OUTPUT_DIR.toString(), "Snapshot.xlsx");
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#openSnapshot(File, File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenSnapshot() throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    Files.copy(JFiles.fromResource(RATINGS_XLSX).toPath(), SOURCE_PATH,
+        StandardCopyOption.REPLACE_EXISTING);
+    final File source = SOURCE_PATH.toFile();
+    deleteSnapshots();
+    assertSnapshot(source);
+    final File[] snapshots = SNAPSHOT_DIR.toFile().listFiles();
+    assertEquals(1, snapshots.length);
+    final long written = snapshots[0].lastModified();
+    // reused as long as the source does not change
+    snapshots[0].setLastModified(written - 10_000);
+    assertSnapshot(source);
+    assertEquals(written - 10_000, snapshots[0].lastModified());
+    // replaced when the source is modified
+    source.setLastModified(source.lastModified() - 10_000);
+    assertSnapshot(source);
+    assertTrue(snapshots[0].lastModified() != written - 10_000);
+    // replaced when corrupted
+    try (final FileChannel channel =
+        FileChannel.open(snapshots[0].toPath(), StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() / 2);
+    }
+    assertSnapshot(source);
+    assertEquals(1, SNAPSHOT_DIR.toFile().listFiles().length);
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#openSnapshot(File, File, boolean)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpenSnapshotVerifyContent() throws IOException {
+    Files.createDirectories(OUTPUT_DIR);
+    Files.copy(JFiles.fromResource(RATINGS_XLSX).toPath(), SOURCE_PATH,
+        StandardCopyOption.REPLACE_EXISTING);
+    final File source = SOURCE_PATH.toFile();
+    deleteSnapshots();
+    assertSnapshot(source, true);
+    final File[] snapshots = SNAPSHOT_DIR.toFile().listFiles();
+    assertEquals(1, snapshots.length);
+    // overwrites the hash of the content, following the magic, the byte order mark, the number of
+    // sheets, the size and the last modified time
+    try (final FileChannel channel =
+        FileChannel.open(snapshots[0].toPath(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(16), 32);
+    }
+    final long written = snapshots[0].lastModified() - 10_000;
+    snapshots[0].setLastModified(written);
+    // the hash is checked only on request
+    assertSnapshot(source, false);
+    assertEquals(written, snapshots[0].lastModified());
+    assertSnapshot(source, true);
+    assertTrue(snapshots[0].lastModified() != written);
+    assertEquals(1, SNAPSHOT_DIR.toFile().listFiles().length);
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#openParallel(File, java.util.concurrent.ForkJoinPool)}.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testOpenParallel() throws Exception {
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (final String resource : new String[] {RATINGS_XLSX, RATINGS_ODS, RATINGS_XLS}) {
+        final File file = JFiles.fromResource(resource);
+        try (final Spreadsheet expected = Spreadsheets.open(file);
+            final Spreadsheet parallel = Spreadsheets.openParallel(file, pool)) {
+          assertEquals(expected.getSheetNames(), parallel.getSheetNames());
+          final List<Callable<Void>> readers = new ArrayList<>();
+          for (final Sheet sheet : parallel.getSheets()) {
+            final Sheet expectedSheet = expected.getSheet(sheet.getName());
+            assertEquals(expectedSheet.getLastRow(), sheet.getLastRow());
+            for (int r = 0; r < sheet.getLastRow(); r++) {
+              for (int c = 0; c < sheet.getLastColumn(r); c++) {
+                final Object value = expectedSheet.getObject(r, c);
+                assertEquals(value instanceof BigDecimal ? ((BigDecimal) value).doubleValue()
+                    : value, sheet.getObject(r, c));
+              }
+            }
+            // the sheets are safe to read from many threads
+            readers.add(new Callable<Void>() {
+              @Override
+              public Void call() {
+                try (final RowCursor cursor = sheet.rowCursor()) {
+                  while (cursor.next()) {
+                    cursor.getRow();
+                  }
+                }
+                return null;
+              }
+            });
+          }
+          for (final Future<Void> future : pool.invokeAll(readers)) {
+            future.get();
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static void assertSnapshot(final File source) throws IOException {
+    assertSnapshot(source, false);
+  }
+
+  private static void assertSnapshot(final File source, final boolean verifyContent)
+      throws IOException {
+    try (final Spreadsheet expected = Spreadsheets.open(source);
+        final Spreadsheet snapshot =
+            Spreadsheets.openSnapshot(source, SNAPSHOT_DIR.toFile(), verifyContent)) {
+      assertEquals(expected.getSheetNames(), snapshot.getSheetNames());
+      final Sheet expectedSheet = expected.getSheet(HEROES);
+      final Sheet sheet = snapshot.getSheet(HEROES);
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getLastRow());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getLastColumn(0));
+      for (int r = 0; r < HEROES_EXPECTED_ROWS; r++) {
+        for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+          assertEquals(expectedSheet.getObject(r, c), sheet.getObject(r, c));
+        }
+      }
+      assertEquals("39", sheet.getRawValue(1, 1));
+      final double[] values = new double[HEROES_EXPECTED_ROWS];
+      sheet.readDoubleColumn(7, 1, HEROES_EXPECTED_ROWS, values, new BitSet());
+      assertEquals(3.5, values[0], 0);
+      try {
+        sheet.setDouble(1, 1, 1.0);
+        fail();
+      } catch (final IllegalStateException e) {
+        assertEquals("Write operation not allowed on file opened in read-only mode.",
+            e.getMessage());
+      }
+    }
+  }
+
+  private static void deleteSnapshots() throws IOException {
+    final File[] snapshots = SNAPSHOT_DIR.toFile().listFiles();
+    if (snapshots != null) {
+      for (final File snapshot : snapshots) {
+        Files.delete(snapshot.toPath());
+      }
+    }
+  }
+}
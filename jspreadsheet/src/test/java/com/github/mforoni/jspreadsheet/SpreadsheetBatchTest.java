@@ -0,0 +1,124 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.google.common.base.Function;
+
+/**
+ * @author Foroni Marco
+ */
+public class SpreadsheetBatchTest {
+  private static final Path BATCH_DIR = Paths.get(OUTPUT_DIR.toString(), "batch");
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.SpreadsheetBatch#process(Path, SpreadsheetBatch.Processor)}.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProcess() throws Exception {
+    Files.createDirectories(BATCH_DIR);
+    for (final String resource : new String[] {RATINGS_XLS, RATINGS_XLSX, RATINGS_ODS}) {
+      Files.copy(JFiles.fromResource(resource).toPath(), BATCH_DIR.resolve(resource),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+    Files.write(BATCH_DIR.resolve("Broken.xlsx"),
+        "not a spreadsheet".getBytes(StandardCharsets.UTF_8));
+    Files.write(BATCH_DIR.resolve("Notes.txt"), "ignored".getBytes(StandardCharsets.UTF_8));
+    final AtomicInteger rows = new AtomicInteger();
+    final AtomicInteger running = new AtomicInteger();
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final SpreadsheetBatch.Processor processor = new SpreadsheetBatch.Processor() {
+      @Override
+      public void process(final Path file, final Spreadsheet spreadsheet) throws Exception {
+        final int current = running.incrementAndGet();
+        try {
+          int max;
+          while ((max = maxRunning.get()) < current && !maxRunning.compareAndSet(max, current)) {
+            // retries until the maximum is updated
+          }
+          // leaves the other thread the time to start a file, if it were admitted
+          Thread.sleep(50);
+          rows.addAndGet(spreadsheet.getSheet(HEROES).getLastRow());
+        } finally {
+          running.decrementAndGet();
+        }
+      }
+    };
+    // a budget smaller than any estimate admits one file at a time
+    final SpreadsheetBatch batch =
+        new SpreadsheetBatch.Builder().threads(2).heapBudget(1).parallelSheetsThreshold(0).build();
+    final SpreadsheetBatch.Report report = batch.process(BATCH_DIR, processor);
+    final List<SpreadsheetBatch.Result> results = report.getResults();
+    assertEquals(4, results.size());
+    assertEquals("Broken.xlsx", results.get(0).getFile().getFileName().toString());
+    assertFalse(results.get(0).isSuccess());
+    assertNotNull(results.get(0).getFailure());
+    assertEquals(1, report.getFailures().size());
+    for (final SpreadsheetBatch.Result result : results.subList(1, results.size())) {
+      assertTrue(result.toString(), result.isSuccess());
+      assertTrue(result.isParallelSheets());
+      assertTrue(result.getElapsedMillis() >= 0);
+      assertTrue(result.getEstimatedHeap() > 0);
+    }
+    assertEquals(3 * OdsSheetTest.HEROES_EXPECTED_ROWS, rows.get());
+    // the budget admits one file at a time although two threads are available
+    assertEquals(1, maxRunning.get());
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.SpreadsheetBatch#process(List, SpreadsheetBatch.Processor)}
+   * when the heap estimator fails.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProcessEstimatorFailure() throws Exception {
+    final List<Path> files = Arrays.asList(JFiles.fromResource(RATINGS_XLS).toPath(),
+        JFiles.fromResource(RATINGS_XLSX).toPath());
+    final SpreadsheetBatch batch =
+        new SpreadsheetBatch.Builder().heapEstimator(new Function<Path, Long>() {
+          @Override
+          public Long apply(final Path input) {
+            if (input.getFileName().toString().equals(RATINGS_XLS)) {
+              throw new IllegalStateException("no estimate");
+            }
+            return 1L;
+          }
+        }).build();
+    final AtomicInteger processed = new AtomicInteger();
+    final SpreadsheetBatch.Report report =
+        batch.process(files, new SpreadsheetBatch.Processor() {
+          @Override
+          public void process(final Path file, final Spreadsheet spreadsheet) {
+            processed.incrementAndGet();
+            // the default engines are used below the parallel sheets threshold
+            assertTrue(spreadsheet.getSheet(HEROES).getObject(1, 1) instanceof Double);
+          }
+        });
+    assertEquals(1, processed.get());
+    assertEquals(1, report.getFailures().size());
+    assertEquals("no estimate", report.getResults().get(0).getFailure().getMessage());
+    assertTrue(report.getResults().get(1).isSuccess());
+    assertFalse(report.getResults().get(1).isParallelSheets());
+  }
+}
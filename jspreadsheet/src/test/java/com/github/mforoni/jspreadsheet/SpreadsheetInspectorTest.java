@@ -0,0 +1,83 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import org.jopendocument.dom.spreadsheet.SpreadSheet;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.SpreadsheetMetadata.SheetMetadata;
+
+/**
+ * @author Foroni Marco
+ */
+public class SpreadsheetInspectorTest {
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#inspect(File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testInspect() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLSX, RATINGS_XLS, RATINGS_ODS}) {
+      final File file = JFiles.fromResource(resource);
+      final SpreadsheetMetadata metadata = Spreadsheets.inspect(file);
+      try (final Spreadsheet spreadsheet = Spreadsheets.open(file)) {
+        assertEquals(resource, spreadsheet.getSheetNames(), metadata.getSheetNames());
+      }
+      final SheetMetadata heroes = metadata.getSheets().get(0);
+      assertEquals(HEROES, heroes.getName());
+      assertEquals(resource, HEROES_EXPECTED_ROWS, heroes.getRows());
+      assertEquals(resource, HEROES_EXPECTED_COLUMNS, heroes.getColumns());
+      final SheetMetadata sheet1 = metadata.getSheets().get(1);
+      assertTrue(resource, sheet1.getRows() <= 1 && sheet1.getColumns() <= 1);
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#inspect(File)} on an ODS
+   * sheet having a merged region.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testInspectOdsMerged() throws IOException {
+    java.nio.file.Files.createDirectories(OUTPUT_DIR);
+    final File file = OUTPUT_DIR.resolve("InspectMerged.ods").toFile();
+    final SpreadSheet spreadSheet = SpreadSheet.create(1, 4, 2);
+    final org.jopendocument.dom.spreadsheet.Sheet sheet = spreadSheet.getSheet(0);
+    sheet.getCellAt(0, 0).setValue("merged");
+    sheet.getCellAt(0, 0).merge(3, 1);
+    sheet.getCellAt(3, 0).setValue("last");
+    sheet.getCellAt(0, 1).setValue("below");
+    spreadSheet.saveAs(file);
+    final SheetMetadata metadata = Spreadsheets.inspect(file).getSheets().get(0);
+    assertEquals(2, metadata.getRows());
+    assertEquals(4, metadata.getColumns());
+  }
+
+  @Test
+  public void testInspectCsv() throws IOException {
+    final File file = OUTPUT_DIR.resolve("InspectTest.csv").toFile();
+    java.nio.file.Files.deleteIfExists(file.toPath());
+    try (final Spreadsheet spreadsheet = Spreadsheets.create(file)) {
+      final Sheet sheet = spreadsheet.addSheet("Sheet");
+      sheet.setString(0, 0, "a");
+      sheet.setString(4, 2, "multi\nline");
+      spreadsheet.write();
+    }
+    final SheetMetadata sheet = Spreadsheets.inspect(file).getSheets().get(0);
+    assertEquals("InspectTest", sheet.getName());
+    assertEquals(5, sheet.getRows());
+    assertEquals(3, sheet.getColumns());
+  }
+}
@@ -0,0 +1,158 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.ZipFile;
+import javax.xml.datatype.DatatypeFactory;
+import org.jopendocument.dom.spreadsheet.SpreadSheet;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+import com.google.common.io.ByteStreams;
+
+/**
+ * @author Foroni Marco
+ */
+public class StreamingConverterTest {
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#convert(File, File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testConvert() throws IOException {
+    for (final String resource : new String[] {RATINGS_XLS, RATINGS_XLSX, RATINGS_ODS}) {
+      final File in = JFiles.fromResource(resource);
+      for (final String extension : new String[] {"xlsx", "ods"}) {
+        final File out = new File(OUTPUT_DIR.toFile(), "Converted-" + resource + "." + extension);
+        Files.deleteIfExists(out.toPath());
+        Spreadsheets.convert(in, out);
+        try (final Spreadsheet expected = Spreadsheets.open(in);
+            final Spreadsheet converted = Spreadsheets.open(out)) {
+          assertEquals(expected.getSheetNames(), converted.getSheetNames());
+          final Sheet expectedSheet = expected.getSheet(HEROES);
+          final Sheet sheet = converted.getSheet(HEROES);
+          assertEquals(HEROES_EXPECTED_ROWS, sheet.getLastRow());
+          for (int r = 0; r < HEROES_EXPECTED_ROWS; r++) {
+            for (int c = 0; c < HEROES_EXPECTED_COLUMNS; c++) {
+              assertEquals(toDouble(expectedSheet.getObject(r, c)),
+                  toDouble(sheet.getObject(r, c)));
+            }
+          }
+        }
+        if (extension.equals("ods") && !resource.equals(RATINGS_ODS)) {
+          // the bold header is carried over
+          try (final ZipFile zip = new ZipFile(out)) {
+            final String styles = new String(
+                ByteStreams.toByteArray(zip.getInputStream(zip.getEntry("styles.xml"))),
+                StandardCharsets.UTF_8);
+            assertTrue(styles.contains("fo:font-weight=\"bold\""));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link com.github.mforoni.jspreadsheet.Spreadsheets#convert(File, String, File)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testConvertToCsv() throws IOException {
+    final File out = new File(OUTPUT_DIR.toFile(), "Converted-Heroes.csv");
+    Files.deleteIfExists(out.toPath());
+    Spreadsheets.convert(JFiles.fromResource(RATINGS_XLSX), HEROES, out);
+    final List<String> lines = Files.readAllLines(out.toPath(), StandardCharsets.UTF_8);
+    assertEquals(HEROES_EXPECTED_ROWS, lines.size());
+    assertEquals(HEROES_EXPECTED_COLUMNS - 1, lines.get(0).replaceAll("[^,]", "").length());
+    assertFalse(lines.get(1).contains(".0,"));
+    try {
+      Spreadsheets.convert(JFiles.fromResource(RATINGS_XLSX), HEROES, out);
+      fail();
+    } catch (final IllegalStateException e) {
+      // the existing file is not overwritten
+      assertEquals(HEROES_EXPECTED_ROWS,
+          Files.readAllLines(out.toPath(), StandardCharsets.UTF_8).size());
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#convert(File, File)} on an
+   * ODS sheet holding a time cell.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testConvertTime() throws Exception {
+    Files.createDirectories(OUTPUT_DIR);
+    final File in = new File(OUTPUT_DIR.toFile(), "Time.ods");
+    final SpreadSheet spreadSheet = SpreadSheet.create(1, 2, 1);
+    spreadSheet.getSheet(0).setName("Time");
+    spreadSheet.getSheet(0).getCellAt(0, 0).setValue("start");
+    spreadSheet.getSheet(0).getCellAt(1, 0)
+        .setValue(DatatypeFactory.newInstance().newDuration("PT12H30M15S"));
+    spreadSheet.saveAs(in);
+    for (final String extension : new String[] {"xlsx", "ods", "csv"}) {
+      final File out = new File(OUTPUT_DIR.toFile(), "Converted-Time." + extension);
+      Files.deleteIfExists(out.toPath());
+      Spreadsheets.convert(in, out);
+      try (final Spreadsheet converted = Spreadsheets.open(out)) {
+        final Sheet sheet = converted.getSheet(0);
+        assertEquals(extension, "start", sheet.getString(0, 0));
+        assertEquals(extension, "12:30:15", sheet.getString(0, 1));
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.Spreadsheets#convert(File, File)} from
+   * <i>xls</i> and <i>xlsx</i> sheets having a first row narrower than the following ones.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testConvertNarrowFirstRow() throws IOException {
+    for (final String extension : new String[] {"xls", "xlsx"}) {
+      final File in = new File(OUTPUT_DIR.toFile(), "Narrow." + extension);
+      Files.deleteIfExists(in.toPath());
+      try (final Spreadsheet spreadsheet = Spreadsheets.create(in)) {
+        final Sheet sheet = spreadsheet.addSheet("Narrow");
+        sheet.setString(0, 0, "Title");
+        sheet.setRow(1, new Object[] {"Hero", "HP", "Level", "Mana"});
+        sheet.setRow(2, new Object[] {"Abel", 39.0, 1.0, 12.0});
+        spreadsheet.write();
+      }
+      final File out = new File(OUTPUT_DIR.toFile(), "Converted-Narrow." + extension + ".ods");
+      Files.deleteIfExists(out.toPath());
+      Spreadsheets.convert(in, out);
+      try (final Spreadsheet converted = Spreadsheets.open(out, API.SIMPLE_ODF)) {
+        final Sheet sheet = converted.getSheet("Narrow");
+        assertEquals(extension, 4, sheet.getColumns());
+        assertEquals(extension, "Title", sheet.getString(0, 0));
+        assertEquals(extension, "Mana", sheet.getString(1, 3));
+        assertEquals(extension, Double.valueOf(12), sheet.getDouble(2, 3));
+      }
+    }
+  }
+
+  private static Object toDouble(final Object value) {
+    return value instanceof BigDecimal ? ((BigDecimal) value).doubleValue() : value;
+  }
+}
@@ -0,0 +1,163 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.SHEET1_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.SHEET1_EXPECTED_LAST_ROW;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.SHEET1_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_MSG_INDEX_OUT_OF_RANGE;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_SHEET_NUMBER;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.RATINGS_ODS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+
+/**
+ * @author Foroni Marco
+ */
+public class StreamingOdsSheetTest {
+
+  @Test
+  public void testGetSheetNames() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      assertEquals(EXPECTED_SHEET_NUMBER, spreadsheet.getSheetNames().size());
+      assertEquals(HEROES, spreadsheet.getSheetNames().get(0));
+      assertEquals(SHEET1, spreadsheet.getSheetNames().get(1));
+      try {
+        spreadsheet.getSheet(2);
+        fail("Exception not thrown");
+      } catch (final IllegalArgumentException e) {
+        assertEquals(EXPECTED_MSG_INDEX_OUT_OF_RANGE, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.StreamingOdsSheet#loadAll(List)}.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testLoadAll() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      final List<StreamingOdsSheet> sheets = new ArrayList<>();
+      for (final Sheet sheet : spreadsheet.getSheets()) {
+        sheets.add((StreamingOdsSheet) sheet);
+      }
+      final List<SheetTable> tables = StreamingOdsSheet.loadAll(sheets);
+      assertEquals(sheets.size(), tables.size());
+      for (int i = 0; i < sheets.size(); i++) {
+        final SheetTable expected = SheetTable.load(sheets.get(i));
+        final SheetTable table = tables.get(i);
+        assertEquals(expected.getName(), table.getName());
+        assertEquals(expected.getRows(), table.getRows());
+        assertEquals(expected.getColumns(), table.getColumns());
+        for (int r = 0; r < table.getRows(); r++) {
+          for (int c = 0; c < table.getColumns(); c++) {
+            assertEquals(expected.getObject(r, c), table.getObject(r, c));
+          }
+        }
+      }
+      // the tables before the first sheet are skipped
+      final SheetTable last = StreamingOdsSheet.loadAll(sheets.subList(1, 2)).get(0);
+      assertEquals(SHEET1, last.getName());
+      assertEquals(SHEET1_EXPECTED_LAST_ROW, last.getRows());
+    }
+  }
+
+  @Test
+  public void testDimension() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getRows());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getColumns());
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getLastRow());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getLastColumn(0));
+      assertEquals(1, sheet.getLastColumn(5));
+      sheet = spreadsheet.getSheet(SHEET1);
+      assertEquals(SHEET1_EXPECTED_ROWS, sheet.getRows());
+      assertEquals(SHEET1_EXPECTED_COLUMNS, sheet.getColumns());
+      assertEquals(SHEET1_EXPECTED_LAST_ROW, sheet.getLastRow());
+      assertEquals(0, sheet.getLastColumn(0));
+    }
+  }
+
+  @Test
+  public void testGetRawValue() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals("Abel", sheet.getRawValue(1, 0));
+      assertEquals("39", sheet.getRawValue(1, 1));
+      assertEquals("of:=SUM([.B2:.F2])", sheet.getRawValue(1, 6));
+      assertEquals("3.5", sheet.getRawValue(1, 7));
+      assertEquals("02/02/17", sheet.getRawValue(1, 8));
+      assertEquals("TRUE", sheet.getRawValue(1, 9));
+      assertEquals("Anna", sheet.getRawValue(5, 0));
+      assertEquals("", sheet.getRawValue(5, 1));
+      assertEquals(Double.valueOf(3.5), sheet.getDouble(1, 7));
+    }
+  }
+
+  @Test
+  public void testMatchesOdsSheet() throws IOException {
+    try (final Spreadsheet dom =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.SIMPLE_ODF);
+        final Spreadsheet streaming =
+            Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      final Sheet expected = dom.getSheet(HEROES);
+      final Sheet actual = streaming.getSheet(HEROES);
+      for (int r = 0; r < expected.getRows(); r++) {
+        assertArrayEquals(expected.getRow(r), actual.getRow(r));
+      }
+    }
+  }
+
+  @Test
+  public void testRowCursor() throws IOException {
+    try (final Spreadsheet dom =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.SIMPLE_ODF);
+        final Spreadsheet streaming =
+            Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      final Sheet actual = streaming.getSheet(HEROES);
+      try (final RowCursor expectedCursor = dom.getSheet(HEROES).rowCursor();
+          final RowCursor actualCursor = actual.rowCursor()) {
+        while (expectedCursor.next()) {
+          assertTrue(actualCursor.next());
+          assertEquals(expectedCursor.getRowIndex(), actualCursor.getRowIndex());
+          assertArrayEquals(expectedCursor.getRow(), actualCursor.getRow());
+        }
+        assertFalse(actualCursor.next());
+      }
+      // the cursor does not move the random access reader of the sheet
+      assertEquals("Anna", actual.getString(5, 0));
+    }
+  }
+
+  @Test
+  public void testReadOnly() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_ODS), API.STREAMING_ODS)) {
+      try {
+        spreadsheet.addSheet("Villains");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals("Write operation not allowed on file opened in read-only mode.",
+            e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.github.mforoni.jspreadsheet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * @author Foroni Marco
+ */
+public class StreamingSheetTest {
+
+  /**
+   * A sheet of {@code rows} rows having only the rows multiple of {@code step} physically present,
+   * counting the readers opened.
+   */
+  private static final class SparseSheet extends StreamingSheet {
+    private final int rows;
+    private final int step;
+    private final boolean seekable;
+    private int opened;
+
+    SparseSheet(final int rows, final int step, final boolean seekable) {
+      super("Sparse");
+      this.rows = rows;
+      this.step = step;
+      this.seekable = seekable;
+    }
+
+    @Override
+    RowReader openRowReader() throws IOException {
+      return openRowReader(0);
+    }
+
+    @Override
+    RowReader openRowReader(final int rowIndex) throws IOException {
+      opened++;
+      final int from = seekable ? rowIndex : 0;
+      return new RowReader() {
+        private int next = (from + step - 1) / step * step;
+
+        @Override
+        public boolean next(final RowBuffer buffer) {
+          if (next >= rows) {
+            return false;
+          }
+          buffer.reset(next);
+          buffer.set(0, Double.valueOf(next), null, next, 0);
+          next += step;
+          return true;
+        }
+
+        @Override
+        public void close() {
+          // nothing to release
+        }
+      };
+    }
+
+    @Override
+    boolean isSeekable() {
+      return seekable;
+    }
+
+    @Override
+    String formatRawValue(final RowBuffer row, final int columnIndex) {
+      return String.valueOf(row.getValue(columnIndex));
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.StreamingSheet#moveTo(int)}: the
+   * ascending scan of a sparse sheet never restarts the reader.
+   */
+  @Test
+  public void testSparseScan() {
+    for (final boolean seekable : new boolean[] {false, true}) {
+      final SparseSheet sheet = new SparseSheet(6000, 3, seekable);
+      for (int r = 0; r < 6010; r++) {
+        if (r % 3 == 0 && r < 6000) {
+          assertEquals(Double.valueOf(r), sheet.getObject(r, 0));
+        } else {
+          assertNull(sheet.getObject(r, 0));
+        }
+      }
+      assertEquals(1, sheet.opened);
+      // the absent rows between the previous and the current row are answered without restarting
+      assertEquals(Double.valueOf(3), sheet.getObject(3, 0));
+      assertNull(sheet.getObject(4, 0));
+      assertEquals(Double.valueOf(6), sheet.getObject(6, 0));
+      assertNull(sheet.getObject(5, 0));
+      assertEquals(2, sheet.opened);
+      // a row before the current one restarts the reader
+      assertEquals(Double.valueOf(3), sheet.getObject(3, 0));
+      assertEquals(3, sheet.opened);
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.StreamingSheet#moveTo(int)}: only the
+   * long forward jumps reopen a seekable reader.
+   */
+  @Test
+  public void testSeek() {
+    final SparseSheet sheet = new SparseSheet(6000, 1, true);
+    assertEquals(Double.valueOf(0), sheet.getObject(0, 0));
+    assertEquals(Double.valueOf(StreamingSheet.SEEK_DISTANCE),
+        sheet.getObject(StreamingSheet.SEEK_DISTANCE, 0));
+    assertEquals(1, sheet.opened);
+    assertEquals(Double.valueOf(5000), sheet.getObject(5000, 0));
+    assertEquals(2, sheet.opened);
+    assertEquals(Double.valueOf(4999), sheet.getObject(4999, 0));
+    assertEquals(3, sheet.opened);
+  }
+}
@@ -0,0 +1,248 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.JxlSpreadsheetTest.RATINGS_XLS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_MSG_INDEX_OUT_OF_RANGE;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_SHEET_NUMBER;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.OUTPUT_DIR;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.RecordInputStream;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.SharedFormulaRecord;
+import org.apache.poi.hssf.record.common.UnicodeString;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.formula.ptg.ExpPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+import org.apache.poi.ss.usermodel.Row;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+
+/**
+ * @author Foroni Marco
+ */
+public class StreamingXlsSheetTest {
+
+  @Test
+  public void testGetSheetNames() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS)) {
+      assertEquals(EXPECTED_SHEET_NUMBER, spreadsheet.getSheetNames().size());
+      assertEquals(HEROES, spreadsheet.getSheetNames().get(0));
+      assertEquals(SHEET1, spreadsheet.getSheetNames().get(1));
+      try {
+        spreadsheet.getSheet(2);
+        fail("Exception not thrown");
+      } catch (final IllegalArgumentException e) {
+        assertEquals(EXPECTED_MSG_INDEX_OUT_OF_RANGE, e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testDimension() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getRows());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getColumns());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getLastColumn(0));
+      assertEquals(0, spreadsheet.getSheet(SHEET1).getColumns());
+    }
+  }
+
+  @Test
+  public void testGetObject() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals("Abel", sheet.getObject(1, 0));
+      assertEquals(39D, sheet.getObject(1, 1));
+      assertEquals(154D, sheet.getObject(1, 6));
+      assertEquals(new LocalDate(2017, 2, 2).toDate(), sheet.getObject(1, 8));
+      assertEquals(true, sheet.getObject(1, 9));
+      assertNull(sheet.getObject(5, 1));
+      // reading a previous row restarts the stream
+      assertEquals("Abel", sheet.getString(1, 0));
+    }
+  }
+
+  @Test
+  public void testMatchesPoi() throws IOException {
+    try (final Spreadsheet poi = Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.POI);
+        final Spreadsheet streaming =
+            Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS)) {
+      final Sheet expected = poi.getSheet(HEROES);
+      final Sheet actual = streaming.getSheet(HEROES);
+      assertEquals(expected.getRows(), actual.getRows());
+      for (int r = 0; r < expected.getRows(); r++) {
+        assertArrayEquals(expected.getRow(r), actual.getRow(r));
+        for (int c = 0; c < expected.getColumns(); c++) {
+          assertEquals(expected.getRawValue(r, c), actual.getRawValue(r, c));
+        }
+      }
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.XlsSharedStrings#getString(int)} on a
+   * table spanning several continue records.
+   */
+  @Test
+  public void testSharedStrings() {
+    final SSTRecord sst = new SSTRecord();
+    final List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      final String value = i % 3 == 0 ? "Hero " + i : i % 3 == 1 ? "\u03b1\u03b2\u03b3 " + i
+          : Strings.repeat("x", i % 50) + i;
+      final UnicodeString string = new UnicodeString(value);
+      if (i % 7 == 0) {
+        string.addFormatRun(new UnicodeString.FormatRun((short) 0, (short) 1));
+      }
+      sst.addString(string);
+      expected.add(value);
+    }
+    final RecordInputStream in = new RecordInputStream(new ByteArrayInputStream(sst.serialize()));
+    in.nextRecord();
+    final XlsSharedStrings strings = XlsSharedStrings.read(in);
+    assertFalse(in.hasNextRecord());
+    assertEquals(expected.size(), strings.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i), strings.getString(i));
+    }
+  }
+
+  /**
+   * Test method for {@link com.github.mforoni.jspreadsheet.StreamingXlsSheet#getRawValue(int, int)}
+   * on shared formulas, while other readers of the sheet are opened.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testSharedFormulas() throws IOException {
+    final File file = writeSharedFormulas(10);
+    try (final Spreadsheet spreadsheet = Spreadsheets.open(file, API.STREAMING_XLS)) {
+      final Sheet sheet = spreadsheet.getSheet("Shared");
+      assertEquals("A6*2", sheet.getRawValue(5, 1));
+      // a new reader of the sheet does not affect the shared formulas read by the other ones
+      try (final RowCursor cursor = sheet.rowCursor()) {
+        assertEquals("A7*2", sheet.getRawValue(6, 1));
+        assertEquals(12D, sheet.getObject(6, 1));
+        while (cursor.next()) {
+          assertEquals(cursor.getRowIndex() * 2D, cursor.getObject(1));
+        }
+      }
+      assertEquals("A10*2", sheet.getRawValue(9, 1));
+    }
+  }
+
+  /**
+   * Writes an <i>xls</i> file whose sheet "Shared" holds the numbers of the rows in column A and
+   * the formula <tt>A1*2</tt> in column B, shared by all the rows: POI does not create shared
+   * formulas, so the formula records written by POI are replaced by references to a
+   * {@link SharedFormulaRecord} following the first of them.
+   */
+  private static File writeSharedFormulas(final int rows) throws IOException {
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (final HSSFWorkbook workbook = new HSSFWorkbook()) {
+      final org.apache.poi.ss.usermodel.Sheet sheet = workbook.createSheet("Shared");
+      for (int r = 0; r < rows; r++) {
+        final Row row = sheet.createRow(r);
+        row.createCell(0).setCellValue(r);
+        row.createCell(1).setCellFormula("A" + (r + 1) + "*2");
+      }
+      workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+      workbook.write(bytes);
+    }
+    final NPOIFSFileSystem source =
+        new NPOIFSFileSystem(new ByteArrayInputStream(bytes.toByteArray()));
+    final ByteBuffer in;
+    try (final InputStream stream = source.createDocumentInputStream("Workbook")) {
+      in = ByteBuffer.wrap(ByteStreams.toByteArray(stream)).order(ByteOrder.LITTLE_ENDIAN);
+    } finally {
+      source.close();
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    boolean first = true;
+    while (in.remaining() >= 4) {
+      final byte[] record = new byte[4 + (in.getShort(in.position() + 2) & 0xFFFF)];
+      in.get(record);
+      if ((in.getShort(in.position() - record.length) & 0xFFFF) != FormulaRecord.sid) {
+        out.write(record);
+        continue;
+      }
+      final RecordInputStream formulaIn = new RecordInputStream(new ByteArrayInputStream(record));
+      formulaIn.nextRecord();
+      final FormulaRecord formula = new FormulaRecord(formulaIn);
+      formula.setSharedFormula(true);
+      formula.setParsedExpression(new Ptg[] {new ExpPtg(0, 1)});
+      out.write(formula.serialize());
+      if (first) {
+        // range B1:B{rows}, then the tokens of A1*2 relative to the cell: tRefN (value class) with
+        // relative row offset 0 and column offset -1, tInt 2 and tMul
+        final ByteBuffer shared = ByteBuffer.allocate(25).order(ByteOrder.LITTLE_ENDIAN);
+        shared.putShort(SharedFormulaRecord.sid).putShort((short) 21);
+        shared.putShort((short) 0).putShort((short) (rows - 1)).put((byte) 1).put((byte) 1);
+        shared.put((byte) 0).put((byte) rows).putShort((short) 9);
+        shared.put((byte) 0x4C).putShort((short) 0).putShort((short) 0xC0FF);
+        shared.put((byte) 0x1E).putShort((short) 2).put((byte) 0x05);
+        out.write(shared.array());
+        first = false;
+      }
+    }
+    final File file = OUTPUT_DIR.resolve("SharedFormulas.xls").toFile();
+    Files.createDirectories(OUTPUT_DIR);
+    try (final POIFSFileSystem target = new POIFSFileSystem();
+        final FileOutputStream fos = new FileOutputStream(file)) {
+      target.createDocument(new ByteArrayInputStream(out.toByteArray()), "Workbook");
+      target.writeFilesystem(fos);
+    }
+    return file;
+  }
+
+  @Test
+  public void testReadOnly() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS)) {
+      try {
+        spreadsheet.getSheet(HEROES).setString(0, 0, "Hero");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals("Write operation not allowed on file opened in read-only mode.",
+            e.getMessage());
+      }
+    }
+    try {
+      Spreadsheets.edit(JFiles.fromResource(RATINGS_XLS), API.STREAMING_XLS);
+      fail("Exception not thrown");
+    } catch (final IllegalStateException e) {
+      assertEquals(
+          "API STREAMING_XLS supports only the read-only mode: please use the open method",
+          e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.github.mforoni.jspreadsheet;
+
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_COLUMNS;
+import static com.github.mforoni.jspreadsheet.OdsSheetTest.HEROES_EXPECTED_ROWS;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_MSG_INDEX_OUT_OF_RANGE;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.EXPECTED_SHEET_NUMBER;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.HEROES;
+import static com.github.mforoni.jspreadsheet.OdsSpreadsheetTest.SHEET1;
+import static com.github.mforoni.jspreadsheet.PoiSpreadsheetTest.RATINGS_XLSX;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import com.github.mforoni.jbasic.io.JFiles;
+import com.github.mforoni.jspreadsheet.Spreadsheets.API;
+
+/**
+ * @author Foroni Marco
+ */
+public class StreamingXlsxSheetTest {
+
+  @Test
+  public void testGetSheetNames() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      assertEquals(EXPECTED_SHEET_NUMBER, spreadsheet.getSheetNames().size());
+      assertEquals(HEROES, spreadsheet.getSheetNames().get(0));
+      assertEquals(SHEET1, spreadsheet.getSheetNames().get(1));
+      try {
+        spreadsheet.getSheet(2);
+        fail("Exception not thrown");
+      } catch (final IllegalArgumentException e) {
+        assertEquals(EXPECTED_MSG_INDEX_OUT_OF_RANGE, e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testDimension() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getRows());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getColumns());
+      assertEquals(HEROES_EXPECTED_ROWS, sheet.getLastRow());
+      assertEquals(HEROES_EXPECTED_COLUMNS, sheet.getLastColumn(0));
+      assertEquals(1, sheet.getLastColumn(5));
+      assertEquals(0, spreadsheet.getSheet(SHEET1).getColumns());
+    }
+  }
+
+  @Test
+  public void testGetObject() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals("Abel", sheet.getObject(1, 0));
+      assertEquals(39D, sheet.getObject(1, 1));
+      assertEquals(154D, sheet.getObject(1, 6));
+      assertEquals(3.5D, sheet.getObject(1, 7));
+      assertEquals(new LocalDate(2017, 2, 2).toDate(), sheet.getObject(1, 8));
+      assertEquals(true, sheet.getObject(1, 9));
+      assertEquals("Anna", sheet.getObject(5, 0));
+      assertNull(sheet.getObject(5, 1));
+      assertNull(sheet.getObject(5, 9));
+      // reading a previous row restarts the stream
+      assertEquals("Abel", sheet.getString(1, 0));
+      assertEquals(Double.valueOf(39), sheet.getDouble(1, 1));
+      assertEquals(Boolean.TRUE, sheet.getBoolean(1, 9));
+    }
+  }
+
+  @Test
+  public void testGetRawValue() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      final Sheet sheet = spreadsheet.getSheet(HEROES);
+      assertEquals("Abel", sheet.getRawValue(1, 0));
+      assertEquals("39", sheet.getRawValue(1, 1));
+      assertEquals("SUM(B2:F2)", sheet.getRawValue(1, 6));
+      assertEquals("3.5", sheet.getRawValue(1, 7));
+      assertEquals("2-Feb-17", sheet.getRawValue(1, 8));
+      assertEquals("true", sheet.getRawValue(1, 9));
+      assertEquals("", sheet.getRawValue(5, 1));
+    }
+  }
+
+  @Test
+  public void testGetRowMatchesPoi() throws IOException {
+    try (final Spreadsheet poi = Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.POI);
+        final Spreadsheet streaming =
+            Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      final Sheet expected = poi.getSheet(HEROES);
+      final Sheet actual = streaming.getSheet(HEROES);
+      for (int r = 0; r < expected.getRows(); r++) {
+        assertArrayEquals(expected.getRow(r), actual.getRow(r));
+      }
+    }
+  }
+
+  @Test
+  public void testReadOnly() throws IOException {
+    try (final Spreadsheet spreadsheet =
+        Spreadsheets.open(JFiles.fromResource(RATINGS_XLSX), API.STREAMING_XLSX)) {
+      try {
+        spreadsheet.getSheet(HEROES).setString(0, 0, "Hero");
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals("Write operation not allowed on file opened in read-only mode.",
+            e.getMessage());
+      }
+      try {
+        spreadsheet.getSheet(HEROES).getString(1, 1);
+        fail("Exception not thrown");
+      } catch (final IllegalStateException e) {
+        assertEquals("Cannot retrieve a string value from cell [1, 1] having type Double",
+            e.getMessage());
+      }
+    }
+  }
+}